@@ -0,0 +1,100 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.Requirements.require;
+import static javaslang.Requirements.requireNonNull;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import javaslang.Requirements.UnsatisfiedRequirementException;
+
+/**
+ * An immutable set of characters, optimized for fast membership tests. The Latin-1 characters {@code 0x00..0xFF} are
+ * stored in a bitset, all other characters in a sorted table of disjoint ranges which is searched binary.
+ */
+final class CharTable implements Serializable {
+
+	private static final long serialVersionUID = -2387425823487598235L;
+
+	static final int LATIN_1_SIZE = 256;
+
+	private final long[] latin1 = new long[LATIN_1_SIZE / 64];
+	private final char[] ranges;
+
+	/**
+	 * Creates a char table of ranges, given as pairs {@code from, to} of inclusive bounds. Ranges may be unsorted and
+	 * may overlap. Empty ranges, i.e. {@code from > to}, are ignored.
+	 *
+	 * @param ranges Pairs of chars.
+	 * @throws UnsatisfiedRequirementException if ranges is null or contains an odd number of chars.
+	 */
+	CharTable(char... ranges) {
+		requireNonNull(ranges, "ranges is null");
+		require(ranges.length % 2 == 0, "odd number of range bounds");
+		final List<char[]> upper = new ArrayList<>();
+		for (int i = 0; i < ranges.length; i += 2) {
+			final char from = ranges[i];
+			final char to = ranges[i + 1];
+			for (int c = from; c <= Math.min(to, LATIN_1_SIZE - 1); c++) {
+				latin1[c >> 6] |= 1L << c;
+			}
+			if (to >= LATIN_1_SIZE && from <= to) {
+				upper.add(new char[] { (char) Math.max(from, LATIN_1_SIZE), to });
+			}
+		}
+		this.ranges = merge(upper);
+	}
+
+	/**
+	 * Tests if this table contains the given char.
+	 *
+	 * @param c A char.
+	 * @return true, if c is contained in this table, false otherwise.
+	 */
+	boolean contains(char c) {
+		if (c < LATIN_1_SIZE) {
+			return (latin1[c >> 6] & (1L << c)) != 0;
+		} else {
+			int low = 0;
+			int high = ranges.length / 2 - 1;
+			while (low <= high) {
+				final int mid = (low + high) >>> 1;
+				if (c < ranges[2 * mid]) {
+					high = mid - 1;
+				} else if (c > ranges[2 * mid + 1]) {
+					low = mid + 1;
+				} else {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	// sorts the ranges and merges overlapping and adjacent ranges
+	private static char[] merge(List<char[]> ranges) {
+		ranges.sort(Comparator.comparingInt(range -> range[0]));
+		final List<char[]> merged = new ArrayList<>();
+		for (char[] range : ranges) {
+			final char[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+			if (last != null && range[0] <= last[1] + 1) {
+				last[1] = (char) Math.max(last[1], range[1]);
+			} else {
+				merged.add(range);
+			}
+		}
+		final char[] result = new char[merged.size() * 2];
+		for (int i = 0; i < merged.size(); i++) {
+			result[2 * i] = merged.get(i)[0];
+			result[2 * i + 1] = merged.get(i)[1];
+		}
+		return result;
+	}
+}
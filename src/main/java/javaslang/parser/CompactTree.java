@@ -0,0 +1,320 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.Requirements.require;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javaslang.collection.Node;
+import javaslang.collection.Tree;
+
+/**
+ * A concrete syntax tree, as returned by {@link Grammar#parseCompact(CharSequence)}, which stores the nodes in
+ * pre-order as parallel primitive arrays: the rule id, start index, length, first child and next sibling. A node takes
+ * 20 bytes, no objects are allocated per node. The nodes are navigated by a {@link Cursor}, e.g.
+ *
+ * <pre>
+ * <code>final Cursor cursor = tree.cursor();
+ * if (cursor.firstChild()) {
+ *     do {
+ *         System.out.println(cursor.getId() + " " + cursor.getValue());
+ *     } while (cursor.nextSibling());
+ * }
+ * </code>
+ * </pre>
+ *
+ * A compact tree is immutable. In contrast to a {@code Tree<Token>} it does not store the extents of the nodes, i.e.
+ * it can not be reparsed after an edit.
+ */
+public final class CompactTree {
+
+	// DEV-NOTE: the id of a token, which has no rule name
+	static final int TOKEN = -1;
+
+	// DEV-NOTE: the index of a missing first child or next sibling
+	static final int NONE = -1;
+
+	private final CharSequence text;
+	private final String[] names;
+	private final int[] ids;
+	private final int[] starts;
+	private final int[] lengths;
+	private final int[] firstChildren;
+	private final int[] nextSiblings;
+	// shared by the tokens of this tree, i.e. they share the line index
+	private final Revision revision;
+
+	CompactTree(CharSequence text, String[] names, int[] ids, int[] starts, int[] lengths, int[] firstChildren,
+			int[] nextSiblings) {
+		this.text = text;
+		this.names = names;
+		this.ids = ids;
+		this.starts = starts;
+		this.lengths = lengths;
+		this.firstChildren = firstChildren;
+		this.nextSiblings = nextSiblings;
+		this.revision = new Revision(text, new LineIndex(text));
+	}
+
+	public CharSequence getText() {
+		return text;
+	}
+
+	/**
+	 * Returns the number of nodes, including the root.
+	 *
+	 * @return The number of nodes.
+	 */
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * Creates a cursor which is positioned at the root.
+	 *
+	 * @return A new cursor.
+	 */
+	public Cursor cursor() {
+		return new Cursor(this);
+	}
+
+	/**
+	 * Converts this tree to a {@code Tree<Token>}, like returned by {@link Grammar#parse(CharSequence)}.
+	 *
+	 * @return A new tree.
+	 */
+	public Tree<Token> toTree() {
+		return toNode(0).asTree();
+	}
+
+	private Token token(String id, int index, int length) {
+		return new Token(id, revision, index, length, TreeBuffer.extent(index, length));
+	}
+
+	private Node<Token> toNode(int node) {
+		final Token token = token(name(node), starts[node], lengths[node]);
+		if (firstChildren[node] == NONE) {
+			return new Node<>(token);
+		} else {
+			final List<Node<Token>> children = new ArrayList<>();
+			for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+				children.add(toNode(child));
+			}
+			return new Node<>(token, children);
+		}
+	}
+
+	private String name(int node) {
+		return (ids[node] == TOKEN) ? null : names[ids[node]];
+	}
+
+	/**
+	 * Returns this tree in LISP format, like {@code Tree<Token>}.
+	 *
+	 * @return A String representation of this tree.
+	 */
+	@Override
+	public String toString() {
+		final String tree = toTree().toString();
+		return getClass().getSimpleName() + tree.substring(Tree.class.getSimpleName().length());
+	}
+
+	/**
+	 * A flyweight which navigates the nodes of a {@link CompactTree}. A cursor is positioned at one node at a time and
+	 * moved to the first child, next sibling or parent of the node. The moves take constant time and allocate nothing,
+	 * except for growing the path of ancestors. A cursor is not thread-safe, but each thread may use its own cursor.
+	 */
+	public static final class Cursor {
+
+		private final CompactTree tree;
+
+		// the ancestors of the current node, the root first
+		private int[] path;
+		private int depth;
+		private int node;
+
+		private Cursor(CompactTree tree) {
+			this.tree = tree;
+			this.path = new int[16];
+			this.depth = 0;
+			this.node = 0;
+		}
+
+		private Cursor(Cursor cursor) {
+			this.tree = cursor.tree;
+			this.path = Arrays.copyOf(cursor.path, cursor.path.length);
+			this.depth = cursor.depth;
+			this.node = cursor.node;
+		}
+
+		/**
+		 * Returns the id of the current node, like {@link Token#getId()}.
+		 *
+		 * @return The rule name of a symbol or null, if the node is a token.
+		 */
+		public String getId() {
+			return tree.name(node);
+		}
+
+		public boolean isToken() {
+			return tree.ids[node] == TOKEN;
+		}
+
+		public boolean isLeaf() {
+			return tree.firstChildren[node] == NONE;
+		}
+
+		public int getStartIndex() {
+			return tree.starts[node];
+		}
+
+		public int getEndIndex() {
+			return tree.starts[node] + tree.lengths[node];
+		}
+
+		public int getLength() {
+			return tree.lengths[node];
+		}
+
+		public String getValue() {
+			return tree.text.subSequence(getStartIndex(), getEndIndex()).toString();
+		}
+
+		/**
+		 * Returns the number of ancestors of the current node.
+		 *
+		 * @return 0, if the cursor is positioned at the root, otherwise the depth of the current node.
+		 */
+		public int getDepth() {
+			return depth;
+		}
+
+		/**
+		 * Creates a token of the current node.
+		 *
+		 * @return A new token.
+		 */
+		public Token getToken() {
+			return tree.token(getId(), getStartIndex(), getLength());
+		}
+
+		/**
+		 * Moves this cursor to the first child of the current node.
+		 *
+		 * @return true, if the cursor moved, false if the current node is a leaf.
+		 */
+		public boolean firstChild() {
+			final int child = tree.firstChildren[node];
+			if (child == NONE) {
+				return false;
+			}
+			if (depth == path.length) {
+				path = Arrays.copyOf(path, depth * 2);
+			}
+			path[depth++] = node;
+			node = child;
+			return true;
+		}
+
+		/**
+		 * Moves this cursor to the next sibling of the current node.
+		 *
+		 * @return true, if the cursor moved, false if the current node is the last child or the root.
+		 */
+		public boolean nextSibling() {
+			final int sibling = tree.nextSiblings[node];
+			if (sibling == NONE) {
+				return false;
+			}
+			node = sibling;
+			return true;
+		}
+
+		/**
+		 * Moves this cursor to the parent of the current node.
+		 *
+		 * @return true, if the cursor moved, false if the current node is the root.
+		 */
+		public boolean parent() {
+			if (depth == 0) {
+				return false;
+			}
+			node = path[--depth];
+			return true;
+		}
+
+		/**
+		 * Creates a cursor which is positioned at the same node, e.g. to remember a node.
+		 *
+		 * @return A new cursor.
+		 */
+		public Cursor copy() {
+			return new Cursor(this);
+		}
+
+		@Override
+		public String toString() {
+			return tree.toNode(node).asTree().toString();
+		}
+	}
+
+	/**
+	 * Collects the nodes of a compact tree.
+	 */
+	static final class Builder {
+
+		private final CharSequence text;
+		private final List<String> names = new ArrayList<>();
+		private final int[] ids;
+		private final int[] starts;
+		private final int[] lengths;
+		private final int[] firstChildren;
+		private final int[] nextSiblings;
+
+		Builder(CharSequence text, int size) {
+			require(size > 0, "size <= 0");
+			this.text = text;
+			this.ids = new int[size];
+			this.starts = new int[size];
+			this.lengths = new int[size];
+			this.firstChildren = new int[size];
+			this.nextSiblings = new int[size];
+			Arrays.fill(firstChildren, NONE);
+			Arrays.fill(nextSiblings, NONE);
+		}
+
+		// DEV-NOTE: the names are the few rule names, which are compared by identity first
+		void node(int node, String name, int start, int length) {
+			int id = TOKEN;
+			if (name != null) {
+				id = names.indexOf(name);
+				if (id < 0) {
+					id = names.size();
+					names.add(name);
+				}
+			}
+			ids[node] = id;
+			starts[node] = start;
+			lengths[node] = length;
+		}
+
+		void firstChild(int node, int child) {
+			firstChildren[node] = child;
+		}
+
+		void nextSibling(int node, int sibling) {
+			nextSiblings[node] = sibling;
+		}
+
+		CompactTree build() {
+			return new CompactTree(text, names.toArray(new String[names.size()]), ids, starts, lengths,
+					firstChildren, nextSiblings);
+		}
+	}
+}
@@ -0,0 +1,400 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javaslang.parser.Parser.Any;
+import javaslang.parser.Parser.Charset;
+import javaslang.parser.Parser.Cut;
+import javaslang.parser.Parser.EOF;
+import javaslang.parser.Parser.Empty;
+import javaslang.parser.Parser.Literal;
+import javaslang.parser.Parser.Negation;
+import javaslang.parser.Parser.Operators;
+import javaslang.parser.Parser.Quantifier;
+import javaslang.parser.Parser.Range;
+import javaslang.parser.Parser.Reference;
+import javaslang.parser.Parser.Rule;
+import javaslang.parser.Parser.RulePart;
+import javaslang.parser.Parser.Sequence;
+import javaslang.parser.Parser.Subrule;
+
+/**
+ * The FIRST sets of the rules of a grammar. The FIRST set of a parser contains the characters a match of the parser may
+ * start with. A parser is nullable, if it may match without consuming a character.
+ * <p>
+ * FIRST sets are used to dispatch rule alternatives: only the alternatives which are nullable or contain the next input
+ * character in their FIRST set are tried. A FIRST set is an over-approximation, it may contain characters which do
+ * not start a match, but all characters which start a match are contained. Only the Latin-1 characters are analyzed,
+ * all alternatives are tried for other characters and at the end of the input. Alternatives which start with literals
+ * of the same first char are further dispatched by a {@link LiteralTrie}.
+ */
+final class FirstSets implements Serializable {
+
+	private static final long serialVersionUID = 3417606329870914402L;
+
+	static final int SIZE = CharTable.LATIN_1_SIZE;
+
+	// DEV-NOTE: rules are identified by name because rule references create new rule instances
+	private final Map<String, First> rules = new HashMap<>();
+	private final boolean complete;
+
+	// the chars whitespace may start with, whitespace is skipped before parser rules and sequence elements
+	private final First whitespace;
+
+	/**
+	 * Computes the FIRST sets of the given rules. Rule references are resolved by a fixpoint iteration, which
+	 * terminates because FIRST sets only grow.
+	 *
+	 * @param rules All rules of a grammar.
+	 * @param whitespace The whitespace of the grammar.
+	 */
+	FirstSets(Set<Rule> rules, Whitespace whitespace) {
+		this.whitespace = First.of(whitespace::mayStartWith);
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (Rule rule : rules) {
+				final First first = of(rule.alternatives, rule.lexical);
+				if (!first.equals(this.rules.get(rule.name))) {
+					this.rules.put(rule.name, first);
+					changed = true;
+				}
+			}
+		}
+		complete = true;
+	}
+
+	/**
+	 * Computes a dispatch table for the given alternatives of a rule or subrule.
+	 *
+	 * @param alternatives Rule parts.
+	 * @param lexicalScope The lexical scope the alternatives are parsed in.
+	 * @return An array which maps each Latin-1 char to the indices of the viable alternatives, in order.
+	 */
+	int[][] dispatchTable(RulePart[] alternatives, boolean lexicalScope) {
+		final First[] firsts = Arrays
+				.stream(alternatives)
+				.map(alternative -> of(alternative, lexicalScope, false))
+				.toArray(First[]::new);
+		final int[][] table = new int[SIZE][];
+		for (char c = 0; c < SIZE; c++) {
+			final int[] indices = new int[firsts.length];
+			int count = 0;
+			for (int i = 0; i < firsts.length; i++) {
+				if (firsts[i].nullable || firsts[i].contains(c)) {
+					indices[count++] = i;
+				}
+			}
+			final int[] viable = Arrays.copyOf(indices, count);
+			// DEV-NOTE: consecutive chars mostly share the same alternatives
+			table[c] = (c > 0 && Arrays.equals(table[c - 1], viable)) ? table[c - 1] : viable;
+		}
+		return table;
+	}
+
+	/**
+	 * Computes a trie of the literals the given alternatives start with. The trie dispatches the alternatives by the
+	 * longest prefix of the input which starts a literal, where the dispatch table only reads the next char, see
+	 * {@link LiteralTrie#viableAlternatives(ParseContext, int)}.
+	 *
+	 * @param alternatives Rule parts.
+	 * @param lexicalScope The lexical scope the alternatives are parsed in.
+	 * @param dispatchTable The dispatch table of the alternatives.
+	 * @return A trie or null, if no two literals start with the same char, i.e. the dispatch table is sufficient.
+	 */
+	LiteralTrie literalTrie(RulePart[] alternatives, boolean lexicalScope, int[][] dispatchTable) {
+		final String[] literals = new String[alternatives.length];
+		final Set<Character> firstChars = new HashSet<>();
+		boolean shared = false;
+		for (int i = 0; i < alternatives.length; i++) {
+			literals[i] = leadingLiteral(alternatives[i]);
+			if (literals[i] != null) {
+				shared |= !firstChars.add(literals[i].charAt(0));
+			}
+		}
+		if (!shared) {
+			return null;
+		}
+		final LiteralTrie trie = new LiteralTrie(literals);
+		final int[] all = all(alternatives.length);
+		trie.dispatch(c -> {
+			final int[] viable = (c < SIZE) ? dispatchTable[c] : all;
+			// DEV-NOTE: a sequence skips whitespace in parser scope, its literal may start after the next char
+			final boolean whitespace = !lexicalScope && (c >= SIZE || this.whitespace.contains((char) c));
+			return Arrays.stream(viable)
+					.filter(i -> literals[i] == null || (whitespace && alternatives[i] instanceof Sequence))
+					.toArray();
+		});
+		return trie;
+	}
+
+	// the literal an alternative starts with or null
+	private static String leadingLiteral(RulePart alternative) {
+		if (alternative instanceof Literal) {
+			return ((Literal) alternative).literal;
+		} else if (alternative instanceof Sequence && ((Sequence) alternative).parsers[0] instanceof Literal) {
+			return ((Literal) ((Sequence) alternative).parsers[0]).literal;
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the indices of the alternatives which may match at the given index.
+	 *
+	 * @param dispatchTable A dispatch table or null.
+	 * @param all The indices of all alternatives.
+	 * @param source The parsed input.
+	 * @param index The current index.
+	 * @return The indices of the viable alternatives.
+	 */
+	static int[] viableAlternatives(int[][] dispatchTable, int[] all, Source source, int index) {
+		if (dispatchTable == null || source.isEnd(index)) {
+			return all;
+		} else {
+			final char c = source.charAt(index);
+			return (c < SIZE) ? dispatchTable[c] : all;
+		}
+	}
+
+	/**
+	 * Returns the indices of the alternatives which may match at the given index, dispatched by the literal trie first
+	 * and by the dispatch table otherwise. A context without FIRST sets does not dispatch, i.e. all alternatives are
+	 * viable.
+	 *
+	 * @param dispatch The dispatch of the alternatives for the FIRST sets of the context or null.
+	 * @param all The indices of all alternatives.
+	 * @param context The parse context.
+	 * @param index The current index.
+	 * @return The indices of the viable alternatives.
+	 */
+	static int[] viableAlternatives(Dispatch dispatch, int[] all, ParseContext context, int index) {
+		if (dispatch == null) {
+			return all;
+		}
+		final int[] viable = (dispatch.literalTrie == null) ? null : dispatch.literalTrie.viableAlternatives(context,
+				index);
+		return (viable != null) ? viable : viableAlternatives(dispatch.dispatchTable, all, context.source, index);
+	}
+
+	/**
+	 * Returns the dispatch of the given alternatives, i.e. the cached dispatch if it was computed for these FIRST sets
+	 * and the given lexical scope, or a new one otherwise.
+	 *
+	 * @param cached A cached dispatch or null.
+	 * @param alternatives Rule parts.
+	 * @param lexicalScope The lexical scope the alternatives are parsed in.
+	 * @return A dispatch of the alternatives.
+	 */
+	Dispatch dispatch(Dispatch cached, RulePart[] alternatives, boolean lexicalScope) {
+		if (cached != null && cached.firstSets == this && cached.lexicalScope == lexicalScope) {
+			return cached;
+		}
+		final int[][] table = dispatchTable(alternatives, lexicalScope);
+		return new Dispatch(this, lexicalScope, table, literalTrie(alternatives, lexicalScope, table));
+	}
+
+	/**
+	 * Checks if the given parser may match without consuming a character.
+	 *
+	 * @param parser A parser.
+	 * @return true, if the parser is nullable, false otherwise.
+	 */
+	boolean isNullable(Parser parser) {
+		return first(parser).nullable;
+	}
+
+	/**
+	 * Returns the FIRST set of the given parser, without the chars whitespace starts with.
+	 *
+	 * @param parser A parser.
+	 * @return The FIRST set of the parser.
+	 */
+	First first(Parser parser) {
+		return of(parser, true, false);
+	}
+
+	/**
+	 * Returns the indices {@code 0, ..., n - 1} of n alternatives.
+	 *
+	 * @param n The number of alternatives.
+	 * @return An array of indices.
+	 */
+	static int[] all(int n) {
+		final int[] indices = new int[n];
+		for (int i = 0; i < n; i++) {
+			indices[i] = i;
+		}
+		return indices;
+	}
+
+	private First of(RulePart[] alternatives, boolean lexicalScope) {
+		final First first = new First();
+		for (RulePart alternative : alternatives) {
+			first.addAll(of(alternative, lexicalScope, false));
+		}
+		return first;
+	}
+
+	private First of(Parser parser, boolean lexicalScope, boolean negated) {
+		if (parser instanceof Any) {
+			// DEV-NOTE: FIRST sets are mutable, each parser gets its own instance
+			return negated ? new First() : First.all();
+		} else if (parser instanceof EOF) {
+			// DEV-NOTE: EOF does not match before the end of the input, where all alternatives are tried
+			return negated ? First.all() : new First();
+		} else if (parser instanceof Charset) {
+			final CharTable inSet = ((Charset) parser).inSet;
+			return First.of(c -> inSet.contains(c) ^ negated);
+		} else if (parser instanceof Range) {
+			final Range range = (Range) parser;
+			return First.of(c -> (range.from <= c && c <= range.to) ^ negated);
+		} else if (parser instanceof Negation) {
+			return of(((Negation) parser).parser, lexicalScope, !negated);
+		} else if (parser instanceof Empty || parser instanceof Cut) {
+			final First first = new First();
+			first.nullable = true;
+			return first;
+		} else if (parser instanceof Literal) {
+			final char c = ((Literal) parser).literal.charAt(0);
+			return First.of(d -> d == c);
+		} else if (parser instanceof Operators) {
+			// DEV-NOTE: an operator expression starts with an operand
+			return of(((Operators) parser).operand, lexicalScope, false);
+		} else if (parser instanceof Quantifier) {
+			final Quantifier quantifier = (Quantifier) parser;
+			final First first = new First();
+			first.addAll(of(quantifier.parser, lexicalScope, false));
+			first.nullable |= quantifier.lowerBound == 0;
+			return first;
+		} else if (parser instanceof Sequence) {
+			final First first = new First();
+			first.nullable = true;
+			for (RulePart part : ((Sequence) parser).parsers) {
+				if (!first.nullable) {
+					break;
+				}
+				final First partFirst = of(part, lexicalScope, false);
+				first.nullable = partFirst.nullable;
+				first.addAll(partFirst);
+			}
+			if (!lexicalScope) {
+				first.addAll(whitespace);
+			}
+			return first;
+		} else if (parser instanceof Subrule) {
+			return of(((Subrule) parser).alternatives, lexicalScope);
+		} else if (parser instanceof Reference) {
+			final First rule = rules.get(((Reference) parser).getRule().name);
+			if (rule == null) {
+				// DEV-NOTE: within the fixpoint iteration a rule is not analyzed yet, otherwise it is unknown
+				final First first = complete ? First.all() : new First();
+				first.nullable = complete;
+				return first;
+			} else {
+				final First first = new First();
+				first.addAll(rule);
+				if (!lexicalScope) {
+					first.addAll(whitespace);
+				}
+				return first;
+			}
+		} else {
+			throw new IllegalStateException("unknown parser: " + parser.getClass().getName());
+		}
+	}
+
+	/**
+	 * The dispatch table and literal trie of the alternatives of a rule or subrule. The FIRST sets depend on the
+	 * whitespace of a grammar and a sequence skips whitespace in parser scope only. A rule graph may be shared by
+	 * grammars and a subrule may be reached from both scopes, therefore a dispatch is keyed by the FIRST sets and the
+	 * lexical scope it was computed for.
+	 */
+	static final class Dispatch implements Serializable {
+
+		private static final long serialVersionUID = 5329084573648917106L;
+
+		final FirstSets firstSets;
+		final boolean lexicalScope;
+		final int[][] dispatchTable;
+		final LiteralTrie literalTrie;
+
+		Dispatch(FirstSets firstSets, boolean lexicalScope, int[][] dispatchTable, LiteralTrie literalTrie) {
+			this.firstSets = firstSets;
+			this.lexicalScope = lexicalScope;
+			this.dispatchTable = dispatchTable;
+			this.literalTrie = literalTrie;
+		}
+	}
+
+	/**
+	 * The FIRST set of a parser.
+	 */
+	static final class First implements Serializable {
+
+		private static final long serialVersionUID = -6510237567946395624L;
+
+		final long[] chars = new long[SIZE / 64];
+		boolean nullable;
+
+		static First all() {
+			return of(c -> true);
+		}
+
+		static First of(CharPredicate predicate) {
+			final First first = new First();
+			for (char c = 0; c < SIZE; c++) {
+				if (predicate.test(c)) {
+					first.chars[c >> 6] |= 1L << c;
+				}
+			}
+			return first;
+		}
+
+		boolean contains(char c) {
+			return (chars[c >> 6] & (1L << c)) != 0;
+		}
+
+		void addAll(First that) {
+			for (int i = 0; i < chars.length; i++) {
+				chars[i] |= that.chars[i];
+			}
+			nullable |= that.nullable;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (o == this) {
+				return true;
+			} else if (!(o instanceof First)) {
+				return false;
+			} else {
+				final First that = (First) o;
+				return this.nullable == that.nullable && Arrays.equals(this.chars, that.chars);
+			}
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * Arrays.hashCode(chars) + Boolean.hashCode(nullable);
+		}
+	}
+
+	/**
+	 * A primitive char predicate.
+	 */
+	@FunctionalInterface
+	static interface CharPredicate {
+		boolean test(char c);
+	}
+}
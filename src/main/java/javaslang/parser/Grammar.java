@@ -5,30 +5,39 @@
  */
 package javaslang.parser;
 
+import static javaslang.Requirements.require;
 import static javaslang.Requirements.requireNonNull;
 
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import javaslang.Strings;
+import javaslang.Requirements.UnsatisfiedRequirementException;
+import javaslang.collection.Node;
 import javaslang.collection.Tree;
 import javaslang.monad.Either;
 import javaslang.monad.Failure;
+import javaslang.monad.Left;
+import javaslang.monad.Right;
 import javaslang.monad.Success;
 import javaslang.monad.Try;
 import javaslang.parser.Parser.Any;
 import javaslang.parser.Parser.Charset;
+import javaslang.parser.Parser.Cut;
 import javaslang.parser.Parser.EOF;
 import javaslang.parser.Parser.Empty;
 import javaslang.parser.Parser.HasChildren;
 import javaslang.parser.Parser.Literal;
 import javaslang.parser.Parser.NegatableRulePart;
 import javaslang.parser.Parser.Negation;
-import javaslang.parser.Parser.ParseResult;
+import javaslang.parser.Parser.Operators;
+import javaslang.parser.Parser.Operators.Level;
 import javaslang.parser.Parser.Quantifier;
 import javaslang.parser.Parser.Range;
 import javaslang.parser.Parser.Reference;
@@ -88,8 +97,15 @@ public abstract class Grammar {
 	public static final Any ANY = Any.INSTANCE;
 	public static final EOF EOF = Parser.EOF.INSTANCE;
 	public static final Empty ε = Empty.INSTANCE;
+	public static final Cut CUT = Cut.INSTANCE;
 
-	private final String name;
+	final String name;
+
+	// lazily analyzed on the first parse, a concurrent analysis computes the same result
+	private volatile FirstSets firstSets;
+	private volatile LeftRecursion leftRecursion;
+	private volatile SyncSets syncSets;
+	private volatile Lexer lexer;
 
 	// DEV-NOTE: the startRule is not passed to the constructor in order to have non-static references to methods,
 	//           i.e. `this::rule` instead of `Grammar::rule`. 
@@ -126,36 +142,491 @@ public abstract class Grammar {
 	protected abstract Rule getStartRule();
 
 	/**
-	 * TODO: javadoc
+	 * Defines which rule results are cached during a parse run. Packrat parsing, i.e. memoizing all rules, makes the
+	 * parse time linear in the length of the input at the cost of memory. Override this method to enable memoization.
+	 * 
+	 * @return The memoization mode of this grammar, {@link Memoization#NONE} by default.
+	 */
+	protected Memoization getMemoization() {
+		return Memoization.NONE;
+	}
+
+	/**
+	 * Defines the whitespace which is skipped within parser rules. Override this method to change the whitespace
+	 * characters or to skip comments.
+	 * 
+	 * @return The whitespace of this grammar, {@link Whitespace#DEFAULT} by default.
+	 */
+	protected Whitespace getWhitespace() {
+		return Whitespace.DEFAULT;
+	}
+
+	/**
+	 * Defines the delimiter of records, which is used to split the input of {@link #parseParallel(CharSequence)}.
+	 * Override this method if the start rule is a repetition of records, like {@code root : record* EOF}, and records
+	 * are terminated by a delimiter which does not occur within records, e.g. a line feed for JSON lines.
+	 * 
+	 * @return The record delimiter of this grammar, null by default, i.e. records are not split.
+	 */
+	protected String getRecordDelimiter() {
+		return null;
+	}
+
+	/**
+	 * Defines the tokens at which a parse with error recovery resumes after a syntax error within the given parser
+	 * rule, see {@link #parseWithRecovery(CharSequence, int, Consumer)}. Override this method to synchronize at
+	 * specific tokens, e.g. at the keywords statements start with, instead of at the chars of the FOLLOW set of the
+	 * rule.
+	 * 
+	 * @param rule The name of a parser rule.
+	 * @return The synchronization tokens of the rule, null by default, i.e. the rule synchronizes at its FOLLOW set.
+	 */
+	protected String[] getSynchronizationTokens(String rule) {
+		return null;
+	}
+
+	/**
+	 * Returns the FIRST sets of the rules of this grammar, which are used to dispatch rule alternatives.
+	 * 
+	 * @return The FIRST sets.
+	 */
+	FirstSets getFirstSets() {
+		if (firstSets == null) {
+			firstSets = new FirstSets(findRules(getStartRule()), getWhitespace());
+		}
+		return firstSets;
+	}
+
+	/**
+	 * Returns the left-recursive rules of this grammar, which grow a seed instead of calling themselves infinitely.
+	 * 
+	 * @return The left recursion analysis.
+	 * @throws UnsatisfiedRequirementException if left-recursive rules have no rule which is part of all their cycles.
+	 */
+	LeftRecursion getLeftRecursion() {
+		if (leftRecursion == null) {
+			leftRecursion = new LeftRecursion(findRules(getStartRule()), getFirstSets());
+		}
+		return leftRecursion;
+	}
+
+	/**
+	 * Returns the synchronization sets of the parser rules of this grammar, which are used to recover from syntax
+	 * errors.
+	 * 
+	 * @return The synchronization sets.
+	 * @throws UnsatisfiedRequirementException if a synchronization token is null or empty.
+	 */
+	SyncSets getSyncSets() {
+		if (syncSets == null) {
+			syncSets = new SyncSets(findRules(getStartRule()), getFirstSets(), getWhitespace(),
+					this::getSynchronizationTokens);
+		}
+		return syncSets;
+	}
+
+	/**
+	 * Returns the tokenizer of this grammar, which is generated from its lexical rules.
+	 * 
+	 * @return The lexer.
+	 */
+	Lexer getLexer() {
+		if (lexer == null) {
+			lexer = new Lexer(this);
+		}
+		return lexer;
+	}
+
+	/**
+	 * Parses the given text, starting with the start rule of this grammar. The failure only reports the index at which
+	 * the start rule failed, see {@link #parseEither(CharSequence)} for a detailed description of a failure.
 	 * 
 	 * @param text A text input to be parsed.
 	 * @return A concrete syntax tree of the text on parse success or a failure if a parse error occured.
 	 */
-	// TODO: return Either instead of Try, where Right is the CST/parse tree and Left is a detailed ParseFailure description
-	public Try<Tree<Token>> parse(String text) {
+	public Try<Tree<Token>> parse(CharSequence text) {
 		requireNonNull(text, "text is null");
-		// TODO: simplify API: List<Node<Token>> vs ParseResult
-		final Either<Integer, ParseResult> parseResult = getStartRule().parse(text, 0, false);
-		if (parseResult.isRight()) {
-			// DEV-NODE: a Rule returns a CST with one node => head() is result
-			final Tree<Token> concreteSyntaxTree = parseResult.get().tokens.get(0).asTree();
+		return parse(new ParseContext(this, Source.of(text), null));
+	}
+
+	/**
+	 * Parses the given text like {@link #parse(CharSequence)}, but describes a failure in detail, i.e. by the farthest
+	 * index of failure, the expected terminals and the stack of parser rules, see {@link ParseFailure}.
+	 * <p>
+	 * A successful parse costs the same as {@code parse(text)}. The details of a failure are collected by parsing the
+	 * text again, where all alternatives of a choice are tried and the terminals report their failures.
+	 * 
+	 * @param text A text input to be parsed.
+	 * @return Right, containing the concrete syntax tree of the text, or Left, containing the failure.
+	 */
+	public Either<ParseFailure, Tree<Token>> parseEither(CharSequence text) {
+		requireNonNull(text, "text is null");
+		final Source source = Source.of(text);
+		final ParseContext context = new ParseContext(this, source, null);
+		if (getStartRule().parse(context, 0, false) >= 0) {
+			return new Right<>(context.tree.toNodes(text, 0).get(0).asTree());
+		} else {
+			final ParseFailure.Recorder recorder = new ParseFailure.Recorder();
+			final int result = getStartRule().parse(new ParseContext(this, source, recorder, false), 0, false);
+			return new Left<>(recorder.toFailure(text, Parser.failedIndex(result)));
+		}
+	}
+
+	/**
+	 * Parses the given text like {@link #parse(CharSequence)} and reports the parse events to the given listener, e.g.
+	 * for debugging a grammar.
+	 * 
+	 * @param text A text input to be parsed.
+	 * @param listener A listener which is notified of parse events.
+	 * @return A concrete syntax tree of the text on parse success or a failure if a parse error occured.
+	 */
+	public Try<Tree<Token>> parse(CharSequence text, ParseListener listener) {
+		requireNonNull(text, "text is null");
+		requireNonNull(listener, "listener is null");
+		return parse(new ParseContext(this, Source.of(text), listener));
+	}
+
+	/**
+	 * Tokenizes the given text once, before parsing. The token types are the lexical rules and the literals of the
+	 * parser rules. Whitespace and chars which do not start a token are skipped, i.e. tokenizing does not fail.
+	 * <p>
+	 * A scannerless parse applies lexical rules again on backtracking. A parse of the tokens takes the result of a
+	 * lexical rule from the tokens instead, if a token of the rule starts at the current index. The token stream may
+	 * be cached and parsed repeatedly:
+	 *
+	 * <pre>
+	 * <code>
+	 * final TokenStream tokens = grammar.tokenize(text);
+	 * final Try&lt;Tree&lt;Token&gt;&gt; cst = grammar.parse(tokens);
+	 * </code>
+	 * </pre>
+	 * 
+	 * @param text A text input to be tokenized.
+	 * @return The tokens of the text.
+	 * @throws UnsatisfiedRequirementException if text is null.
+	 */
+	public TokenStream tokenize(CharSequence text) {
+		requireNonNull(text, "text is null");
+		return getLexer().tokenize(text);
+	}
+
+	/**
+	 * Parses the text of the given tokens. The result equals {@code parse(tokens.getText())}.
+	 * 
+	 * @param tokens The tokens of a text, as returned by {@link #tokenize(CharSequence)} of this grammar.
+	 * @return A concrete syntax tree of the text on parse success or a failure if a parse error occured.
+	 * @throws UnsatisfiedRequirementException if tokens is null or was tokenized by another grammar.
+	 */
+	public Try<Tree<Token>> parse(TokenStream tokens) {
+		requireNonNull(tokens, "tokens is null");
+		require(tokens.grammar == this, "tokens of another grammar");
+		return parse(new ParseContext(this, tokens, null));
+	}
+
+	/**
+	 * Parses the given text like {@link #parse(CharSequence)}, splitting it into chunks which are parsed in parallel.
+	 * The chunks are split after a {@link #getRecordDelimiter() record delimiter}. If this grammar does not define a
+	 * record delimiter, the text is parsed sequentially.
+	 * 
+	 * @param text A text input to be parsed.
+	 * @return A concrete syntax tree of the text on parse success or a failure if a parse error occured.
+	 * @see #parseParallel(CharSequence, int[])
+	 */
+	public Try<Tree<Token>> parseParallel(CharSequence text) {
+		requireNonNull(text, "text is null");
+		final String delimiter = getRecordDelimiter();
+		if (delimiter == null) {
+			return parse(text);
+		} else {
+			final int chunkCount = ParallelParse.chunkCount(text.length());
+			return parseParallel(text, ParallelParse.split(Source.of(text), text.length(), delimiter, chunkCount));
+		}
+	}
+
+	/**
+	 * Parses the given text like {@link #parse(CharSequence)}, splitting it at the given record boundaries into chunks
+	 * which are parsed in parallel on the common {@link java.util.concurrent.ForkJoinPool}. The result equals
+	 * {@code parse(text)}.
+	 * <p>
+	 * The start rule of this grammar has to be a repetition of records, like {@code root : record* EOF} or
+	 * {@code root : record+}. Boundaries are the start indices of records, not all record starts need to be given. The
+	 * boundaries are thinned out to a number of chunks which suits the parallelism of the pool.
+	 * <p>
+	 * The text is parsed sequentially if the start rule is not a repetition of records, if a boundary is not the start
+	 * of a record or if the text does not match. In the latter case the failure is the same as that of
+	 * {@code parse(text)}.
+	 * 
+	 * @param text A text input to be parsed.
+	 * @param boundaries Start indices of records in ascending order.
+	 * @return A concrete syntax tree of the text on parse success or a failure if a parse error occured.
+	 * @throws UnsatisfiedRequirementException if text or boundaries is null, the boundaries are not ascending or not
+	 *             within the text.
+	 */
+	public Try<Tree<Token>> parseParallel(CharSequence text, int[] boundaries) {
+		requireNonNull(text, "text is null");
+		requireNonNull(boundaries, "boundaries is null");
+		for (int i = 0; i < boundaries.length; i++) {
+			final int boundary = boundaries[i];
+			require(0 <= boundary && boundary <= text.length(), () -> "boundary out of bounds: " + boundary);
+			require(i == 0 || boundaries[i - 1] <= boundary, "boundaries are not ascending");
+		}
+		final ParallelParse parallelParse = ParallelParse.of(this);
+		if (parallelParse != null) {
+			final int chunkCount = ParallelParse.chunkCount(text.length());
+			final Tree<Token> tree = parallelParse.parse(text, ParallelParse.select(boundaries, text.length(),
+					chunkCount));
+			if (tree != null) {
+				return new Success<>(tree);
+			}
+		}
+		return parse(text);
+	}
+
+	/**
+	 * Parses an edited text incrementally. The parse tree of the text before the edit is reused: rule applications
+	 * which did not examine the edited region are not repeated, instead their subtrees become part of the result as
+	 * they are, i.e. they are the same {@code Node} instances. Only the rules enclosing the edit are applied again and
+	 * only their nodes are built, i.e. the parse effort is proportional to the nodes enclosing the edit and their
+	 * children rather than to the size of the text.
+	 * <p>
+	 * The tokens of a reused subtree are not copied. They are shifted lazily by the length difference of the edit,
+	 * see {@link Token#getStartIndex()}. Therefore the given tree is consumed by a successful reparse: its nodes
+	 * refer to the edited text afterwards, only the result should be used and reparsed again.
+	 * <p>
+	 * The result equals {@code parse(editedText).get().asNode()}, where the edited text is the text of the given tree
+	 * with {@code removedLength} chars at {@code offset} replaced by {@code insertedText}.
+	 * <p>
+	 * Example: an editor reparsing a document on each keystroke
+	 *
+	 * <pre>
+	 * <code>
+	 * Node&lt;Token&gt; cst = grammar.parse(document).get().asNode();
+	 * // the user replaces 3 chars at offset 42 with "foo"
+	 * cst = grammar.reparse(cst, 42, 3, "foo").get();
+	 * </code>
+	 * </pre>
+	 * 
+	 * @param tree The parse tree of the text before the edit, as returned by {@link #parse(CharSequence)} and
+	 *            converted to a {@code Node}, or by this method.
+	 * @param offset The start index of the edit.
+	 * @param removedLength The number of removed chars.
+	 * @param insertedText The inserted text, which may be empty.
+	 * @return A concrete syntax tree of the edited text on parse success or a failure if a parse error occured. The
+	 *         given tree is not changed on failure.
+	 * @throws UnsatisfiedRequirementException if tree or insertedText is null, the edited region is not within the
+	 *             text or the tree was already consumed by a reparse.
+	 */
+	public Try<Node<Token>> reparse(Node<Token> tree, int offset, int removedLength, CharSequence insertedText) {
+		requireNonNull(tree, "tree is null");
+		requireNonNull(insertedText, "insertedText is null");
+		require(tree.getValue().isLatest(), "tree was already reparsed");
+		final Revision previous = tree.getValue().revision();
+		final CharSequence text = previous.text;
+		require(0 <= offset && offset <= text.length(), () -> "offset out of bounds: " + offset);
+		require(0 <= removedLength && offset + removedLength <= text.length(),
+				() -> String.format("(offset + removedLength) exceeds text: (%s + %s)", offset, removedLength));
+		final String editedText = new StringBuilder(text.length() - removedLength + insertedText.length())
+				.append(text, 0, offset)
+				.append(insertedText)
+				.append(text, offset + removedLength, text.length())
+				.toString();
+		final ReuseTable reusable = new ReuseTable(tree, offset, removedLength, insertedText.length());
+		final ParseContext context = new ParseContext(this, Source.of(editedText), null, reusable);
+		final int result = getStartRule().parse(context, 0, false);
+		if (result >= 0) {
+			// DEV-NOTE: the reused subtrees are mapped to the edited text by linking the revisions
+			final Revision revision = new Revision(editedText, null);
+			previous.edit(offset + removedLength, insertedText.length() - removedLength, revision);
+			return new Success<>(context.tree.toNodes(revision, 0).get(0));
+		} else {
+			return new Failure<>(failure(editedText, result));
+		}
+	}
+
+	/**
+	 * Parses a sequence of records, each matching the start rule, which are read from the given reader. The input is
+	 * read on demand and released after each record, i.e. the memory needed is bounded by the size of the largest
+	 * record instead of the size of the whole input. Whitespace between records is skipped.
+	 * <p>
+	 * Example: parsing a stream of JSON values
+	 *
+	 * <pre>
+	 * <code>
+	 * try (Reader reader = Files.newBufferedReader(path)) {
+	 *     final Try&lt;Integer&gt; count = new JSONGrammar().parseEach(reader, cst -&gt; process(cst));
+	 * }
+	 * </code>
+	 * </pre>
+	 *
+	 * The reader is not closed by this method.
+	 * 
+	 * @param reader A reader.
+	 * @param action An action which consumes the concrete syntax tree of each record.
+	 * @return The number of parsed records on success or a failure if a parse error or an I/O error occured.
+	 */
+	public Try<Integer> parseEach(Reader reader, Consumer<? super Tree<Token>> action) {
+		requireNonNull(reader, "reader is null");
+		requireNonNull(action, "action is null");
+		final ReaderSource source = new ReaderSource(reader);
+		final Whitespace whitespace = getWhitespace();
+		try {
+			int count = 0;
+			int index = whitespace.skip(source, 0);
+			while (!source.isEnd(index)) {
+				final ParseContext context = new ParseContext(this, source, null);
+				final int result = getStartRule().parse(context, index, false);
+				if (result < 0) {
+					return new Failure<>(new IllegalArgumentException("cannot parse input at "
+							+ source.lineAndColumn(Parser.failedIndex(result))));
+				} else if (result == index) {
+					// DEV-NOTE: otherwise the start rule would match infinitely often
+					return new Failure<>(new IllegalArgumentException("empty record at "
+							+ source.lineAndColumn(index)));
+				}
+				final CharSequence text = source.snapshot(index, result);
+				final LineIndex lines = source.lineIndex(text, index);
+				action.accept(context.tree.toNodes(text, lines, 0).get(0).asTree());
+				count++;
+				source.release(result);
+				index = whitespace.skip(source, result);
+			}
+			return new Success<>(count);
+		} catch (UncheckedIOException x) {
+			return new Failure<>(x.getCause());
+		}
+	}
+
+	private Try<Tree<Token>> parse(ParseContext context) {
+		final CharSequence text = context.source.text();
+		final int result = getStartRule().parse(context, 0, false);
+		if (result >= 0) {
+			// DEV-NODE: a Rule returns a CST with one node => head() is result. The tree is built once, after parsing.
+			final Tree<Token> concreteSyntaxTree = context.tree.toNodes(text, 0).get(0).asTree();
 			return new Success<>(concreteSyntaxTree);
 		} else {
-			final int index = parseResult.left().get();
-			return new Failure<>(new IllegalArgumentException("cannot parse input at "
-					+ Strings.lineAndColumn(text, index)));
+			return new Failure<>(failure(text, result));
 		}
 	}
 
+	/**
+	 * Parses the given text like {@link #parse(CharSequence)}, but returns the concrete syntax tree as
+	 * {@link CompactTree}, which stores the nodes in primitive arrays instead of one {@code Tree} and {@code Token}
+	 * per node, e.g. for large inputs.
+	 * 
+	 * @param text A text input to be parsed.
+	 * @return A compact concrete syntax tree of the text on parse success or a failure if a parse error occured.
+	 */
+	public Try<CompactTree> parseCompact(CharSequence text) {
+		requireNonNull(text, "text is null");
+		final ParseContext context = new ParseContext(this, Source.of(text), null);
+		final int result = getStartRule().parse(context, 0, false);
+		if (result >= 0) {
+			return new Success<>(context.tree.toCompactTree(text));
+		} else {
+			return new Failure<>(failure(text, result));
+		}
+	}
+
+	/**
+	 * Parses the given text like {@link #parse(CharSequence)}, but recovers from syntax errors, e.g. to validate a
+	 * document and report all of its errors at once:
+	 * 
+	 * <pre>
+	 * <code>
+	 * final List&lt;SyntaxError&gt; errors = new ArrayList&lt;&gt;();
+	 * final Try&lt;Tree&lt;Token&gt;&gt; cst = grammar.parseWithRecovery(document, 100, errors::add);
+	 * </code>
+	 * </pre>
+	 * 
+	 * A text without errors is parsed once and yields the same tree as {@code parse(text)}. Otherwise the text is
+	 * parsed again from the start, which equals the first parse up to the first error. When a parser rule fails and
+	 * each enclosing rule or subrule is committed to one alternative, i.e. no other alternative matches the start of
+	 * the input, the rule skips the input up to its next synchronization token. Its node then contains an error node,
+	 * which spans the text from the start of the rule up to the synchronization token, and the parse continues. The
+	 * synchronization tokens of a rule are the chars of its FOLLOW set by default, see
+	 * {@link #getSynchronizationTokens(String)}.
+	 * <p>
+	 * A rule within a quantifier recovers too, if it already matched a part of the input or if it cannot be followed by
+	 * the char it failed at. Therefore an error within a repetition of records or statements is recovered by the rule
+	 * of the record, which is the typical use case of bulk validation. A cut makes the errors within the rules of the
+	 * committed alternative recoverable, because the other alternatives are not tried anymore.
+	 * 
+	 * @param text A text input to be parsed.
+	 * @param maxErrors The maximum number of errors which are recovered.
+	 * @param action A consumer of the recovered errors, which is called in order of their recovery.
+	 * @return A concrete syntax tree of the text, which contains the error nodes, or a failure if an error could not be
+	 *         recovered or the text contains more than {@code maxErrors} errors.
+	 */
+	public Try<Tree<Token>> parseWithRecovery(CharSequence text, int maxErrors, Consumer<? super SyntaxError> action) {
+		requireNonNull(text, "text is null");
+		require(maxErrors >= 0, "maxErrors < 0");
+		requireNonNull(action, "action is null");
+		final Source source = Source.of(text);
+		final ParseContext context = new ParseContext(this, source, null);
+		final int result = getStartRule().parse(context, 0, false);
+		if (result >= 0) {
+			return new Success<>(context.tree.toNodes(text, 0).get(0).asTree());
+		} else {
+			return parse(new ParseContext(this, source, Parser.failedIndex(result), maxErrors, action));
+		}
+	}
+
+	private static IllegalArgumentException failure(CharSequence text, int result) {
+		final int index = Parser.failedIndex(result);
+		return new IllegalArgumentException("cannot parse input at " + new LineIndex(text).lineAndColumn(index));
+	}
+
+	/**
+	 * Creates a recognizer of the language of this grammar. The rule graph is traversed once and each rule is
+	 * translated to a recognizer which tests characters directly and resolves rule references once.
+	 * <p>
+	 * The recognizer builds no parse tree, it only checks if a text matches, see
+	 * {@link GrammarRecognizer#matches(CharSequence)}. Parse trees are built by the {@code parse} methods of this
+	 * grammar.
+	 * 
+	 * @return A new {@link GrammarRecognizer} which recognizes the same language as this grammar.
+	 * @throws UnsatisfiedRequirementException if a lexical rule references a parser rule.
+	 */
+	public GrammarRecognizer recognizer() {
+		return new GrammarRecognizer(this);
+	}
+
+	/**
+	 * Optimizes the rule graph of this grammar. The rule references are resolved once, nested sequences and subrules
+	 * are flattened, adjacent literals of lexical rules are merged, quantifiers {@code {1}} are removed and equal rule
+	 * parts are shared. The optimized grammar parses the same language and yields the same parse trees.
+	 * <p>
+	 * In contrast to this grammar, which may create its rules on each parse, the optimized grammar is immutable and
+	 * fully analyzed. It is built once and may be shared by threads which parse concurrently.
+	 * 
+	 * @return A new {@link OptimizedGrammar} which parses the same language as this grammar.
+	 * @throws UnsatisfiedRequirementException if a rule never matches or an alternative is never tried, because a
+	 *             previous alternative always matches.
+	 */
+	public OptimizedGrammar optimize() {
+		return new OptimizedGrammar(this);
+	}
+
 	@Override
 	public String toString() {
+		final Set<Rule> rules = findRules(getStartRule());
+		return "grammar " + name + " ;\n\n" + rules.stream().map(Object::toString).collect(Collectors.joining("\n\n"));
+	}
+
+	/**
+	 * Collects all rules which are transitively referenced by the given start rule.
+	 * 
+	 * @param startRule A start rule.
+	 * @return The rules in order of their first occurrence, starting with startRule.
+	 */
+	static Set<Rule> findRules(Rule startRule) {
 		final Set<Parser> visited = new HashSet<>();
 		final Set<Rule> rules = new LinkedHashSet<>();
-		findRules(visited, rules, getStartRule());
-		return "grammar " + name + " ;\n\n" + rules.stream().map(Object::toString).collect(Collectors.joining("\n\n"));
+		findRules(visited, rules, startRule);
+		return rules;
 	}
 
-	private void findRules(Set<Parser> visited, Set<Rule> rules, Parser parser) {
+	private static void findRules(Set<Parser> visited, Set<Rule> rules, Parser parser) {
 		if (!visited.contains(parser)) {
 			visited.add(parser);
 			if (parser instanceof Rule) {
@@ -192,6 +663,56 @@ public abstract class Grammar {
 		return new Rule(name, alternatives);
 	}
 
+	/**
+	 * Creates a rule which parses binary operator expressions by precedence climbing, e.g.
+	 * 
+	 * <pre>
+	 * <code>
+	 * // expr : expr ( '*' | '/' ) expr | expr ( '+' | '-' ) expr | NUMBER ;
+	 * Rule expr() {
+	 *     return operators("expr", ref(this::NUMBER), level(LEFT, "+", "-"), level(LEFT, "*", "/"));
+	 * }
+	 * </code>
+	 * </pre>
+	 * 
+	 * Nested binary expressions get nodes named like the rule, associated according to the precedence and the
+	 * associativity of the operators. Prefix and postfix operators are part of the operand.
+	 * 
+	 * @param name Rule name.
+	 * @param operand The operand of the operators.
+	 * @param levels Operator levels, ordered by increasing precedence.
+	 * @return A new {@link Rule}.
+	 */
+	@SafeVarargs
+	public static Rule operators(String name, RulePart operand, Level... levels) {
+		return new Rule(name, new Operators(name, operand, levels));
+	}
+
+	/**
+	 * Shortcut for {@code new Level(associativity, operators)}, a precedence level of
+	 * {@link #operators(String, RulePart, Level...)}.
+	 * 
+	 * @param associativity The associativity of the operators.
+	 * @param operators Binary operators of the same precedence.
+	 * @return A new {@link Level}.
+	 */
+	public static Level level(Associativity associativity, String... operators) {
+		return new Level(associativity, operators);
+	}
+
+	/**
+	 * Shortcut for {@code new Rule(name, true, alternatives)}, a rule which is marked as expensive. The results of
+	 * marked rules are cached if the grammar uses {@link Memoization#MARKED_RULES}.
+	 * 
+	 * @param name Rule name.
+	 * @param alternatives Rule alternatives.
+	 * @return A new, memoized {@link Rule}.
+	 */
+	@SafeVarargs
+	public static Rule memoized(String name, RulePart... alternatives) {
+		return new Rule(name, true, alternatives);
+	}
+
 	/**
 	 * Shortcut for {@code new Subrule(alternatives)}.
 	 * 
@@ -339,4 +860,47 @@ public abstract class Grammar {
 	public static RulePart list(RulePart parser, String delimiter, String prefix, String suffix) {
 		return seq(str(prefix), _0_1(parser, _0_n(str(delimiter), parser)), str(suffix));
 	}
+
+	/**
+	 * The associativity of binary operators of the same precedence, see
+	 * {@link Grammar#level(Associativity, String...)}.
+	 */
+	public static enum Associativity {
+
+		/**
+		 * {@code a - b - c} is parsed as {@code (a - b) - c}.
+		 */
+		LEFT,
+
+		/**
+		 * {@code a ^ b ^ c} is parsed as {@code a ^ (b ^ c)}.
+		 */
+		RIGHT
+	}
+
+	// -- configuration
+
+	/**
+	 * Memoization modes of a grammar. The parse results of rules are cached per index for the duration of one
+	 * {@link Grammar#parse(CharSequence)} call.
+	 */
+	public static enum Memoization {
+
+		/**
+		 * No parse results are cached. Parsing may take exponential time on backtracking.
+		 */
+		NONE,
+
+		/**
+		 * The parse results of all rules are cached (packrat parsing). Parsing takes linear time, memory consumption
+		 * grows with the number of rules times the length of the input.
+		 */
+		ALL_RULES,
+
+		/**
+		 * Only the parse results of rules marked as expensive, see {@link Grammar#memoized(String, RulePart...)}, are
+		 * cached. This keeps the memory consumption predictable on large inputs.
+		 */
+		MARKED_RULES
+	}
 }
@@ -0,0 +1,512 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.Requirements.require;
+import static javaslang.Requirements.requireNonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javaslang.IO;
+import javaslang.collection.Tree;
+import javaslang.monad.Failure;
+import javaslang.monad.Success;
+import javaslang.monad.Try;
+import javaslang.parser.Grammar.Associativity;
+import javaslang.parser.Parser.Literal;
+import javaslang.parser.Parser.NegatableRulePart;
+import javaslang.parser.Parser.Negation;
+import javaslang.parser.Parser.Operators.Level;
+import javaslang.parser.Parser.Quantifier;
+import javaslang.parser.Parser.Range;
+import javaslang.parser.Parser.Reference;
+import javaslang.parser.Parser.Rule;
+import javaslang.parser.Parser.RulePart;
+import javaslang.parser.Parser.Sequence;
+import javaslang.parser.Parser.Subrule;
+
+/**
+ * Loads grammars which are written in grammar notation, i.e. the notation of {@link Grammar#toString()}, e.g.
+ *
+ * <pre>
+ * <code>grammar Keyword ;
+ *
+ * // the first rule is the start rule
+ * statements : statement ( ';' statement )* EOF ;
+ *
+ * statement : 'select' NUMBER | 'drop' | ID ;
+ *
+ * NUMBER : [0-9]+ ;
+ *
+ * ID : [a-z]+ ;
+ * </code>
+ * </pre>
+ *
+ * Rules starting with an upper case letter are lexical rules. Line comments and block comments are skipped like
+ * whitespace. The notation is defined by {@link JavaslangGrammar}.
+ * <p>
+ * A rule whose alternatives, except the last, are binary expressions of the rule parses operators by precedence, see
+ * {@link Grammar#operators(String, RulePart, Level...)}. The binary alternatives are ordered by decreasing precedence,
+ * right-associative operators are marked:
+ *
+ * <pre>
+ * <code>expr : &lt;assoc=right&gt; expr '^' expr | expr ( '*' | '/' ) expr | expr ( '+' | '-' ) expr | NUMBER ;</code>
+ * </pre>
+ *
+ * A loaded grammar is optimized, see {@link Grammar#optimize()}. It uses the default memoization, whitespace and
+ * record delimiter of {@link Grammar}.
+ */
+public final class GrammarLoader {
+
+	// DEV-NOTE: the notation is parsed concurrently by one optimized grammar
+	private static final OptimizedGrammar NOTATION = new JavaslangGrammar().optimize();
+
+	private static final String CACHE_FILE_SUFFIX = ".ser";
+
+	/**
+	 * This class is not intended to be instantiated.
+	 */
+	private GrammarLoader() {
+		throw new AssertionError(GrammarLoader.class.getName() + " is not intended to be instantiated.");
+	}
+
+	/**
+	 * Loads a grammar from the given text in grammar notation.
+	 *
+	 * @param text A grammar definition.
+	 * @return The optimized grammar or a failure, if the text is not a valid grammar.
+	 * @throws javaslang.Requirements.UnsatisfiedRequirementException if text is null.
+	 */
+	public static Try<OptimizedGrammar> load(CharSequence text) {
+		requireNonNull(text, "text is null");
+		return NOTATION.parse(text).map(tree -> new Builder().grammar(tree).optimize());
+	}
+
+	/**
+	 * Loads a UTF-8 encoded grammar file and caches the loaded grammar in the given directory.
+	 * <p>
+	 * The cache file is named by the SHA-256 hash of the file content, i.e. an edited grammar file gets a new cache
+	 * file. If the cache file exists, the grammar is deserialized from it, including the optimized rule graph and its
+	 * analysis. The grammar is not parsed, optimized or analyzed again. A cache file which cannot be read, e.g. because
+	 * it was written by an incompatible version of this library, is replaced.
+	 * <p>
+	 * A cache file is written to a temporary file first and then moved atomically, i.e. processes may share a cache
+	 * directory. Cache files of previous versions of a grammar file are not deleted.
+	 *
+	 * @param file A grammar file.
+	 * @param cacheDirectory The directory of the cache files, which is created if it does not exist.
+	 * @return The optimized grammar or a failure, if the file is not a valid grammar or an I/O error occured.
+	 * @throws javaslang.Requirements.UnsatisfiedRequirementException if file or cacheDirectory is null.
+	 */
+	public static Try<OptimizedGrammar> load(Path file, Path cacheDirectory) {
+		requireNonNull(file, "file is null");
+		requireNonNull(cacheDirectory, "cacheDirectory is null");
+		try {
+			final byte[] content = Files.readAllBytes(file);
+			final Path cacheFile = cacheDirectory.resolve(hash(content) + CACHE_FILE_SUFFIX);
+			final OptimizedGrammar cached = readCache(cacheFile);
+			if (cached != null) {
+				return new Success<>(cached);
+			}
+			final Try<OptimizedGrammar> grammar = load(new String(content, IO.UTF8));
+			if (grammar.isSuccess()) {
+				writeCache(cacheDirectory, cacheFile, grammar.get());
+			}
+			return grammar;
+		} catch (IOException x) {
+			return new Failure<>(x);
+		}
+	}
+
+	// DEV-NOTE: a cache file which cannot be deserialized is treated like a missing one
+	private static OptimizedGrammar readCache(Path cacheFile) {
+		if (!Files.isRegularFile(cacheFile)) {
+			return null;
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+			final Object grammar = in.readObject();
+			return (grammar instanceof OptimizedGrammar) ? (OptimizedGrammar) grammar : null;
+		} catch (IOException | ClassNotFoundException | RuntimeException x) {
+			return null;
+		}
+	}
+
+	private static void writeCache(Path cacheDirectory, Path cacheFile, OptimizedGrammar grammar) throws IOException {
+		Files.createDirectories(cacheDirectory);
+		final Path tempFile = Files.createTempFile(cacheDirectory, cacheFile.getFileName().toString(), ".tmp");
+		try {
+			try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(
+					Files.newOutputStream(tempFile)))) {
+				out.writeObject(grammar);
+			}
+			Files.move(tempFile, cacheFile, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	private static String hash(byte[] content) {
+		try {
+			final StringBuilder builder = new StringBuilder();
+			for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) {
+				builder.append(String.format("%02x", b));
+			}
+			return builder.toString();
+		} catch (NoSuchAlgorithmException x) {
+			// DEV-NOTE: every Java platform supports SHA-256
+			throw new IllegalStateException(x);
+		}
+	}
+
+	/**
+	 * Builds the rules of a grammar from its parse tree, see {@link JavaslangGrammar}.
+	 */
+	static final class Builder {
+
+		// the rules in order of definition, the first rule is the start rule
+		final Map<String, Rule> rules = new LinkedHashMap<>();
+
+		// DEV-NOTE: rules are referenced by name, i.e. a rule may be referenced before it is defined
+		final Map<String, Reference> references = new LinkedHashMap<>();
+
+		// grammar : 'grammar' ID ';' rule+ EOF ;
+		Grammar grammar(Tree<Token> tree) {
+			final List<Tree<Token>> children = tree.getChildren().toArrayList();
+			for (Tree<Token> child : children) {
+				if (is(child, "rule")) {
+					final Rule rule = rule(child);
+					require(rules.putIfAbsent(rule.name, rule) == null, () -> "rule '" + rule.name
+							+ "' is defined twice");
+				}
+			}
+			for (String name : references.keySet()) {
+				require(rules.containsKey(name), () -> "rule '" + name + "' is not defined");
+			}
+			return Grammar.of(value(children.get(1)), rules.values().iterator().next());
+		}
+
+		// rule : ID ':' alternative ( '|' alternative )* ';' ;
+		Rule rule(Tree<Token> tree) {
+			final List<Tree<Token>> children = tree.getChildren().toArrayList();
+			final String name = value(children.get(0));
+			final List<RulePart> alternatives = new ArrayList<>();
+			final List<Associativity> associativities = new ArrayList<>();
+			for (Tree<Token> child : children) {
+				if (is(child, "alternative")) {
+					alternatives.add(alternative(child));
+					associativities.add(associativity(child));
+				}
+			}
+			final int operand = alternatives.size() - 1;
+			final Level[] levels = new Level[operand];
+			for (int i = 0; i < operand; i++) {
+				final String[] operators = operators(name, alternatives.get(i));
+				if (operators == null) {
+					break;
+				}
+				// DEV-NOTE: the alternatives are ordered by decreasing precedence, the levels by increasing precedence
+				final Associativity associativity = associativities.get(i);
+				levels[operand - 1 - i] = new Level((associativity == null) ? Associativity.LEFT : associativity,
+						operators);
+			}
+			// DEV-NOTE: levels[0] is the level of the last alternative before the operand, i.e. all levels are defined
+			if (operand > 0 && levels[0] != null && operators(name, alternatives.get(operand)) == null) {
+				return Grammar.operators(name, alternatives.get(operand), levels);
+			}
+			require(!associativities.stream().anyMatch(associativity -> associativity != null),
+					() -> "associativity of rule '" + name + "' is not part of a binary expression");
+			return new Rule(name, alternatives.toArray(new RulePart[alternatives.size()]));
+		}
+
+		// alternative : Associativity? part* ;
+		RulePart alternative(Tree<Token> tree) {
+			final List<RulePart> parts = new ArrayList<>();
+			for (Tree<Token> child : tree.getChildren()) {
+				if (is(child, "part")) {
+					parts.add(part(child));
+				}
+			}
+			if (parts.isEmpty()) {
+				return Grammar.ε;
+			} else if (parts.size() == 1) {
+				return parts.get(0);
+			} else {
+				return new Sequence(parts.toArray(new RulePart[parts.size()]));
+			}
+		}
+
+		private static Associativity associativity(Tree<Token> alternative) {
+			final List<Tree<Token>> children = alternative.getChildren().toArrayList();
+			if (children.isEmpty() || is(children.get(0), "part")) {
+				return null;
+			} else {
+				final boolean right = children.get(0).getValue().contentEquals("<assoc=right>");
+				return right ? Associativity.RIGHT : Associativity.LEFT;
+			}
+		}
+
+		// the operators of a binary expression `name op name`, where op is a literal or a subrule of literals
+		private String[] operators(String name, RulePart alternative) {
+			if (!(alternative instanceof Sequence)) {
+				return null;
+			}
+			final RulePart[] parts = ((Sequence) alternative).parsers;
+			final Reference reference = references.get(name);
+			if (parts.length != 3 || parts[0] != reference || parts[2] != reference) {
+				return null;
+			}
+			final RulePart[] operators = (parts[1] instanceof Subrule) ? ((Subrule) parts[1]).alternatives
+					: new RulePart[] { parts[1] };
+			final String[] result = new String[operators.length];
+			for (int i = 0; i < operators.length; i++) {
+				if (!(operators[i] instanceof Literal)) {
+					return null;
+				}
+				result[i] = ((Literal) operators[i]).literal;
+			}
+			return result;
+		}
+
+		// part : '!'* atom quantifier* ;
+		RulePart part(Tree<Token> tree) {
+			final List<Tree<Token>> children = tree.getChildren().toArrayList();
+			int i = 0;
+			while (!is(children.get(i), "atom")) {
+				i++;
+			}
+			RulePart part = atom(children.get(i));
+			for (int negations = i; negations > 0; negations--) {
+				final RulePart negated = part;
+				require(negated instanceof NegatableRulePart, () -> negated + " cannot be negated");
+				part = new Negation((NegatableRulePart) negated);
+			}
+			for (i++; i < children.size(); i++) {
+				part = quantifier(part, children.get(i));
+			}
+			return part;
+		}
+
+		// atom : range | Literal | Charset | '.' | '^' | ID | subrule ;
+		RulePart atom(Tree<Token> tree) {
+			final Tree<Token> child = tree.getChildren().get(0);
+			if (is(child, "range")) {
+				// range : Literal '..' Literal ;
+				final List<Tree<Token>> bounds = child.getChildren().toArrayList();
+				return new Range(character(bounds.get(0)), character(bounds.get(2)));
+			} else if (is(child, "subrule")) {
+				// subrule : '(' alternative ( '|' alternative )* ')' ;
+				final List<RulePart> alternatives = new ArrayList<>();
+				for (Tree<Token> alternative : child.getChildren()) {
+					if (is(alternative, "alternative")) {
+						require(associativity(alternative) == null, "associativity within subrule");
+						alternatives.add(alternative(alternative));
+					}
+				}
+				// DEV-NOTE: a subrule of one alternative groups a sequence, e.g. ( 'a' 'b' )*
+				return (alternatives.size() == 1) ? alternatives.get(0) : new Subrule(alternatives
+						.toArray(new RulePart[alternatives.size()]));
+			}
+			final String value = value(child);
+			switch (value.charAt(0)) {
+				case '\'':
+					return new Literal(unescape(value));
+				case '[':
+					return new Parser.Charset(unescape(value));
+				case '.':
+					return Grammar.ANY;
+				case '^':
+					return Grammar.CUT;
+				default:
+					return value.equals("EOF") ? Grammar.EOF : references.computeIfAbsent(value,
+							name -> new Reference(() -> rules.get(name)));
+			}
+		}
+
+		// quantifier : '?' | '*' | '+' | '{' INT ( ',' INT )? '}' ;
+		private static Quantifier quantifier(RulePart part, Tree<Token> tree) {
+			final List<Tree<Token>> tokens = tree.getChildren().toArrayList();
+			switch (value(tokens.get(0))) {
+				case "?":
+					return new Quantifier(part, 0, 1);
+				case "*":
+					return new Quantifier(part, 0, Quantifier.UNBOUNDED);
+				case "+":
+					return new Quantifier(part, 1, Quantifier.UNBOUNDED);
+				default: {
+					final int lowerBound = tokens.get(1).getValue().parseInt();
+					final int upperBound = (tokens.size() == 3) ? lowerBound : tokens.get(3).getValue().parseInt();
+					return new Quantifier(part, lowerBound, upperBound);
+				}
+			}
+		}
+
+		private static char character(Tree<Token> literal) {
+			final String value = unescape(value(literal));
+			require(value.length() == 1, () -> "bound of range is not a single char: " + value(literal));
+			return value.charAt(0);
+		}
+
+		/**
+		 * Unescapes the value of a literal or charset, which are escaped like {@link Parser#charToString(char)}.
+		 *
+		 * @param value A literal or charset, including the enclosing quotes or brackets.
+		 * @return The unescaped chars between the enclosing quotes or brackets.
+		 */
+		static String unescape(String value) {
+			final StringBuilder builder = new StringBuilder();
+			final int end = value.length() - 1;
+			for (int i = 1; i < end; i++) {
+				char c = value.charAt(i);
+				if (c == '\\') {
+					c = value.charAt(++i);
+					switch (c) {
+						case 'b':
+							c = '\b';
+							break;
+						case 't':
+							c = '\t';
+							break;
+						case 'n':
+							c = '\n';
+							break;
+						case 'f':
+							c = '\f';
+							break;
+						case 'r':
+							c = '\r';
+							break;
+						case 'u': {
+							final String hex = value.substring(i + 1, Math.min(i + 5, end));
+							require(hex.matches("[0-9a-fA-F]{4}"), () -> "invalid unicode escape: \\u" + hex);
+							c = (char) Integer.parseInt(hex, 16);
+							i += 4;
+							break;
+						}
+						default:
+							// DEV-NOTE: other escaped chars stand for themselves, e.g. quotes and brackets
+					}
+				}
+				builder.append(c);
+			}
+			return builder.toString();
+		}
+
+		private static boolean is(Tree<Token> tree, String id) {
+			return id.equals(tree.getValue().getId());
+		}
+
+		private static String value(Tree<Token> tree) {
+			return tree.getValue().getValue();
+		}
+	}
+
+	/**
+	 * The grammar of the grammar notation, see {@code javaslang/parser/GrammarNotation.grammar}.
+	 */
+	static final class JavaslangGrammar extends Grammar {
+
+		JavaslangGrammar() {
+			super("Javaslang");
+		}
+
+		@Override
+		protected Rule getStartRule() {
+			return grammar();
+		}
+
+		@Override
+		protected Whitespace getWhitespace() {
+			return Whitespace.DEFAULT.withLineComment("//").withBlockComment("/*", "*/");
+		}
+
+		// grammar : 'grammar' ID ';' rule+ EOF ;
+		Rule grammar() {
+			return rule("grammar", seq(str("grammar"), ref(this::ID), str(";"), _1_n(ref(this::rule)), EOF));
+		}
+
+		// rule : ID ':' alternative ( '|' alternative )* ';' ;
+		Rule rule() {
+			return rule("rule", seq(ref(this::ID), str(":"), ref(this::alternative), _0_n(str("|"),
+					ref(this::alternative)), str(";")));
+		}
+
+		// alternative : Associativity? part* ;
+		Rule alternative() {
+			return rule("alternative", seq(_0_1(ref(this::Associativity)), _0_n(ref(this::part))));
+		}
+
+		// part : '!'* atom quantifier* ;
+		Rule part() {
+			return rule("part", seq(_0_n(str("!")), ref(this::atom), _0_n(ref(this::quantifier))));
+		}
+
+		// atom : range | Literal | Charset | '.' | '^' | ID | subrule ;
+		Rule atom() {
+			return rule("atom", ref(this::range), ref(this::Literal), ref(this::Charset), str("."), str("^"),
+					ref(this::ID), ref(this::subrule));
+		}
+
+		// range : Literal '..' Literal ;
+		Rule range() {
+			return rule("range", seq(ref(this::Literal), str(".."), ref(this::Literal)));
+		}
+
+		// subrule : '(' alternative ( '|' alternative )* ')' ;
+		Rule subrule() {
+			return rule("subrule", seq(str("("), ref(this::alternative), _0_n(str("|"), ref(this::alternative)),
+					str(")")));
+		}
+
+		// quantifier : '?' | '*' | '+' | '{' INT ( ',' INT )? '}' ;
+		Rule quantifier() {
+			return rule("quantifier", str("?"), str("*"), str("+"), seq(str("{"), ref(this::INT), _0_1(str(","),
+					ref(this::INT)), str("}")));
+		}
+
+		// Associativity : '<assoc=' ( 'left' | 'right' ) '>' ;
+		Rule Associativity() {
+			return rule("Associativity", seq(str("<assoc="), subrule(str("left"), str("right")), str(">")));
+		}
+
+		// Literal : '\'' CHAR+ '\'' ;
+		Rule Literal() {
+			return rule("Literal", seq(str("'"), _1_n(ref(this::CHAR)), str("'")));
+		}
+
+		// CHAR : '\\' . | ![\\'] ;
+		Rule CHAR() {
+			return rule("CHAR", seq(str("\\"), ANY), not(charset("\\'")));
+		}
+
+		// Charset : '[' ( '\\' . | ![\\\]] )+ ']' ;
+		Rule Charset() {
+			return rule("Charset", seq(str("["), _1_n(subrule(seq(str("\\"), ANY), not(charset("\\]")))), str("]")));
+		}
+
+		// ID : [a-zA-Z_] [a-zA-Z0-9_]* ;
+		Rule ID() {
+			return rule("ID", seq(charset("a-zA-Z_"), _0_n(charset("a-zA-Z0-9_"))));
+		}
+
+		// INT : [0-9]+ ;
+		Rule INT() {
+			return rule("INT", _1_n(charset("0-9")));
+		}
+	}
+}
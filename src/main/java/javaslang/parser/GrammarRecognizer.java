@@ -0,0 +1,515 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.Requirements.require;
+import static javaslang.Requirements.requireNonNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javaslang.parser.Grammar.Associativity;
+import javaslang.parser.Grammar.Memoization;
+import javaslang.parser.Parser.Any;
+import javaslang.parser.Parser.Charset;
+import javaslang.parser.Parser.Cut;
+import javaslang.parser.Parser.EOF;
+import javaslang.parser.Parser.Empty;
+import javaslang.parser.Parser.Literal;
+import javaslang.parser.Parser.Negation;
+import javaslang.parser.Parser.Operators;
+import javaslang.parser.Parser.Quantifier;
+import javaslang.parser.Parser.Range;
+import javaslang.parser.Parser.Reference;
+import javaslang.parser.Parser.Rule;
+import javaslang.parser.Parser.RulePart;
+import javaslang.parser.Parser.Sequence;
+import javaslang.parser.Parser.Subrule;
+
+/**
+ * A recognizer of the language of a grammar, see {@link Grammar#recognizer()}. It answers if a text matches the start
+ * rule of the grammar and builds no parse tree.
+ * <p>
+ * Each rule is translated once to a {@code CompiledRule} which directly calls the recognizers of its alternatives.
+ * Character tests are inlined, rule references are resolved once and results are reported as primitive int codes: an
+ * end index {@code >= 0} on success or {@code -1 - failedIndex} on failure. The recognizers are composed of
+ * {@code Recognizer} objects, i.e. this is no code generation, and calls between them are not specialized per rule.
+ * <p>
+ * A recognizer is immutable and safe for concurrent calls of {@link #matches(CharSequence)}.
+ */
+public final class GrammarRecognizer {
+
+	private final Grammar grammar;
+	private final Whitespace whitespace;
+	private final CompiledRule[] rules;
+
+	GrammarRecognizer(Grammar grammar) {
+		requireNonNull(grammar, "grammar is null");
+		this.grammar = grammar;
+		this.whitespace = grammar.getWhitespace();
+		this.rules = new Compiler(grammar.getMemoization(), grammar.getLeftRecursion()).compile(Grammar
+				.findRules(grammar.getStartRule()));
+	}
+
+	/**
+	 * Checks if the given text is recognized by the grammar, without building a parse tree. For all texts
+	 * {@code recognizer().matches(text) == parse(text).isSuccess()} holds.
+	 *
+	 * @param text A text input.
+	 * @return true, if the start rule of the grammar matches the text, false otherwise.
+	 */
+	public boolean matches(CharSequence text) {
+		requireNonNull(text, "text is null");
+		final Input input = new Input(text, whitespace, rules.length);
+		// DEV-NOTE: rules[0] is the start rule, which is applied in parsing scope
+		return rules[0].recognize(input, input.skipWhitespace(0)) >= 0;
+	}
+
+	@Override
+	public String toString() {
+		return grammar.toString();
+	}
+
+	// -- recognizer protocol
+
+	static int fail(int index) {
+		return -1 - index;
+	}
+
+	static int failedIndex(int result) {
+		return -1 - result;
+	}
+
+	/**
+	 * The state of one {@link GrammarRecognizer#matches(CharSequence)} call.
+	 */
+	static final class Input {
+
+		static final int UNKNOWN = Integer.MIN_VALUE;
+
+		// DEV-NOTE: the memo of a rule is allocated in pages on demand, a rule applied to few indices needs few pages
+		private static final int PAGE_BITS = 10;
+		private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+		final Source source;
+		final int length;
+		final Whitespace whitespace;
+
+		// the memoized results per rule slot, page and offset, where 0 is unknown, see memoize(int, int, int)
+		private final int[][][] memo;
+
+		// the last whitespace skip, see ParseContext#skipWhitespace(int)
+		private int lastSkipStart = -1;
+		private int lastSkipEnd = -1;
+
+		// true, if the current alternative of the innermost choice passed a cut, see Parser.Cut
+		boolean cut = false;
+
+		Input(CharSequence text, Whitespace whitespace, int ruleCount) {
+			this.source = Source.of(text);
+			this.length = text.length();
+			this.whitespace = whitespace;
+			this.memo = new int[ruleCount][][];
+		}
+
+		int skipWhitespace(int index) {
+			if (index != lastSkipStart && index != lastSkipEnd) {
+				lastSkipStart = index;
+				lastSkipEnd = whitespace.skip(source, index);
+			}
+			return lastSkipEnd;
+		}
+
+		/**
+		 * Returns the memoized result of a rule at the given index.
+		 *
+		 * @param slot The memo slot of the rule.
+		 * @param index An index {@code <= length}.
+		 * @return The result or {@link #UNKNOWN}, if no result is memoized.
+		 */
+		int recall(int slot, int index) {
+			final int[][] pages = memo[slot];
+			final int[] page = (pages == null) ? null : pages[index >>> PAGE_BITS];
+			final int entry = (page == null) ? 0 : page[index & (PAGE_SIZE - 1)];
+			return (entry == 0) ? UNKNOWN : (entry > 0) ? entry - 1 : entry;
+		}
+
+		/**
+		 * Memoizes the result of a rule at the given index.
+		 *
+		 * @param slot The memo slot of the rule.
+		 * @param index An index {@code <= length}.
+		 * @param result An end index or {@code -1 - failedIndex}.
+		 */
+		void memoize(int slot, int index, int result) {
+			int[][] pages = memo[slot];
+			if (pages == null) {
+				pages = new int[(length >>> PAGE_BITS) + 1][];
+				memo[slot] = pages;
+			}
+			int[] page = pages[index >>> PAGE_BITS];
+			if (page == null) {
+				page = new int[PAGE_SIZE];
+				pages[index >>> PAGE_BITS] = page;
+			}
+			// DEV-NOTE: end indices are shifted by one, i.e. a new page needs no fill and failures are stored as is
+			page[index & (PAGE_SIZE - 1)] = (result >= 0) ? result + 1 : result;
+		}
+	}
+
+	/**
+	 * A compiled rule part.
+	 */
+	static interface Recognizer {
+
+		/**
+		 * Recognizes the input, starting at the given index.
+		 *
+		 * @param input The input.
+		 * @param index The current index.
+		 * @return The end index, if recognized or {@code -1 - failedIndex} otherwise.
+		 */
+		int recognize(Input input, int index);
+	}
+
+	// -- compiler
+
+	static final class Compiler {
+
+		final Memoization memoization;
+		final LeftRecursion leftRecursion;
+		final Map<Rule, CompiledRule> compiledRules = new HashMap<>();
+
+		Compiler(Memoization memoization, LeftRecursion leftRecursion) {
+			this.memoization = memoization;
+			this.leftRecursion = leftRecursion;
+		}
+
+		CompiledRule[] compile(Set<Rule> rules) {
+			final CompiledRule[] result = new CompiledRule[rules.size()];
+			int slot = 0;
+			for (Rule rule : rules) {
+				final LeftRecursion.Role role = leftRecursion.role(rule);
+				final boolean leftRecursive = (role == LeftRecursion.Role.LEADER);
+				final boolean memoized;
+				if (role == LeftRecursion.Role.NONE) {
+					memoized = memoization == Memoization.ALL_RULES
+							|| (memoization == Memoization.MARKED_RULES && rule.memoized);
+				} else {
+					// DEV-NOTE: a leader grows its seed in the memo, the other rules of its cycle must not be memoized
+					memoized = leftRecursive;
+				}
+				final CompiledRule compiledRule = new CompiledRule(rule.lexical, memoized ? slot : -1, leftRecursive);
+				compiledRules.put(rule, compiledRule);
+				result[slot++] = compiledRule;
+			}
+			// DEV-NOTE: alternatives are compiled after all rules are known in order to resolve (cyclic) references
+			for (Rule rule : rules) {
+				final CompiledRule compiledRule = compiledRules.get(rule);
+				compiledRule.alternatives = compileAlternatives(rule.alternatives, rule.lexical);
+			}
+			return result;
+		}
+
+		Recognizer compile(Parser parser, boolean lexicalScope, boolean negated) {
+			if (parser instanceof Any) {
+				return negated ? compileEOF() : compileAny();
+			} else if (parser instanceof EOF) {
+				return negated ? compileAny() : compileEOF();
+			} else if (parser instanceof Charset) {
+				return compileCharset((Charset) parser, negated);
+			} else if (parser instanceof Range) {
+				return compileRange((Range) parser, negated);
+			} else if (parser instanceof Negation) {
+				return compile(((Negation) parser).parser, lexicalScope, !negated);
+			} else if (parser instanceof Empty) {
+				return (input, index) -> index;
+			} else if (parser instanceof Cut) {
+				return (input, index) -> {
+					input.cut = true;
+					return index;
+				};
+			} else if (parser instanceof Literal) {
+				return compileLiteral((Literal) parser);
+			} else if (parser instanceof Operators) {
+				final Operators operators = (Operators) parser;
+				final Recognizer operand = compile(operators.operand, lexicalScope, false);
+				return new OperatorsRecognizer(operators, operand, lexicalScope);
+			} else if (parser instanceof Quantifier) {
+				return compileQuantifier((Quantifier) parser, lexicalScope);
+			} else if (parser instanceof Sequence) {
+				return compileSequence((Sequence) parser, lexicalScope);
+			} else if (parser instanceof Subrule) {
+				return compileSubrule((Subrule) parser, lexicalScope);
+			} else if (parser instanceof Reference) {
+				final Rule rule = ((Reference) parser).getRule();
+				require(!lexicalScope || rule.lexical, () -> "parser rule '" + rule.name
+						+ "' is referenced by a lexical rule");
+				final CompiledRule compiledRule = compiledRules.get(rule);
+				return lexicalScope ? compiledRule : (input, index) -> compiledRule.recognize(input,
+						input.skipWhitespace(index));
+			} else {
+				throw new IllegalStateException("unknown parser: " + parser.getClass().getName());
+			}
+		}
+
+		Recognizer compileAny() {
+			return (input, index) -> (index < input.length) ? index + 1 : fail(index);
+		}
+
+		Recognizer compileEOF() {
+			return (input, index) -> (index == input.length) ? index : fail(index);
+		}
+
+		Recognizer compileCharset(Charset charset, boolean negated) {
+			final CharTable inSet = charset.inSet;
+			return (input, index) -> (index < input.length && (inSet.contains(input.source.charAt(index)) ^ negated))
+					? index + 1 : fail(index);
+		}
+
+		Recognizer compileRange(Range range, boolean negated) {
+			final char from = range.from;
+			final char to = range.to;
+			return (input, index) -> {
+				if (index < input.length) {
+					final char c = input.source.charAt(index);
+					if ((from <= c && c <= to) ^ negated) {
+						return index + 1;
+					}
+				}
+				return fail(index);
+			};
+		}
+
+		Recognizer compileLiteral(Literal literal) {
+			final String s = literal.literal;
+			if (s.length() == 1) {
+				final char c = s.charAt(0);
+				return (input, index) -> (index < input.length && input.source.charAt(index) == c) ? index + 1
+						: fail(index);
+			} else {
+				final int length = s.length();
+				return (input, index) -> input.source.startsWith(s, index) ? index + length : fail(index);
+			}
+		}
+
+		Recognizer compileQuantifier(Quantifier quantifier, boolean lexicalScope) {
+			final Recognizer parser = compile(quantifier.parser, lexicalScope, false);
+			final boolean pure = quantifier.isPure();
+			final boolean lexical = lexicalScope || pure;
+			final int lowerBound = quantifier.lowerBound;
+			final int upperBound = quantifier.upperBound;
+			// DEV-NOTE: pure parts contain no cut, i.e. the iterations of a pure quantifier need no choice state
+			if (pure) {
+				return (input, index) -> {
+					int currentIndex = index;
+					for (int i = 0; i < upperBound; i++) {
+						final int result = parser.recognize(input, currentIndex);
+						if (result >= 0) {
+							currentIndex = result;
+						} else {
+							return (i < lowerBound) ? result : currentIndex;
+						}
+					}
+					return currentIndex;
+				};
+			}
+			return (input, index) -> {
+				int currentIndex = index;
+				for (int i = 0; i < upperBound; i++) {
+					// DEV-NOTE: an iteration is a choice, like in Quantifier#parse(ParseContext, int, boolean)
+					final boolean outerCut = input.cut;
+					input.cut = false;
+					final int result = parser.recognize(input, currentIndex);
+					final boolean committed = input.cut;
+					input.cut = outerCut;
+					if (result >= 0) {
+						currentIndex = lexical ? result : input.skipWhitespace(result);
+					} else {
+						return (i < lowerBound || committed) ? result : currentIndex;
+					}
+				}
+				return currentIndex;
+			};
+		}
+
+		Recognizer compileSequence(Sequence sequence, boolean lexicalScope) {
+			final Recognizer[] parsers = Arrays
+					.stream(sequence.parsers)
+					.map(parser -> compile(parser, lexicalScope, false))
+					.toArray(Recognizer[]::new);
+			if (lexicalScope) {
+				return (input, index) -> {
+					int currentIndex = index;
+					for (Recognizer parser : parsers) {
+						currentIndex = parser.recognize(input, currentIndex);
+						if (currentIndex < 0) {
+							return currentIndex;
+						}
+					}
+					return currentIndex;
+				};
+			} else {
+				return (input, index) -> {
+					int currentIndex = index;
+					for (Recognizer parser : parsers) {
+						currentIndex = parser.recognize(input, input.skipWhitespace(currentIndex));
+						if (currentIndex < 0) {
+							return currentIndex;
+						}
+					}
+					return input.skipWhitespace(currentIndex);
+				};
+			}
+		}
+
+		Recognizer compileSubrule(Subrule subrule, boolean lexicalScope) {
+			final Recognizer[] alternatives = compileAlternatives(subrule.alternatives, lexicalScope);
+			return (input, index) -> recognizeAlternatives(alternatives, input, index);
+		}
+
+		// DEV-NOTE: literal alternatives, e.g. keywords, are compiled to one recognizer which reads the input once
+		Recognizer[] compileAlternatives(RulePart[] alternatives, boolean lexicalScope) {
+			if (alternatives.length > 1 && Arrays.stream(alternatives).allMatch(part -> part instanceof Literal)) {
+				final String[] literals = Arrays.stream(alternatives).map(part -> ((Literal) part).literal)
+						.toArray(String[]::new);
+				final LiteralTrie trie = new LiteralTrie(literals);
+				return new Recognizer[] { (input, index) -> {
+					final int match = trie.firstMatch(input.source, index);
+					return (match >= 0) ? index + literals[match].length() : fail(index);
+				} };
+			} else {
+				return Arrays
+						.stream(alternatives)
+						.map(alternative -> compile(alternative, lexicalScope, false))
+						.toArray(Recognizer[]::new);
+			}
+		}
+	}
+
+	static int recognizeAlternatives(Recognizer[] alternatives, Input input, int index) {
+		final boolean outerCut = input.cut;
+		int failedIndex = index;
+		for (Recognizer alternative : alternatives) {
+			input.cut = false;
+			final int result = alternative.recognize(input, index);
+			final boolean committed = input.cut;
+			// DEV-NOTE: a committed alternative does not try the remaining alternatives
+			if (result >= 0 || committed) {
+				input.cut = outerCut;
+				return result;
+			} else {
+				failedIndex = Math.max(failedIndex, failedIndex(result));
+			}
+		}
+		input.cut = outerCut;
+		return fail(failedIndex);
+	}
+
+	/**
+	 * A compiled operator precedence parser, which climbs the precedence levels like
+	 * {@link Operators#parse(ParseContext, int, boolean)}.
+	 */
+	static final class OperatorsRecognizer implements Recognizer {
+
+		final Operators operators;
+		final Recognizer operand;
+		final boolean lexicalScope;
+
+		OperatorsRecognizer(Operators operators, Recognizer operand, boolean lexicalScope) {
+			this.operators = operators;
+			this.operand = operand;
+			this.lexicalScope = lexicalScope;
+		}
+
+		@Override
+		public int recognize(Input input, int index) {
+			return recognize(input, index, 0);
+		}
+
+		private int recognize(Input input, int index, int minLevel) {
+			int result = operand.recognize(input, index);
+			if (result < 0) {
+				return result;
+			}
+			while (true) {
+				final int operatorIndex = lexicalScope ? result : input.skipWhitespace(result);
+				final int operator = operators.operatorAt(input.source, operatorIndex);
+				if (operator < 0 || operators.operatorLevels[operator] < minLevel) {
+					return result;
+				}
+				final int level = operators.operatorLevels[operator];
+				final int operandIndex = operatorIndex + operators.operators[operator].length();
+				final int nextMinLevel = (operators.levels[level].associativity == Associativity.LEFT) ? level + 1
+						: level;
+				final boolean outerCut = input.cut;
+				input.cut = false;
+				final int right = recognize(input, lexicalScope ? operandIndex : input.skipWhitespace(operandIndex),
+						nextMinLevel);
+				final boolean committed = input.cut;
+				input.cut = outerCut;
+				if (right < 0) {
+					return committed ? right : result;
+				}
+				result = right;
+			}
+		}
+	}
+
+	/**
+	 * A compiled rule. Rule references are compiled to direct calls of {@code CompiledRule} instances.
+	 */
+	static final class CompiledRule implements Recognizer {
+
+		final boolean lexical;
+		final int memoSlot;
+		final boolean leftRecursive;
+
+		// assigned once while compiling, before the recognizer is published
+		Recognizer[] alternatives;
+
+		CompiledRule(boolean lexical, int memoSlot, boolean leftRecursive) {
+			this.lexical = lexical;
+			this.memoSlot = memoSlot;
+			this.leftRecursive = leftRecursive;
+		}
+
+		@Override
+		public int recognize(Input input, int index) {
+			if (memoSlot < 0) {
+				return recognizeAlternatives(alternatives, input, index);
+			} else {
+				final int memoized = input.recall(memoSlot, index);
+				if (memoized != Input.UNKNOWN) {
+					return memoized;
+				} else if (leftRecursive) {
+					return recognizeLeftRecursive(input, index);
+				} else {
+					final int result = recognizeAlternatives(alternatives, input, index);
+					input.memoize(memoSlot, index, result);
+					return result;
+				}
+			}
+		}
+
+		// DEV-NOTE: grows the seed like Rule#parseLeftRecursive(ParseContext, int)
+		private int recognizeLeftRecursive(Input input, int index) {
+			int seed = fail(index);
+			while (true) {
+				input.memoize(memoSlot, index, seed);
+				final int result = recognizeAlternatives(alternatives, input, index);
+				if (result < 0 || result <= seed) {
+					final int grown = (seed >= 0) ? seed : result;
+					input.memoize(memoSlot, index, grown);
+					return grown;
+				}
+				seed = result;
+			}
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.Requirements.requireNonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import javaslang.monad.Failure;
+import javaslang.monad.Success;
+import javaslang.monad.Try;
+
+/**
+ * Provides parser inputs which are not backed by a String on the heap. See also
+ * {@link Grammar#parseEach(java.io.Reader, java.util.function.Consumer)} for parsing a {@code Reader} in bounded
+ * memory.
+ */
+public final class Inputs {
+
+	/**
+	 * This class is not intended to be instantiated.
+	 */
+	private Inputs() {
+		throw new AssertionError(Inputs.class.getName() + " is not intended to be instantiated.");
+	}
+
+	/**
+	 * Maps a file into memory. The content of the file is paged in by the operating system on demand and does not
+	 * occupy the heap.
+	 * <p>
+	 * Each byte is decoded as one char (ISO-8859-1), which is also correct for ASCII files. Multi-byte encodings like
+	 * UTF-8 are not supported, because they do not allow random access by char index.
+	 * 
+	 * @param file A file path.
+	 * @return The content of the file or a failure, if the file could not be mapped.
+	 */
+	public static Try<CharSequence> map(Path file) {
+		requireNonNull(file, "file is null");
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				return new Failure<>(new IOException("file too large: " + file));
+			}
+			// DEV-NOTE: the mapping stays valid after the channel is closed
+			final ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, size);
+			return new Success<>(new MappedText(buffer, 0, (int) size));
+		} catch (IOException x) {
+			return new Failure<>(x);
+		}
+	}
+
+	/**
+	 * A CharSequence view of a byte buffer, which decodes one byte to one char.
+	 */
+	static final class MappedText implements CharSequence {
+
+		private final ByteBuffer buffer;
+		private final int offset;
+		private final int length;
+
+		MappedText(ByteBuffer buffer, int offset, int length) {
+			this.buffer = buffer;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= length) {
+				throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+			}
+			return (char) (buffer.get(offset + index) & 0xFF);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			if (start < 0 || start > end || end > length) {
+				throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + length);
+			}
+			return new MappedText(buffer, offset + start, end - start);
+		}
+
+		@Override
+		public String toString() {
+			final byte[] bytes = new byte[length];
+			for (int i = 0; i < length; i++) {
+				bytes[i] = buffer.get(offset + i);
+			}
+			return new String(bytes, StandardCharsets.ISO_8859_1);
+		}
+	}
+}
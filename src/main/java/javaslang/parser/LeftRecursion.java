@@ -0,0 +1,239 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.Requirements.require;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javaslang.parser.Parser.Operators;
+import javaslang.parser.Parser.Quantifier;
+import javaslang.parser.Parser.Reference;
+import javaslang.parser.Parser.Rule;
+import javaslang.parser.Parser.Sequence;
+import javaslang.parser.Parser.Subrule;
+
+/**
+ * The left-recursive rules of a grammar. A rule is left-recursive, if it may call itself at the same index, directly
+ * like {@code expr : expr '+' term | term} or indirectly via other rules. The rules which call each other at the same
+ * index form cycles.
+ * <p>
+ * Left recursion is parsed by growing a seed (Warth et al., <em>Packrat Parsers Can Support Left Recursion</em>). One
+ * rule of each cycle, the leader, memoizes its result at an index, starting with a failure. The alternatives of the
+ * leader are applied repeatedly. The left-recursive call recalls the previous result, i.e. each iteration extends the
+ * previous match by one more application of a left-recursive alternative. Growing stops, when the match does not get
+ * longer. The other rules of the cycle are not memoized, because their results change while the seed grows.
+ * <p>
+ * Every cycle has to pass through its leader. The leader is the first rule of a strongly connected component of the
+ * left-call graph, in order of {@link Grammar#findRules(Rule)}, which is part of all cycles of the component.
+ */
+final class LeftRecursion implements Serializable {
+
+	private static final long serialVersionUID = -1383457155180719226L;
+
+	/**
+	 * The role of a rule in left recursion.
+	 */
+	static enum Role {
+
+		/**
+		 * The rule is not part of a cycle.
+		 */
+		NONE,
+
+		/**
+		 * The rule is part of a cycle but not its leader.
+		 */
+		INVOLVED,
+
+		/**
+		 * The rule grows the seed of its cycle.
+		 */
+		LEADER
+	}
+
+	// DEV-NOTE: rules are identified by name because rule references create new rule instances
+	private final Map<String, Role> roles = new HashMap<>();
+
+	/**
+	 * Analyzes the left recursion of the given rules.
+	 *
+	 * @param rules All rules of a grammar, in order of their first occurrence.
+	 * @param firstSets The FIRST sets of the rules, which tell if a rule part is nullable.
+	 * @throws javaslang.Requirements.UnsatisfiedRequirementException if the rules of a cycle have no leader.
+	 */
+	LeftRecursion(Set<Rule> rules, FirstSets firstSets) {
+		final Map<String, Set<String>> leftCalls = new HashMap<>();
+		for (Rule rule : rules) {
+			final Set<String> calls = new LinkedHashSet<>();
+			for (Parser alternative : rule.alternatives) {
+				leftCalls(alternative, firstSets, calls);
+			}
+			leftCalls.put(rule.name, calls);
+		}
+		for (List<String> component : new Tarjan(leftCalls).components(rules)) {
+			final String leader = leader(component, leftCalls);
+			for (String name : component) {
+				roles.put(name, name.equals(leader) ? Role.LEADER : Role.INVOLVED);
+			}
+		}
+	}
+
+	/**
+	 * Returns the role of the given rule.
+	 *
+	 * @param rule A rule.
+	 * @return The role, {@link Role#NONE} if the rule is not left-recursive.
+	 */
+	Role role(Rule rule) {
+		return roles.getOrDefault(rule.name, Role.NONE);
+	}
+
+	/**
+	 * Collects the rules which may be called by a parser without consuming input.
+	 */
+	private static void leftCalls(Parser parser, FirstSets firstSets, Set<String> calls) {
+		if (parser instanceof Reference) {
+			calls.add(((Reference) parser).getRule().name);
+		} else if (parser instanceof Sequence) {
+			for (Parser part : ((Sequence) parser).parsers) {
+				leftCalls(part, firstSets, calls);
+				if (!firstSets.isNullable(part)) {
+					break;
+				}
+			}
+		} else if (parser instanceof Subrule) {
+			for (Parser alternative : ((Subrule) parser).alternatives) {
+				leftCalls(alternative, firstSets, calls);
+			}
+		} else if (parser instanceof Operators) {
+			leftCalls(((Operators) parser).operand, firstSets, calls);
+		} else if (parser instanceof Quantifier) {
+			leftCalls(((Quantifier) parser).parser, firstSets, calls);
+		}
+	}
+
+	/**
+	 * Selects the first rule of a component which breaks all cycles of the component.
+	 */
+	private static String leader(List<String> component, Map<String, Set<String>> leftCalls) {
+		String leader = null;
+		for (String candidate : component) {
+			final Set<String> remaining = new HashSet<>(component);
+			remaining.remove(candidate);
+			if (isAcyclic(remaining, leftCalls)) {
+				leader = candidate;
+				break;
+			}
+		}
+		require(leader != null, () -> "left-recursive rules " + component
+				+ " have no rule which is part of all cycles");
+		return leader;
+	}
+
+	// DEV-NOTE: Kahn's algorithm, the rules are acyclic if all of them can be removed in topological order
+	private static boolean isAcyclic(Set<String> names, Map<String, Set<String>> leftCalls) {
+		final Map<String, Integer> inDegree = new HashMap<>();
+		names.forEach(name -> inDegree.put(name, 0));
+		for (String name : names) {
+			for (String callee : leftCalls.get(name)) {
+				if (names.contains(callee)) {
+					inDegree.merge(callee, 1, Integer::sum);
+				}
+			}
+		}
+		final Deque<String> ready = new ArrayDeque<>();
+		inDegree.forEach((name, degree) -> {
+			if (degree == 0) {
+				ready.push(name);
+			}
+		});
+		int removed = 0;
+		while (!ready.isEmpty()) {
+			final String name = ready.pop();
+			removed++;
+			for (String callee : leftCalls.get(name)) {
+				if (names.contains(callee) && inDegree.merge(callee, -1, Integer::sum) == 0) {
+					ready.push(callee);
+				}
+			}
+		}
+		return removed == names.size();
+	}
+
+	/**
+	 * Tarjan's algorithm, which finds the strongly connected components of the left-call graph.
+	 */
+	private static final class Tarjan {
+
+		final Map<String, Set<String>> leftCalls;
+		final Map<String, Integer> indices = new HashMap<>();
+		final Map<String, Integer> lowLinks = new HashMap<>();
+		final Deque<String> stack = new ArrayDeque<>();
+		final Set<String> onStack = new HashSet<>();
+		final List<List<String>> components = new ArrayList<>();
+
+		Tarjan(Map<String, Set<String>> leftCalls) {
+			this.leftCalls = leftCalls;
+		}
+
+		/**
+		 * Computes the components which contain a cycle, i.e. more than one rule or a rule calling itself.
+		 *
+		 * @param rules All rules, in order of their first occurrence.
+		 * @return The cyclic components, where the rules of a component are in order of their first occurrence.
+		 */
+		List<List<String>> components(Set<Rule> rules) {
+			for (Rule rule : rules) {
+				if (!indices.containsKey(rule.name)) {
+					visit(rule.name);
+				}
+			}
+			final List<String> order = new ArrayList<>();
+			rules.forEach(rule -> order.add(rule.name));
+			components.forEach(component -> component.sort((name1, name2) -> Integer.compare(order.indexOf(name1),
+					order.indexOf(name2))));
+			return components;
+		}
+
+		private void visit(String name) {
+			indices.put(name, indices.size());
+			lowLinks.put(name, indices.get(name));
+			stack.push(name);
+			onStack.add(name);
+			for (String callee : leftCalls.getOrDefault(name, Collections.emptySet())) {
+				if (!indices.containsKey(callee)) {
+					visit(callee);
+					lowLinks.put(name, Math.min(lowLinks.get(name), lowLinks.get(callee)));
+				} else if (onStack.contains(callee)) {
+					lowLinks.put(name, Math.min(lowLinks.get(name), indices.get(callee)));
+				}
+			}
+			if (lowLinks.get(name).equals(indices.get(name))) {
+				final List<String> component = new ArrayList<>();
+				String member;
+				do {
+					member = stack.pop();
+					onStack.remove(member);
+					component.add(member);
+				} while (!member.equals(name));
+				if (component.size() > 1 || leftCalls.get(name).contains(name)) {
+					components.add(component);
+				}
+			}
+		}
+	}
+}
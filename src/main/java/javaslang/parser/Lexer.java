@@ -0,0 +1,147 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javaslang.parser.Parser.HasChildren;
+import javaslang.parser.Parser.Literal;
+import javaslang.parser.Parser.Operators;
+import javaslang.parser.Parser.Reference;
+import javaslang.parser.Parser.Rule;
+import javaslang.parser.Parser.RulePart;
+
+/**
+ * A tokenizer, generated from a grammar. The token types are the literals and the lexical rules which are referenced
+ * by parser rules, or the start rule, if it is lexical. The input is tokenized by longest match, ties are resolved in
+ * favor of literals and then by order of first occurrence. Whitespace between tokens and chars which do not start a
+ * token are skipped.
+ * <p>
+ * A scannerless parser applies lexical rules in the context of parser rules, i.e. the tokens may differ from the rule
+ * applications of a parse. But a token of a lexical rule is exactly the result of applying the rule at the start of
+ * the token. A parse of a {@link TokenStream} takes the result from the stream instead of applying the rule again.
+ * Lexical rules which are part of a left-recursive cycle are no token types, because their result depends on the
+ * growing seed.
+ */
+final class Lexer {
+
+	private final Grammar grammar;
+
+	// the literal types, followed by the rule types
+	private final String[] types;
+	private final String[] literals;
+	private final LiteralTrie literalTrie;
+	private final Rule[] rules;
+	private final int[] allRules;
+	private final int[][] dispatchTable;
+
+	/**
+	 * Generates a tokenizer for the given grammar.
+	 *
+	 * @param grammar A grammar.
+	 */
+	Lexer(Grammar grammar) {
+		this.grammar = grammar;
+		final Rule startRule = grammar.getStartRule();
+		final Set<String> literals = new LinkedHashSet<>();
+		final Map<String, Rule> rules = new LinkedHashMap<>();
+		if (startRule.lexical) {
+			rules.put(startRule.name, startRule);
+		}
+		for (Rule rule : Grammar.findRules(startRule)) {
+			if (!rule.lexical) {
+				for (RulePart alternative : rule.alternatives) {
+					collectTypes(alternative, literals, rules);
+				}
+			}
+		}
+		final LeftRecursion leftRecursion = grammar.getLeftRecursion();
+		rules.values().removeIf(rule -> leftRecursion.role(rule) == LeftRecursion.Role.INVOLVED);
+		this.literals = literals.toArray(new String[literals.size()]);
+		this.literalTrie = new LiteralTrie(this.literals);
+		this.rules = rules.values().toArray(new Rule[rules.size()]);
+		this.allRules = FirstSets.all(this.rules.length);
+		final RulePart[] references = rules.values().stream().map(rule -> new Reference(() -> rule))
+				.toArray(RulePart[]::new);
+		this.dispatchTable = grammar.getFirstSets().dispatchTable(references, true);
+		this.types = new String[this.literals.length + this.rules.length];
+		for (int i = 0; i < this.literals.length; i++) {
+			types[i] = new Literal(this.literals[i]).toString();
+		}
+		for (int i = 0; i < this.rules.length; i++) {
+			types[this.literals.length + i] = this.rules[i].name;
+		}
+	}
+
+	private static void collectTypes(Parser parser, Set<String> literals, Map<String, Rule> rules) {
+		if (parser instanceof Literal) {
+			literals.add(((Literal) parser).literal);
+		} else if (parser instanceof Reference) {
+			final Rule rule = ((Reference) parser).getRule();
+			if (rule.lexical) {
+				rules.putIfAbsent(rule.name, rule);
+			}
+		} else if (parser instanceof Operators) {
+			final Operators operators = (Operators) parser;
+			for (String operator : operators.operators) {
+				literals.add(operator);
+			}
+			collectTypes(operators.operand, literals, rules);
+		} else if (parser instanceof HasChildren) {
+			for (Parser child : ((HasChildren) parser).getChildren()) {
+				collectTypes(child, literals, rules);
+			}
+		}
+	}
+
+	/**
+	 * Tokenizes the given text.
+	 *
+	 * @param text A text.
+	 * @return The tokens of the text.
+	 */
+	TokenStream tokenize(CharSequence text) {
+		final ParseContext context = new ParseContext(grammar, Source.of(text), null);
+		final Source source = context.source;
+		final TreeBuffer tree = context.tree;
+		final TokenStream.Builder tokens = new TokenStream.Builder();
+		int index = context.skipWhitespace(0);
+		while (!source.isEnd(index)) {
+			int type = -1;
+			int endIndex = index;
+			int extent = index;
+			final int literal = literalTrie.longestMatch(source, index);
+			if (literal >= 0) {
+				type = literal;
+				endIndex = index + literals[literal].length();
+				extent = endIndex - 1;
+			}
+			for (int i : FirstSets.viableAlternatives(dispatchTable, allRules, source, index)) {
+				final int mark = tree.mark();
+				// DEV-NOTE: the rule merges its extent into the examined index, which is reset per application
+				context.examined = -1;
+				final int result = rules[i].parse(context, index, true);
+				// DEV-NOTE: a rule result is only a token type if it can be replayed as one token
+				if (result > endIndex && tree.isToken(mark, index, result - index)) {
+					type = literals.length + i;
+					endIndex = result;
+					extent = context.examined;
+				}
+				tree.reset(mark);
+			}
+			if (type >= 0) {
+				tokens.add(type, index, endIndex - index, extent);
+				index = context.skipWhitespace(endIndex);
+			} else {
+				index = context.skipWhitespace(index + 1);
+			}
+		}
+		return tokens.build(grammar, text, types);
+	}
+}
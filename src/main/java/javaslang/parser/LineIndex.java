@@ -0,0 +1,121 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.Requirements.require;
+import static javaslang.Requirements.requireNonNull;
+
+import java.util.Arrays;
+
+import javaslang.collection.Tuple;
+import javaslang.collection.Tuple.Tuple2;
+
+/**
+ * An index of the line starts of a text, which computes the line and column of an index like
+ * {@link javaslang.Strings#lineAndColumn(String, int)}, without copying or splitting the text. Line breaks are
+ * {@code \r\n}, {@code \n} and {@code \r}.
+ * <p>
+ * The index is built lazily in a single scan: a query scans the text only up to the queried index, which was not
+ * scanned by a previous query. The line of an index is searched binary, i.e. repeated queries, e.g. for the tokens of
+ * a parse tree or the syntax errors of a document, take logarithmic time. A line index may be shared by the tokens of
+ * a tree, which may be queried concurrently.
+ * <p>
+ * The text may be a part of a larger input, which is indexed absolute and not accessible before a start index, e.g. a
+ * record of {@link Grammar#parseEach(java.io.Reader, java.util.function.Consumer)}. Then the lines are counted from the
+ * line and column of the start index.
+ */
+final class LineIndex {
+
+	private static final int[] NO_LINES = new int[0];
+
+	private final CharSequence text;
+
+	// the first accessible index of the text
+	private final int start;
+
+	// the index at which the line and column below are located and scanning starts
+	private final int origin;
+	private final int line;
+	private final int column;
+
+	// the start indices of the lines 2, 3, ... of the scanned text, in order
+	private int[] lineStarts = NO_LINES;
+	private int count = 0;
+
+	// the chars before this index are scanned
+	private int scanned;
+
+	LineIndex(CharSequence text) {
+		this(text, 0, 1, 1, false);
+	}
+
+	/**
+	 * Creates a line index of a text, which is accessible starting at the given index.
+	 *
+	 * @param text A text, which is indexed absolute.
+	 * @param start The first accessible index of the text.
+	 * @param line The line of the start index, starting at 1.
+	 * @param column The column of the start index, starting at 1.
+	 * @param afterCarriageReturn true, if the char before the start index is {@code \r}.
+	 */
+	LineIndex(CharSequence text, int start, int line, int column, boolean afterCarriageReturn) {
+		requireNonNull(text, "text is null");
+		require(0 <= start && start <= text.length(), "start out of bounds");
+		this.text = text;
+		this.start = start;
+		// DEV-NOTE: the \n of a \r\n at start belongs to the line break before, the line starts after the \n
+		final boolean lineFeed = afterCarriageReturn && start < text.length() && text.charAt(start) == '\n';
+		this.origin = lineFeed ? start + 1 : start;
+		this.line = line;
+		this.column = lineFeed ? 1 : column;
+		this.scanned = origin;
+	}
+
+	/**
+	 * Computes the line and column of the given index.
+	 *
+	 * @param index An index {@code >= start} and {@code <= text.length()}.
+	 * @return The line and column, starting at 1.
+	 * @throws javaslang.Requirements.UnsatisfiedRequirementException if index is out of bounds.
+	 */
+	synchronized Tuple2<Integer, Integer> lineAndColumn(int index) {
+		require(start <= index && index <= text.length(), "index out of bounds");
+		if (index < origin) {
+			return Tuple.of(line, column);
+		}
+		scan(index);
+		// the number of lines which start at or before the index, after the first line
+		final int k = Arrays.binarySearch(lineStarts, 0, count, index);
+		final int lines = (k >= 0) ? k + 1 : -1 - k;
+		if (index > origin && index < text.length() && text.charAt(index - 1) == '\r' && text.charAt(index) == '\n') {
+			// DEV-NOTE: the \n of \r\n is the first column of the next line, which starts after the \n
+			return Tuple.of(line + lines + 1, 1);
+		} else if (lines == 0) {
+			return Tuple.of(line, column + index - origin);
+		} else {
+			return Tuple.of(line + lines, index - lineStarts[lines - 1] + 1);
+		}
+	}
+
+	private void scan(int index) {
+		for (int i = scanned; i < index; i++) {
+			final char c = text.charAt(i);
+			if (c == '\n' || (c == '\r' && (i + 1 == text.length() || text.charAt(i + 1) != '\n'))) {
+				add(i + 1);
+			}
+		}
+		if (index > scanned) {
+			scanned = index;
+		}
+	}
+
+	private void add(int lineStart) {
+		if (count == lineStarts.length) {
+			lineStarts = Arrays.copyOf(lineStarts, Math.max(16, count * 2));
+		}
+		lineStarts[count++] = lineStart;
+	}
+}
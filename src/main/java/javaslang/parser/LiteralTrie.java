@@ -0,0 +1,202 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.Requirements.requireNonNull;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * A character trie of literals, which finds the literals matching at an index by reading the input once, i.e. in
+ * O(length of the longest literal) instead of O(number of literals).
+ * <p>
+ * The literals are identified by their index. Equal literals share a node, where the lowest index wins. A trie
+ * supports two semantics:
+ * <ul>
+ * <li>First match, i.e. the ordered choice of a PEG: the matching literal with the lowest index, see
+ * {@link #firstMatch(Source, int)}.</li>
+ * <li>Longest match, like a lexer: the longest matching literal, see {@link #longestMatch(Source, int)}.</li>
+ * </ul>
+ * A trie of the literals rule alternatives start with also dispatches the alternatives, see
+ * {@link #viableAlternatives(ParseContext, int)}.
+ */
+final class LiteralTrie implements Serializable {
+
+	private static final long serialVersionUID = 7311560931283464542L;
+
+	private static final int[] NO_LITERALS = new int[0];
+
+	private final Node root = new Node();
+
+	/**
+	 * Creates a trie of the given literals.
+	 *
+	 * @param literals Non-empty literals, null elements are skipped.
+	 * @throws javaslang.Requirements.UnsatisfiedRequirementException if literals is null.
+	 */
+	LiteralTrie(String... literals) {
+		requireNonNull(literals, "literals is null");
+		for (int i = 0; i < literals.length; i++) {
+			if (literals[i] != null) {
+				Node node = root;
+				for (int j = 0; j < literals[i].length(); j++) {
+					node = node.addChild(literals[i].charAt(j));
+				}
+				node.literals = union(node.literals, new int[] { i });
+			}
+		}
+	}
+
+	/**
+	 * Finds the matching literal with the lowest index.
+	 *
+	 * @param source The input.
+	 * @param index The current index.
+	 * @return The index of the literal or -1, if no literal matches.
+	 */
+	int firstMatch(Source source, int index) {
+		int match = -1;
+		Node node = root;
+		for (int i = index; !source.isEnd(i) && (node = node.child(source.charAt(i))) != null; i++) {
+			if (node.literals.length > 0 && (match < 0 || node.literals[0] < match)) {
+				match = node.literals[0];
+			}
+		}
+		return match;
+	}
+
+	/**
+	 * Finds the longest matching literal.
+	 *
+	 * @param source The input.
+	 * @param index The current index.
+	 * @return The index of the literal or -1, if no literal matches.
+	 */
+	int longestMatch(Source source, int index) {
+		int match = -1;
+		Node node = root;
+		for (int i = index; !source.isEnd(i) && (node = node.child(source.charAt(i))) != null; i++) {
+			if (node.literals.length > 0) {
+				match = node.literals[0];
+			}
+		}
+		return match;
+	}
+
+	/**
+	 * Assigns the viable alternatives to the nodes of this trie, which consists of the literals the alternatives start
+	 * with. The literal of an alternative has the index of the alternative. A node is viable for the alternatives
+	 * whose literal ends on the path to the node and for the undecided alternatives of the first char of the path.
+	 *
+	 * @param undecided Maps the first char of a path to the viable alternatives, which do not depend on their literal,
+	 *            in order.
+	 */
+	void dispatch(IntFunction<int[]> undecided) {
+		for (int i = 0; i < root.chars.length; i++) {
+			dispatch(root.children[i], undecided.apply(root.chars[i]));
+		}
+	}
+
+	private static void dispatch(Node node, int[] viable) {
+		node.viable = union(viable, node.literals);
+		for (Node child : node.children) {
+			dispatch(child, node.viable);
+		}
+	}
+
+	/**
+	 * Returns the viable alternatives at the given index, see {@link #dispatch(IntFunction)}. The literals of all
+	 * other alternatives do not match.
+	 *
+	 * @param context The parse context, which records the examined chars.
+	 * @param index The current index.
+	 * @return The indices of the viable alternatives or null, if no literal starts with the char at the index.
+	 */
+	int[] viableAlternatives(ParseContext context, int index) {
+		final Source source = context.source;
+		Node node = root;
+		int i = index;
+		while (node.chars.length > 0 && !source.isEnd(i)) {
+			final Node child = node.child(source.charAt(i));
+			if (child == null) {
+				break;
+			}
+			node = child;
+			i++;
+		}
+		// DEV-NOTE: the char after the path was examined, unless no literal continues the path
+		context.examine((node.chars.length > 0) ? i : i - 1);
+		return node.viable;
+	}
+
+	// merges two sorted arrays of indices
+	private static int[] union(int[] indices1, int[] indices2) {
+		final int[] result = new int[indices1.length + indices2.length];
+		int i = 0, j = 0, count = 0;
+		while (i < indices1.length || j < indices2.length) {
+			final int next;
+			if (j == indices2.length || (i < indices1.length && indices1[i] <= indices2[j])) {
+				next = indices1[i++];
+			} else {
+				next = indices2[j++];
+			}
+			if (count == 0 || result[count - 1] != next) {
+				result[count++] = next;
+			}
+		}
+		return Arrays.copyOf(result, count);
+	}
+
+	/**
+	 * A node of the trie, which is reached by the chars of a prefix of the literals.
+	 */
+	static final class Node implements Serializable {
+
+		private static final long serialVersionUID = -4019745522633437183L;
+
+		// sorted chars and the child nodes they lead to
+		char[] chars = new char[0];
+		Node[] children = new Node[0];
+
+		// the indices of the literals which end at this node, in order
+		int[] literals = NO_LITERALS;
+
+		// the viable alternatives, see LiteralTrie#dispatch(IntFunction)
+		int[] viable;
+
+		Node child(char c) {
+			final int i = Arrays.binarySearch(chars, c);
+			return (i >= 0) ? children[i] : null;
+		}
+
+		Node addChild(char c) {
+			final int i = Arrays.binarySearch(chars, c);
+			if (i >= 0) {
+				return children[i];
+			} else {
+				final int insert = -1 - i;
+				final Node child = new Node();
+				chars = insert(chars, insert, c);
+				final Node[] newChildren = new Node[children.length + 1];
+				System.arraycopy(children, 0, newChildren, 0, insert);
+				newChildren[insert] = child;
+				System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+				children = newChildren;
+				return child;
+			}
+		}
+
+		private static char[] insert(char[] chars, int index, char c) {
+			final char[] result = new char[chars.length + 1];
+			System.arraycopy(chars, 0, result, 0, index);
+			result[index] = c;
+			System.arraycopy(chars, index, result, index + 1, chars.length - index);
+			return result;
+		}
+	}
+}
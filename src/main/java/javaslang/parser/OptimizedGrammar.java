@@ -0,0 +1,502 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.Requirements.require;
+import static javaslang.Requirements.requireNonNull;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javaslang.parser.Parser.Any;
+import javaslang.parser.Parser.Charset;
+import javaslang.parser.Parser.Cut;
+import javaslang.parser.Parser.HasChildren;
+import javaslang.parser.Parser.Literal;
+import javaslang.parser.Parser.Operators;
+import javaslang.parser.Parser.Quantifier;
+import javaslang.parser.Parser.Range;
+import javaslang.parser.Parser.Reference;
+import javaslang.parser.Parser.Rule;
+import javaslang.parser.Parser.RulePart;
+import javaslang.parser.Parser.Sequence;
+import javaslang.parser.Parser.Subrule;
+
+/**
+ * A grammar whose rule graph is optimized once, see {@link Grammar#optimize()}.
+ * <p>
+ * The optimized graph parses the same language and yields the same parse trees as the original graph. Only a failure
+ * within merged literals is reported at the start of the merged literal.
+ * <p>
+ * An optimized grammar is immutable and safe for concurrent calls of {@code parse} from many threads. The start rule
+ * is created once, all rule references are resolved and the FIRST sets, left-recursive rules, synchronization sets
+ * and dispatch tables are computed before the constructor returns. A parse only reads the rule graph and keeps its
+ * state in its own {@link ParseContext}. The tokenizer of {@link #tokenize(CharSequence)} is still generated on first
+ * use, which is idempotent. Therefore an optimized grammar is intended to be built once and shared, e.g. in a static
+ * field.
+ * <p>
+ * An optimized grammar is serializable. The rule graph is serialized including the analysis results, i.e. a
+ * deserialized grammar is ready to parse, see {@link GrammarLoader#load(java.nio.file.Path, java.nio.file.Path)}.
+ */
+public final class OptimizedGrammar extends Grammar implements Serializable {
+
+	private static final long serialVersionUID = 2630432178150470913L;
+
+	private final Rule startRule;
+	private final Memoization memoization;
+	private final Whitespace whitespace;
+	private final String recordDelimiter;
+	private final FirstSets firstSets;
+	private final LeftRecursion leftRecursion;
+	private final SyncSets syncSets;
+
+	OptimizedGrammar(Grammar grammar) {
+		super(requireNonNull(grammar, "grammar is null").name);
+		this.startRule = new Optimizer(grammar.getWhitespace()).optimize(grammar.getStartRule());
+		this.memoization = grammar.getMemoization();
+		this.whitespace = grammar.getWhitespace();
+		this.recordDelimiter = grammar.getRecordDelimiter();
+		final Set<Rule> rules = Grammar.findRules(startRule);
+		this.firstSets = new FirstSets(rules, whitespace);
+		this.leftRecursion = new LeftRecursion(rules, firstSets);
+		this.syncSets = new SyncSets(rules, firstSets, whitespace, grammar::getSynchronizationTokens);
+		analyze(firstSets, leftRecursion);
+	}
+
+	// DEV-NOTE: the rule graph of a deserialized grammar is already optimized and analyzed
+	private OptimizedGrammar(SerializationProxy proxy) {
+		super(proxy.name);
+		this.startRule = proxy.startRule;
+		this.memoization = proxy.memoization;
+		this.whitespace = proxy.whitespace;
+		this.recordDelimiter = proxy.recordDelimiter;
+		this.firstSets = proxy.firstSets;
+		this.leftRecursion = proxy.leftRecursion;
+		this.syncSets = proxy.syncSets;
+	}
+
+	// DEV-NOTE: the lazily cached analysis results are computed before the grammar is published
+	private void analyze(FirstSets firstSets, LeftRecursion leftRecursion) {
+		final Set<Parser> visited = new HashSet<>();
+		for (Rule rule : Grammar.findRules(startRule)) {
+			rule.analyze(firstSets, leftRecursion);
+			for (RulePart alternative : rule.alternatives) {
+				analyze(alternative, rule.lexical, firstSets, visited);
+			}
+		}
+	}
+
+	// a subrule is shared by parts of the same scope only, see Optimizer
+	private static void analyze(Parser parser, boolean lexicalScope, FirstSets firstSets, Set<Parser> visited) {
+		if (parser instanceof Reference || !visited.add(parser)) {
+			return;
+		}
+		if (parser instanceof Subrule) {
+			((Subrule) parser).analyze(firstSets, lexicalScope);
+		}
+		if (parser instanceof HasChildren) {
+			for (Parser child : ((HasChildren) parser).getChildren()) {
+				analyze(child, lexicalScope, firstSets, visited);
+			}
+		}
+	}
+
+	@Override
+	protected Rule getStartRule() {
+		return startRule;
+	}
+
+	@Override
+	protected Memoization getMemoization() {
+		return memoization;
+	}
+
+	@Override
+	protected Whitespace getWhitespace() {
+		return whitespace;
+	}
+
+	@Override
+	protected String getRecordDelimiter() {
+		return recordDelimiter;
+	}
+
+	@Override
+	protected String[] getSynchronizationTokens(String rule) {
+		return syncSets.tokens(rule);
+	}
+
+	@Override
+	FirstSets getFirstSets() {
+		return firstSets;
+	}
+
+	@Override
+	LeftRecursion getLeftRecursion() {
+		return leftRecursion;
+	}
+
+	@Override
+	SyncSets getSyncSets() {
+		return syncSets;
+	}
+
+	// -- Serializable implementation
+
+	/**
+	 * {@code writeReplace} method for the serialization proxy pattern.
+	 * <p>
+	 * The presence of this method causes the serialization system to emit a SerializationProxy instance instead of
+	 * an instance of the enclosing class.
+	 * 
+	 * @return A SerialiationProxy for this enclosing class.
+	 */
+	private Object writeReplace() {
+		return new SerializationProxy(this);
+	}
+
+	/**
+	 * {@code readObject} method for the serialization proxy pattern.
+	 * <p>
+	 * Guarantees that the serialization system will never generate a serialized instance of the enclosing class.
+	 * 
+	 * @param stream An object serialization stream.
+	 * @throws InvalidObjectException This method will throw with the message "Proxy required".
+	 */
+	private void readObject(ObjectInputStream stream) throws InvalidObjectException {
+		throw new InvalidObjectException("Proxy required");
+	}
+
+	/**
+	 * A serialization proxy which stores the optimized rule graph including the cached analysis results, i.e. a
+	 * deserialized grammar is not optimized or analyzed again.
+	 */
+	// DEV-NOTE: Grammar is not serializable, its name is stored by the proxy
+	private static final class SerializationProxy implements Serializable {
+
+		private static final long serialVersionUID = 4101318853302437307L;
+
+		private final String name;
+		private final Rule startRule;
+		private final Memoization memoization;
+		private final Whitespace whitespace;
+		private final String recordDelimiter;
+		private final FirstSets firstSets;
+		private final LeftRecursion leftRecursion;
+		private final SyncSets syncSets;
+
+		SerializationProxy(OptimizedGrammar grammar) {
+			this.name = grammar.name;
+			this.startRule = grammar.startRule;
+			this.memoization = grammar.memoization;
+			this.whitespace = grammar.whitespace;
+			this.recordDelimiter = grammar.recordDelimiter;
+			this.firstSets = grammar.firstSets;
+			this.leftRecursion = grammar.leftRecursion;
+			this.syncSets = grammar.syncSets;
+		}
+
+		/**
+		 * {@code readResolve} method for the serialization proxy pattern.
+		 * <p>
+		 * Returns a logically equivalent instance of the enclosing class. The presence of this method causes the
+		 * serialization system to translate the serialization proxy back into an instance of the enclosing class
+		 * upon deserialization.
+		 * 
+		 * @return A deserialized instance of the enclosing class.
+		 */
+		private Object readResolve() {
+			return new OptimizedGrammar(this);
+		}
+	}
+
+	// -- optimizer
+
+	/**
+	 * Rewrites a rule graph by these passes, applied bottom-up to each rule part:
+	 * <ul>
+	 * <li>Nested sequences are flattened, as well as nested subrules and subrules which are rule alternatives.</li>
+	 * <li>Quantifiers {@code {1}} are replaced by the quantified parser, where the parse tree does not change.</li>
+	 * <li>Adjacent literals of lexical sequences are merged.</li>
+	 * <li>Equal rule parts are shared, i.e. their dispatch tables are computed once.</li>
+	 * </ul>
+	 * Subrules and quantifiers which contain a cut are kept, because the cut commits them.
+	 * Finally the optimized rules are checked for rules which never match and for alternatives which are never tried.
+	 */
+	static final class Optimizer {
+
+		final Whitespace whitespace;
+		final Map<String, Rule> rules = new LinkedHashMap<>();
+		final List<Reference> references = new ArrayList<>();
+
+		// DEV-NOTE: parts are equal if their keys are equal, which include the scope, see Subrule#getDispatchTable
+		final Map<String, RulePart> parts = new HashMap<>();
+		final Map<RulePart, Integer> ids = new IdentityHashMap<>();
+
+		Optimizer(Whitespace whitespace) {
+			this.whitespace = whitespace;
+		}
+
+		/**
+		 * Optimizes the rules which are reachable from the given start rule.
+		 *
+		 * @param startRule A start rule.
+		 * @return The optimized start rule.
+		 * @throws javaslang.Requirements.UnsatisfiedRequirementException if a rule never matches or an alternative is
+		 *             never tried.
+		 */
+		Rule optimize(Rule startRule) {
+			for (Rule rule : Grammar.findRules(startRule)) {
+				rules.put(rule.name, new Rule(rule.name, rule.memoized, optimizeAlternatives(rule.alternatives,
+						rule.lexical)));
+			}
+			// DEV-NOTE: references are resolved before the grammar is published
+			references.forEach(Reference::getRule);
+			checkProductive();
+			checkReachable(new FirstSets(new LinkedHashSet<>(rules.values()), whitespace));
+			return rules.get(startRule.name);
+		}
+
+		RulePart[] optimizeAlternatives(RulePart[] alternatives, boolean lexicalScope) {
+			final List<RulePart> result = new ArrayList<>();
+			for (RulePart alternative : alternatives) {
+				final RulePart optimized = optimize(alternative, lexicalScope);
+				if (optimized instanceof Subrule && !hasCut((Subrule) optimized)) {
+					for (RulePart subalternative : ((Subrule) optimized).alternatives) {
+						result.add(subalternative);
+					}
+				} else {
+					result.add(optimized);
+				}
+			}
+			return result.toArray(new RulePart[result.size()]);
+		}
+
+		RulePart optimize(RulePart part, boolean lexicalScope) {
+			final String scope = lexicalScope ? "lexical " : "parser ";
+			if (part instanceof Reference) {
+				final String name = ((Reference) part).getRule().name;
+				return parts.computeIfAbsent(scope + "Reference " + name, key -> {
+					final Reference reference = new Reference(() -> rules.get(name));
+					references.add(reference);
+					ids.put(reference, ids.size());
+					return reference;
+				});
+			}
+			final RulePart optimized;
+			if (part instanceof Sequence) {
+				optimized = optimizeSequence((Sequence) part, lexicalScope);
+			} else if (part instanceof Subrule) {
+				optimized = new Subrule(optimizeAlternatives(((Subrule) part).alternatives, lexicalScope));
+			} else if (part instanceof Quantifier) {
+				final Quantifier quantifier = (Quantifier) part;
+				final RulePart parser = optimize(quantifier.parser, lexicalScope);
+				if (lexicalScope && isOnce(quantifier) && isOneToken(parser) && !hasCut(parser)) {
+					return parser;
+				}
+				optimized = new Quantifier(parser, quantifier.lowerBound, quantifier.upperBound);
+			} else if (part instanceof Operators) {
+				final Operators operators = (Operators) part;
+				optimized = new Operators(operators.name, optimize(operators.operand, lexicalScope), operators.levels);
+			} else {
+				// DEV-NOTE: terminal parts are immutable
+				optimized = part;
+			}
+			return parts.computeIfAbsent(scope + key(optimized), key -> {
+				ids.put(optimized, ids.size());
+				return optimized;
+			});
+		}
+
+		// DEV-NOTE: the children of a part are already shared, i.e. equal children have the same id
+		private String key(RulePart part) {
+			if (part instanceof Sequence) {
+				return "Sequence " + ids(((Sequence) part).parsers);
+			} else if (part instanceof Subrule) {
+				return "Subrule " + ids(((Subrule) part).alternatives);
+			} else if (part instanceof Quantifier) {
+				final Quantifier quantifier = (Quantifier) part;
+				return "Quantifier " + quantifier.lowerBound + " " + quantifier.upperBound + " "
+						+ ids.get(quantifier.parser);
+			} else if (part instanceof Operators) {
+				final Operators operators = (Operators) part;
+				return "Operators " + ids.get(operators.operand) + " " + Stream.of(operators.levels)
+						.map(level -> level.toString(operators.name)).collect(Collectors.joining(" | "));
+			} else {
+				return part.getClass().getSimpleName() + " " + part.toString();
+			}
+		}
+
+		private String ids(RulePart[] parts) {
+			return Stream.of(parts).map(part -> String.valueOf(ids.get(part))).collect(Collectors.joining(" "));
+		}
+
+		RulePart optimizeSequence(Sequence sequence, boolean lexicalScope) {
+			final List<RulePart> result = new ArrayList<>();
+			for (RulePart part : sequence.parsers) {
+				RulePart optimized = optimize(part, lexicalScope);
+				// DEV-NOTE: the sequence skips whitespace after each part or combines all tokens, like the quantifier
+				if (optimized instanceof Quantifier && isOnce((Quantifier) optimized)
+						&& (lexicalScope || !optimized.isPure()) && !hasCut(((Quantifier) optimized).parser)) {
+					optimized = ((Quantifier) optimized).parser;
+				}
+				if (optimized instanceof Sequence) {
+					for (RulePart subpart : ((Sequence) optimized).parsers) {
+						add(result, subpart, lexicalScope);
+					}
+				} else {
+					add(result, optimized, lexicalScope);
+				}
+			}
+			return new Sequence(result.toArray(new RulePart[result.size()]));
+		}
+
+		// DEV-NOTE: in parser scope whitespace may occur between literals, which are distinct tokens
+		private void add(List<RulePart> parts, RulePart part, boolean lexicalScope) {
+			final int last = parts.size() - 1;
+			if (lexicalScope && last >= 0 && parts.get(last) instanceof Literal && part instanceof Literal) {
+				final String literal = ((Literal) parts.get(last)).literal + ((Literal) part).literal;
+				parts.set(last, optimize(new Literal(literal), true));
+			} else {
+				parts.add(part);
+			}
+		}
+
+		// DEV-NOTE: a cut commits the innermost choice, i.e. a choice which contains a cut is not dissolved
+		private static boolean hasCut(Subrule subrule) {
+			for (RulePart alternative : subrule.alternatives) {
+				if (hasCut(alternative)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		// the cuts which commit the choice of the given part, i.e. not within a nested choice
+		private static boolean hasCut(RulePart part) {
+			if (part instanceof Cut) {
+				return true;
+			} else if (part instanceof Sequence) {
+				for (RulePart subpart : ((Sequence) part).parsers) {
+					if (hasCut(subpart)) {
+						return true;
+					}
+				}
+				return false;
+			} else if (part instanceof Operators) {
+				// DEV-NOTE: the left operand is not parsed within a choice
+				return hasCut(((Operators) part).operand);
+			} else {
+				return false;
+			}
+		}
+
+		private static boolean isOnce(Quantifier quantifier) {
+			return quantifier.lowerBound == 1 && quantifier.upperBound == 1;
+		}
+
+		// the parts which yield at most one token in lexical scope, i.e. a quantifier does not combine their tokens
+		private static boolean isOneToken(RulePart part) {
+			return part instanceof Literal || part instanceof Charset || part instanceof Range || part instanceof Any
+					|| part instanceof Sequence || part instanceof Quantifier;
+		}
+
+		/**
+		 * Checks that each rule may match, i.e. it is not only defined by itself, like {@code a : 'x' a ;}.
+		 */
+		private void checkProductive() {
+			final Set<String> productive = new HashSet<>();
+			boolean changed = true;
+			while (changed) {
+				changed = false;
+				for (Rule rule : rules.values()) {
+					if (!productive.contains(rule.name) && isProductive(rule, productive)) {
+						productive.add(rule.name);
+						changed = true;
+					}
+				}
+			}
+			for (Rule rule : rules.values()) {
+				require(productive.contains(rule.name), () -> "rule '" + rule.name + "' never matches");
+			}
+		}
+
+		private static boolean isProductive(Parser parser, Set<String> productive) {
+			if (parser instanceof Rule) {
+				for (RulePart alternative : ((Rule) parser).alternatives) {
+					if (isProductive(alternative, productive)) {
+						return true;
+					}
+				}
+				return false;
+			} else if (parser instanceof Reference) {
+				return productive.contains(((Reference) parser).getRule().name);
+			} else if (parser instanceof Sequence) {
+				for (RulePart part : ((Sequence) parser).parsers) {
+					if (!isProductive(part, productive)) {
+						return false;
+					}
+				}
+				return true;
+			} else if (parser instanceof Subrule) {
+				for (RulePart alternative : ((Subrule) parser).alternatives) {
+					if (isProductive(alternative, productive)) {
+						return true;
+					}
+				}
+				return false;
+			} else if (parser instanceof Quantifier) {
+				final Quantifier quantifier = (Quantifier) parser;
+				return quantifier.lowerBound == 0 || isProductive(quantifier.parser, productive);
+			} else if (parser instanceof Operators) {
+				return isProductive(((Operators) parser).operand, productive);
+			} else {
+				return true;
+			}
+		}
+
+		/**
+		 * Checks that each alternative may be tried. A nullable alternative always matches, i.e. the alternatives
+		 * after it are never tried.
+		 */
+		private void checkReachable(FirstSets firstSets) {
+			final Set<Parser> visited = new HashSet<>();
+			for (Rule rule : rules.values()) {
+				checkReachable(rule.name, rule, firstSets, visited);
+			}
+		}
+
+		private static void checkReachable(String name, Parser parser, FirstSets firstSets, Set<Parser> visited) {
+			if (!visited.add(parser) || parser instanceof Reference) {
+				return;
+			}
+			final RulePart[] alternatives = (parser instanceof Rule) ? ((Rule) parser).alternatives
+					: (parser instanceof Subrule) ? ((Subrule) parser).alternatives : new RulePart[0];
+			for (int i = 0; i < alternatives.length - 1; i++) {
+				final RulePart alternative = alternatives[i];
+				require(!firstSets.isNullable(alternative), () -> "alternatives of rule '" + name + "' after "
+						+ alternative + " are never tried");
+			}
+			if (parser instanceof HasChildren) {
+				for (Parser child : ((HasChildren) parser).getChildren()) {
+					checkReachable(name, child, firstSets, visited);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,235 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import javaslang.collection.Tree;
+import javaslang.parser.Parser.EOF;
+import javaslang.parser.Parser.Quantifier;
+import javaslang.parser.Parser.Reference;
+import javaslang.parser.Parser.Rule;
+import javaslang.parser.Parser.RulePart;
+import javaslang.parser.Parser.Sequence;
+
+/**
+ * Parses a repetition of records in parallel, see {@link Grammar#parseParallel(CharSequence, int[])}. The start rule
+ * has to be a parser rule of the form {@code root : record* EOF} or {@code root : record*}, where the repetition may
+ * have a lower bound but no upper bound, e.g. {@code record+}.
+ * <p>
+ * The text is split into chunks at the given record boundaries. Each chunk is parsed on its own
+ * {@link ParseContext}, applying the record rule like the quantifier of the start rule does. The records of all chunks
+ * are then stitched under the start rule symbol. Because all indices are absolute, the nodes of a chunk need no
+ * correction.
+ * <p>
+ * A chunk has to end exactly where the next chunk starts, i.e. the boundaries have to be record starts. If this does
+ * not hold or if the text does not match, null is returned and the caller parses the whole text sequentially, which
+ * yields the same tree or failure as {@link Grammar#parse(CharSequence)}.
+ */
+final class ParallelParse {
+
+	// the minimum length of a chunk, smaller chunks are not worth the overhead of parallel execution
+	static final int MIN_CHUNK_LENGTH = 1 << 16;
+
+	private final Grammar grammar;
+	private final Rule startRule;
+	private final Quantifier records;
+	private final boolean eof;
+
+	private ParallelParse(Grammar grammar, Rule startRule, Quantifier records, boolean eof) {
+		this.grammar = grammar;
+		this.startRule = startRule;
+		this.records = records;
+		this.eof = eof;
+	}
+
+	/**
+	 * Checks if the start rule of a grammar is a repetition of records.
+	 *
+	 * @param grammar A grammar.
+	 * @return A new ParallelParse or null, if the start rule is not a repetition of records.
+	 */
+	static ParallelParse of(Grammar grammar) {
+		final Rule startRule = grammar.getStartRule();
+		if (startRule.lexical || startRule.alternatives.length != 1) {
+			return null;
+		}
+		RulePart alternative = startRule.alternatives[0];
+		boolean eof = false;
+		if (alternative instanceof Sequence) {
+			final RulePart[] parsers = ((Sequence) alternative).parsers;
+			if (parsers.length != 2 || parsers[1] != EOF.INSTANCE) {
+				return null;
+			}
+			alternative = parsers[0];
+			eof = true;
+		}
+		if (!(alternative instanceof Quantifier)) {
+			return null;
+		}
+		final Quantifier records = (Quantifier) alternative;
+		if (records.upperBound != Quantifier.UNBOUNDED || !(records.parser instanceof Reference)) {
+			return null;
+		}
+		return new ParallelParse(grammar, startRule, records, eof);
+	}
+
+	/**
+	 * Computes the number of chunks of a text, which is about four chunks per thread of the common ForkJoinPool.
+	 *
+	 * @param length The length of a text.
+	 * @return The number of chunks, at least 1.
+	 */
+	static int chunkCount(int length) {
+		final int parallelism = ForkJoinPool.commonPool().getParallelism();
+		return Math.max(1, Math.min(4 * parallelism, length / MIN_CHUNK_LENGTH));
+	}
+
+	/**
+	 * Selects the boundaries which split a text into chunks of about the same length.
+	 *
+	 * @param boundaries Ascending record boundaries.
+	 * @param length The length of the text.
+	 * @param chunkCount The desired number of chunks.
+	 * @return At most {@code chunkCount - 1} distinct boundaries.
+	 */
+	static int[] select(int[] boundaries, int length, int chunkCount) {
+		final int[] selected = new int[Math.min(boundaries.length, chunkCount - 1)];
+		int count = 0;
+		for (int boundary : boundaries) {
+			if (count == selected.length) {
+				break;
+			}
+			final long target = (long) length * (count + 1) / chunkCount;
+			if (boundary > 0 && boundary >= target && (count == 0 || boundary > selected[count - 1])) {
+				selected[count++] = boundary;
+			}
+		}
+		return Arrays.copyOf(selected, count);
+	}
+
+	/**
+	 * Splits a text into chunks of about the same length. Each chunk but the last ends with a record delimiter.
+	 *
+	 * @param source A text.
+	 * @param length The length of the text.
+	 * @param delimiter A record delimiter.
+	 * @param chunkCount The desired number of chunks.
+	 * @return At most {@code chunkCount - 1} distinct boundaries.
+	 */
+	static int[] split(Source source, int length, String delimiter, int chunkCount) {
+		final int[] boundaries = new int[chunkCount - 1];
+		int count = 0;
+		int index = 0;
+		for (int i = 1; i < chunkCount; i++) {
+			index = Math.max(index, (int) ((long) length * i / chunkCount));
+			while (!source.isEnd(index) && !source.startsWith(delimiter, index)) {
+				index++;
+			}
+			index += delimiter.length();
+			if (index >= length) {
+				break;
+			}
+			boundaries[count++] = index;
+		}
+		return Arrays.copyOf(boundaries, count);
+	}
+
+	/**
+	 * Parses the chunks of a text in parallel.
+	 *
+	 * @param text A text.
+	 * @param boundaries The start indices of the chunks, except the first chunk, which starts at 0. Ascending.
+	 * @return The parse tree or null, if the text has to be parsed sequentially.
+	 */
+	Tree<Token> parse(CharSequence text, int[] boundaries) {
+		final Source source = Source.of(text);
+		final int chunkCount = boundaries.length + 1;
+		// DEV-NOTE: parallel streams are executed by the common ForkJoinPool
+		final Chunk[] chunks = IntStream.range(0, chunkCount)
+				.parallel()
+				.mapToObj(i -> {
+					final int start = (i == 0) ? 0 : boundaries[i - 1];
+					final int end = (i == chunkCount - 1) ? Integer.MAX_VALUE : boundaries[i];
+					return parseChunk(source, start, end);
+				})
+				.toArray(Chunk[]::new);
+		for (int i = 0; i < chunkCount; i++) {
+			if (chunks[i] == null || (i > 0 && chunks[i - 1].endIndex != chunks[i].startIndex)) {
+				return null;
+			}
+		}
+		final TreeBuffer tree = new TreeBuffer();
+		int recordCount = 0;
+		int extent = -1;
+		for (Chunk chunk : chunks) {
+			tree.append(chunk.context.tree);
+			recordCount += chunk.recordCount;
+			extent = Math.max(extent, chunk.context.examined);
+		}
+		if (recordCount < records.lowerBound) {
+			return null;
+		}
+		final int startIndex = chunks[0].startIndex;
+		final int endIndex = chunks[chunkCount - 1].endIndex;
+		if (eof) {
+			if (!source.isEnd(endIndex)) {
+				return null;
+			}
+			tree.token(endIndex, 0);
+		}
+		tree.symbol(startRule.name, startIndex, endIndex - startIndex, Math.max(extent, endIndex), 0);
+		return tree.toNodes(text, 0).get(0).asTree();
+	}
+
+	/**
+	 * Parses the records which start within {@code [start, end)}, like {@link Quantifier} does. The last chunk parses
+	 * records until a record does not match.
+	 */
+	private Chunk parseChunk(Source source, int start, int end) {
+		final ParseContext context = new ParseContext(grammar, source, null);
+		final boolean last = (end == Integer.MAX_VALUE);
+		final int startIndex = context.skipWhitespace(start);
+		int index = startIndex;
+		int recordCount = 0;
+		while (index < end) {
+			final int result = records.parser.parse(context, index, false);
+			if (result < 0) {
+				if (last) {
+					break;
+				} else {
+					return null;
+				}
+			} else if (result == index) {
+				// DEV-NOTE: an empty record would be repeated infinitely
+				return null;
+			}
+			index = context.skipWhitespace(result);
+			recordCount++;
+		}
+		return new Chunk(context, startIndex, index, recordCount);
+	}
+
+	/**
+	 * The records of a chunk, which are held by the tree buffer of the chunk's parse context.
+	 */
+	static final class Chunk {
+
+		final ParseContext context;
+		final int startIndex;
+		final int endIndex;
+		final int recordCount;
+
+		Chunk(ParseContext context, int startIndex, int endIndex, int recordCount) {
+			this.context = context;
+			this.startIndex = startIndex;
+			this.endIndex = endIndex;
+			this.recordCount = recordCount;
+		}
+	}
+}
@@ -0,0 +1,403 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.Requirements.requireNonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javaslang.parser.Grammar.Memoization;
+import javaslang.parser.Parser.Rule;
+
+/**
+ * The state of a single parse run. A ParseContext is created for each call of {@link Grammar#parse(CharSequence)} and
+ * passed through all parsers. It is not shared between parse runs and therefore needs not to be thread-safe.
+ * <p>
+ * The parsers write the nodes of the parse tree to the {@link TreeBuffer} of the context.
+ */
+final class ParseContext {
+
+	final Source source;
+	final Memoization memoization;
+	// DEV-NOTE: null instead of a no-op listener, parsing without a listener does not call it at all
+	final ParseListener listener;
+	// DEV-NOTE: null, if alternatives are not dispatched, e.g. when parsers are used without a grammar
+	final FirstSets firstSets;
+	// DEV-NOTE: null, if left recursion is not analyzed, e.g. when parsers are used without a grammar
+	final LeftRecursion leftRecursion;
+	final Whitespace whitespace;
+	final TreeBuffer tree = new TreeBuffer();
+	// DEV-NOTE: null, if this is not a reparse after an edit
+	final ReuseTable reusable;
+	// DEV-NOTE: null, if the text was not tokenized before parsing
+	final TokenStream tokens;
+	// DEV-NOTE: null, if syntax errors are not recovered, see #recover(String, int, int)
+	final SyncSets syncSets;
+	private final Consumer<? super SyntaxError> errors;
+	private LineIndex lines;
+	private final int firstError;
+	private int recoverable;
+
+	// the furthest index which was examined by the current rule application, see Rule#parse(ParseContext, int, boolean)
+	int examined = -1;
+
+	// the last whitespace skip, skipping is idempotent, i.e. skipping again at lastSkipEnd yields lastSkipEnd
+	private int lastSkipStart = -1;
+	private int lastSkipEnd = -1;
+	private int lastSkipExtent = -1;
+
+	// DEV-NOTE: rules are compared by name because rule references create new rule instances
+	private final Map<Integer, Map<Rule, Memo>> memo = new HashMap<>();
+
+	// the state of the innermost choice, see Parser.Cut
+	private boolean cut = false;
+	private boolean backtrackable = false;
+	private boolean exclusive = true;
+
+	// the number of active choices which may try another alternative, including growing seeds
+	private int backtrackPoints = 0;
+
+	// the number of active choices which are not committed to one alternative, including growing seeds, see #recover
+	private int uncommitted = 0;
+
+	// the results of rule applications before this index are not needed anymore, see #cut(int)
+	private int evicted = 0;
+
+	ParseContext(CharSequence text) {
+		this(Source.of(text), Memoization.NONE, Whitespace.DEFAULT, null, null, null, null, null, null, null, -1, 0);
+	}
+
+	/**
+	 * Creates a parse context for parsing a text with the given grammar.
+	 *
+	 * @param grammar The grammar, which defines memoization, whitespace and FIRST sets.
+	 * @param source The input to parse.
+	 * @param listener A listener which is notified of parse events or null, if no events are reported.
+	 */
+	ParseContext(Grammar grammar, Source source, ParseListener listener) {
+		this(grammar, source, listener, null);
+	}
+
+	/**
+	 * Creates a parse context for parsing a text with the given grammar, which may try all alternatives of each choice
+	 * instead of dispatching them by FIRST sets. Then each terminal which was expected at an index reports its
+	 * failure to the listener, see {@link ParseFailure}.
+	 *
+	 * @param grammar The grammar, which defines memoization, whitespace and FIRST sets.
+	 * @param source The input to parse.
+	 * @param listener A listener which is notified of parse events or null, if no events are reported.
+	 * @param dispatch true, if the alternatives are dispatched, false otherwise.
+	 */
+	ParseContext(Grammar grammar, Source source, ParseListener listener, boolean dispatch) {
+		this(source, grammar.getMemoization(), grammar.getWhitespace(), dispatch ? grammar.getFirstSets() : null,
+				grammar.getLeftRecursion(), listener, null, null, null, null, -1, 0);
+	}
+
+	/**
+	 * Creates a parse context for reparsing an edited text with the given grammar.
+	 *
+	 * @param grammar The grammar, which defines memoization, whitespace and FIRST sets.
+	 * @param source The edited input to parse.
+	 * @param listener A listener which is notified of parse events or null, if no events are reported.
+	 * @param reusable The parse trees of the previous parse run which are not affected by the edit or null, if all
+	 *            rules are applied.
+	 */
+	ParseContext(Grammar grammar, Source source, ParseListener listener, ReuseTable reusable) {
+		this(source, grammar.getMemoization(), grammar.getWhitespace(), grammar.getFirstSets(),
+				grammar.getLeftRecursion(), listener, reusable, null, null, null, -1, 0);
+	}
+
+	/**
+	 * Creates a parse context for parsing a tokenized text with the given grammar.
+	 *
+	 * @param grammar The grammar, which defines memoization, whitespace and FIRST sets.
+	 * @param tokens The tokens of the text to parse, see {@link Grammar#tokenize(CharSequence)}.
+	 * @param listener A listener which is notified of parse events or null, if no events are reported.
+	 */
+	ParseContext(Grammar grammar, TokenStream tokens, ParseListener listener) {
+		this(Source.of(tokens.getText()), grammar.getMemoization(), grammar.getWhitespace(), grammar.getFirstSets(),
+				grammar.getLeftRecursion(), listener, null, tokens, null, null, -1, 0);
+	}
+
+	/**
+	 * Creates a parse context for parsing a text with the given grammar, which recovers from syntax errors.
+	 *
+	 * @param grammar The grammar, which defines memoization, whitespace, FIRST sets and synchronization sets.
+	 * @param source The input to parse.
+	 * @param firstError The index of the first syntax error, errors before this index are not recovered.
+	 * @param maxErrors The maximum number of errors which are recovered.
+	 * @param errors A consumer of the recovered errors.
+	 */
+	ParseContext(Grammar grammar, Source source, int firstError, int maxErrors, Consumer<? super SyntaxError> errors) {
+		this(source, grammar.getMemoization(), grammar.getWhitespace(), grammar.getFirstSets(),
+				grammar.getLeftRecursion(), null, null, null, grammar.getSyncSets(), errors, firstError, maxErrors);
+	}
+
+	private ParseContext(Source source, Memoization memoization, Whitespace whitespace, FirstSets firstSets,
+			LeftRecursion leftRecursion, ParseListener listener, ReuseTable reusable, TokenStream tokens,
+			SyncSets syncSets, Consumer<? super SyntaxError> errors, int firstError, int maxErrors) {
+		requireNonNull(source, "source is null");
+		requireNonNull(memoization, "memoization is null");
+		requireNonNull(whitespace, "whitespace is null");
+		this.source = source;
+		this.memoization = memoization;
+		this.whitespace = whitespace;
+		this.firstSets = firstSets;
+		this.leftRecursion = leftRecursion;
+		this.listener = listener;
+		this.reusable = reusable;
+		this.tokens = tokens;
+		this.syncSets = syncSets;
+		this.errors = errors;
+		this.firstError = firstError;
+		this.recoverable = maxErrors;
+	}
+
+	/**
+	 * Skips whitespace, starting at the given index. Repeated skips at the same index take constant time.
+	 *
+	 * @param index The current index.
+	 * @return The index of the first character after the whitespace.
+	 */
+	int skipWhitespace(int index) {
+		if (index != lastSkipStart && index != lastSkipEnd) {
+			lastSkipStart = index;
+			lastSkipEnd = whitespace.skip(source, index);
+			lastSkipExtent = whitespace.extent(source, lastSkipEnd);
+		}
+		examine(lastSkipExtent);
+		return lastSkipEnd;
+	}
+
+	/**
+	 * Records that the given index was examined by the current rule application. The parse result of a rule only
+	 * depends on the chars between its start index and the furthest examined index, which is the basis of reusing
+	 * parse trees after an edit.
+	 *
+	 * @param index An examined index.
+	 */
+	void examine(int index) {
+		if (index > examined) {
+			examined = index;
+		}
+	}
+
+	/**
+	 * Checks if the parse results of the given rule are cached in this parse run.
+	 *
+	 * @param rule A rule.
+	 * @return true, if the results of the rule are memoized, false otherwise.
+	 */
+	boolean isMemoized(Rule rule) {
+		switch (memoization) {
+			case ALL_RULES:
+				return true;
+			case MARKED_RULES:
+				return rule.memoized;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Returns the cached parse result of a rule at a specific index.
+	 *
+	 * @param rule A rule.
+	 * @param index The index (after skipping whitespace) the rule was applied to.
+	 * @return The cached result or null, if the rule was not applied to the index yet.
+	 */
+	Memo recall(Rule rule, int index) {
+		final Map<Rule, Memo> results = memo.get(index);
+		return (results == null) ? null : results.get(rule);
+	}
+
+	/**
+	 * Caches the parse result of a rule at a specific index, including the nodes the rule added to the tree buffer. The
+	 * nodes are retained in constant time, i.e. memoizing all rules keeps the parse time linear.
+	 *
+	 * @param rule A rule.
+	 * @param index The index (after skipping whitespace) the rule was applied to.
+	 * @param result The parse result, i.e. an end index or a negative failure code.
+	 * @param extent The furthest index which was examined by the rule.
+	 * @param mark The mark of the tree buffer before the rule was applied.
+	 */
+	void memoize(Rule rule, int index, int result, int extent, int mark) {
+		if (index >= evicted) {
+			// DEV-NOTE: the nodes are retained in the tree buffer instead of copying them, see TreeBuffer#retain(int)
+			final TreeBuffer.Records nodes = (result < 0) ? null : tree.retain(mark);
+			memoize(rule, index, new Memo(result, extent, nodes));
+		}
+	}
+
+	/**
+	 * Caches the parse result of a rule at a specific index, replacing a previously cached result.
+	 *
+	 * @param rule A rule.
+	 * @param index The index (after skipping whitespace) the rule was applied to.
+	 * @param result The parse result.
+	 */
+	void memoize(Rule rule, int index, Memo result) {
+		// DEV-NOTE: a rule is applied again at an index before a cut only by backtracking, which the cut prevents
+		if (index >= evicted) {
+			memo.computeIfAbsent(index, i -> new HashMap<>()).put(rule, result);
+		}
+	}
+
+	/**
+	 * Enters an alternative of a choice. A choice is the alternatives of a rule or subrule, an iteration of a
+	 * quantifier or the right operand of an operator.
+	 *
+	 * @param backtrackable true, if the choice tries another alternative if this one fails, false otherwise.
+	 * @param exclusive true, if no other alternative of the choice may match at the current index, i.e. a syntax error
+	 *            within this alternative is an error of the choice, see {@link #recover(String, int, int)}.
+	 * @return The state of the outer choice, which is restored by {@link #exitAlternative(int)}.
+	 */
+	int enterAlternative(boolean backtrackable, boolean exclusive) {
+		final int outer = (cut ? 1 : 0) | (this.backtrackable ? 2 : 0) | (this.exclusive ? 4 : 0);
+		cut = false;
+		this.backtrackable = backtrackable;
+		this.exclusive = exclusive;
+		if (backtrackable) {
+			backtrackPoints++;
+		}
+		if (!exclusive) {
+			uncommitted++;
+		}
+		return outer;
+	}
+
+	/**
+	 * Exits an alternative of a choice and restores the state of the outer choice.
+	 *
+	 * @param outer The state of the outer choice, as returned by {@link #enterAlternative(boolean, boolean)}.
+	 * @return true, if the alternative passed a cut, i.e. the choice must not try another alternative.
+	 */
+	boolean exitAlternative(int outer) {
+		final boolean committed = cut;
+		if (!committed) {
+			commit();
+		}
+		cut = (outer & 1) != 0;
+		backtrackable = (outer & 2) != 0;
+		exclusive = (outer & 4) != 0;
+		return committed;
+	}
+
+	/**
+	 * Enters a parse which returns to the given index, like a growing seed, i.e. a backtrack point which is not
+	 * removed by a cut.
+	 */
+	void enterBacktrackPoint() {
+		backtrackPoints++;
+		uncommitted++;
+	}
+
+	void exitBacktrackPoint() {
+		backtrackPoints--;
+		uncommitted--;
+	}
+
+	/**
+	 * Commits the innermost choice to the current alternative. If no choice may backtrack anymore, the parse does not
+	 * return to an index before the given index, i.e. the memoized results before the index are evicted.
+	 *
+	 * @param index The index of the cut.
+	 */
+	void cut(int index) {
+		if (!cut) {
+			cut = true;
+			commit();
+		}
+		if (backtrackPoints == 0 && index > evicted) {
+			for (int i = evicted; i < index && !memo.isEmpty(); i++) {
+				final Map<Rule, Memo> results = memo.remove(i);
+				if (results != null) {
+					for (Memo result : results.values()) {
+						if (result.tree != null) {
+							tree.release(result.tree);
+						}
+					}
+				}
+			}
+			evicted = index;
+		}
+	}
+
+	// removes the innermost choice from the counters
+	private void commit() {
+		if (backtrackable) {
+			backtrackPoints--;
+		}
+		if (!exclusive) {
+			uncommitted--;
+		}
+	}
+
+	/**
+	 * Recovers from a syntax error within a parser rule, which failed to match. The error is recovered, if
+	 * <ul>
+	 * <li>the error is not before the first error, i.e. the parse up to the first error equals a parse without error
+	 * recovery,</li>
+	 * <li>each enclosing choice is committed to one alternative, i.e. only one alternative matches the start of the
+	 * input or the alternative passed a cut, which includes quantifiers which may stop,</li>
+	 * <li>the rule matched a part of the input or cannot end at its start index, i.e. the failure is not the end of a
+	 * repetition and</li>
+	 * <li>less than the maximum number of errors was recovered.</li>
+	 * </ul>
+	 * The parse resumes at the next synchronization token of the rule after the index of the error, see
+	 * {@link SyncSets}.
+	 *
+	 * @param rule The name of the rule.
+	 * @param index The start index of the rule.
+	 * @param failedIndex The index of the syntax error.
+	 * @return The index at which the parse resumes or -1, if the error is not recovered.
+	 */
+	int recover(String rule, int index, int failedIndex) {
+		if (recoverable == 0 || failedIndex < firstError || uncommitted > 0
+				|| (failedIndex == index && syncSets.mayFollow(rule, source, index))) {
+			return -1;
+		}
+		final int resumeIndex = syncSets.resync(rule, source, failedIndex);
+		if (resumeIndex == index) {
+			// DEV-NOTE: an empty error node would not make progress, the error is recovered by an enclosing rule
+			return -1;
+		}
+		examine(resumeIndex);
+		recoverable--;
+		if (lines == null) {
+			lines = new LineIndex(source.text());
+		}
+		errors.accept(new SyntaxError(rule, lines, failedIndex, resumeIndex));
+		return resumeIndex;
+	}
+
+	/**
+	 * Returns the number of indices with memoized results, e.g. for testing eviction.
+	 *
+	 * @return The number of memoized indices.
+	 */
+	int memoSize() {
+		return memo.size();
+	}
+
+	/**
+	 * A cached parse result of a rule.
+	 */
+	static final class Memo {
+
+		final int result;
+		final int extent;
+		final TreeBuffer.Records tree;
+
+		Memo(int result, int extent, TreeBuffer.Records tree) {
+			this.result = result;
+			this.extent = extent;
+			this.tree = tree;
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javaslang.collection.Tuple.Tuple2;
+
+/**
+ * A detailed description of a failed parse, see {@link Grammar#parseEither(CharSequence)}. The failure is reported at
+ * the farthest index any terminal of the grammar failed to match, which is where the input stops to be a prefix of the
+ * language in most cases.
+ */
+public final class ParseFailure {
+
+	private final LineIndex lines;
+	private final int index;
+	private final List<String> expected;
+	private final List<String> ruleStack;
+
+	private ParseFailure(LineIndex lines, int index, List<String> expected, List<String> ruleStack) {
+		this.lines = lines;
+		this.index = index;
+		this.expected = Collections.unmodifiableList(expected);
+		this.ruleStack = Collections.unmodifiableList(ruleStack);
+	}
+
+	/**
+	 * Returns the farthest index at which the input could not be parsed.
+	 *
+	 * @return The index of this failure.
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Returns the terminals which were expected at the index of this failure, in grammar notation and in the order
+	 * they were tried. A terminal within a lexer rule is reported by the name of the outermost lexer rule, e.g.
+	 * {@code NUMBER} instead of {@code [0-9]}.
+	 *
+	 * @return An unmodifiable list of terminals.
+	 */
+	public List<String> getExpected() {
+		return expected;
+	}
+
+	/**
+	 * Returns the parser rules which were applied when the first expected terminal failed, starting with the start
+	 * rule. The rules which started at the index of this failure are omitted, because they were only tried, except the
+	 * start rule.
+	 *
+	 * @return An unmodifiable list of rule names.
+	 */
+	public List<String> getRuleStack() {
+		return ruleStack;
+	}
+
+	/**
+	 * Computes the line and column of this failure.
+	 *
+	 * @return The line and column, starting at 1.
+	 */
+	public Tuple2<Integer, Integer> getLineAndColumn() {
+		return lines.lineAndColumn(index);
+	}
+
+	@Override
+	public String toString() {
+		final String rule = ruleStack.isEmpty() ? "" : " within rule '" + ruleStack.get(ruleStack.size() - 1) + "'";
+		final String terminals = expected.isEmpty() ? "" : ", expected " + String.join(" or ", expected);
+		return "cannot parse input at " + getLineAndColumn() + rule + terminals;
+	}
+
+	/**
+	 * Records the farthest failure of a parse from the terminal failures reported to a listener.
+	 */
+	static final class Recorder implements ParseListener {
+
+		private final List<String> rules = new ArrayList<>();
+		private final List<Integer> starts = new ArrayList<>();
+		private int index = -1;
+		private final Set<String> expected = new LinkedHashSet<>();
+		private List<String> ruleStack = Collections.emptyList();
+
+		@Override
+		public void enterRule(String rule, int index) {
+			rules.add(rule);
+			starts.add(index);
+		}
+
+		@Override
+		public void exitRule(String rule, boolean matched, int index) {
+			rules.remove(rules.size() - 1);
+			starts.remove(starts.size() - 1);
+		}
+
+		@Override
+		public void failure(int index, String expected) {
+			if (index >= this.index) {
+				// DEV-NOTE: the parser rules are the rules up to the first, i.e. the outermost lexer rule
+				int parserRules = 0;
+				while (parserRules < rules.size() && !Parser.Rule.isLexical(rules.get(parserRules))) {
+					parserRules++;
+				}
+				if (index > this.index) {
+					int started = 1;
+					while (started < parserRules && starts.get(started) < index) {
+						started++;
+					}
+					this.index = index;
+					this.expected.clear();
+					ruleStack = new ArrayList<>(rules.subList(0, Math.min(started, parserRules)));
+				}
+				this.expected.add((parserRules < rules.size()) ? rules.get(parserRules) : expected);
+			}
+		}
+
+		/**
+		 * Creates the failure of a parse run, which reported its terminal failures to this recorder.
+		 *
+		 * @param text The parsed text.
+		 * @param failedIndex The index of failure of the start rule, which is used if no terminal failed.
+		 * @return A new ParseFailure.
+		 */
+		ParseFailure toFailure(CharSequence text, int failedIndex) {
+			final boolean recorded = index >= failedIndex;
+			return new ParseFailure(new LineIndex(text), recorded ? index : failedIndex, recorded ? new ArrayList<>(
+					expected) : new ArrayList<>(), recorded ? ruleStack : new ArrayList<>());
+		}
+	}
+}
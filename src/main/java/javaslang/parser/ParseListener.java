@@ -0,0 +1,113 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.Requirements.requireNonNull;
+
+import java.io.PrintStream;
+
+/**
+ * Receives the events of a parse run, see {@link Grammar#parse(CharSequence, ParseListener)}. All methods do nothing by
+ * default, implementations override the events they are interested in.
+ * <p>
+ * A listener is called synchronously on the parsing thread, including the events of backtracking. Skipped whitespace
+ * is not reported. Parsing without a listener has no listener overhead.
+ */
+public interface ParseListener {
+
+	/**
+	 * Called before a rule tries to match its alternatives.
+	 *
+	 * @param rule The rule name.
+	 * @param index The index the rule is applied to, after skipping whitespace.
+	 */
+	default void enterRule(String rule, int index) {
+	}
+
+	/**
+	 * Called after a rule matched or failed.
+	 *
+	 * @param rule The rule name.
+	 * @param matched true, if one of the alternatives of the rule matched, false otherwise.
+	 * @param index The end index, if the rule matched, or the index of failure otherwise.
+	 */
+	default void exitRule(String rule, boolean matched, int index) {
+	}
+
+	/**
+	 * Called after a rule matched or failed, like {@link #exitRule(String, boolean, int)}, which is called by default.
+	 *
+	 * @param rule The rule name.
+	 * @param matched true, if one of the alternatives of the rule matched, false otherwise.
+	 * @param index The end index, if the rule matched, or the index of failure otherwise.
+	 * @param recalled true, if the result was recalled, e.g. from the memo, instead of applying the alternatives.
+	 */
+	default void exitRule(String rule, boolean matched, int index, boolean recalled) {
+		exitRule(rule, matched, index);
+	}
+
+	/**
+	 * Called when a terminal token was matched.
+	 *
+	 * @param text The text which is parsed, indexed absolute. When parsing a {@code Reader}, only the current record
+	 *            is accessible.
+	 * @param index The start index of the token.
+	 * @param length The length of the token.
+	 */
+	default void token(CharSequence text, int index, int length) {
+	}
+
+	/**
+	 * Called when a parser did not match.
+	 *
+	 * @param index The index of failure.
+	 */
+	default void failure(int index) {
+	}
+
+	/**
+	 * Called when a terminal did not match, e.g. a literal or a char set. Calls {@link #failure(int)} by default.
+	 *
+	 * @param index The index of failure.
+	 * @param expected The terminal in grammar notation, e.g. {@code ';'} or {@code [0-9]}.
+	 */
+	default void failure(int index, String expected) {
+		failure(index);
+	}
+
+	/**
+	 * Creates a listener which prints all events, e.g. for debugging a grammar.
+	 *
+	 * @param out A print stream, e.g. {@code System.out}.
+	 * @return A new tracing listener.
+	 */
+	static ParseListener trace(PrintStream out) {
+		requireNonNull(out, "out is null");
+		return new ParseListener() {
+
+			@Override
+			public void enterRule(String rule, int index) {
+				out.println(String.format("enter %s at %s", rule, index));
+			}
+
+			@Override
+			public void exitRule(String rule, boolean matched, int index) {
+				out.println(String.format("exit %s %s at %s", rule, matched ? "matched" : "failed", index));
+			}
+
+			@Override
+			public void token(CharSequence text, int index, int length) {
+				out.println(String.format("token(%s, %s): %s", index, index + length,
+						text.subSequence(index, index + length)));
+			}
+
+			@Override
+			public void failure(int index) {
+				out.println("stoppedAt " + index);
+			}
+		};
+	}
+}
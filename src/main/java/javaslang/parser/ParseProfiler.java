@@ -0,0 +1,214 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * A parse listener which counts the rule applications of one or more parse runs, e.g.
+ *
+ * <pre>
+ * <code>final ParseProfiler profiler = new ParseProfiler();
+ * grammar.parse(text, profiler);
+ * System.out.println(profiler);
+ * </code>
+ * </pre>
+ *
+ * Profiling is opt-in, a parse without a listener has no profiling overhead. The counters are plain fields, which are
+ * read by {@link #getProfiles()}. A profiler is not thread-safe, it has to be used by one parsing thread at a time.
+ */
+public final class ParseProfiler implements ParseListener {
+
+	// DEV-NOTE: the profiles are ordered by first application
+	private final Map<String, Counters> counters = new LinkedHashMap<>();
+
+	// the currently applied rules, which are innermost last
+	private final List<Counters> stack = new ArrayList<>();
+	private final List<Integer> startIndices = new ArrayList<>();
+	// true, if the application repeats the previous application of the rule
+	private final List<Boolean> repeated = new ArrayList<>();
+	private long lastTime;
+
+	@Override
+	public void enterRule(String rule, int index) {
+		final long time = System.nanoTime();
+		if (stack.isEmpty()) {
+			// DEV-NOTE: a new parse run starts, the applications of the previous run are not repeated
+			counters.values().forEach(c -> c.lastStartIndex = -1);
+		} else {
+			stack.get(stack.size() - 1).nanos += time - lastTime;
+		}
+		final Counters c = counters.computeIfAbsent(rule, Counters::new);
+		c.invocations++;
+		stack.add(c);
+		startIndices.add(index);
+		repeated.add(c.lastStartIndex == index);
+		lastTime = time;
+	}
+
+	@Override
+	public void exitRule(String rule, boolean matched, int index, boolean recalled) {
+		final long time = System.nanoTime();
+		final int last = stack.size() - 1;
+		final Counters c = stack.remove(last);
+		final int startIndex = startIndices.remove(last);
+		final boolean repeated = this.repeated.remove(last);
+		c.nanos += time - lastTime;
+		final int length = Math.max(0, index - startIndex);
+		if (matched) {
+			c.matches++;
+			c.consumed += length;
+		} else {
+			c.failures++;
+		}
+		// DEV-NOTE: a recalled result, e.g. from the memo, is not scanned again
+		if (repeated && !recalled) {
+			c.rescanned += length;
+		}
+		// DEV-NOTE: the nested applications of a recursive rule exit first, i.e. the outermost application is kept
+		c.lastStartIndex = startIndex;
+		lastTime = time;
+	}
+
+	/**
+	 * Returns the profiles of all rules applied so far, ordered by descending time.
+	 *
+	 * @return A new, unmodifiable list of rule profiles.
+	 */
+	public List<RuleProfile> getProfiles() {
+		return Collections.unmodifiableList(counters.values().stream().map(RuleProfile::new)
+				.sorted(Comparator.comparingLong(RuleProfile::getNanos).reversed()).collect(Collectors.toList()));
+	}
+
+	/**
+	 * Resets all counters, e.g. after warming up.
+	 */
+	public void reset() {
+		counters.clear();
+		stack.clear();
+		startIndices.clear();
+		repeated.clear();
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder(String.format("%-24s %12s %12s %12s %12s %12s %14s%n",
+				"rule", "invocations", "matches", "failures", "consumed", "rescanned", "nanos"));
+		for (RuleProfile profile : getProfiles()) {
+			builder.append(String.format("%-24s %12d %12d %12d %12d %12d %14d%n", profile.name, profile.invocations,
+					profile.matches, profile.failures, profile.consumed, profile.rescanned, profile.nanos));
+		}
+		return builder.toString();
+	}
+
+	// the mutable counters of a rule
+	private static final class Counters {
+
+		final String name;
+		long invocations;
+		long matches;
+		long failures;
+		long consumed;
+		long rescanned;
+		long nanos;
+
+		// the start index of the last completed application in the current parse run or -1
+		int lastStartIndex = -1;
+
+		Counters(String name) {
+			this.name = name;
+		}
+	}
+
+	/**
+	 * The counters of one rule, as returned by {@link ParseProfiler#getProfiles()}.
+	 */
+	public static final class RuleProfile {
+
+		private final String name;
+		private final long invocations;
+		private final long matches;
+		private final long failures;
+		private final long consumed;
+		private final long rescanned;
+		private final long nanos;
+
+		private RuleProfile(Counters counters) {
+			this.name = counters.name;
+			this.invocations = counters.invocations;
+			this.matches = counters.matches;
+			this.failures = counters.failures;
+			this.consumed = counters.consumed;
+			this.rescanned = counters.rescanned;
+			this.nanos = counters.nanos;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the number of rule applications, which is the sum of matches and failures.
+		 *
+		 * @return The number of invocations.
+		 */
+		public long getInvocations() {
+			return invocations;
+		}
+
+		public long getMatches() {
+			return matches;
+		}
+
+		public long getFailures() {
+			return failures;
+		}
+
+		/**
+		 * Returns the number of chars matched by the rule, including the whitespace skipped within the matches.
+		 *
+		 * @return The number of consumed chars.
+		 */
+		public long getConsumed() {
+			return consumed;
+		}
+
+		/**
+		 * Returns the number of chars scanned again because of backtracking, i.e. by applications of the rule to the
+		 * index of its previous application within the same parse run, e.g. when an alternative fails after the rule
+		 * matched and the next alternative applies the rule again. The chars scanned by an application are the matched
+		 * chars or the chars up to the index of failure. Results recalled from the memo are not rescanned. A rule with
+		 * many rescanned chars is a candidate for memoization.
+		 *
+		 * @return The number of rescanned chars.
+		 */
+		public long getRescanned() {
+			return rescanned;
+		}
+
+		/**
+		 * Returns the time spent within the rule itself, excluding the nested rule applications. The times of all
+		 * rules sum up to the time of the parse runs.
+		 *
+		 * @return The cumulative time in nanoseconds.
+		 */
+		public long getNanos() {
+			return nanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s: invocations=%s, matches=%s, failures=%s, consumed=%s, rescanned=%s, nanos=%s",
+					name, invocations, matches, failures, consumed, rescanned, nanos);
+		}
+	}
+}
@@ -11,15 +11,14 @@ import static javaslang.Requirements.requireNonNull;
 import static javaslang.Requirements.requireNotNullOrEmpty;
 import static javaslang.parser.Parser.Quantifier.UNBOUNDED;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
-import java.util.function.Predicate;
 import java.util.function.Supplier;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -29,6 +28,7 @@ import javaslang.collection.Node;
 import javaslang.monad.Either;
 import javaslang.monad.Left;
 import javaslang.monad.Right;
+import javaslang.parser.Grammar.Associativity;
 
 /**
  * <p>
@@ -161,14 +161,12 @@ import javaslang.monad.Right;
  * <li>Rule alternatives are wrapped in sequences in order to handle whitespace in each rule.</li>
  * <li>Therefor quantifiers only have to handle whitespace *between* occurrences.</li>
  * <li>Tokens and pure lexical rule parts within parser rules do not skip whitespace.</li>
+ * <li>Whitespace, including comments, is defined by the grammar, see {@link Grammar#getWhitespace()}.</li>
  * </ul>
  * 
  */
 interface Parser extends Serializable {
 
-	// TODO: issue #48: make whitespace configurable
-	static final Rule DEFAULT_WS = new Rule("WS", new Quantifier(new Charset(" \t\r\n"), 0, UNBOUNDED));
-
 	/**
 	 * A parser rule part T is purely lexical (short: pure) if it is a combination of the following rule parts:
 	 * 
@@ -196,7 +194,26 @@ interface Parser extends Serializable {
 	 *            may be ignored.
 	 * @return Either a Left, containing the index of failure or a Right, containing the range (index, length) parsed.
 	 */
-	Either<Integer, ParseResult> parse(String text, int index, boolean lexicalScope);
+	default Either<Integer, ParseResult> parse(CharSequence text, int index, boolean lexicalScope) {
+		final ParseContext context = new ParseContext(text);
+		final int result = parse(context, index, lexicalScope);
+		if (result < 0) {
+			return new Left<>(failedIndex(result));
+		} else {
+			return new Right<>(new ParseResult(context.tree.toNodes(text, 0), index, result, false));
+		}
+	}
+
+	/**
+	 * Trying to parse the text of the given context using the current parser, starting at the given index. On success
+	 * the parsed nodes are appended to the tree buffer of the context. On failure the tree buffer is left unchanged.
+	 * 
+	 * @param context The state of the current parse run, including the whole text to parse.
+	 * @param index The current index of the parser.
+	 * @param lexicalScope The lexical scope, see {@link #parse(CharSequence, int, boolean)}.
+	 * @return The end index {@code >= 0} of the parsed range or {@code -1 - failedIndex}, if the parser did not match.
+	 */
+	int parse(ParseContext context, int index, boolean lexicalScope);
 
 	/**
 	 * Returns a String representation in grammar notation of this parser.
@@ -229,12 +246,12 @@ interface Parser extends Serializable {
 		}
 
 		@Override
-		public Either<Integer, ParseResult> parse(String text, int index, boolean lexicalScope, boolean negated) {
+		public int parse(ParseContext context, int index, boolean lexicalScope, boolean negated) {
 			if (negated) {
-				return EOF.INSTANCE.parse(text, index, lexicalScope, false);
+				return EOF.INSTANCE.parse(context, index, lexicalScope, false);
 			} else {
-				final boolean match = index < text.length();
-				return match ? token(text, index, 1, false) : stoppedAt(index);
+				final boolean match = !context.source.isEnd(index);
+				return match ? token(context, index, 1) : stoppedAt(context, index, this, false);
 			}
 		}
 
@@ -263,11 +280,8 @@ interface Parser extends Serializable {
 
 		private static final long serialVersionUID = -8608573218872232679L;
 
-		/** Matches ranges within char sets. */
-		static final Pattern CHAR_SET_RANGE_PATTERN = Pattern.compile(".-.");
-
 		final String charsetString;
-		final Predicate<Character> inSet;
+		final CharTable inSet;
 
 		/**
 		 * Constructs a character range.
@@ -286,9 +300,10 @@ interface Parser extends Serializable {
 		}
 
 		@Override
-		public Either<Integer, ParseResult> parse(String text, int index, boolean lexicalScope, boolean negated) {
-			final boolean match = index < text.length() && (inSet.test(text.charAt(index)) ^ negated);
-			return match ? token(text, index, 1, false) : stoppedAt(index);
+		public int parse(ParseContext context, int index, boolean lexicalScope, boolean negated) {
+			final Source source = context.source;
+			final boolean match = !source.isEnd(index) && (inSet.contains(source.charAt(index)) ^ negated);
+			return match ? token(context, index, 1) : stoppedAt(context, index, this, negated);
 		}
 
 		@Override
@@ -301,34 +316,73 @@ interface Parser extends Serializable {
 		 * Parses a char set String which contains sequences of characters and character ranges denoted as {@code a-z}.
 		 * 
 		 * @param charsetString A String defining a char set.
-		 * @return A Predicate that tests, if a given char is in the char set.
+		 * @return A CharTable containing the characters of the char set.
 		 */
-		private Predicate<Character> parse(String charsetString) {
+		private CharTable parse(String charsetString) {
+			// DEV-NOTE: ranges x-y are read from left to right, e.g. a-c-e = 'a'..'c' | '-' | 'e'
+			final int length = charsetString.length();
+			final char[] ranges = new char[2 * length];
+			int count = 0;
+			int i = 0;
+			while (i < length) {
+				final char from = charsetString.charAt(i);
+				final boolean isRange = i + 2 < length && charsetString.charAt(i + 1) == '-';
+				final char to = isRange ? charsetString.charAt(i + 2) : from;
+				ranges[count++] = from;
+				ranges[count++] = to;
+				i += isRange ? 3 : 1;
+			}
+			return new CharTable(Arrays.copyOf(ranges, count));
+		}
+	}
 
-			final java.util.List<Predicate<Character>> predicates = new ArrayList<>();
-			final Matcher matcher = CHAR_SET_RANGE_PATTERN.matcher(charsetString);
-			final StringBuffer charsBuf = new StringBuffer();
+	/**
+	 * Cut parser: {@code ^}
+	 * <p>
+	 * Commits the innermost choice to the current alternative, i.e. if the alternative fails after the cut, the choice
+	 * fails without trying the remaining alternatives. A choice is the alternatives of a rule or subrule, an iteration
+	 * of a quantifier or the right operand of an operator. The failure is reported where the committed alternative
+	 * failed.
+	 * <p>
+	 * If no choice may backtrack after a cut, the memoized results before the cut are evicted, i.e. a memoizing parser
+	 * needs memory for the input between such cuts only. Recognizes nothing and adds no token.
+	 */
+	static class Cut implements RulePart {
 
-			while (matcher.find()) {
+		private static final long serialVersionUID = -4553893621757536315L;
 
-				// save single characters to buffer
-				matcher.appendReplacement(charsBuf, "");
+		static final Cut INSTANCE = new Cut();
 
-				// create Predicate from range
-				final String range = matcher.group(0);
-				final char from = range.charAt(0);
-				final char to = range.charAt(2);
-				predicates.add(c -> from <= c && c <= to);
+		// hidden
+		private Cut() {
+		}
 
-			}
+		@Override
+		public boolean isPure() {
+			return false;
+		}
 
-			// collect remaining characters to buffer and create Predicate
-			matcher.appendTail(charsBuf);
-			final String chars = charsBuf.toString();
-			predicates.add(c -> chars.indexOf(c) != -1);
+		@Override
+		public int parse(ParseContext context, int index, boolean lexicalScope) {
+			context.cut(index);
+			return index;
+		}
 
-			// compose predicates
-			return predicates.stream().reduce(Predicate::or).orElse(c -> false);
+		@Override
+		public String toString() {
+			return "^";
+		}
+
+		// -- Serializable implementation
+
+		/**
+		 * Instance control for object serialization.
+		 * 
+		 * @return The singleton instance of Cut.
+		 * @see java.io.Serializable
+		 */
+		private Object readResolve() {
+			return INSTANCE;
 		}
 	}
 
@@ -353,8 +407,8 @@ interface Parser extends Serializable {
 		}
 
 		@Override
-		public Either<Integer, ParseResult> parse(String text, int index, boolean lexicalScope) {
-			return token(text, index, 0, false);
+		public int parse(ParseContext context, int index, boolean lexicalScope) {
+			return token(context, index, 0);
 		}
 
 		@Override
@@ -396,12 +450,12 @@ interface Parser extends Serializable {
 		}
 
 		@Override
-		public Either<Integer, ParseResult> parse(String text, int index, boolean lexicalScope, boolean negated) {
+		public int parse(ParseContext context, int index, boolean lexicalScope, boolean negated) {
 			if (negated) {
-				return Any.INSTANCE.parse(text, index, lexicalScope, false);
+				return Any.INSTANCE.parse(context, index, lexicalScope, false);
 			} else {
-				final boolean match = (index == text.length());
-				return match ? token(text, index, 0, false) : stoppedAt(index);
+				final boolean match = context.source.isEnd(index);
+				return match ? token(context, index, 0) : stoppedAt(context, index, this, false);
 			}
 		}
 
@@ -443,9 +497,15 @@ interface Parser extends Serializable {
 		}
 
 		@Override
-		public Either<Integer, ParseResult> parse(String text, int index, boolean lexicalScope) {
-			final boolean match = text.startsWith(literal, index);
-			return match ? token(text, index, literal.length(), false) : stoppedAt(index);
+		public int parse(ParseContext context, int index, boolean lexicalScope) {
+			final boolean match = context.source.startsWith(literal, index);
+			if (match) {
+				return token(context, index, literal.length());
+			} else {
+				// DEV-NOTE: the chars up to the first mismatch were examined, which is at most the whole literal
+				context.examine(index + literal.length() - 1);
+				return stoppedAt(context, index, this, false);
+			}
 		}
 
 		@Override
@@ -479,8 +539,8 @@ interface Parser extends Serializable {
 		}
 
 		@Override
-		public Either<Integer, ParseResult> parse(String text, int index, boolean lexicalScope, boolean negated) {
-			return parser.parse(text, index, lexicalScope, !negated);
+		public int parse(ParseContext context, int index, boolean lexicalScope, boolean negated) {
+			return parser.parse(context, index, lexicalScope, !negated);
 		}
 
 		@Override
@@ -489,6 +549,175 @@ interface Parser extends Serializable {
 		}
 	}
 
+	/**
+	 * Operator precedence parser, which parses binary expressions by precedence climbing:
+	 * 
+	 * <pre>
+	 * <code>
+	 * expr : expr ( '*' | '/' ) expr
+	 *      | expr ( '+' | '-' ) expr
+	 *      | operand
+	 *      ;
+	 * </code>
+	 * </pre>
+	 * 
+	 * The levels are ordered by increasing precedence. In contrast to one rule per precedence level, an operand is
+	 * parsed by one loop, independent of the number of levels. Each binary expression but the outermost gets a node
+	 * named like the rule, the outermost is the node of the rule itself.
+	 */
+	static class Operators implements RulePart, HasChildren {
+
+		private static final long serialVersionUID = 4183396745282290366L;
+
+		final String name;
+		final RulePart operand;
+		final Level[] levels;
+
+		// all operators, longest first, and their level
+		final String[] operators;
+		final int[] operatorLevels;
+		final int maxLength;
+		final LiteralTrie operatorTrie;
+
+		Operators(String name, RulePart operand, Level... levels) {
+			requireNotNullOrEmpty(name, "name is null or empty");
+			requireNonNull(operand, "operand is null");
+			requireNotNullOrEmpty(levels, "levels is null or empty");
+			this.name = name;
+			this.operand = operand;
+			this.levels = levels;
+			final List<int[]> indices = new ArrayList<>();
+			for (int level = 0; level < levels.length; level++) {
+				requireNonNull(levels[level], "level is null");
+				for (int i = 0; i < levels[level].operators.length; i++) {
+					indices.add(new int[] { level, i });
+				}
+			}
+			indices.sort((i1, i2) -> Integer.compare(levels[i2[0]].operators[i2[1]].length(),
+					levels[i1[0]].operators[i1[1]].length()));
+			this.operators = indices.stream().map(i -> levels[i[0]].operators[i[1]]).toArray(String[]::new);
+			this.operatorLevels = indices.stream().mapToInt(i -> i[0]).toArray();
+			this.maxLength = operators[0].length();
+			this.operatorTrie = new LiteralTrie(operators);
+		}
+
+		@Override
+		public Parser[] getChildren() {
+			return new Parser[] { operand };
+		}
+
+		@Override
+		public boolean isPure() {
+			return false;
+		}
+
+		@Override
+		public int parse(ParseContext context, int index, boolean lexicalScope) {
+			return parse(context, index, 0, lexicalScope, true);
+		}
+
+		private int parse(ParseContext context, int index, int minLevel, boolean lexicalScope, boolean outermost) {
+			final TreeBuffer tree = context.tree;
+			final int mark = tree.mark();
+			int result = operand.parse(context, index, lexicalScope);
+			if (result < 0) {
+				return result;
+			}
+			boolean combined = false;
+			while (true) {
+				final int operatorIndex = skipWhitespace(context, result, lexicalScope);
+				// DEV-NOTE: at most the chars of the longest operator were examined
+				context.examine(operatorIndex + maxLength - 1);
+				final int operator = operatorAt(context.source, operatorIndex);
+				if (operator < 0 || operatorLevels[operator] < minLevel) {
+					break;
+				}
+				final int level = operatorLevels[operator];
+				final int operatorMark = tree.mark();
+				if (combined && !lexicalScope) {
+					tree.symbol(name, index, result - index, context.examined, mark);
+				}
+				final int operandIndex = token(context, operatorIndex, operators[operator].length());
+				final int nextMinLevel = (levels[level].associativity == Associativity.LEFT) ? level + 1 : level;
+				final int outer = context.enterAlternative(true, false);
+				final int right = parse(context, skipWhitespace(context, operandIndex, lexicalScope), nextMinLevel,
+						lexicalScope, false);
+				final boolean committed = context.exitAlternative(outer);
+				if (right < 0) {
+					if (committed) {
+						tree.reset(mark);
+						return right;
+					}
+					// DEV-NOTE: an operator without right operand is not part of the expression
+					tree.reset(operatorMark);
+					break;
+				}
+				result = right;
+				combined = true;
+			}
+			if (combined && !outermost && !lexicalScope) {
+				tree.symbol(name, index, result - index, context.examined, mark);
+			}
+			return result;
+		}
+
+		/**
+		 * Finds the longest operator at the given index.
+		 *
+		 * @param source The input.
+		 * @param index The current index.
+		 * @return The index of the operator within {@link #operators} or -1, if no operator matches.
+		 */
+		int operatorAt(Source source, int index) {
+			return operatorTrie.longestMatch(source, index);
+		}
+
+		@Override
+		public String toString() {
+			final List<String> alternatives = new ArrayList<>();
+			for (int level = levels.length - 1; level >= 0; level--) {
+				alternatives.add(levels[level].toString(name));
+			}
+			alternatives.add(operand.toString());
+			return alternatives.stream().collect(joining(" | "));
+		}
+
+		/**
+		 * A precedence level of binary operators, which have the same associativity.
+		 */
+		static class Level implements Serializable {
+
+			private static final long serialVersionUID = -4414758389425722407L;
+
+			final Associativity associativity;
+			final String[] operators;
+
+			Level(Associativity associativity, String... operators) {
+				requireNonNull(associativity, "associativity is null");
+				requireNotNullOrEmpty(operators, "operators is null or empty");
+				for (String operator : operators) {
+					requireNotNullOrEmpty(operator, "operator is null or empty");
+				}
+				this.associativity = associativity;
+				this.operators = operators;
+			}
+
+			/**
+			 * Returns the rule alternative of this level in ANTLR notation, e.g. {@code expr ( '+' | '-' ) expr}.
+			 *
+			 * @param name The rule name.
+			 * @return A String representation of this level.
+			 */
+			String toString(String name) {
+				final String prefix = (associativity == Associativity.RIGHT) ? "<assoc=right> " : "";
+				final String operators = Stream.of(this.operators).map(operator -> new Literal(operator).toString())
+						.collect(joining(" | "));
+				final String infix = (this.operators.length == 1) ? operators : "( " + operators + " )";
+				return prefix + name + " " + infix + " " + name;
+			}
+		}
+	}
+
 	/**
 	 * Quantifier parser:
 	 * 
@@ -534,30 +763,30 @@ interface Parser extends Serializable {
 		}
 
 		@Override
-		public Either<Integer, ParseResult> parse(String text, int index, boolean lexicalScope) {
-			final List<Node<Token>> tokens = new ArrayList<>();
-			final boolean lexical = lexicalScope || isPure();
+		public int parse(ParseContext context, int index, boolean lexicalScope) {
+			final TreeBuffer tree = context.tree;
+			final int mark = tree.mark();
+			final boolean pure = isPure();
+			final boolean lexical = lexicalScope || pure;
 			int currentIndex = index;
 			for (int i = 0; i < upperBound; i++) {
-				final Either<Integer, ParseResult> parsed = parser.parse(text, currentIndex, lexicalScope);
-				if (parsed.isRight()) {
-					final ParseResult parseResult = parsed.right().get();
-					tokens.addAll(parseResult.tokens);
-					currentIndex = skipWhitespace(text, parseResult.endIndex, lexical);
+				// DEV-NOTE: an iteration is a choice, which may stop, pure parts contain no cut
+				final int outer = pure ? 0 : context.enterAlternative(i >= lowerBound, true);
+				final int result = parser.parse(context, currentIndex, lexicalScope);
+				final boolean committed = !pure && context.exitAlternative(outer);
+				if (result >= 0) {
+					currentIndex = skipWhitespace(context, result, lexical);
+				} else if (i < lowerBound || committed) {
+					tree.reset(mark);
+					return result;
 				} else {
-					if (i < lowerBound) {
-						return parsed;
-					} else {
-						return right(tokens, index, currentIndex, lexical);
-					}
+					break;
 				}
 			}
-			return right(tokens, index, currentIndex, lexical);
-		}
-
-		private Either<Integer, ParseResult> right(List<Node<Token>> tokens, int index, int currentIndex,
-				boolean lexicalScope) {
-			return new Right<>(new ParseResult(tokens, index, currentIndex, lexicalScope));
+			if (lexical) {
+				tree.combine(mark, index, currentIndex);
+			}
+			return currentIndex;
 		}
 
 		@Override
@@ -597,7 +826,6 @@ interface Parser extends Serializable {
 
 		final char from;
 		final char to;
-		final Predicate<Character> isInRange;
 
 		/**
 		 * Constructs a character range.
@@ -610,7 +838,6 @@ interface Parser extends Serializable {
 			require(from <= to, "from > to");
 			this.from = from;
 			this.to = to;
-			this.isInRange = c -> from <= c && c <= to;
 		}
 
 		@Override
@@ -619,9 +846,15 @@ interface Parser extends Serializable {
 		}
 
 		@Override
-		public Either<Integer, ParseResult> parse(String text, int index, boolean lexicalScope, boolean negated) {
-			final boolean match = index < text.length() && (isInRange.test(text.charAt(index)) ^ negated);
-			return match ? token(text, index, 1, false) : stoppedAt(index);
+		public int parse(ParseContext context, int index, boolean lexicalScope, boolean negated) {
+			final Source source = context.source;
+			if (!source.isEnd(index)) {
+				final char c = source.charAt(index);
+				if ((from <= c && c <= to) ^ negated) {
+					return token(context, index, 1);
+				}
+			}
+			return stoppedAt(context, index, this, negated);
 		}
 
 		@Override
@@ -641,7 +874,8 @@ interface Parser extends Serializable {
 
 		private static final long serialVersionUID = 1520214209747690474L;
 
-		final Supplier<Rule> ruleSupplier;
+		// DEV-NOTE: a serialized reference is resolved, see writeObject
+		final transient Supplier<Rule> ruleSupplier;
 		Rule rule;
 
 		Reference(Supplier<Rule> ruleSupplier) {
@@ -659,8 +893,8 @@ interface Parser extends Serializable {
 		}
 
 		@Override
-		public Either<Integer, ParseResult> parse(String text, int index, boolean lexicalScope) {
-			return getRule().parse(text, index, lexicalScope);
+		public int parse(ParseContext context, int index, boolean lexicalScope) {
+			return getRule().parse(context, index, lexicalScope);
 		}
 
 		@Override
@@ -668,13 +902,28 @@ interface Parser extends Serializable {
 			return getRule().name;
 		}
 
-		private Rule getRule() {
-			// no need to make this thread-safe
+		Rule getRule() {
+			// DEV-NOTE: racing threads may resolve distinct but equal rules, see OptimizedGrammar for a shared graph
 			if (rule == null) {
 				rule = ruleSupplier.get();
 			}
 			return rule;
 		}
+
+		// -- Serializable implementation
+
+		/**
+		 * Resolves this reference before it is written, because the rule supplier is not serializable. Only a rule
+		 * graph whose references resolve to a finite number of rules can be serialized, like an optimized rule graph.
+		 * 
+		 * @param stream An object serialization stream.
+		 * @throws IOException If an error occurs writing to the stream.
+		 * @see java.io.Serializable
+		 */
+		private void writeObject(ObjectOutputStream stream) throws IOException {
+			getRule();
+			stream.defaultWriteObject();
+		}
 	}
 
 	/**
@@ -696,6 +945,12 @@ interface Parser extends Serializable {
 		final String name;
 		final RulePart[] alternatives;
 		final boolean lexical;
+		final boolean memoized;
+		final int[] allAlternatives;
+
+		// lazily computed by the grammar analysis, see FirstSets and LeftRecursion, and serialized with the rule graph
+		private volatile FirstSets.Dispatch dispatch;
+		private volatile LeftRecursion.Role role;
 
 		/**
 		 * Creates a primary rule, i.e. a rule with a unique name which may be referenced by other rules.
@@ -709,11 +964,38 @@ interface Parser extends Serializable {
 		 */
 		@SafeVarargs
 		Rule(String name, RulePart... alternatives) {
+			this(name, false, alternatives);
+		}
+
+		/**
+		 * Creates a primary rule which may be marked as memoized. The parse results of memoized rules are cached per
+		 * parse run if the grammar uses {@link Grammar.Memoization#MARKED_RULES}.
+		 * 
+		 * @param name The rule name.
+		 * @param memoized true, if this rule is expensive and should be memoized, false otherwise.
+		 * @param alternatives One or more alternative rules.
+		 * @throws UnsatisfiedRequirementException if name is invalid, i.e. null, a reserved word or not a valid
+		 *             identifier) or one of the alternatives is null.
+		 */
+		@SafeVarargs
+		Rule(String name, boolean memoized, RulePart... alternatives) {
 			requireNotNullOrEmpty(name, "name is null or empty");
 			requireNotNullOrEmpty(alternatives, "alternatives is null or empty");
 			this.name = name;
 			this.alternatives = alternatives;
-			this.lexical = Character.isUpperCase(name.charAt(0));
+			this.lexical = isLexical(name);
+			this.memoized = memoized;
+			this.allAlternatives = FirstSets.all(alternatives.length);
+		}
+
+		/**
+		 * Checks if the given rule name denotes a lexer rule, i.e. if it starts with an upper case.
+		 *
+		 * @param name A rule name.
+		 * @return true, if the rule is a lexer rule, false otherwise.
+		 */
+		static boolean isLexical(String name) {
+			return Character.isUpperCase(name.charAt(0));
 		}
 
 		@Override
@@ -727,20 +1009,191 @@ interface Parser extends Serializable {
 		}
 
 		@Override
-		public Either<Integer, ParseResult> parse(String text, int index, boolean lexicalScope) {
+		public int parse(ParseContext context, int index, boolean lexicalScope) {
 			require(!lexicalScope || lexical, "parser rule '" + name + "' is referenced by a lexical rule");
-			final int currentIndex = skipWhitespace(text, index, lexicalScope);
+			final int currentIndex = skipWhitespace(context, index, lexicalScope);
+			final ParseListener listener = context.listener;
+			if (listener != null) {
+				listener.enterRule(name, currentIndex);
+			}
+			// DEV-NOTE: the extent of this rule application is tracked separately and merged into the outer extent
+			final int outerExamined = context.examined;
+			context.examined = currentIndex;
+			final LeftRecursion.Role role = getRole(context);
+			// DEV-NOTE: the rules of a left-recursive cycle, except the leader, yield other results while a seed grows
+			final boolean involved = (role == LeftRecursion.Role.INVOLVED);
+			final Node<Token> reusable = (context.reusable == null || involved) ? null : context.reusable.get(name,
+					currentIndex);
+			final int token = (context.tokens == null || !lexical) ? -1 : context.tokens.find(name, currentIndex);
+			final boolean leader = (role == LeftRecursion.Role.LEADER);
+			final boolean memoized = leader || (!involved && context.isMemoized(this));
+			// DEV-NOTE: the memo is checked in advance only for the listener, the parse methods recall it anyway
+			final boolean recalled = reusable != null || token >= 0 || (listener != null && memoized && context
+					.recall(this, currentIndex) != null);
+			int result;
+			if (reusable != null) {
+				result = parseReused(context, reusable, currentIndex);
+			} else if (token >= 0) {
+				result = parseTokenized(context, token);
+			} else if (leader) {
+				result = parseLeftRecursive(context, currentIndex);
+			} else if (memoized) {
+				result = parseMemoized(context, currentIndex);
+			} else {
+				result = parseAlternatives(context, currentIndex);
+			}
+			if (result < 0 && context.syncSets != null && !lexical) {
+				result = recover(context, currentIndex, result);
+			}
+			context.examine(outerExamined);
+			if (listener != null) {
+				listener.exitRule(name, result >= 0, (result >= 0) ? result : failedIndex(result), recalled);
+			}
+			return result;
+		}
+
+		// DEV-NOTE: the node of the rule contains an error node, which spans the text up to the next sync token
+		private int recover(ParseContext context, int currentIndex, int result) {
+			final int resumeIndex = context.recover(name, currentIndex, failedIndex(result));
+			if (resumeIndex < 0) {
+				return result;
+			}
+			final TreeBuffer tree = context.tree;
+			final int mark = tree.mark();
+			tree.error(currentIndex, resumeIndex - currentIndex);
+			tree.symbol(name, currentIndex, resumeIndex - currentIndex, context.examined, mark);
+			return resumeIndex;
+		}
+
+		// DEV-NOTE: the result only depends on the chars up to the extent of the previous rule application
+		private int parseReused(ParseContext context, Node<Token> reusable, int currentIndex) {
+			final Token token = reusable.getValue();
+			final int extent = token.extent();
+			final int shiftedExtent = (extent == Integer.MAX_VALUE) ? extent : extent + currentIndex
+					- token.getStartIndex();
+			context.tree.reuse(reusable, currentIndex, token.getLength(), shiftedExtent);
+			context.examine(shiftedExtent);
+			return currentIndex + token.getLength();
+		}
+
+		// DEV-NOTE: the token is the result of this lexical rule at its start index, see Lexer
+		private int parseTokenized(ParseContext context, int token) {
+			final TokenStream tokens = context.tokens;
+			final int index = tokens.startIndex(token);
+			context.tree.token(index, tokens.length(token));
+			context.examine(tokens.extent(token));
+			return index + tokens.length(token);
+		}
+
+		// DEV-NOTE: the result only depends on the index after skipping whitespace, lexicalScope does not matter
+		private int parseMemoized(ParseContext context, int currentIndex) {
+			final ParseContext.Memo memo = context.recall(this, currentIndex);
+			if (memo != null) {
+				return recalled(context, memo);
+			} else {
+				final int mark = context.tree.mark();
+				final int result = parseAlternatives(context, currentIndex);
+				context.memoize(this, currentIndex, result, context.examined, mark);
+				return result;
+			}
+		}
+
+		// DEV-NOTE: seed growing, the left-recursive applications at currentIndex recall the previous, shorter match
+		private int parseLeftRecursive(ParseContext context, int currentIndex) {
+			final ParseContext.Memo memo = context.recall(this, currentIndex);
+			if (memo != null) {
+				return recalled(context, memo);
+			}
+			final TreeBuffer tree = context.tree;
+			final int mark = tree.mark();
+			// the initial seed is a failure, i.e. only the alternatives which are not left-recursive may match
+			ParseContext.Memo seed = new ParseContext.Memo(-1 - currentIndex, currentIndex, null);
+			while (true) {
+				context.memoize(this, currentIndex, seed);
+				// DEV-NOTE: each iteration parses from currentIndex again, i.e. a cut must not evict the seed
+				context.enterBacktrackPoint();
+				final int result = parseAlternatives(context, currentIndex);
+				context.exitBacktrackPoint();
+				if (result < 0 || result <= seed.result) {
+					tree.reset(mark);
+					// DEV-NOTE: the final extent includes the chars examined by the last, unsuccessful iteration
+					final ParseContext.Memo grown = (seed.result >= 0) ? new ParseContext.Memo(seed.result,
+							context.examined, seed.tree) : new ParseContext.Memo(result, context.examined, null);
+					context.memoize(this, currentIndex, grown);
+					if (grown.result >= 0) {
+						tree.append(grown.tree);
+					}
+					return grown.result;
+				}
+				seed = new ParseContext.Memo(result, context.examined, tree.retain(mark));
+				tree.reset(mark);
+			}
+		}
+
+		private int recalled(ParseContext context, ParseContext.Memo memo) {
+			if (memo.result >= 0) {
+				context.tree.append(memo.tree);
+			}
+			context.examine(memo.extent);
+			return memo.result;
+		}
+
+		private int parseAlternatives(ParseContext context, int currentIndex) {
+			final int mark = context.tree.mark();
+			final int[] viable = FirstSets.viableAlternatives(getDispatch(context), allAlternatives, context,
+					currentIndex);
 			int failedIndex = currentIndex;
-			for (RulePart alternative : alternatives) {
-				final Either<Integer, ParseResult> result = alternative.parse(text, currentIndex, lexical);
-				if (result.isRight()) {
-					final ParseResult p = result.get();
-					return lexical ? result : symbol(name, text, currentIndex, p.endIndex - p.startIndex, p.tokens);
+			for (int k = 0; k < viable.length; k++) {
+				final int outer = context.enterAlternative(k < viable.length - 1, viable.length == 1);
+				final int result = alternatives[viable[k]].parse(context, currentIndex, lexical);
+				final boolean committed = context.exitAlternative(outer);
+				if (result >= 0) {
+					if (!lexical) {
+						context.tree.symbol(name, currentIndex, result - currentIndex, context.examined, mark);
+					}
+					return result;
+				} else if (committed) {
+					// DEV-NOTE: the failure of a committed alternative is precise, it is not merged with others
+					return stoppedAt(context, failedIndex(result));
 				} else {
-					failedIndex = Math.max(failedIndex, result.left().get());
+					failedIndex = Math.max(failedIndex, failedIndex(result));
+				}
+			}
+			return stoppedAt(context, failedIndex);
+		}
+
+		// DEV-NOTE: a rule may be shared by grammars, the cached dispatch is replaced if it is not for this grammar
+		private FirstSets.Dispatch getDispatch(ParseContext context) {
+			if (context.firstSets == null) {
+				return null;
+			}
+			final FirstSets.Dispatch cached = dispatch;
+			final FirstSets.Dispatch current = context.firstSets.dispatch(cached, alternatives, lexical);
+			if (current != cached) {
+				dispatch = current;
+			}
+			return current;
+		}
+
+		private LeftRecursion.Role getRole(ParseContext context) {
+			if (role == null) {
+				if (context.leftRecursion == null) {
+					return LeftRecursion.Role.NONE;
 				}
+				role = context.leftRecursion.role(this);
 			}
-			return stoppedAt(failedIndex);
+			return role;
+		}
+
+		/**
+		 * Computes the cached analysis results of this rule in advance, i.e. a parse only reads them.
+		 *
+		 * @param firstSets The FIRST sets of the grammar.
+		 * @param leftRecursion The left-recursive rules of the grammar.
+		 */
+		void analyze(FirstSets firstSets, LeftRecursion leftRecursion) {
+			dispatch = firstSets.dispatch(dispatch, alternatives, lexical);
+			role = leftRecursion.role(this);
 		}
 
 		@Override
@@ -797,25 +1250,22 @@ interface Parser extends Serializable {
 		}
 
 		@Override
-		public Either<Integer, ParseResult> parse(String text, int index, boolean lexicalScope) {
-			final List<Node<Token>> tokens = new ArrayList<>();
+		public int parse(ParseContext context, int index, boolean lexicalScope) {
+			final TreeBuffer tree = context.tree;
+			final int mark = tree.mark();
 			int currentIndex = index;
 			for (RulePart parser : parsers) {
-				final Either<Integer, ParseResult> parsed = parser.parse(text,
-						skipWhitespace(text, currentIndex, lexicalScope), lexicalScope);
-				if (parsed.isRight()) {
-					final ParseResult parseResult = parsed.get();
-					tokens.addAll(parseResult.tokens);
-					currentIndex = parseResult.endIndex;
-				} else {
-					return parsed;
+				currentIndex = parser.parse(context, skipWhitespace(context, currentIndex, lexicalScope), lexicalScope);
+				if (currentIndex < 0) {
+					tree.reset(mark);
+					return currentIndex;
 				}
 			}
-			/* TODO:DELME */System.out.println(getClass().getSimpleName()
-					+ " : "
-					+ text.substring(index, Math.min(index + 20, text.length())));
-			return new Right<>(new ParseResult(tokens, index, skipWhitespace(text, currentIndex, lexicalScope),
-					lexicalScope));
+			final int endIndex = skipWhitespace(context, currentIndex, lexicalScope);
+			if (lexicalScope) {
+				tree.combine(mark, index, endIndex);
+			}
+			return endIndex;
 		}
 
 		@Override
@@ -832,12 +1282,18 @@ interface Parser extends Serializable {
 		private static final long serialVersionUID = -2043785863211379238L;
 
 		final RulePart[] alternatives;
+		final int[] allAlternatives;
+
+		// lazily computed by the grammar analysis, see FirstSets and LeftRecursion, and serialized with the rule graph
+		private volatile FirstSets.Dispatch dispatch;
+		private volatile LeftRecursion.Role role;
 
 		@SafeVarargs
 		Subrule(RulePart... alternatives) {
 			requireNonNull(alternatives, "alternatives is null");
 			require(alternatives.length >= 2, "number of alternatives < 2");
 			this.alternatives = alternatives;
+			this.allAlternatives = FirstSets.all(alternatives.length);
 		}
 
 		@Override
@@ -851,17 +1307,46 @@ interface Parser extends Serializable {
 		}
 
 		@Override
-		public Either<Integer, ParseResult> parse(String text, int index, boolean lexicalScope) {
+		public int parse(ParseContext context, int index, boolean lexicalScope) {
+			final int[] viable = FirstSets.viableAlternatives(getDispatch(context, lexicalScope), allAlternatives,
+					context, index);
 			int failedIndex = index;
-			for (RulePart alternative : alternatives) {
-				final Either<Integer, ParseResult> result = alternative.parse(text, index, lexicalScope);
-				if (result.isRight()) {
+			for (int k = 0; k < viable.length; k++) {
+				final int outer = context.enterAlternative(k < viable.length - 1, viable.length == 1);
+				final int result = alternatives[viable[k]].parse(context, index, lexicalScope);
+				final boolean committed = context.exitAlternative(outer);
+				if (result >= 0) {
 					return result;
+				} else if (committed) {
+					return stoppedAt(context, failedIndex(result));
 				} else {
-					failedIndex = Math.max(failedIndex, result.left().get());
+					failedIndex = Math.max(failedIndex, failedIndex(result));
 				}
 			}
-			return stoppedAt(failedIndex);
+			return stoppedAt(context, failedIndex);
+		}
+
+		// DEV-NOTE: a subrule may be shared by grammars and scopes, the cached dispatch is replaced if it does not fit
+		private FirstSets.Dispatch getDispatch(ParseContext context, boolean lexicalScope) {
+			if (context.firstSets == null) {
+				return null;
+			}
+			final FirstSets.Dispatch cached = dispatch;
+			final FirstSets.Dispatch current = context.firstSets.dispatch(cached, alternatives, lexicalScope);
+			if (current != cached) {
+				dispatch = current;
+			}
+			return current;
+		}
+
+		/**
+		 * Computes the cached dispatch of this subrule in advance, i.e. a parse only reads it.
+		 *
+		 * @param firstSets The FIRST sets of the grammar.
+		 * @param lexicalScope The scope of this subrule within the optimized rule graph.
+		 */
+		void analyze(FirstSets firstSets, boolean lexicalScope) {
+			dispatch = firstSets.dispatch(dispatch, alternatives, lexicalScope);
 		}
 
 		@Override
@@ -873,27 +1358,36 @@ interface Parser extends Serializable {
 	// -- parse-result factory methods
 
 	// terminal token / leaf of the parse tree
-	static Either<Integer, ParseResult> token(String text, int index, int length, boolean lexicalScope) {
-		/* TODO:DEBUG */System.out.println(String.format("token(%s, %s): %s", index, index + length,
-				text.substring(index, index + length)));
-		final List<Node<Token>> tokens = Arrays.asList(new Node<>(new Token(null, text, index, length)));
-		final ParseResult parseResult = new ParseResult(tokens, index, index + length, lexicalScope);
-		return new Right<>(parseResult);
+	static int token(ParseContext context, int index, int length) {
+		if (context.listener != null) {
+			context.listener.token(context.source.text(), index, length);
+		}
+		context.examine(TreeBuffer.extent(index, length));
+		context.tree.token(index, length);
+		return index + length;
 	}
 
-	// non-terminal symbol / inner rule of the parse tree / rule with children
-	static Either<Integer, ParseResult> symbol(String id, String text, int index, int length, List<Node<Token>> children) {
-		/* TODO: DEBUG */System.out.println(String.format("symbol(%s, %s, %s): %s", id, index, index + length,
-				text.substring(index, index + length)));
-		final List<Node<Token>> tokens = Arrays.asList(new Node<>(new Token(id, text, index, length), children));
-		final ParseResult parseResult = new ParseResult(tokens, index, index + length, false);
-		return new Right<>(parseResult);
+	// no match found
+	static int stoppedAt(ParseContext context, int index) {
+		if (context.listener != null) {
+			context.listener.failure(index);
+		}
+		context.examine(index);
+		return -1 - index;
 	}
 
-	// no match found
-	static Either<Integer, ParseResult> stoppedAt(int index) {
-		/* TODO:DEBUG */System.out.println("stoppedAt " + index);
-		return new Left<>(index);
+	// a terminal did not match, the expected terminal is only stringified for a listener
+	static int stoppedAt(ParseContext context, int index, Parser terminal, boolean negated) {
+		if (context.listener != null) {
+			context.listener.failure(index, negated ? "!" + terminal : terminal.toString());
+		}
+		context.examine(index);
+		return -1 - index;
+	}
+
+	// the index of failure of a negative parse result
+	static int failedIndex(int result) {
+		return -1 - result;
 	}
 
 	// -- character conversion / stringification
@@ -925,11 +1419,8 @@ interface Parser extends Serializable {
 
 	// -- whitespace handling
 
-	static int skipWhitespace(String text, int index, boolean lexicalScope) {
-		return lexicalScope ? index : DEFAULT_WS
-				.parse(text, index, true)
-				.map(parseResult -> parseResult.endIndex)
-				.orElse(index);
+	static int skipWhitespace(ParseContext context, int index, boolean lexicalScope) {
+		return lexicalScope ? index : context.skipWhitespace(index);
 	}
 
 	// -- additional types
@@ -951,6 +1442,7 @@ interface Parser extends Serializable {
 	 * <li>{@linkplain EOF}</li>
 	 * <li>{@linkplain Literal}</li>
 	 * <li>{@linkplain Negation}</li>
+	 * <li>{@linkplain Operators}</li>
 	 * <li>{@linkplain Quantifier}</li>
 	 * <li>{@linkplain Range}</li>
 	 * <li>{@linkplain Reference}</li>
@@ -967,11 +1459,11 @@ interface Parser extends Serializable {
 	 */
 	static interface NegatableRulePart extends RulePart {
 
-		Either<Integer, ParseResult> parse(String text, int index, boolean lexicalScope, boolean negated);
+		int parse(ParseContext context, int index, boolean lexicalScope, boolean negated);
 
 		@Override
-		default Either<Integer, ParseResult> parse(String text, int index, boolean lexicalScope) {
-			return parse(text, index, lexicalScope, false);
+		default int parse(ParseContext context, int index, boolean lexicalScope) {
+			return parse(context, index, lexicalScope, false);
 		}
 	}
 
@@ -983,7 +1475,7 @@ interface Parser extends Serializable {
 	}
 
 	/**
-	 * Represents the positive result a {@link Parser#parse(String, int, boolean)} call.
+	 * Represents the positive result a {@link Parser#parse(CharSequence, int, boolean)} call.
 	 */
 	static class ParseResult {
 		final List<Node<Token>> tokens;
@@ -997,9 +1489,11 @@ interface Parser extends Serializable {
 		}
 
 		List<Node<Token>> combine(List<Node<Token>> tokens, int index, int endIndex) {
-			final String text = tokens.get(0).getValue().getText();
+			final Token first = tokens.get(0).getValue();
 			final int length = endIndex - index;
-			return Arrays.asList(new Node<>(new Token(null, text, index, length)));
+			// DEV-NOTE: the combined token shares the revision, i.e. the text and the line index, of the tokens
+			return Arrays.asList(new Node<>(new Token(null, first.revision(), index, length, TreeBuffer.extent(index,
+					length))));
 		}
 
 		@Override
@@ -0,0 +1,205 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.Requirements.require;
+import static javaslang.Requirements.requireNonNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+/**
+ * A source which reads a {@code Reader} on demand into a sliding window. The chars before a released index are
+ * dropped, i.e. memory is bounded by the longest unreleased part of the input.
+ */
+final class ReaderSource implements Source {
+
+	private static final int CHUNK_SIZE = 8192;
+
+	private final Reader reader;
+
+	private char[] window = new char[CHUNK_SIZE];
+	private int windowStart = 0; // absolute index of window[0]
+	private int windowLength = 0;
+	private boolean eof = false;
+
+	// line and column of windowStart
+	private int line = 1;
+	private int column = 1;
+	private boolean afterCarriageReturn = false;
+
+	ReaderSource(Reader reader) {
+		this.reader = requireNonNull(reader, "reader is null");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws UncheckedIOException if reading fails.
+	 */
+	@Override
+	public boolean isEnd(int index) {
+		while (index >= windowStart + windowLength && !eof) {
+			read();
+		}
+		return index >= windowStart + windowLength;
+	}
+
+	@Override
+	public char charAt(int index) {
+		return window[index - windowStart];
+	}
+
+	@Override
+	public CharSequence text() {
+		return new Text(windowStart, window, windowStart, windowStart + windowLength);
+	}
+
+	/**
+	 * Drops the chars before the given index. These must not be accessed afterwards.
+	 *
+	 * @param index An index within the window.
+	 */
+	void release(int index) {
+		require(windowStart <= index && index <= windowStart + windowLength, "index not within window");
+		final int count = index - windowStart;
+		for (int i = 0; i < count; i++) {
+			advance(window[i]);
+		}
+		System.arraycopy(window, count, window, 0, windowLength - count);
+		windowStart = index;
+		windowLength -= count;
+	}
+
+	/**
+	 * Copies the chars of the given range, e.g. for the tokens of a parse tree which outlives the window.
+	 *
+	 * @param start The start index, inclusive.
+	 * @param end The end index, exclusive.
+	 * @return A CharSequence which is indexed absolute and contains the chars {@code start..end}.
+	 */
+	CharSequence snapshot(int start, int end) {
+		// DEV-NOTE: the next char is kept, otherwise an empty token at end would be considered to be EOF
+		final int snapshotEnd = isEnd(end) ? end : end + 1;
+		final char[] chars = new char[snapshotEnd - start];
+		System.arraycopy(window, start - windowStart, chars, 0, chars.length);
+		return new Text(start, chars, start, snapshotEnd);
+	}
+
+	/**
+	 * Computes the line and column of the given index like {@link javaslang.Strings#lineAndColumn(String, int)}.
+	 *
+	 * @param index An index within the window.
+	 * @return A String {@code (line, column)}.
+	 */
+	String lineAndColumn(int index) {
+		return lineIndex(text(), index).lineAndColumn(index).toString();
+	}
+
+	/**
+	 * Creates a line index of the given text, which continues the lines of the input at the given start index, e.g. of
+	 * a {@link #snapshot(int, int)}.
+	 *
+	 * @param text A text, which is indexed absolute and accessible starting at start.
+	 * @param start An index within the window.
+	 * @return A new LineIndex.
+	 */
+	LineIndex lineIndex(CharSequence text, int start) {
+		final int line = this.line;
+		final int column = this.column;
+		final boolean afterCarriageReturn = this.afterCarriageReturn;
+		for (int i = windowStart; i < start; i++) {
+			advance(charAt(i));
+		}
+		final LineIndex result = new LineIndex(text, start, this.line, this.column, this.afterCarriageReturn);
+		this.line = line;
+		this.column = column;
+		this.afterCarriageReturn = afterCarriageReturn;
+		return result;
+	}
+
+	private void advance(char c) {
+		if (c == '\n') {
+			if (!afterCarriageReturn) {
+				line++;
+			}
+			column = 1;
+		} else if (c == '\r') {
+			line++;
+			column = 1;
+		} else {
+			column++;
+		}
+		afterCarriageReturn = (c == '\r');
+	}
+
+	private void read() {
+		if (windowLength == window.length) {
+			final char[] newWindow = new char[window.length * 2];
+			System.arraycopy(window, 0, newWindow, 0, windowLength);
+			window = newWindow;
+		}
+		try {
+			final int count = reader.read(window, windowLength, window.length - windowLength);
+			if (count < 0) {
+				eof = true;
+			} else {
+				windowLength += count;
+			}
+		} catch (IOException x) {
+			throw new UncheckedIOException(x);
+		}
+	}
+
+	/**
+	 * An absolute indexed CharSequence of the chars {@code start..end}, where {@code chars[0]} is at index offset.
+	 */
+	static final class Text implements CharSequence {
+
+		private final int offset;
+		private final char[] chars;
+		private final int start;
+		private final int end;
+
+		Text(int offset, char[] chars, int start, int end) {
+			this.offset = offset;
+			this.chars = chars;
+			this.start = start;
+			this.end = end;
+		}
+
+		/**
+		 * Returns the end index of this text. The chars before the start index are not accessible.
+		 */
+		@Override
+		public int length() {
+			return end;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < start || index >= end) {
+				throw new IndexOutOfBoundsException("index " + index + " not within " + start + ".." + end);
+			}
+			return chars[index - offset];
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			if (start < this.start || start > end || end > this.end) {
+				throw new IndexOutOfBoundsException("range " + start + ".." + end + " not within " + this.start + ".."
+						+ this.end);
+			}
+			return new String(chars, start - offset, end - start);
+		}
+
+		@Override
+		public String toString() {
+			return new String(chars, start - offset, end - start);
+		}
+	}
+}
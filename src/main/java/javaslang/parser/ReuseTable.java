@@ -0,0 +1,88 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javaslang.collection.Node;
+
+/**
+ * The rule applications of a previous parse run which are not affected by an edit, see
+ * {@link Grammar#reparse(Node, int, int, CharSequence)}. A rule application can be reused if it did not examine the
+ * edited region, i.e. if it ended examining the input before the edit or if it started after the edit. The latter are
+ * shifted by the length difference of the edit.
+ * <p>
+ * Only parser rules are reused, because lexer rules do not have their own node in the parse tree. The root is not
+ * reused, it is the result of the reparse. The subtrees of reusable nodes are not visited, i.e. building the table
+ * takes time proportional to the nodes enclosing the edit and their children, not to the size of the tree.
+ */
+final class ReuseTable {
+
+	// DEV-NOTE: rules are identified by name like the memo of ParseContext, indices are those of the edited text
+	private final Map<String, Map<Integer, Node<Token>>> subtrees = new HashMap<>();
+
+	/**
+	 * Collects the reusable subtrees of a parse tree.
+	 *
+	 * @param tree The parse tree of the text before the edit.
+	 * @param offset The start index of the edit.
+	 * @param removedLength The number of removed chars.
+	 * @param insertedLength The number of inserted chars.
+	 */
+	ReuseTable(Node<Token> tree, int offset, int removedLength, int insertedLength) {
+		final Token root = tree.getValue();
+		if (root.getId() != null) {
+			// DEV-NOTE: the root is rebuilt, its tokens belong to the revision of the edited text
+			put(root.getId(), root.getStartIndex(), null);
+			collectChildren(tree, offset, offset + removedLength, insertedLength - removedLength);
+		}
+	}
+
+	/**
+	 * Returns the subtree of a rule application of the previous parse run, which can be reused.
+	 *
+	 * @param rule A rule name.
+	 * @param index The index of the edited text (after skipping whitespace) the rule is applied to.
+	 * @return The reusable subtree or null, if the rule has to be applied.
+	 */
+	Node<Token> get(String rule, int index) {
+		final Map<Integer, Node<Token>> results = subtrees.get(rule);
+		return (results == null) ? null : results.get(index);
+	}
+
+	private void collect(Node<Token> tree, String parentId, int start, int end, int delta) {
+		final Token token = tree.getValue();
+		if (token.getId() == null) {
+			return;
+		} else if (token.getId().equals(parentId)) {
+			// DEV-NOTE: a nested operator expression is named like its rule but is not a result of the rule
+			collectChildren(tree, start, end, delta);
+		} else if (token.extent() < start) {
+			put(token.getId(), token.getStartIndex(), tree);
+		} else if (token.getStartIndex() >= end) {
+			put(token.getId(), token.getStartIndex() + delta, tree);
+		} else {
+			// DEV-NOTE: the descendants of a left-recursive rule at the same index are seeds, not results of the rule
+			put(token.getId(), token.getStartIndex(), null);
+			collectChildren(tree, start, end, delta);
+		}
+	}
+
+	private void collectChildren(Node<Token> tree, int start, int end, int delta) {
+		for (Node<Token> child : tree.getChildren()) {
+			collect(child, tree.getValue().getId(), start, end, delta);
+		}
+	}
+
+	// only the outermost application of a rule at an index is its result, null marks it as not reusable
+	private void put(String rule, int index, Node<Token> tree) {
+		final Map<Integer, Node<Token>> results = subtrees.computeIfAbsent(rule, r -> new HashMap<>());
+		if (!results.containsKey(index)) {
+			results.put(index, tree);
+		}
+	}
+}
@@ -0,0 +1,180 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.Requirements.require;
+
+import java.util.Arrays;
+
+/**
+ * A revision of a parsed text, which is shared by the tokens of a parse tree. The indices of a token are relative to
+ * the revision it was created for.
+ * <p>
+ * An incremental reparse, see {@link Grammar#reparse(javaslang.collection.Node, int, int, CharSequence)}, reuses the
+ * subtrees which are not affected by an edit as they are. Instead of shifting their tokens, the revision of the
+ * previous text is linked to the revision of the edited text. A token of an older revision maps its indices lazily to
+ * the latest revision, by the shifts of all edits since its revision. The shifts are combined once per revision and
+ * edit, i.e. a query takes logarithmic time in the number of edits.
+ */
+final class Revision {
+
+	final CharSequence text;
+
+	// shared by the tokens of this revision or created on demand, see lines()
+	private volatile LineIndex lines;
+
+	// the edit which derived the next revision from this revision or null, if this is the latest revision
+	private volatile Edit edit;
+
+	// the shifts from this revision to a later revision, see current()
+	private volatile Shifts shifts;
+
+	/**
+	 * Creates a revision of a text.
+	 *
+	 * @param text The text.
+	 * @param lines The line index of the text or null, then it is created by the first query.
+	 */
+	Revision(CharSequence text, LineIndex lines) {
+		this.text = text;
+		this.lines = lines;
+	}
+
+	/**
+	 * Checks if this is the latest revision of the text, i.e. if no edit was applied to it.
+	 *
+	 * @return true, if the text of this revision was not edited, false otherwise.
+	 */
+	boolean isLatest() {
+		return edit == null;
+	}
+
+	/**
+	 * Links this revision to the revision of the edited text. The tokens of this revision, which are located before
+	 * the edited region, keep their indices. The tokens after the edited region are shifted by the length difference
+	 * of the edit. Tokens within the edited region must not be used anymore.
+	 *
+	 * @param end The index of this revision after the removed chars.
+	 * @param delta The length difference of the edit, i.e. the number of inserted minus the number of removed chars.
+	 * @param next The revision of the edited text.
+	 * @throws javaslang.Requirements.UnsatisfiedRequirementException if this revision was already edited.
+	 */
+	void edit(int end, int delta, Revision next) {
+		require(edit == null, "revision was already edited");
+		edit = new Edit(end, delta, next);
+	}
+
+	/**
+	 * Returns the latest revision of the text.
+	 *
+	 * @return This revision, if it is the latest, or the latest of the revisions derived from it.
+	 */
+	Revision latest() {
+		return (edit == null) ? this : current().target;
+	}
+
+	/**
+	 * Maps an index of this revision to the latest revision.
+	 *
+	 * @param index An index of a token of this revision.
+	 * @return The index of the same char in the latest revision.
+	 */
+	int map(int index) {
+		return (edit == null) ? index : index + current().delta(index);
+	}
+
+	// DEV-NOTE: a racy initialization may create more than one index, which are equal
+	LineIndex lines() {
+		final Revision latest = latest();
+		LineIndex result = latest.lines;
+		if (result == null) {
+			result = new LineIndex(latest.text);
+			latest.lines = result;
+		}
+		return result;
+	}
+
+	// DEV-NOTE: the shifts are extended by the edits since they were computed, concurrent updates are equal
+	private Shifts current() {
+		Shifts result = shifts;
+		if (result == null) {
+			result = new Shifts(this, new int[] { 0 }, new int[] { 0 });
+		}
+		if (!result.target.isLatest()) {
+			while (!result.target.isLatest()) {
+				result = result.apply(result.target.edit);
+			}
+			shifts = result;
+		}
+		return result;
+	}
+
+	/**
+	 * An edit of a revision.
+	 */
+	private static final class Edit {
+
+		final int end;
+		final int delta;
+		final Revision next;
+
+		Edit(int end, int delta, Revision next) {
+			this.end = end;
+			this.delta = delta;
+			this.next = next;
+		}
+	}
+
+	/**
+	 * The shifts of the indices of a revision to a later revision. The indices are partitioned into ranges, which are
+	 * shifted by the same delta. The range {@code k} starts at {@code starts[k]} and ends before the next start.
+	 */
+	private static final class Shifts {
+
+		final Revision target;
+		final int[] starts;
+		final int[] deltas;
+
+		Shifts(Revision target, int[] starts, int[] deltas) {
+			this.target = target;
+			this.starts = starts;
+			this.deltas = deltas;
+		}
+
+		int delta(int index) {
+			final int k = Arrays.binarySearch(starts, index);
+			return deltas[(k >= 0) ? k : -k - 2];
+		}
+
+		// DEV-NOTE: the indices of a range which are located after the edited region in the target are shifted
+		Shifts apply(Edit edit) {
+			final int[] newStarts = new int[2 * starts.length];
+			final int[] newDeltas = new int[2 * starts.length];
+			int size = 0;
+			for (int k = 0; k < starts.length; k++) {
+				final long end = (k + 1 < starts.length) ? starts[k + 1] : Integer.MAX_VALUE + 1L;
+				final long shifted = Math.max(starts[k], (long) edit.end - deltas[k]);
+				if (shifted > starts[k]) {
+					size = add(newStarts, newDeltas, size, starts[k], deltas[k]);
+				}
+				if (shifted < end) {
+					size = add(newStarts, newDeltas, size, (int) shifted, deltas[k] + edit.delta);
+				}
+			}
+			return new Shifts(edit.next, Arrays.copyOf(newStarts, size), Arrays.copyOf(newDeltas, size));
+		}
+
+		// adjacent ranges with the same delta are merged
+		private static int add(int[] starts, int[] deltas, int size, int start, int delta) {
+			if (size > 0 && deltas[size - 1] == delta) {
+				return size;
+			}
+			starts[size] = start;
+			deltas[size] = delta;
+			return size + 1;
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.Requirements.requireNonNull;
+
+/**
+ * The input of a parse run. In contrast to a {@code CharSequence} the length of a source may be unknown until the end
+ * of the input is reached, e.g. when reading from a {@code Reader}. All indices are absolute, i.e. relative to the
+ * start of the input.
+ */
+interface Source {
+
+	/**
+	 * Checks if the given index is at or beyond the end of the input. May read ahead.
+	 *
+	 * @param index An index.
+	 * @return true, if there is no char at the index, false otherwise.
+	 */
+	boolean isEnd(int index);
+
+	/**
+	 * Returns the char at the given index.
+	 *
+	 * @param index An index, where {@code isEnd(index)} is false.
+	 * @return The char at index.
+	 */
+	char charAt(int index);
+
+	/**
+	 * Returns a view of the input, which is used to create tokens and to report parse events. The view is indexed
+	 * absolute, like this source.
+	 *
+	 * @return A CharSequence.
+	 */
+	CharSequence text();
+
+	/**
+	 * Checks if the input contains the given String at the given index.
+	 *
+	 * @param s A non-empty String.
+	 * @param index An index.
+	 * @return true, if s occurs at index, false otherwise.
+	 */
+	default boolean startsWith(String s, int index) {
+		for (int i = 0; i < s.length(); i++) {
+			if (isEnd(index + i) || charAt(index + i) != s.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Creates a source of a text which is completely known.
+	 *
+	 * @param text A text.
+	 * @return A new Source.
+	 */
+	static Source of(CharSequence text) {
+		requireNonNull(text, "text is null");
+		return new Source() {
+
+			final int length = text.length();
+
+			@Override
+			public boolean isEnd(int index) {
+				return index >= length;
+			}
+
+			@Override
+			public char charAt(int index) {
+				return text.charAt(index);
+			}
+
+			@Override
+			public CharSequence text() {
+				return text;
+			}
+
+			@Override
+			public boolean startsWith(String s, int index) {
+				return (text instanceof String) ? ((String) text).startsWith(s, index) : Source.super.startsWith(s,
+						index);
+			}
+		};
+	}
+}
@@ -0,0 +1,198 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.Requirements.require;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import javaslang.parser.FirstSets.First;
+import javaslang.parser.Parser.Operators;
+import javaslang.parser.Parser.Quantifier;
+import javaslang.parser.Parser.Reference;
+import javaslang.parser.Parser.Rule;
+import javaslang.parser.Parser.RulePart;
+import javaslang.parser.Parser.Sequence;
+import javaslang.parser.Parser.Subrule;
+
+/**
+ * The synchronization sets of the parser rules of a grammar, at which a parse with error recovery resumes after a
+ * syntax error within a rule, see {@link Grammar#parseWithRecovery(CharSequence, int, java.util.function.Consumer)}.
+ * <p>
+ * The synchronization set of a rule is its FOLLOW set, which contains the characters a match of the rule may be
+ * followed by, or the tokens declared by {@link Grammar#getSynchronizationTokens(String)}. Like the FIRST sets, the
+ * FOLLOW sets are over-approximations which only contain Latin-1 characters. Whitespace is skipped when searching for
+ * the next synchronization token, like it is skipped between tokens when parsing.
+ */
+final class SyncSets implements Serializable {
+
+	private static final long serialVersionUID = -2290447466316720531L;
+
+	// DEV-NOTE: rules are identified by name because rule references create new rule instances
+	private final Map<String, First> follow = new HashMap<>();
+	private final Map<String, String[]> tokens = new HashMap<>();
+	private final Map<String, LiteralTrie> tries = new HashMap<>();
+	private final Whitespace whitespace;
+
+	/**
+	 * Computes the synchronization sets of the given rules. The FOLLOW sets are computed by a fixpoint iteration,
+	 * which terminates because FOLLOW sets only grow.
+	 *
+	 * @param rules All rules of a grammar.
+	 * @param firstSets The FIRST sets of the rules.
+	 * @param whitespace The whitespace of the grammar.
+	 * @param tokens The declared synchronization tokens of a parser rule or null, if the FOLLOW set is used.
+	 * @throws javaslang.Requirements.UnsatisfiedRequirementException if a declared token is null or empty.
+	 */
+	SyncSets(Set<Rule> rules, FirstSets firstSets, Whitespace whitespace, Function<String, String[]> tokens) {
+		this.whitespace = whitespace;
+		for (Rule rule : rules) {
+			if (!rule.lexical) {
+				follow.put(rule.name, new First());
+				final String[] declared = tokens.apply(rule.name);
+				if (declared != null) {
+					for (String token : declared) {
+						require(token != null && !token.isEmpty(), () -> "synchronization token of rule '"
+								+ rule.name + "' is null or empty");
+					}
+					this.tokens.put(rule.name, declared.clone());
+					tries.put(rule.name, new LiteralTrie(declared));
+				}
+			}
+		}
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (Rule rule : rules) {
+				if (!rule.lexical) {
+					for (RulePart alternative : rule.alternatives) {
+						changed |= addFollow(alternative, follow.get(rule.name), firstSets);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the declared synchronization tokens of a rule.
+	 *
+	 * @param rule A rule name.
+	 * @return A copy of the tokens or null, if the rule synchronizes at its FOLLOW set.
+	 */
+	String[] tokens(String rule) {
+		final String[] declared = tokens.get(rule);
+		return (declared == null) ? null : declared.clone();
+	}
+
+	/**
+	 * Checks if the char at the given index may follow a match of the given rule, i.e. if a match of the rule may end
+	 * before the index. The end of the input and chars outside of Latin-1 may follow any rule.
+	 *
+	 * @param rule A parser rule name.
+	 * @param source The input.
+	 * @param index An index.
+	 * @return true, if the char at the index is contained in the FOLLOW set of the rule, false otherwise.
+	 */
+	boolean mayFollow(String rule, Source source, int index) {
+		if (source.isEnd(index)) {
+			return true;
+		} else {
+			final char c = source.charAt(index);
+			return c >= FirstSets.SIZE || follow.get(rule).contains(c);
+		}
+	}
+
+	/**
+	 * Finds the next synchronization token of a rule, starting at the given index. A token which is preceded by
+	 * whitespace is found after the whitespace.
+	 *
+	 * @param rule A parser rule name.
+	 * @param source The input.
+	 * @param index The index of a syntax error within the rule.
+	 * @return The start index of the next synchronization token or the end of the input.
+	 */
+	int resync(String rule, Source source, int index) {
+		final LiteralTrie trie = tries.get(rule);
+		int currentIndex = whitespace.skip(source, index);
+		while (!source.isEnd(currentIndex)) {
+			if ((trie != null) ? trie.longestMatch(source, currentIndex) >= 0 : mayFollow(rule, source, currentIndex)) {
+				return currentIndex;
+			}
+			currentIndex = whitespace.skip(source, currentIndex + 1);
+		}
+		return currentIndex;
+	}
+
+	// adds the FOLLOW set of the given part to the FOLLOW sets of the parser rules it may end with
+	private boolean addFollow(RulePart part, First follow, FirstSets firstSets) {
+		if (part instanceof Reference) {
+			final First ruleFollow = this.follow.get(((Reference) part).getRule().name);
+			// DEV-NOTE: lexical rules do not recover, i.e. they have no FOLLOW set
+			return ruleFollow != null && addAll(ruleFollow, follow);
+		} else if (part instanceof Sequence) {
+			final RulePart[] parts = ((Sequence) part).parsers;
+			boolean changed = false;
+			First rest = follow;
+			for (int i = parts.length - 1; i >= 0; i--) {
+				changed |= addFollow(parts[i], rest, firstSets);
+				final First first = firstSets.first(parts[i]);
+				rest = first.nullable ? union(first, rest) : first;
+			}
+			return changed;
+		} else if (part instanceof Subrule) {
+			boolean changed = false;
+			for (RulePart alternative : ((Subrule) part).alternatives) {
+				changed |= addFollow(alternative, follow, firstSets);
+			}
+			return changed;
+		} else if (part instanceof Quantifier) {
+			// DEV-NOTE: an iteration may be followed by the next iteration
+			final Quantifier quantifier = (Quantifier) part;
+			final First next = (quantifier.upperBound > 1) ? union(firstSets.first(quantifier.parser), follow)
+					: follow;
+			return addFollow(quantifier.parser, next, firstSets);
+		} else if (part instanceof Operators) {
+			// DEV-NOTE: an operand may be followed by an operator
+			final Operators operators = (Operators) part;
+			final First next = union(First.of(c -> isOperatorStart(operators, c)), follow);
+			return addFollow(operators.operand, next, firstSets);
+		} else {
+			// DEV-NOTE: terminals do not reference rules, a negation only negates terminals
+			return false;
+		}
+	}
+
+	private static boolean isOperatorStart(Operators operators, char c) {
+		for (String operator : operators.operators) {
+			if (operator.charAt(0) == c) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static First union(First first1, First first2) {
+		final First union = new First();
+		union.addAll(first1);
+		union.addAll(first2);
+		return union;
+	}
+
+	// adds the chars of a set to a FOLLOW set, the nullable flag of a FOLLOW set is not used
+	private static boolean addAll(First target, First source) {
+		boolean changed = false;
+		for (int i = 0; i < target.chars.length; i++) {
+			final long chars = target.chars[i] | source.chars[i];
+			changed |= chars != target.chars[i];
+			target.chars[i] = chars;
+		}
+		return changed;
+	}
+}
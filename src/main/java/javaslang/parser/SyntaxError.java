@@ -0,0 +1,71 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import javaslang.collection.Tuple.Tuple2;
+
+/**
+ * A syntax error which was recovered by a parse with error recovery, see
+ * {@link Grammar#parseWithRecovery(CharSequence, int, java.util.function.Consumer)}. The parse tree contains a node of
+ * the recovering rule at the position of the error, whose only child is an error node, see {@link Token#ERROR}.
+ */
+public final class SyntaxError {
+
+	private final String rule;
+	private final LineIndex lines;
+	private final int index;
+	private final int resumeIndex;
+
+	SyntaxError(String rule, LineIndex lines, int index, int resumeIndex) {
+		this.rule = rule;
+		this.lines = lines;
+		this.index = index;
+		this.resumeIndex = resumeIndex;
+	}
+
+	/**
+	 * Returns the name of the rule which recovered from this error.
+	 *
+	 * @return A parser rule name.
+	 */
+	public String getRule() {
+		return rule;
+	}
+
+	/**
+	 * Returns the index at which the input could not be parsed.
+	 *
+	 * @return The index of this error.
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Returns the index at which the parse resumed, i.e. the index of the next synchronization token of the rule or
+	 * the end of the input. The chars between the index of this error and the resume index were skipped.
+	 *
+	 * @return The end index of the error node.
+	 */
+	public int getResumeIndex() {
+		return resumeIndex;
+	}
+
+	/**
+	 * Computes the line and column of this error. The errors of a parse share an index of the line breaks, which is
+	 * built up to the index of the last error once.
+	 *
+	 * @return The line and column, starting at 1.
+	 */
+	public Tuple2<Integer, Integer> getLineAndColumn() {
+		return lines.lineAndColumn(index);
+	}
+
+	@Override
+	public String toString() {
+		return "cannot parse input at " + getLineAndColumn() + " within rule '" + rule + "'";
+	}
+}
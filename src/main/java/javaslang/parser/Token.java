@@ -10,48 +10,283 @@ import static javaslang.Requirements.requireNonNull;
 
 import java.util.Objects;
 
+import javaslang.collection.Tuple.Tuple2;
+
 public final class Token {
 
+	/**
+	 * The id of error nodes, which span the text skipped by error recovery, see
+	 * {@link Grammar#parseWithRecovery(CharSequence, int, java.util.function.Consumer)}. It is not a valid rule name.
+	 */
+	public static final String ERROR = "<error>";
+
+	// the largest mantissa and the powers of ten, which are exact as double, see #parseDouble()
+	private static final long MAX_EXACT_DIGITS = 1L << 53;
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
 	private final String id;
-	private final String text;
+	// the indices are relative to the revision, which is shared by the tokens of a text, e.g. of a parse tree
+	private final Revision revision;
 	private final int index;
 	private final int length;
+	// the furthest index which was examined when parsing this token, see Grammar#reparse(Node, int, int, CharSequence)
+	private final int extent;
+
+	Token(String id, CharSequence text, int index, int length) {
+		this(id, text, index, length, TreeBuffer.extent(index, length));
+	}
+
+	Token(String id, CharSequence text, int index, int length, int extent) {
+		this(id, text, index, length, extent, null);
+	}
+
+	// lines may be null, then a line index is created by the first query
+	Token(String id, CharSequence text, int index, int length, int extent, LineIndex lines) {
+		this(id, new Revision(requireNonNull(text, "text is null"), lines), index, length, extent);
+	}
 
 	// DEV-NOTE: defer substring calculation to getValue() for better performance and memory footprint
-	Token(String id, String text, int index, int length) {
-		requireNonNull(text, "text is null");
+	Token(String id, Revision revision, int index, int length, int extent) {
+		final CharSequence text = revision.text;
 		require(0 <= index && index <= text.length(), () -> "index out of bounds: " + index);
 		require(0 <= length, () -> "negative length: " + length);
 		require(length + index <= text.length(),
 				() -> String.format("(index + length) exceeds text: (%s + %s)", index, length));
 		this.id = id;
-		this.text = text;
+		this.revision = revision;
 		this.index = index;
 		this.length = length;
+		this.extent = extent;
 	}
 
 	public String getId() {
 		return id;
 	}
 
+	/**
+	 * Returns the text of this token as String. If the token was parsed from another {@code CharSequence}, e.g. a
+	 * mapped file, the text is copied.
+	 *
+	 * @return The whole text, not only the value of this token.
+	 */
 	public String getText() {
-		return text;
+		return text().toString();
+	}
+
+	// the parsed text, without copying it, see getText()
+	CharSequence text() {
+		return revision.latest().text;
+	}
+
+	// the latest revision of the text, which is shared with the tokens of the text
+	Revision revision() {
+		return revision.latest();
+	}
+
+	// true, if the text was not edited since this token was created, i.e. the token was not reused by a reparse
+	boolean isLatest() {
+		return revision.isLatest();
+	}
+
+	LineIndex lines() {
+		return revision.lines();
+	}
+
+	// the furthest examined index, relative to the latest revision like the start index
+	int extent() {
+		return (extent == Integer.MAX_VALUE) ? extent : extent + getStartIndex() - index;
 	}
 
 	public int getStartIndex() {
-		return index;
+		return revision.map(index);
 	}
 
 	public int getEndIndex() {
-		return index + length;
+		return getStartIndex() + length;
 	}
 
 	public int getLength() {
 		return length;
 	}
 
+	/**
+	 * Computes the line and column of the start of this token. The tokens of a parse tree share an index of the line
+	 * starts of the text, i.e. a query takes logarithmic time after the text was scanned up to the token once.
+	 *
+	 * @return The line and column, starting at 1.
+	 */
+	public Tuple2<Integer, Integer> getStartLineAndColumn() {
+		return lines().lineAndColumn(getStartIndex());
+	}
+
+	/**
+	 * Computes the line and column of the end of this token, i.e. of the index after its last char, like
+	 * {@link #getStartLineAndColumn()}.
+	 *
+	 * @return The line and column, starting at 1.
+	 */
+	public Tuple2<Integer, Integer> getEndLineAndColumn() {
+		return lines().lineAndColumn(getEndIndex());
+	}
+
 	public String getValue() {
-		return text.substring(index, index + length);
+		final CharSequence text = text();
+		final int index = getStartIndex();
+		return text.subSequence(index, index + length).toString();
+	}
+
+	/**
+	 * Returns a view of the value of this token, which reads the chars of the text instead of copying them, e.g. to
+	 * append the value to a {@code StringBuilder}. Only {@code toString()} of the view copies the chars.
+	 *
+	 * @return A CharSequence which is indexed relative to the start of this token.
+	 */
+	public CharSequence asCharSequence() {
+		final CharSequence text = text();
+		final int index = getStartIndex();
+		return new Slice(text, index, index + length);
+	}
+
+	/**
+	 * Checks if the value of this token equals the given String, without copying the value.
+	 *
+	 * @param s A String.
+	 * @return true, if {@code getValue().equals(s)}, false otherwise.
+	 */
+	public boolean contentEquals(String s) {
+		final CharSequence text = text();
+		final int index = getStartIndex();
+		if (s == null || s.length() != length) {
+			return false;
+		} else if (text instanceof String) {
+			return ((String) text).regionMatches(index, s, 0, length);
+		} else {
+			for (int i = 0; i < length; i++) {
+				if (text.charAt(index + i) != s.charAt(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Computes the hash code of the value of this token, without copying the value, e.g. to intern identifiers.
+	 *
+	 * @return The hash code of {@code getValue()}.
+	 */
+	public int valueHashCode() {
+		final CharSequence text = text();
+		final int index = getStartIndex();
+		int hash = 0;
+		for (int i = index; i < index + length; i++) {
+			hash = 31 * hash + text.charAt(i);
+		}
+		return hash;
+	}
+
+	/**
+	 * Parses the value of this token as decimal int, like {@link Integer#parseInt(String)}, without copying the value.
+	 *
+	 * @return The int value.
+	 * @throws NumberFormatException if the value is not a decimal int.
+	 */
+	public int parseInt() {
+		final long value = parseLong();
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+			throw numberFormatException();
+		}
+		return (int) value;
+	}
+
+	/**
+	 * Parses the value of this token as decimal long, like {@link Long#parseLong(String)}, without copying the value.
+	 *
+	 * @return The long value.
+	 * @throws NumberFormatException if the value is not a decimal long.
+	 */
+	public long parseLong() {
+		final CharSequence text = text();
+		final int index = getStartIndex();
+		final int end = index + length;
+		final boolean negative = length > 0 && text.charAt(index) == '-';
+		int i = (length > 0 && (negative || text.charAt(index) == '+')) ? index + 1 : index;
+		if (i == end) {
+			throw numberFormatException();
+		}
+		// DEV-NOTE: the digits are accumulated negatively like Long.parseLong, i.e. Long.MIN_VALUE does not overflow
+		final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		long result = 0;
+		for (; i < end; i++) {
+			final int digit = text.charAt(i) - '0';
+			if (digit < 0 || digit > 9 || result < limit / 10 || result * 10 < limit + digit) {
+				throw numberFormatException();
+			}
+			result = result * 10 - digit;
+		}
+		return negative ? result : -result;
+	}
+
+	/**
+	 * Parses the value of this token as double, like {@link Double#parseDouble(String)}. A decimal number, whose
+	 * digits and power of ten are exact as double, is parsed without copying the value, which covers the numbers of
+	 * typical documents. Other values are parsed by {@code Double.parseDouble(getValue())}.
+	 *
+	 * @return The double value.
+	 * @throws NumberFormatException if the value is not a double.
+	 */
+	public double parseDouble() {
+		final CharSequence text = text();
+		final int index = getStartIndex();
+		final int end = index + length;
+		final boolean negative = length > 0 && text.charAt(index) == '-';
+		int i = (length > 0 && (negative || text.charAt(index) == '+')) ? index + 1 : index;
+		long digits = 0;
+		int scale = 0;
+		int count = 0;
+		boolean point = false;
+		for (; i < end; i++) {
+			final char c = text.charAt(i);
+			if ('0' <= c && c <= '9') {
+				if (digits > MAX_EXACT_DIGITS) {
+					return Double.parseDouble(getValue());
+				}
+				digits = digits * 10 + (c - '0');
+				if (point) {
+					scale--;
+				}
+				count++;
+			} else if (c == '.' && !point) {
+				point = true;
+			} else {
+				break;
+			}
+		}
+		if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E') && count > 0) {
+			final boolean negativeExponent = i + 1 < end && text.charAt(i + 1) == '-';
+			i += (i + 1 < end && (negativeExponent || text.charAt(i + 1) == '+')) ? 2 : 1;
+			final int start = i;
+			int exponent = 0;
+			for (; i < end && '0' <= text.charAt(i) && text.charAt(i) <= '9' && exponent < POWERS_OF_TEN.length; i++) {
+				exponent = exponent * 10 + (text.charAt(i) - '0');
+			}
+			if (i == start) {
+				// DEV-NOTE: an exponent without digits is malformed, the JDK reports it
+				return Double.parseDouble(getValue());
+			}
+			scale += negativeExponent ? -exponent : exponent;
+		}
+		// DEV-NOTE: an exact mantissa and an exact power of ten yield a correctly rounded quotient or product
+		if (i < end || count == 0 || digits > MAX_EXACT_DIGITS || Math.abs(scale) >= POWERS_OF_TEN.length) {
+			return Double.parseDouble(getValue());
+		}
+		final double value = (scale >= 0) ? digits * POWERS_OF_TEN[scale] : digits / POWERS_OF_TEN[-scale];
+		return negative ? -value : value;
+	}
+
+	private NumberFormatException numberFormatException() {
+		return new NumberFormatException("For input string: \"" + getValue() + "\"");
 	}
 
 	@Override
@@ -62,17 +297,67 @@ public final class Token {
 			return false;
 		} else {
 			final Token other = (Token) obj;
-			return Objects.equals(id, other.id) && index == other.index && length == other.length;
+			return Objects.equals(id, other.id) && getStartIndex() == other.getStartIndex() && length == other.length;
 		}
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(id, index, length);
+		return Objects.hash(id, getStartIndex(), length);
 	}
 
 	@Override
 	public String toString() {
-		return (id != null) ? id : (length > 0) ? "'" + getValue() + "'" : (index == text.length()) ? "<EOF>" : "ε";
+		final CharSequence text = text();
+		final int index = getStartIndex();
+		if (id != null) {
+			return id;
+		} else if (length > 0) {
+			return new StringBuilder(length + 2).append('\'').append(text, index, index + length).append('\'')
+					.toString();
+		} else {
+			return (index == text.length()) ? "<EOF>" : "ε";
+		}
+	}
+
+	// a view of the value of a token, indexed relative to the start of the token
+	private static final class Slice implements CharSequence {
+
+		private final CharSequence text;
+		private final int start;
+		private final int end;
+
+		Slice(CharSequence text, int start, int end) {
+			this.text = text;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public int length() {
+			return end - start;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= end - start) {
+				throw new IndexOutOfBoundsException("index: " + index + ", length: " + (end - start));
+			}
+			return text.charAt(start + index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			if (start < 0 || start > end || end > this.end - this.start) {
+				throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: "
+						+ (this.end - this.start));
+			}
+			return new Slice(text, this.start + start, this.start + end);
+		}
+
+		@Override
+		public String toString() {
+			return text.subSequence(start, end).toString();
+		}
 	}
 }
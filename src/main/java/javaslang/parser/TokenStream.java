@@ -0,0 +1,136 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.Requirements.require;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The tokens of a text, as returned by {@link Grammar#tokenize(CharSequence)}. The tokens are stored in one int array
+ * and do not overlap. The type of a token is the name of a lexical rule or a literal of a parser rule, like
+ * {@code 'true'}.
+ * <p>
+ * A token stream is immutable and may be parsed repeatedly, see {@link Grammar#parse(TokenStream)}.
+ */
+public final class TokenStream {
+
+	// DEV-NOTE: the number of ints per token: type, start index, length and the furthest examined index
+	private static final int RECORD = 4;
+
+	final Grammar grammar;
+	private final CharSequence text;
+	private final String[] types;
+	private final int[] tokens;
+	private final int size;
+	// shared by the tokens of this stream, i.e. they share the line index
+	private final Revision revision;
+
+	TokenStream(Grammar grammar, CharSequence text, String[] types, int[] tokens, int size) {
+		this.grammar = grammar;
+		this.text = text;
+		this.types = types;
+		this.tokens = tokens;
+		this.size = size;
+		this.revision = new Revision(text, new LineIndex(text));
+	}
+
+	public CharSequence getText() {
+		return text;
+	}
+
+	/**
+	 * Returns the number of tokens.
+	 *
+	 * @return The number of tokens.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the i-th token.
+	 *
+	 * @param i A token index.
+	 * @return A new token, whose id is the token type.
+	 * @throws javaslang.Requirements.UnsatisfiedRequirementException if i is out of bounds.
+	 */
+	public Token get(int i) {
+		require(0 <= i && i < size, () -> "index out of bounds: " + i);
+		return new Token(types[tokens[i * RECORD]], revision, startIndex(i), length(i), extent(i));
+	}
+
+	int startIndex(int i) {
+		return tokens[i * RECORD + 1];
+	}
+
+	int length(int i) {
+		return tokens[i * RECORD + 2];
+	}
+
+	int extent(int i) {
+		return tokens[i * RECORD + 3];
+	}
+
+	/**
+	 * Finds the token of the given type which starts at the given index.
+	 *
+	 * @param type A token type.
+	 * @param index A start index.
+	 * @return The token index or -1, if no token of the given type starts at the index.
+	 */
+	int find(String type, int index) {
+		int low = 0;
+		int high = size - 1;
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			final int start = startIndex(mid);
+			if (start < index) {
+				low = mid + 1;
+			} else if (start > index) {
+				high = mid - 1;
+			} else {
+				return types[tokens[mid * RECORD]].equals(type) ? mid : -1;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public String toString() {
+		return IntStream.range(0, size).mapToObj(i -> {
+			final Token token = get(i);
+			return token.getId() + " '" + token.getValue() + "'";
+		}).collect(Collectors.joining(", ", "[", "]"));
+	}
+
+	/**
+	 * Collects the tokens of a token stream.
+	 */
+	static final class Builder {
+
+		private int[] tokens = new int[16 * RECORD];
+		private int size = 0;
+
+		void add(int type, int index, int length, int extent) {
+			if ((size + 1) * RECORD > tokens.length) {
+				tokens = Arrays.copyOf(tokens, tokens.length * 2);
+			}
+			final int offset = size * RECORD;
+			tokens[offset] = type;
+			tokens[offset + 1] = index;
+			tokens[offset + 2] = length;
+			tokens[offset + 3] = extent;
+			size++;
+		}
+
+		TokenStream build(Grammar grammar, CharSequence text, String[] types) {
+			return new TokenStream(grammar, text, types, Arrays.copyOf(tokens, size * RECORD), size);
+		}
+	}
+}
@@ -0,0 +1,431 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javaslang.collection.Node;
+
+/**
+ * A growable buffer of parse tree nodes which are stored in post-order as parallel primitive arrays. Parsers append
+ * tokens and symbols while parsing and reset the buffer to a previous mark on backtracking. The {@code Node<Token>}
+ * tree is built once, after the parse succeeded.
+ * <p>
+ * A node is represented by its id (null for tokens), start index, length, extent and the size of its subtree, i.e. the
+ * number of records of the node and all of its descendants. The children of a node are the preceding records of its
+ * subtree. The extent is the furthest index which was examined to parse the node, see
+ * {@link ParseContext#examine(int)}.
+ * <p>
+ * Records may be retained, e.g. by a memo, without copying them, see {@link #retain(int)}. A record may stand for a
+ * subtree of a previous parse run, which is reused as it is, see {@link #reuse(Node, int, int, int)}.
+ */
+final class TreeBuffer {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private String[] ids;
+	private int[] starts;
+	private int[] lengths;
+	private int[] extents;
+	private int[] sizes;
+	// the reused subtrees per record or null, allocated by the first reused subtree
+	private Node<Token>[] reused;
+	private int size;
+
+	// the retained records which are located in this buffer, ordered by their end
+	private final List<Records> retained = new ArrayList<>();
+	private int released = 0;
+
+	TreeBuffer() {
+		this(INITIAL_CAPACITY);
+	}
+
+	private TreeBuffer(int capacity) {
+		this.ids = new String[capacity];
+		this.starts = new int[capacity];
+		this.lengths = new int[capacity];
+		this.extents = new int[capacity];
+		this.sizes = new int[capacity];
+	}
+
+	/**
+	 * Returns the current position of this buffer, which is used to reset the buffer on backtracking and to collect
+	 * the children of a symbol.
+	 *
+	 * @return The number of records in this buffer.
+	 */
+	int mark() {
+		return size;
+	}
+
+	/**
+	 * Discards all records which were added after the given mark.
+	 *
+	 * @param mark A mark, obtained by {@link #mark()}.
+	 */
+	void reset(int mark) {
+		// DEV-NOTE: ids are not cleared, they reference rule names which are held by the grammar anyway
+		discard(mark);
+	}
+
+	/**
+	 * Appends a terminal token, i.e. a leaf of the parse tree.
+	 *
+	 * @param index The start index of the token.
+	 * @param length The length of the token.
+	 */
+	void token(int index, int length) {
+		add(null, index, length, extent(index, length), 1);
+	}
+
+	/**
+	 * Appends an error node, i.e. a leaf of the parse tree which spans the text skipped by error recovery.
+	 *
+	 * @param index The start index of the skipped text.
+	 * @param length The length of the skipped text.
+	 * @see Token#ERROR
+	 */
+	void error(int index, int length) {
+		add(Token.ERROR, index, length, extent(index, length), 1);
+	}
+
+	/**
+	 * Appends a non-terminal symbol, i.e. an inner node of the parse tree, whose children are all records added after
+	 * the given mark.
+	 *
+	 * @param id The id of the symbol, i.e. the rule name.
+	 * @param index The start index of the symbol.
+	 * @param length The length of the symbol.
+	 * @param extent The furthest index which was examined to parse the symbol.
+	 * @param mark A mark, obtained before the children were added.
+	 */
+	void symbol(String id, int index, int length, int extent, int mark) {
+		add(id, index, length, extent, size - mark + 1);
+	}
+
+	/**
+	 * Combines all nodes added after the given mark to one token, if there is more than one node.
+	 *
+	 * @param mark A mark, obtained before the nodes were added.
+	 * @param index The start index of the combined token.
+	 * @param endIndex The end index of the combined token.
+	 */
+	void combine(int mark, int index, int endIndex) {
+		if (count(mark) > 1) {
+			discard(mark);
+			token(index, endIndex - index);
+		}
+	}
+
+	/**
+	 * Counts the top-level nodes added after the given mark.
+	 *
+	 * @param mark A mark.
+	 * @return The number of nodes, not counting their descendants.
+	 */
+	int count(int mark) {
+		int count = 0;
+		for (int i = size - 1; i >= mark; i -= sizes[i]) {
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Checks if exactly one token was added after the given mark, which spans the given range.
+	 *
+	 * @param mark A mark.
+	 * @param index The start index of the range.
+	 * @param length The length of the range.
+	 * @return true, if the only record after the mark is a token of the range, false otherwise.
+	 */
+	boolean isToken(int mark, int index, int length) {
+		return size == mark + 1 && ids[mark] == null && starts[mark] == index && lengths[mark] == length;
+	}
+
+	/**
+	 * Copies the records added after the given mark.
+	 *
+	 * @param mark A mark.
+	 * @return A new buffer containing the records.
+	 */
+	TreeBuffer copy(int mark) {
+		final TreeBuffer copy = new TreeBuffer(Math.max(size - mark, 1));
+		copy.append(this, mark, size - mark);
+		return copy;
+	}
+
+	/**
+	 * Appends all records of the given buffer.
+	 *
+	 * @param other A buffer.
+	 */
+	void append(TreeBuffer other) {
+		append(other, 0, other.size);
+	}
+
+	/**
+	 * Retains the records added after the given mark, e.g. for memoization. The records are not copied, unless they
+	 * are discarded by {@link #reset(int)} or {@link #combine(int, int, int)}. Then they are moved to a new buffer
+	 * before they are overwritten, i.e. retaining takes constant time and a record is moved at most once per discard.
+	 *
+	 * @param mark A mark.
+	 * @return The retained records.
+	 */
+	Records retain(int mark) {
+		final Records records = new Records(this, mark, size - mark);
+		if (records.length > 0) {
+			retained.add(records);
+		}
+		return records;
+	}
+
+	/**
+	 * Appends retained records, which may be located in this buffer.
+	 *
+	 * @param records Retained records.
+	 */
+	void append(Records records) {
+		append(records.buffer, records.offset, records.length);
+	}
+
+	/**
+	 * Releases retained records, which are not appended anymore, e.g. because their memo was evicted. Released records
+	 * are not moved when they are discarded.
+	 *
+	 * @param records Retained records.
+	 */
+	void release(Records records) {
+		if (records.buffer == this && !records.released) {
+			records.released = true;
+			// DEV-NOTE: released records are removed in bulk, i.e. in amortized constant time
+			if (++released > retained.size() / 2) {
+				retained.removeIf(r -> r.released);
+				released = 0;
+			}
+		}
+	}
+
+	/**
+	 * Appends a subtree of a previous parse run, which is reused after an edit. The subtree is one record, i.e. it is
+	 * neither visited nor copied, and becomes part of the parse tree as it is.
+	 *
+	 * @param subtree A subtree whose tokens are mapped to the edited text by their revision, see {@link Revision}.
+	 * @param index The start index of the subtree in the edited text.
+	 * @param length The length of the subtree.
+	 * @param extent The furthest index of the edited text which was examined to parse the subtree.
+	 */
+	void reuse(Node<Token> subtree, int index, int length, int extent) {
+		if (reused == null) {
+			allocateReused();
+		}
+		add(subtree.getValue().getId(), index, length, extent, 1);
+		reused[size - 1] = subtree;
+	}
+
+	/**
+	 * Builds the parse trees of all top-level nodes added after the given mark.
+	 *
+	 * @param text The parsed text, referenced by the tokens.
+	 * @param mark A mark.
+	 * @return The top-level nodes in order of their occurrence.
+	 */
+	List<Node<Token>> toNodes(CharSequence text, int mark) {
+		return toNodes(new Revision(text, new LineIndex(text)), mark);
+	}
+
+	/**
+	 * Builds the parse trees of all top-level nodes added after the given mark, which share the given line index.
+	 *
+	 * @param text The parsed text, referenced by the tokens.
+	 * @param lines The line index of the text.
+	 * @param mark A mark.
+	 * @return The top-level nodes in order of their occurrence.
+	 */
+	List<Node<Token>> toNodes(CharSequence text, LineIndex lines, int mark) {
+		return toNodes(new Revision(text, lines), mark);
+	}
+
+	/**
+	 * Builds the parse trees of all top-level nodes added after the given mark, whose tokens share the given revision.
+	 * Reused subtrees are not rebuilt, their tokens belong to previous revisions of the text.
+	 *
+	 * @param revision The revision of the parsed text.
+	 * @param mark A mark.
+	 * @return The top-level nodes in order of their occurrence.
+	 */
+	List<Node<Token>> toNodes(Revision revision, int mark) {
+		// DEV-NOTE: the stack holds the nodes built so far, firstRecords the first record of their subtrees
+		final List<Node<Token>> stack = new ArrayList<>();
+		final int[] firstRecords = new int[size - mark];
+		for (int i = mark; i < size; i++) {
+			final int firstRecord = i - sizes[i] + 1;
+			int first = stack.size();
+			while (first > 0 && firstRecords[first - 1] >= firstRecord) {
+				first--;
+			}
+			final List<Node<Token>> children = stack.subList(first, stack.size());
+			final Node<Token> node;
+			if (reused != null && reused[i] != null) {
+				// DEV-NOTE: a reused subtree is one record, i.e. its children are not located in this buffer
+				node = reused[i];
+			} else {
+				final Token token = new Token(ids[i], revision, starts[i], lengths[i], extents[i]);
+				node = children.isEmpty() ? new Node<>(token) : new Node<>(token, new ArrayList<>(children));
+			}
+			children.clear();
+			firstRecords[stack.size()] = firstRecord;
+			stack.add(node);
+		}
+		return stack;
+	}
+
+	/**
+	 * Builds the compact tree of the last node added, which is the root of the parse tree.
+	 *
+	 * @param text The parsed text, referenced by the tree.
+	 * @return A new compact tree.
+	 */
+	CompactTree toCompactTree(CharSequence text) {
+		final int root = size - 1;
+		final int first = size - sizes[root];
+		final CompactTree.Builder builder = new CompactTree.Builder(text, sizes[root]);
+		// DEV-NOTE: the pre-order indices are assigned top-down, a subtree is followed by the subtrees of its siblings
+		final int[] nodes = new int[sizes[root]];
+		for (int i = root; i >= first; i--) {
+			final int node = nodes[i - first];
+			builder.node(node, ids[i], starts[i], lengths[i]);
+			int sibling = CompactTree.NONE;
+			int end = node + sizes[i];
+			for (int child = i - 1; child > i - sizes[i]; child -= sizes[child]) {
+				final int childNode = end - sizes[child];
+				nodes[child - first] = childNode;
+				builder.nextSibling(childNode, sibling);
+				sibling = childNode;
+				end = childNode;
+			}
+			builder.firstChild(node, sibling);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Returns the extent of a terminal token, i.e. the index of its last char or the index itself, if the token is
+	 * empty.
+	 *
+	 * @param index The start index of the token.
+	 * @param length The length of the token.
+	 * @return The furthest index which was examined to parse the token.
+	 */
+	static int extent(int index, int length) {
+		return (length > 0) ? index + length - 1 : index;
+	}
+
+	// DEV-NOTE: the retained records after the mark are moved together, the buffer is the only reference to them
+	private void discard(int mark) {
+		final int last = retained.size() - 1;
+		if (last >= 0 && retained.get(last).end() > mark) {
+			final int end = retained.get(last).end();
+			int first = last;
+			int start = end;
+			for (; first >= 0 && retained.get(first).end() > mark; first--) {
+				if (!retained.get(first).released) {
+					start = Math.min(start, retained.get(first).offset);
+				}
+			}
+			final TreeBuffer moved = (start < end) ? new TreeBuffer(end - start) : null;
+			if (moved != null) {
+				moved.append(this, start, end - start);
+			}
+			final List<Records> discarded = retained.subList(first + 1, last + 1);
+			for (Records records : discarded) {
+				if (records.released) {
+					released--;
+				} else {
+					records.buffer = moved;
+					records.offset -= start;
+				}
+			}
+			discarded.clear();
+		}
+		size = mark;
+	}
+
+	private void append(TreeBuffer source, int offset, int length) {
+		ensureCapacity(size + length);
+		// DEV-NOTE: the source may be this buffer, the records are located before size, i.e. the ranges do not overlap
+		System.arraycopy(source.ids, offset, ids, size, length);
+		System.arraycopy(source.starts, offset, starts, size, length);
+		System.arraycopy(source.lengths, offset, lengths, size, length);
+		System.arraycopy(source.extents, offset, extents, size, length);
+		System.arraycopy(source.sizes, offset, sizes, size, length);
+		if (source.reused != null) {
+			if (reused == null) {
+				allocateReused();
+			}
+			System.arraycopy(source.reused, offset, reused, size, length);
+		} else if (reused != null) {
+			Arrays.fill(reused, size, size + length, null);
+		}
+		size += length;
+	}
+
+	private void add(String id, int index, int length, int extent, int subtreeSize) {
+		ensureCapacity(size + 1);
+		if (reused != null) {
+			reused[size] = null;
+		}
+		ids[size] = id;
+		starts[size] = index;
+		lengths[size] = length;
+		extents[size] = extent;
+		sizes[size] = subtreeSize;
+		size++;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > ids.length) {
+			final int newCapacity = Math.max(capacity, ids.length * 2);
+			ids = Arrays.copyOf(ids, newCapacity);
+			starts = Arrays.copyOf(starts, newCapacity);
+			lengths = Arrays.copyOf(lengths, newCapacity);
+			extents = Arrays.copyOf(extents, newCapacity);
+			sizes = Arrays.copyOf(sizes, newCapacity);
+			if (reused != null) {
+				reused = Arrays.copyOf(reused, newCapacity);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void allocateReused() {
+		reused = (Node<Token>[]) new Node<?>[ids.length];
+	}
+
+	/**
+	 * A range of records, which is retained by {@link TreeBuffer#retain(int)}. The records are located in the buffer
+	 * which retained them until they are discarded there.
+	 */
+	static final class Records {
+
+		private TreeBuffer buffer;
+		private int offset;
+		private final int length;
+		private boolean released = false;
+
+		private Records(TreeBuffer buffer, int offset, int length) {
+			this.buffer = buffer;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		private int end() {
+			return offset + length;
+		}
+	}
+}
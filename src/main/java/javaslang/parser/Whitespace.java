@@ -0,0 +1,217 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.Requirements.requireNotNullOrEmpty;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import javaslang.Requirements.UnsatisfiedRequirementException;
+
+/**
+ * Describes the whitespace which is skipped within parser rules, see {@link Grammar#getWhitespace()}. Whitespace
+ * consists of single whitespace characters, line comments and block comments. Whitespace is not part of the parse
+ * tree.
+ * <p>
+ * Example: Java-like whitespace
+ *
+ * <pre>
+ * <code>
+ * Whitespace.of(" \t\r\n").withLineComment("//").withBlockComment("/*", "*&#47;")
+ * </code>
+ * </pre>
+ *
+ * An unterminated block comment is not skipped.
+ */
+public final class Whitespace implements Serializable {
+
+	private static final long serialVersionUID = 5863357846282917395L;
+
+	// DEV-NOTE: needs to be initialized before DEFAULT
+	private static final String[] NONE = new String[0];
+
+	/** Skips spaces, tabs, carriage returns and line feeds. */
+	public static final Whitespace DEFAULT = Whitespace.of(" \t\r\n");
+
+	private final String chars;
+	private final CharTable charTable;
+	private final String[] lineComments;
+	private final String[] blockCommentStarts;
+	private final String[] blockCommentEnds;
+	// the number of chars which are compared to recognize the start of a comment
+	private final int lookahead;
+
+	private Whitespace(String chars, String[] lineComments, String[] blockCommentStarts, String[] blockCommentEnds) {
+		this.chars = chars;
+		this.charTable = toCharTable(chars);
+		this.lineComments = lineComments;
+		this.blockCommentStarts = blockCommentStarts;
+		this.blockCommentEnds = blockCommentEnds;
+		this.lookahead = Math.max(maxLength(lineComments), maxLength(blockCommentStarts));
+	}
+
+	/**
+	 * Creates whitespace consisting of the given characters.
+	 *
+	 * @param chars The whitespace characters, each char is a whitespace. Ranges are not supported.
+	 * @return A new Whitespace instance.
+	 * @throws UnsatisfiedRequirementException if chars is null or empty.
+	 */
+	public static Whitespace of(String chars) {
+		requireNotNullOrEmpty(chars, "chars is null or empty");
+		return new Whitespace(chars, NONE, NONE, NONE);
+	}
+
+	/**
+	 * Adds a line comment, which is skipped up to and including the next line feed or the end of the input.
+	 *
+	 * @param start The start of a line comment, e.g. {@code "//"}.
+	 * @return A new Whitespace instance.
+	 * @throws UnsatisfiedRequirementException if start is null or empty.
+	 */
+	public Whitespace withLineComment(String start) {
+		requireNotNullOrEmpty(start, "start is null or empty");
+		return new Whitespace(chars, append(lineComments, start), blockCommentStarts, blockCommentEnds);
+	}
+
+	/**
+	 * Adds a block comment, which is skipped up to and including the end of the comment. Block comments are not
+	 * nested.
+	 *
+	 * @param start The start of a block comment, e.g. <code>"/*"</code>.
+	 * @param end The end of a block comment, e.g. <code>"*&#47;"</code>.
+	 * @return A new Whitespace instance.
+	 * @throws UnsatisfiedRequirementException if start or end is null or empty.
+	 */
+	public Whitespace withBlockComment(String start, String end) {
+		requireNotNullOrEmpty(start, "start is null or empty");
+		requireNotNullOrEmpty(end, "end is null or empty");
+		return new Whitespace(chars, lineComments, append(blockCommentStarts, start), append(blockCommentEnds, end));
+	}
+
+	/**
+	 * Skips whitespace, starting at the given index.
+	 *
+	 * @param text A text.
+	 * @param index The current index.
+	 * @return The index of the first character after the whitespace, which is index if there is no whitespace.
+	 */
+	int skip(CharSequence text, int index) {
+		return skip(Source.of(text), index);
+	}
+
+	/**
+	 * Skips whitespace of a source, starting at the given index.
+	 *
+	 * @param source An input source.
+	 * @param index The current index.
+	 * @return The index of the first character after the whitespace, which is index if there is no whitespace.
+	 */
+	int skip(Source source, int index) {
+		int i = index;
+		while (!source.isEnd(i)) {
+			if (charTable.contains(source.charAt(i))) {
+				i++;
+			} else {
+				final int end = skipComment(source, i);
+				if (end == i) {
+					break;
+				}
+				i = end;
+			}
+		}
+		return i;
+	}
+
+	/**
+	 * Returns the furthest index which was examined to skip whitespace, given the end of the skipped whitespace.
+	 *
+	 * @param source An input source.
+	 * @param end The index returned by {@link #skip(Source, int)}.
+	 * @return The furthest examined index, which is {@code Integer.MAX_VALUE} if the end of an unterminated block
+	 *         comment was searched up to the end of the input.
+	 */
+	int extent(Source source, int end) {
+		if (source.isEnd(end)) {
+			return end;
+		}
+		for (String start : blockCommentStarts) {
+			if (source.startsWith(start, end)) {
+				return Integer.MAX_VALUE;
+			}
+		}
+		return end + Math.max(lookahead - 1, 0);
+	}
+
+	/**
+	 * Checks if whitespace may start with the given char. Used to compute FIRST sets.
+	 *
+	 * @param c A char.
+	 * @return true, if c is a whitespace char or the first char of a comment, false otherwise.
+	 */
+	boolean mayStartWith(char c) {
+		return charTable.contains(c) || startsWith(lineComments, c) || startsWith(blockCommentStarts, c);
+	}
+
+	private int skipComment(Source source, int index) {
+		for (String start : lineComments) {
+			if (source.startsWith(start, index)) {
+				int i = index + start.length();
+				while (!source.isEnd(i)) {
+					if (source.charAt(i++) == '\n') {
+						break;
+					}
+				}
+				return i;
+			}
+		}
+		for (int i = 0; i < blockCommentStarts.length; i++) {
+			final String start = blockCommentStarts[i];
+			if (source.startsWith(start, index)) {
+				final String end = blockCommentEnds[i];
+				for (int j = index + start.length(); !source.isEnd(j); j++) {
+					if (source.startsWith(end, j)) {
+						return j + end.length();
+					}
+				}
+			}
+		}
+		return index;
+	}
+
+	private static boolean startsWith(String[] strings, char c) {
+		for (String s : strings) {
+			if (s.charAt(0) == c) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int maxLength(String[] strings) {
+		int maxLength = 0;
+		for (String s : strings) {
+			maxLength = Math.max(maxLength, s.length());
+		}
+		return maxLength;
+	}
+
+	private static String[] append(String[] strings, String s) {
+		final String[] result = Arrays.copyOf(strings, strings.length + 1);
+		result[strings.length] = s;
+		return result;
+	}
+
+	private static CharTable toCharTable(String chars) {
+		final char[] ranges = new char[2 * chars.length()];
+		for (int i = 0; i < chars.length(); i++) {
+			ranges[2 * i] = chars.charAt(i);
+			ranges[2 * i + 1] = chars.charAt(i);
+		}
+		return new CharTable(ranges);
+	}
+}
@@ -0,0 +1,69 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javaslang.IO;
+import javaslang.collection.Tree;
+import javaslang.monad.Try;
+import javaslang.parser.GrammarLoader.JavaslangGrammar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the grammar of the grammar notation, which parses the grammar definition {@code GrammarNotation.grammar}.
+ * Runs like {@link JSONBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BootstrapBenchmark {
+
+	private String input;
+	private JavaslangGrammar grammar;
+
+	@Setup
+	public void setup() {
+		input = IO.loadResource("javaslang/parser/GrammarNotation.grammar", StandardCharsets.UTF_8).get();
+		grammar = new JavaslangGrammar();
+		// DEV-NOTE: fail fast instead of measuring the failure path
+		grammar.parse(input).get();
+	}
+
+	/**
+	 * Measures the analysis of a new grammar instance, i.e. the one-time cost before the first parse.
+	 */
+	@Benchmark
+	public Grammar analyze() {
+		final Grammar grammar = new JavaslangGrammar();
+		grammar.getFirstSets();
+		return grammar;
+	}
+
+	@Benchmark
+	public GrammarRecognizer recognizer() {
+		return new JavaslangGrammar().recognizer();
+	}
+
+	@Benchmark
+	public Try<Tree<Token>> parse() {
+		return grammar.parse(input);
+	}
+}
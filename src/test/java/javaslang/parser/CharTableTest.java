@@ -0,0 +1,75 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javaslang.AssertionsExtensions;
+import javaslang.Requirements.UnsatisfiedRequirementException;
+
+import org.junit.Test;
+
+public class CharTableTest {
+
+	@Test
+	public void shouldThrowOnOddNumberOfRangeBounds() {
+		AssertionsExtensions.assertThat(() -> new CharTable('a')).isThrowing(UnsatisfiedRequirementException.class,
+				"odd number of range bounds");
+	}
+
+	@Test
+	public void shouldContainNothingWhenEmpty() {
+		final CharTable table = new CharTable();
+		assertThat(table.contains('a')).isFalse();
+		assertThat(table.contains('€')).isFalse();
+	}
+
+	@Test
+	public void shouldContainLatin1Range() {
+		final CharTable table = new CharTable('a', 'c');
+		assertThat(table.contains('`')).isFalse();
+		assertThat(table.contains('a')).isTrue();
+		assertThat(table.contains('c')).isTrue();
+		assertThat(table.contains('d')).isFalse();
+	}
+
+	@Test
+	public void shouldContainBoundsOfLatin1Bitset() {
+		final CharTable table = new CharTable('\u0000', '\u0000', 'ÿ', 'ÿ');
+		assertThat(table.contains('\u0000')).isTrue();
+		assertThat(table.contains('ÿ')).isTrue();
+		assertThat(table.contains('Ā')).isFalse();
+	}
+
+	@Test
+	public void shouldContainRangeCrossingLatin1Bound() {
+		final CharTable table = new CharTable('ð', 'Đ');
+		assertThat(table.contains('ï')).isFalse();
+		assertThat(table.contains('ð')).isTrue();
+		assertThat(table.contains('Ā')).isTrue();
+		assertThat(table.contains('Đ')).isTrue();
+		assertThat(table.contains('đ')).isFalse();
+	}
+
+	@Test
+	public void shouldContainUnsortedOverlappingRanges() {
+		final CharTable table = new CharTable('一', '丐', 'Ѐ', 'ӿ', '丅', '丠', '￿',
+				'￿');
+		assertThat(table.contains('Ͽ')).isFalse();
+		assertThat(table.contains('ѐ')).isTrue();
+		assertThat(table.contains('䷿')).isFalse();
+		assertThat(table.contains('丕')).isTrue();
+		assertThat(table.contains('両')).isFalse();
+		assertThat(table.contains('￿')).isTrue();
+	}
+
+	@Test
+	public void shouldIgnoreEmptyRange() {
+		final CharTable table = new CharTable('z', 'a', '丐', '一');
+		assertThat(table.contains('m')).isFalse();
+		assertThat(table.contains('丅')).isFalse();
+	}
+}
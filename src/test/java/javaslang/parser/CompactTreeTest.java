@@ -0,0 +1,142 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javaslang.collection.Tree;
+import javaslang.parser.CompactTree.Cursor;
+import javaslang.parser.Grammar.Memoization;
+import javaslang.parser.GrammarTest.JSONGrammar;
+import javaslang.parser.LeftRecursionTest.ExpressionGrammar;
+import javaslang.parser.LiteralTrieTest.KeywordGrammar;
+
+import org.junit.Test;
+
+public class CompactTreeTest {
+
+	// -- parseCompact
+
+	@Test
+	public void shouldParseJSONLikeTree() {
+		assertParsesLikeTree(new JSONGrammar(), "{ \"a\" : [ 1, 2, true ], \"b\" : { \"c\" : null } }");
+	}
+
+	@Test
+	public void shouldParseLeftRecursionLikeTree() {
+		assertParsesLikeTree(new ExpressionGrammar(Memoization.ALL_RULES), "1 * 2 + 3 - 4 * 5");
+	}
+
+	@Test
+	public void shouldParseOperatorsLikeTree() {
+		assertParsesLikeTree(Grammar.of("Operators", ParserTest.arithmetic()), "1 + 2 * 3 ^ 4 ^ 5 - 6");
+	}
+
+	@Test
+	public void shouldParseLexicalStartRuleLikeTree() {
+		assertParsesLikeTree(Grammar.of("test", LeftRecursionTest.lexical()), "a12");
+	}
+
+	@Test
+	public void shouldFailLikeTree() {
+		final KeywordGrammar grammar = new KeywordGrammar();
+		assertThat(grammar.parseCompact("set 1; select x").failed().get().getMessage()).isEqualTo(
+				grammar.parse("set 1; select x").failed().get().getMessage());
+	}
+
+	@Test
+	public void shouldCountNodes() {
+		final String json = "{ \"a\" : [ 1, 2, true ], \"b\" : { \"c\" : null } }";
+		assertThat(new JSONGrammar().parseCompact(json).get().size()).isEqualTo(
+				size(new JSONGrammar().parse(json).get()));
+	}
+
+	@Test
+	public void shouldConvertToString() {
+		assertThat(new KeywordGrammar().parseCompact("drop").get().toString()).isEqualTo(
+				"CompactTree(statements (statement 'drop') <EOF>)");
+	}
+
+	// -- cursor
+
+	@Test
+	public void shouldNavigateToFirstChildAndNextSibling() {
+		final Cursor cursor = new KeywordGrammar().parseCompact("set 1; drop").get().cursor();
+		assertThat(cursor.getId()).isEqualTo("statements");
+		assertThat(cursor.firstChild()).isTrue();
+		assertThat(cursor.getId()).isEqualTo("statement");
+		assertThat(cursor.getValue()).isEqualTo("set 1");
+		assertThat(cursor.nextSibling()).isTrue();
+		assertThat(cursor.isToken()).isTrue();
+		assertThat(cursor.getValue()).isEqualTo(";");
+		assertThat(cursor.nextSibling()).isTrue();
+		assertThat(cursor.getStartIndex()).isEqualTo(7);
+		assertThat(cursor.getEndIndex()).isEqualTo(11);
+		assertThat(cursor.nextSibling()).isTrue();
+		assertThat(cursor.getToken().toString()).isEqualTo("<EOF>");
+		assertThat(cursor.nextSibling()).isFalse();
+	}
+
+	@Test
+	public void shouldNavigateToParent() {
+		final Cursor cursor = new KeywordGrammar().parseCompact("set 1").get().cursor();
+		assertThat(cursor.parent()).isFalse();
+		assertThat(cursor.firstChild()).isTrue();
+		assertThat(cursor.firstChild()).isTrue();
+		assertThat(cursor.getDepth()).isEqualTo(2);
+		assertThat(cursor.getValue()).isEqualTo("set");
+		assertThat(cursor.isLeaf()).isTrue();
+		assertThat(cursor.firstChild()).isFalse();
+		assertThat(cursor.parent()).isTrue();
+		assertThat(cursor.getId()).isEqualTo("statement");
+		assertThat(cursor.parent()).isTrue();
+		assertThat(cursor.getDepth()).isEqualTo(0);
+		assertThat(cursor.nextSibling()).isFalse();
+	}
+
+	@Test
+	public void shouldCopyCursor() {
+		final Cursor cursor = new KeywordGrammar().parseCompact("set 1").get().cursor();
+		cursor.firstChild();
+		final Cursor copy = cursor.copy();
+		cursor.firstChild();
+		assertThat(copy.toString()).isEqualTo("Tree(statement 'set' '1')");
+		assertThat(copy.parent()).isTrue();
+		assertThat(copy.getId()).isEqualTo("statements");
+	}
+
+	@Test
+	public void shouldGrowPathOfDeepTrees() {
+		final StringBuilder json = new StringBuilder();
+		for (int i = 0; i < 40; i++) {
+			json.append('[');
+		}
+		for (int i = 0; i < 40; i++) {
+			json.append(']');
+		}
+		final Cursor cursor = new JSONGrammar().parseCompact(json).get().cursor();
+		while (cursor.firstChild()) {
+			while (cursor.isLeaf() && cursor.nextSibling()) {
+			}
+		}
+		final int depth = cursor.getDepth();
+		assertThat(depth).isGreaterThan(40);
+		for (int i = 0; i < depth; i++) {
+			assertThat(cursor.parent()).isTrue();
+		}
+		assertThat(cursor.getId()).isEqualTo("json");
+	}
+
+	// -- helpers
+
+	private static void assertParsesLikeTree(Grammar grammar, String text) {
+		assertThat(grammar.parseCompact(text).get().toTree()).isEqualTo(grammar.parse(text).get());
+	}
+
+	private static int size(Tree<Token> tree) {
+		return 1 + tree.getChildren().stream().mapToInt(CompactTreeTest::size).sum();
+	}
+}
@@ -0,0 +1,138 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.parser.Grammar.ANY;
+import static javaslang.parser.Grammar.EOF;
+import static javaslang.parser.Grammar._0_n;
+import static javaslang.parser.Grammar.rule;
+import static javaslang.parser.Grammar.seq;
+import static javaslang.parser.Grammar.str;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+
+import javaslang.parser.GrammarTest.JSONGrammar;
+import javaslang.parser.Parser.Rule;
+
+import org.junit.Test;
+
+public class FirstSetsTest {
+
+	@Test
+	public void shouldDispatchJSONAlternativesByFirstChar() {
+		final JSONGrammar grammar = new JSONGrammar();
+		final Rule json = grammar.json();
+		final int[][] dispatchTable = grammar.getFirstSets().dispatchTable(json.alternatives, json.lexical);
+		assertThat(dispatchTable['{']).containsExactly(0);
+		assertThat(dispatchTable['[']).containsExactly(1);
+		assertThat(dispatchTable['t']).containsExactly(2, 4);
+		assertThat(dispatchTable['7']).containsExactly(2, 3);
+		assertThat(dispatchTable['@']).isEmpty();
+	}
+
+	@Test
+	public void shouldDispatchWhitespaceToParserRuleReferences() {
+		final JSONGrammar grammar = new JSONGrammar();
+		final Rule json = grammar.json();
+		final int[][] dispatchTable = grammar.getFirstSets().dispatchTable(json.alternatives, json.lexical);
+		assertThat(dispatchTable[' ']).containsExactly(0, 1, 2, 3);
+	}
+
+	@Test
+	public void shouldDispatchAllCharsToNullableAlternatives() {
+		final Rule rule = rule("rule", str("a"), seq(_0_n(str("b")), str("c")), _0_n(str("d")));
+		final FirstSets firstSets = new FirstSets(Collections.singleton(rule), Whitespace.DEFAULT);
+		final int[][] dispatchTable = firstSets.dispatchTable(rule.alternatives, true);
+		assertThat(dispatchTable['a']).containsExactly(0, 2);
+		assertThat(dispatchTable['b']).containsExactly(1, 2);
+		assertThat(dispatchTable['c']).containsExactly(1, 2);
+		assertThat(dispatchTable['x']).containsExactly(2);
+	}
+
+	@Test
+	public void shouldNotShareFirstSetsOfAny() {
+		final Rule rule = rule("rule", ANY);
+		final FirstSets firstSets = new FirstSets(Collections.singleton(rule), Whitespace.DEFAULT);
+		firstSets.first(ANY).nullable = true;
+		assertThat(firstSets.first(ANY).nullable).isFalse();
+		assertThat(firstSets.first(ANY)).isNotSameAs(firstSets.first(ANY));
+	}
+
+	@Test
+	public void shouldNotDispatchCharsToEOF() {
+		final Rule rule = rule("rule", EOF, str("a"));
+		final FirstSets firstSets = new FirstSets(Collections.singleton(rule), Whitespace.DEFAULT);
+		final int[][] dispatchTable = firstSets.dispatchTable(rule.alternatives, true);
+		assertThat(dispatchTable['a']).containsExactly(1);
+	}
+
+	@Test
+	public void shouldTryAllAlternativesAtEndOfInput() {
+		final int[][] dispatchTable = new int[FirstSets.SIZE][];
+		final int[] all = FirstSets.all(2);
+		assertThat(FirstSets.viableAlternatives(dispatchTable, all, Source.of(""), 0)).isSameAs(all);
+	}
+
+	@Test
+	public void shouldTryAllAlternativesOutsideOfLatin1() {
+		final int[][] dispatchTable = new int[FirstSets.SIZE][];
+		final int[] all = FirstSets.all(2);
+		assertThat(FirstSets.viableAlternatives(dispatchTable, all, Source.of("€"), 0)).isSameAs(all);
+	}
+
+	@Test
+	public void shouldReportSameFailureIndexWhenDispatching() {
+		final Grammar grammar = Grammar.of("test", rule("root", seq(str("a"), str("b")), seq(str("a"), str("c")),
+				str("x")));
+		assertThat(grammar.parse("ad").failed().get().getMessage()).isEqualTo("cannot parse input at (1, 2)");
+	}
+
+	@Test
+	public void shouldNotReuseDispatchOfOtherWhitespace() {
+		final Rule rule = rule("rule", seq(str("a"), str("b")), str("c"));
+		final FirstSets spaces = new FirstSets(Collections.singleton(rule), Whitespace.of(" "));
+		final FirstSets hashes = new FirstSets(Collections.singleton(rule), Whitespace.of("#"));
+		final FirstSets.Dispatch dispatch = spaces.dispatch(null, rule.alternatives, false);
+		assertThat(spaces.dispatch(dispatch, rule.alternatives, false)).isSameAs(dispatch);
+		final FirstSets.Dispatch other = hashes.dispatch(dispatch, rule.alternatives, false);
+		assertThat(other.dispatchTable['#']).containsExactly(0);
+		assertThat(other.dispatchTable[' ']).isEmpty();
+	}
+
+	@Test
+	public void shouldNotReuseDispatchOfOtherLexicalScope() {
+		final Rule rule = rule("rule", seq(str("a"), str("b")), str("c"));
+		final FirstSets firstSets = new FirstSets(Collections.singleton(rule), Whitespace.DEFAULT);
+		final FirstSets.Dispatch lexical = firstSets.dispatch(null, rule.alternatives, true);
+		assertThat(lexical.dispatchTable[' ']).isEmpty();
+		final FirstSets.Dispatch parser = firstSets.dispatch(lexical, rule.alternatives, false);
+		assertThat(parser.dispatchTable[' ']).containsExactly(0);
+	}
+
+	@Test
+	public void shouldParseWithRuleSharedByGrammarsWithDifferentWhitespace() {
+		final Rule rule = rule("rule", seq(str("a"), str("b")), str("c"));
+		assertThat(grammar(rule, Whitespace.of(" ")).parse(" a b").isSuccess()).isTrue();
+		assertThat(grammar(rule, Whitespace.of("#")).parse("#a#b").isSuccess()).isTrue();
+		assertThat(grammar(rule, Whitespace.of("#")).parse(" a b").isFailure()).isTrue();
+	}
+
+	private static Grammar grammar(Rule startRule, Whitespace whitespace) {
+		return new Grammar("test") {
+
+			@Override
+			protected Rule getStartRule() {
+				return startRule;
+			}
+
+			@Override
+			protected Whitespace getWhitespace() {
+				return whitespace;
+			}
+		};
+	}
+}
@@ -0,0 +1,220 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+import javaslang.AssertionsExtensions;
+import javaslang.IO;
+import javaslang.Requirements.UnsatisfiedRequirementException;
+import javaslang.parser.GrammarLoader.JavaslangGrammar;
+import javaslang.parser.GrammarTest.JSONGrammar;
+import javaslang.parser.LeftRecursionTest.ExpressionGrammar;
+import javaslang.parser.LiteralTrieTest.KeywordGrammar;
+
+import org.junit.Test;
+
+public class GrammarLoaderTest {
+
+	// -- load text
+
+	@Test
+	public void shouldThrowWhenTextIsNull() {
+		AssertionsExtensions.assertThat(() -> GrammarLoader.load((CharSequence) null)).isThrowing(
+				UnsatisfiedRequirementException.class, "text is null");
+	}
+
+	@Test
+	public void shouldLoadJSONGrammarLikeDefinedInJava() {
+		assertLoadsLikeDefinedInJava(new JSONGrammar(), "{ \"a\" : [ 1, 2, true ], \"b\" : { \"c\" : null } }");
+	}
+
+	@Test
+	public void shouldLoadKeywordGrammarLikeDefinedInJava() {
+		assertLoadsLikeDefinedInJava(new KeywordGrammar(), "set 1; select 2; settle; sel");
+	}
+
+	@Test
+	public void shouldLoadLeftRecursionLikeDefinedInJava() {
+		assertLoadsLikeDefinedInJava(new ExpressionGrammar(Grammar.Memoization.NONE), "1 * 2 + 3 - 4 * 5");
+	}
+
+	@Test
+	public void shouldLoadOperatorsLikeDefinedInJava() {
+		assertLoadsLikeDefinedInJava(Grammar.of("Operators", ParserTest.arithmetic()), "1 + 2 * 3 ^ 4 ^ 5 - 6");
+	}
+
+	@Test
+	public void shouldLoadGrammarNotationLikeDefinedInJava() {
+		final String notation = IO.loadResource("javaslang/parser/GrammarNotation.grammar", IO.UTF8).get();
+		final OptimizedGrammar grammar = GrammarLoader.load(notation).get();
+		final JavaslangGrammar javaslangGrammar = new JavaslangGrammar();
+		assertThat(grammar.toString()).isEqualTo(javaslangGrammar.optimize().toString());
+		// DEV-NOTE: the loaded grammar does not skip comments, i.e. it parses the notation without comments
+		final String definition = grammar.toString();
+		assertThat(grammar.parse(definition).get()).isEqualTo(javaslangGrammar.parse(definition).get());
+	}
+
+	@Test
+	public void shouldLoadGrammarWithComments() {
+		final OptimizedGrammar grammar = GrammarLoader.load(
+				"grammar Keyword ;\n// the start rule\nstatements : statement ( ';' statement )* EOF ;\n"
+						+ "statement : 'drop' /* no number */ | 'set' NUMBER ;\nNUMBER : [0-9]+ ;").get();
+		assertThat(grammar.parse("set 1; drop").get().toString()).isEqualTo(
+				"Tree(statements (statement 'set' '1') ';' (statement 'drop') <EOF>)");
+	}
+
+	@Test
+	public void shouldLoadEscapedChars() {
+		final OptimizedGrammar grammar = GrammarLoader.load(
+				"grammar Escapes ; root : '\\'\\\\' [\\]\\n] '\\u00e9'..'\\u00ff' ;").get();
+		assertThat(grammar.getStartRule().toString()).isEqualTo("root : '\\'\\\\' [\\]\\n] '\\u00e9'..'\\u00ff' ;");
+		assertThat(grammar.parse("'\\]\u00f6").isSuccess()).isTrue();
+	}
+
+	@Test
+	public void shouldLoadEmptyAlternativesAndGroups() {
+		final OptimizedGrammar grammar = GrammarLoader.load("grammar Groups ; root : ( 'a' 'b' )+ ( 'c' | ) ;").get();
+		assertThat(grammar.getStartRule().toString()).isEqualTo("root : ( 'a' 'b' )+ ( 'c' |  ) ;");
+		assertThat(grammar.parse("abab").isSuccess()).isTrue();
+	}
+
+	@Test
+	public void shouldLoadNegationsQuantifiersAndCuts() {
+		final OptimizedGrammar grammar = GrammarLoader.load(
+				"grammar Parts ; root : 'a' ^ !.* | ID{2} ID{1,3} ; ID : !![a-z] . ;").get();
+		assertThat(grammar.toString()).isEqualTo(
+				"grammar Parts ;\n\nroot : 'a' ^ !.*\n     | ID{2} ID{1,3}\n     ;\n\nID : !![a-z] . ;");
+	}
+
+	@Test
+	public void shouldFailOnSyntaxError() {
+		assertThat(GrammarLoader.load("grammar Broken ;\nroot : 'a' |").failed().get().getMessage()).isEqualTo(
+				"cannot parse input at (2, 13)");
+	}
+
+	@Test
+	public void shouldFailOnUndefinedRule() {
+		assertThat(GrammarLoader.load("grammar Undefined ; root : rule ;").failed().get().getMessage()).isEqualTo(
+				"rule 'rule' is not defined");
+	}
+
+	@Test
+	public void shouldFailOnRuleDefinedTwice() {
+		assertThat(GrammarLoader.load("grammar Twice ; root : 'a' ; root : 'b' ;").failed().get().getMessage())
+				.isEqualTo("rule 'root' is defined twice");
+	}
+
+	@Test
+	public void shouldFailOnNegatedLiteral() {
+		assertThat(GrammarLoader.load("grammar Negation ; root : !'a' ;").failed().get().getMessage()).isEqualTo(
+				"'a' cannot be negated");
+	}
+
+	@Test
+	public void shouldFailOnAssociativityOfNonBinaryAlternative() {
+		assertThat(GrammarLoader.load("grammar Assoc ; root : <assoc=right> 'a' ;").failed().get().getMessage())
+				.isEqualTo("associativity of rule 'root' is not part of a binary expression");
+	}
+
+	@Test
+	public void shouldFailOnInvalidRange() {
+		assertThat(GrammarLoader.load("grammar Range ; root : 'ab'..'z' ;").failed().get().getMessage()).isEqualTo(
+				"bound of range is not a single char: 'ab'");
+	}
+
+	// -- load file
+
+	@Test
+	public void shouldLoadFileAndWriteCache() throws IOException {
+		final Path cacheDirectory = tempDirectory().resolve("cache");
+		final OptimizedGrammar grammar = GrammarLoader.load(tempFile(new KeywordGrammar().toString()),
+				cacheDirectory).get();
+		assertThat(grammar.parse("set 1; drop").isSuccess()).isTrue();
+		assertThat(cacheFiles(cacheDirectory)).hasSize(1);
+	}
+
+	@Test
+	public void shouldLoadFileFromCache() throws IOException {
+		final Path cacheDirectory = tempDirectory();
+		final Path file = tempFile(new JSONGrammar().toString());
+		final OptimizedGrammar loaded = GrammarLoader.load(file, cacheDirectory).get();
+		final OptimizedGrammar cached = GrammarLoader.load(file, cacheDirectory).get();
+		assertThat(cached).isNotSameAs(loaded);
+		assertThat(cached.toString()).isEqualTo(loaded.toString());
+		final String json = "{ \"a\" : [ 1, 2, true ], \"b\" : { \"c\" : null } }";
+		assertThat(cached.parse(json).toString()).isEqualTo(loaded.parse(json).toString());
+		assertThat(cacheFiles(cacheDirectory)).hasSize(1);
+	}
+
+	@Test
+	public void shouldReplaceUnreadableCache() throws IOException {
+		final Path cacheDirectory = tempDirectory();
+		final Path file = tempFile(new KeywordGrammar().toString());
+		GrammarLoader.load(file, cacheDirectory).get();
+		final Path cacheFile = cacheFiles(cacheDirectory)[0];
+		Files.write(cacheFile, new byte[] { 1, 2, 3 });
+		assertThat(GrammarLoader.load(file, cacheDirectory).get().parse("drop").isSuccess()).isTrue();
+		assertThat(Files.size(cacheFile)).isGreaterThan(3);
+	}
+
+	@Test
+	public void shouldCacheEditedFileSeparately() throws IOException {
+		final Path cacheDirectory = tempDirectory();
+		final Path file = tempFile("grammar Edit ; root : 'a' ;");
+		GrammarLoader.load(file, cacheDirectory).get();
+		Files.write(file, "grammar Edit ; root : 'b' ;".getBytes(StandardCharsets.UTF_8));
+		assertThat(GrammarLoader.load(file, cacheDirectory).get().parse("b").isSuccess()).isTrue();
+		assertThat(cacheFiles(cacheDirectory)).hasSize(2);
+	}
+
+	@Test
+	public void shouldNotCacheInvalidGrammar() throws IOException {
+		final Path cacheDirectory = tempDirectory();
+		assertThat(GrammarLoader.load(tempFile("grammar Invalid ;"), cacheDirectory).isFailure()).isTrue();
+		assertThat(cacheFiles(cacheDirectory)).isEmpty();
+	}
+
+	@Test
+	public void shouldFailWhenFileDoesNotExist() throws IOException {
+		assertThat(GrammarLoader.load(Paths.get("does-not-exist.grammar"), tempDirectory()).failed().get())
+				.isInstanceOf(NoSuchFileException.class);
+	}
+
+	// -- helpers
+
+	private static void assertLoadsLikeDefinedInJava(Grammar grammar, String text) {
+		final OptimizedGrammar loaded = GrammarLoader.load(grammar.toString()).get();
+		assertThat(loaded.toString()).isEqualTo(grammar.optimize().toString());
+		assertThat(loaded.parse(text).toString()).isEqualTo(grammar.parse(text).toString());
+	}
+
+	private static Path tempFile(String content) throws IOException {
+		final Path file = Files.createTempFile("javaslang", ".grammar");
+		file.toFile().deleteOnExit();
+		return Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static Path tempDirectory() throws IOException {
+		final Path directory = Files.createTempDirectory("javaslang");
+		directory.toFile().deleteOnExit();
+		return directory;
+	}
+
+	private static Path[] cacheFiles(Path cacheDirectory) throws IOException {
+		try (Stream<Path> files = Files.list(cacheDirectory)) {
+			return files.toArray(Path[]::new);
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+
+import javaslang.AssertionsExtensions;
+import javaslang.Requirements.UnsatisfiedRequirementException;
+import javaslang.parser.Grammar.Memoization;
+import javaslang.parser.GrammarTest.AntlrIssue118Grammar;
+import javaslang.parser.GrammarTest.BacktrackingGrammar;
+import javaslang.parser.GrammarTest.GroupGrammar;
+import javaslang.parser.GrammarTest.JSONGrammar;
+import javaslang.parser.GrammarTest.RichStringGrammar;
+import javaslang.parser.LeftRecursionTest.ExpressionGrammar;
+import javaslang.parser.Parser.Rule;
+
+import org.junit.Test;
+
+public class GrammarRecognizerTest {
+
+	// -- matches
+
+	@Test
+	public void shouldMatchJSON() {
+		assertMatchesLikeParse(new JSONGrammar(), "{ \"a\" : [ 1, 2, 3 ], \"b\" : { \"c\" : true } }");
+	}
+
+	@Test
+	public void shouldNotMatchInvalidJSON() {
+		assertMatchesLikeParse(new JSONGrammar(), "{ \"a\" : [ 1, 2, 3 }");
+	}
+
+	@Test
+	public void shouldMatchGroupsWithWhitespace() {
+		assertMatchesLikeParse(new GroupGrammar(), " ( abc ) ( def ghi ) ");
+	}
+
+	@Test
+	public void shouldNotMatchGroupsWithUnexpectedChar() {
+		assertMatchesLikeParse(new GroupGrammar(), "( abc ) ( def 1 )");
+	}
+
+	@Test
+	public void shouldMatchRichStringWithoutEatingUpWhitespace() {
+		assertMatchesLikeParse(new RichStringGrammar(), "\"\"\" test \"\"\"");
+	}
+
+	@Test
+	public void shouldMatchPrefixLikeAntlrIssue118() {
+		assertMatchesLikeParse(new AntlrIssue118Grammar(), "x 1");
+	}
+
+	@Test
+	public void shouldMatchOperatorsLikeParse() {
+		final Grammar grammar = Grammar.of("Operators",
+				Grammar.rule("root", Grammar.seq(Grammar.ref(ParserTest::arithmetic), Grammar.EOF)));
+		assertMatchesLikeParse(grammar, "1 + 2 * 3 ^ 4 ^ 5 - 6");
+		assertMatchesLikeParse(grammar, "1 + 2 *");
+	}
+
+	@Test
+	public void shouldMatchLiteralAlternativesLikeParse() {
+		final Grammar grammar = Grammar.of("Literals", Grammar.rule("root",
+				Grammar.seq(Grammar._1_n(Grammar.subrule(Grammar.str("in"), Grammar.str("int"), Grammar.str("i"))),
+						Grammar.EOF)));
+		assertMatchesLikeParse(grammar, "inti");
+		assertMatchesLikeParse(grammar, "int");
+		assertMatchesLikeParse(new LiteralTrieTest.KeywordGrammar(), "set 1; settle; select 2; sel");
+	}
+
+	@Test
+	public void shouldMatchNegations() {
+		final Grammar grammar = Grammar.of("Negation",
+				Grammar.rule("root", Grammar.seq(Grammar._1_n(Grammar.not(Grammar.charset("0-9"))), Grammar.EOF)));
+		assertMatchesLikeParse(grammar, "abc");
+		assertMatchesLikeParse(grammar, "ab1");
+	}
+
+	@Test
+	public void shouldMatchCutsLikeParse() {
+		assertMatchesLikeParse(new GrammarTest.CutGrammar(), "let a = 1; b; let c = 2;");
+		assertMatchesLikeParse(new GrammarTest.CutGrammar(), "let a = 1; let;");
+		assertMatchesLikeParse(Grammar.of("Cut", Grammar.rule("root", Grammar.seq(Grammar._0_n(Grammar.str("a"),
+				Grammar.CUT, Grammar.str("b")), Grammar.str("a"), Grammar.EOF))), "aba");
+	}
+
+	@Test
+	public void shouldMatchDeeplyNestedBacktrackingInputWhenMemoizing() {
+		final GrammarRecognizer grammar = new BacktrackingGrammar(Memoization.ALL_RULES).recognizer();
+		assertThat(grammar.matches(BacktrackingGrammar.nested(100))).isTrue();
+		assertThat(grammar.matches(BacktrackingGrammar.nested(100) + "!")).isTrue();
+		assertThat(grammar.matches("(" + BacktrackingGrammar.nested(100))).isFalse();
+	}
+
+	@Test
+	public void shouldMatchMemoizedInputBeyondOneMemoPage() {
+		final GrammarRecognizer backtracking = new BacktrackingGrammar(Memoization.ALL_RULES).recognizer();
+		assertThat(backtracking.matches(BacktrackingGrammar.nested(500))).isTrue();
+		assertThat(backtracking.matches("(" + BacktrackingGrammar.nested(500))).isFalse();
+		final GrammarRecognizer expression = new ExpressionGrammar(Memoization.ALL_RULES).recognizer();
+		final String sum = String.join("+", Collections.nCopies(1000, "1*2"));
+		assertThat(expression.matches(sum)).isTrue();
+		assertThat(expression.matches(sum + "+")).isFalse();
+	}
+
+	// -- recognizer
+
+	@Test
+	public void shouldStringifyLikeSourceGrammar() {
+		assertThat(new JSONGrammar().recognizer().toString()).isEqualTo(new JSONGrammar().toString());
+	}
+
+	@Test
+	public void shouldNotRecognizeLexicalRuleReferencingParserRule() {
+		final Rule parserRule = Grammar.rule("parserRule", Grammar.ANY);
+		final Rule lexerRule = Grammar.rule("LexerRule", Grammar.ref(() -> parserRule));
+		AssertionsExtensions.assertThat(() -> Grammar.of("Invalid", lexerRule).recognizer()).isThrowing(
+				UnsatisfiedRequirementException.class, "parser rule 'parserRule' is referenced by a lexical rule");
+	}
+
+	// -- helpers
+
+	private static void assertMatchesLikeParse(Grammar grammar, String text) {
+		assertThat(grammar.recognizer().matches(text)).isEqualTo(grammar.parse(text).isSuccess());
+	}
+}
@@ -8,12 +8,28 @@ package javaslang.parser;
 import static javaslang.IO.UTF8;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javaslang.AssertionsExtensions;
 import javaslang.IO;
+import javaslang.Requirements.UnsatisfiedRequirementException;
+import javaslang.collection.Node;
 import javaslang.collection.Tree;
+import javaslang.collection.Tuple.Tuple2;
 import javaslang.monad.Either;
+import javaslang.monad.Right;
 import javaslang.monad.Try;
+import javaslang.parser.Grammar.Memoization;
 import javaslang.parser.Parser.Charset;
 import javaslang.parser.Parser.ParseResult;
 import javaslang.parser.Parser.Quantifier;
@@ -49,7 +65,8 @@ public class GrammarTest {
 	public void shouldParseWhitespace() {
 		final Parser WS = new Rule("WS", new Quantifier(new Charset(" \t\r\n"), 0, Quantifier.UNBOUNDED));
 		final Either<Integer, ParseResult> actual = WS.parse("  ", 0, true);
-		final Either<Integer, ParseResult> expected = Parser.token("  ", 0, 2, false);
+		final Either<Integer, ParseResult> expected = new Right<>(new ParseResult(Arrays.asList(new Node<>(new Token(
+				null, "  ", 0, 2))), 0, 2, false));
 		assertThat(actual).isEqualTo(expected);
 	}
 
@@ -174,6 +191,503 @@ public class GrammarTest {
 		assertThat(actual).isEqualTo(expected);
 	}
 
+	// -- whitespace
+
+	@Test
+	public void shouldSkipConfiguredWhitespaceAndComments() {
+		final String expected = new SimpleSequenceGrammar().parse("abc").get().toString();
+		final String actual = new CommentedSequenceGrammar().parse("a /* x */ b // y\n c // z").get().toString();
+		assertThat(actual).isEqualTo(expected);
+	}
+
+	@Test
+	public void shouldNotSkipDefaultWhitespaceIfNotConfigured() {
+		assertThat(new CommentedSequenceGrammar().parse("a\tb c").isFailure()).isTrue();
+	}
+
+	@Test
+	public void shouldRecognizeConfiguredWhitespace() {
+		assertThat(new CommentedSequenceGrammar().recognizer().matches("/**/a// x\nb c")).isTrue();
+	}
+
+	// -- detailed parse failure
+
+	@Test
+	public void shouldParseEitherLikeParseOnSuccess() {
+		final Grammar grammar = new JSONGrammar();
+		final String text = "{ \"a\" : [ 1, 2, true ] }";
+		assertThat(grammar.parseEither(text).right().get()).isEqualTo(grammar.parse(text).get());
+	}
+
+	@Test
+	public void shouldReportFarthestFailureWithExpectedTerminals() {
+		final ParseFailure failure = new CutGrammar().parseEither("let a = 1; let b = ; c;").left().get();
+		assertThat(failure.getIndex()).isEqualTo(19);
+		assertThat(failure.getExpected()).containsExactly("NUMBER");
+		assertThat(failure.getRuleStack()).containsExactly("records", "record");
+		assertThat(failure.toString()).isEqualTo("cannot parse input at (1, 20) within rule 'record', expected NUMBER");
+	}
+
+	@Test
+	public void shouldReportTerminalsOfAllAlternativesAtFailure() {
+		final ParseFailure failure = new JSONGrammar().parseEither("{ \"a\" : [ 1, 2 }").left().get();
+		assertThat(failure.getLineAndColumn().toString()).isEqualTo("(1, 16)");
+		assertThat(failure.getExpected()).containsExactly("','", "']'");
+		assertThat(failure.getRuleStack()).containsExactly("json", "object", "json", "array");
+	}
+
+	@Test
+	public void shouldOmitRulesWhichStartAtFailure() {
+		final ParseFailure failure = new JSONGrammar().parseEither("[ 1, ]").left().get();
+		assertThat(failure.getIndex()).isEqualTo(5);
+		assertThat(failure.getExpected()).contains("'{'", "'['", "NUMBER");
+		assertThat(failure.getRuleStack()).containsExactly("json", "array");
+	}
+
+	@Test
+	public void shouldReportExpectedTerminalToParseListener() {
+		final List<String> expected = new ArrayList<>();
+		new SimpleSequenceGrammar().parse("abd", new ParseListener() {
+			@Override
+			public void failure(int index, String terminal) {
+				expected.add(terminal);
+			}
+		});
+		assertThat(expected).containsExactly("'c'");
+	}
+
+	@Test
+	public void shouldThrowWhenParseEitherTextIsNull() {
+		AssertionsExtensions.assertThat(() -> new JSONGrammar().parseEither(null)).isThrowing(
+				UnsatisfiedRequirementException.class, "text is null");
+	}
+
+	// -- parse listener
+
+	@Test
+	public void shouldNotifyParseListenerOfRulesAndTokens() {
+		final RecordingListener listener = new RecordingListener();
+		new SimpleSequenceGrammar().parse("abc", listener);
+		assertThat(listener.events).containsExactly("enter startRule 0", "token a", "token b", "token c",
+				"exit startRule true 3");
+	}
+
+	@Test
+	public void shouldNotifyParseListenerOfFailure() {
+		final RecordingListener listener = new RecordingListener();
+		new SimpleSequenceGrammar().parse("abd", listener);
+		assertThat(listener.events).containsExactly("enter startRule 0", "token a", "token b", "failure 2", "failure 2",
+				"exit startRule false 2");
+	}
+
+	@Test
+	public void shouldTraceParseEvents() {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new SimpleSequenceGrammar().parse("abc", ParseListener.trace(new PrintStream(out)));
+		assertThat(out.toString()).contains("enter startRule at 0", "token(0, 1): a", "exit startRule matched at 3");
+	}
+
+	@Test
+	public void shouldThrowWhenParseListenerIsNull() {
+		AssertionsExtensions.assertThat(() -> new SimpleSequenceGrammar().parse("abc", null)).isThrowing(
+				UnsatisfiedRequirementException.class, "listener is null");
+	}
+
+	// -- streaming input
+
+	@Test
+	public void shouldParseEachRecordOfReader() {
+		final List<String> records = new ArrayList<>();
+		final Try<Integer> count = new JSONGrammar().parseEach(new StringReader(" {\"a\":1} [1, 2]\n{\"b\":true} "),
+				cst -> records.add(cst.getValue().getValue().trim()));
+		assertThat(count.get()).isEqualTo(3);
+		assertThat(records).containsExactly("{\"a\":1}", "[1, 2]", "{\"b\":true}");
+	}
+
+	@Test
+	public void shouldParseEachRecordLargerThanReadChunk() {
+		final String numbers = Stream.iterate(0, i -> i + 1).limit(5000).map(String::valueOf)
+				.collect(Collectors.joining(","));
+		final List<Integer> lengths = new ArrayList<>();
+		final Try<Integer> count = new JSONGrammar().parseEach(new StringReader("[" + numbers + "] [0]"),
+				cst -> lengths.add(cst.getValue().getValue().trim().length()));
+		assertThat(count.get()).isEqualTo(2);
+		assertThat(lengths).containsExactly(numbers.length() + 2, 3);
+	}
+
+	@Test
+	public void shouldComputeLineAndColumnOfTokensOfLaterRecords() {
+		final List<String> positions = new ArrayList<>();
+		final Try<Integer> count = new JSONGrammar().parseEach(new StringReader("[1]\r\n[2,\n 3] [4]"), cst -> {
+			final Token token = cst.getValue();
+			positions.add(token.getStartLineAndColumn() + ".." + token.getEndLineAndColumn());
+		});
+		assertThat(count.get()).isEqualTo(3);
+		assertThat(positions).containsExactly("(1, 1)..(2, 1)", "(2, 1)..(3, 5)", "(3, 5)..(3, 8)");
+	}
+
+	@Test
+	public void shouldParseNoRecordsOfEmptyReader() {
+		assertThat(new JSONGrammar().parseEach(new StringReader(" \n"), cst -> {
+		}).get()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldReportLineAndColumnOfInvalidRecord() {
+		final Try<Integer> count = new JSONGrammar().parseEach(new StringReader("[1]\n[2]\n[3,]"), cst -> {
+		});
+		assertThat(count.failed().get().getMessage()).isEqualTo("cannot parse input at (3, 3)");
+	}
+
+	@Test
+	public void shouldFailOnEmptyRecord() {
+		final Grammar grammar = Grammar.of("test", Grammar.rule("root", Grammar._0_n(Grammar.str("a"))));
+		final Try<Integer> count = grammar.parseEach(new StringReader("aa b"), cst -> {
+		});
+		assertThat(count.failed().get().getMessage()).isEqualTo("empty record at (1, 4)");
+	}
+
+	@Test
+	public void shouldFailOnReadError() {
+		final Reader reader = new Reader() {
+			@Override
+			public int read(char[] buffer, int offset, int length) throws IOException {
+				throw new IOException("read error");
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+		final Try<Integer> count = new JSONGrammar().parseEach(reader, cst -> {
+		});
+		assertThat(count.failed().get()).isInstanceOf(IOException.class).hasMessage("read error");
+	}
+
+	// -- incremental reparse
+
+	@Test
+	public void shouldReparseEditWithinNestedRule() {
+		assertReparse(new JSONGrammar(), "[[1, 2], [3, 4], [5, 6]]", 13, 1, "44");
+	}
+
+	@Test
+	public void shouldReparseInsertion() {
+		assertReparse(new JSONGrammar(), "[[1, 2], [3, 4], [5, 6]]", 14, 0, ", 7");
+	}
+
+	@Test
+	public void shouldReparseDeletion() {
+		assertReparse(new JSONGrammar(), "[[1, 2], [3, 4], [5, 6]]", 7, 8, "");
+	}
+
+	@Test
+	public void shouldReparseEditAtStartOfText() {
+		assertReparse(new JSONGrammar(), "[1, 2]", 0, 0, "  ");
+	}
+
+	@Test
+	public void shouldReparseEditAtEndOfText() {
+		assertReparse(new JSONGrammar(), "{\"a\":[1]}", 9, 0, " ");
+	}
+
+	@Test
+	public void shouldReparseEditWhichChangesTheLookaheadOfAPrecedingRule() {
+		final Grammar grammar = Grammar.of("test", Grammar.rule("root", Grammar.seq(Grammar._1_n(Grammar.ref(
+				() -> Grammar.rule("item", Grammar.str("ab"), Grammar.str("a"), Grammar.str("b")))), Grammar.EOF)));
+		assertReparse(grammar, "aa", 1, 1, "b");
+	}
+
+	@Test
+	public void shouldNotReuseNestedOperatorExpressionsAsRuleApplications() {
+		final Grammar grammar = Grammar.of("test", Grammar.rule("root", Grammar.seq(Grammar._1_n(Grammar.ref(
+				ParserTest::arithmetic), Grammar.str(";")), Grammar.EOF)));
+		assertReparse(grammar, "1+2*3-4;", 1, 1, ";");
+	}
+
+	@Test
+	public void shouldReparseRepeatedly() {
+		final JSONGrammar grammar = new JSONGrammar();
+		final Node<Token> tree = grammar.parse("[1, 2]").get().asNode();
+		final Node<Token> reparsed = grammar.reparse(grammar.reparse(tree, 4, 1, "3").get(), 1, 1, "[0]").get();
+		assertThat(reparsed).isEqualTo(grammar.parse("[[0], 3]").get().asNode());
+	}
+
+	@Test
+	public void shouldNotApplyRulesOutsideOfEditWhenReparsing() {
+		final JSONGrammar grammar = new JSONGrammar();
+		final Node<Token> tree = grammar.parse("[[1, 2], [3, 4], [5, 6]]").get().asNode();
+		final RecordingListener listener = new RecordingListener();
+		final ReuseTable reusable = new ReuseTable(tree, 13, 1, 2);
+		final ParseContext context = new ParseContext(grammar, Source.of("[[1, 2], [3, 44], [5, 6]]"), listener,
+				reusable);
+		assertThat(grammar.getStartRule().parse(context, 0, false)).isEqualTo(25);
+		assertThat(listener.events).contains("token 4").doesNotContain("token 1", "token 2", "token 5", "token 6");
+	}
+
+	@Test
+	public void shouldFailToReparseInvalidEdit() {
+		final JSONGrammar grammar = new JSONGrammar();
+		final Node<Token> tree = grammar.parse("[1, 2]").get().asNode();
+		final Try<Node<Token>> reparsed = grammar.reparse(tree, 4, 1, "");
+		assertThat(reparsed.failed().get().getMessage()).isEqualTo("cannot parse input at (1, 3)");
+		assertThat(tree).isEqualTo(grammar.parse("[1, 2]").get().asNode());
+		assertThat(grammar.reparse(tree, 4, 1, "3").get()).isEqualTo(grammar.parse("[1, 3]").get().asNode());
+	}
+
+	@Test
+	public void shouldThrowWhenEditExceedsText() {
+		final JSONGrammar grammar = new JSONGrammar();
+		final Node<Token> tree = grammar.parse("[1]").get().asNode();
+		AssertionsExtensions.assertThat(() -> grammar.reparse(tree, 2, 2, "")).isThrowing(
+				UnsatisfiedRequirementException.class, "(offset + removedLength) exceeds text: (2 + 2)");
+	}
+
+	@Test
+	public void shouldReuseSubtreesOutsideOfEditAsTheyAre() {
+		final JSONGrammar grammar = new JSONGrammar();
+		final Node<Token> tree = grammar.parse("[[1, 2], [3, 4], [5, 6]]").get().asNode();
+		final Node<Token> before = element(tree, 0);
+		final Node<Token> after = element(tree, 2);
+		final Node<Token> reparsed = grammar.reparse(tree, 13, 1, "44").get();
+		assertThat(element(reparsed, 0)).isSameAs(before);
+		assertThat(element(reparsed, 2)).isSameAs(after);
+		assertThat(element(reparsed, 1)).isNotSameAs(element(tree, 1));
+		assertThat(after.getValue().getStartIndex()).isEqualTo(18);
+		assertThat(after.getValue().getValue()).isEqualTo("[5, 6]");
+		assertThat(after.getValue().getStartLineAndColumn()).isEqualTo(new Tuple2<>(1, 19));
+		assertThat(reparsed).isEqualTo(grammar.parse("[[1, 2], [3, 44], [5, 6]]").get().asNode());
+	}
+
+	@Test
+	public void shouldShiftReusedSubtreesByAllEdits() {
+		final JSONGrammar grammar = new JSONGrammar();
+		final Node<Token> tree = grammar.parse("[[1], [2], [3], [4]]").get().asNode();
+		final Node<Token> last = element(tree, 3);
+		Node<Token> reparsed = grammar.reparse(tree, 2, 0, "0, ").get();
+		reparsed = grammar.reparse(reparsed, 9, 5, "").get();
+		reparsed = grammar.reparse(reparsed, 10, 1, "33").get();
+		assertThat(element(reparsed, 2)).isSameAs(last);
+		assertThat(last.getValue().getStartIndex()).isEqualTo(15);
+		assertThat(last.getValue().getValue()).isEqualTo("[4]");
+		assertThat(reparsed).isEqualTo(grammar.parse("[[0, 1], [33], [4]]").get().asNode());
+	}
+
+	@Test
+	public void shouldThrowWhenReparsingConsumedTree() {
+		final JSONGrammar grammar = new JSONGrammar();
+		final Node<Token> tree = grammar.parse("[1]").get().asNode();
+		grammar.reparse(tree, 1, 1, "2").get();
+		AssertionsExtensions.assertThat(() -> grammar.reparse(tree, 1, 1, "3")).isThrowing(
+				UnsatisfiedRequirementException.class, "tree was already reparsed");
+	}
+
+	// the value nodes of the elements of a JSON array
+	private static Node<Token> element(Node<Token> json, int index) {
+		return json.getChildren().get(0).getChildren().get(2 * index + 1);
+	}
+
+	// -- parallel parse
+
+	@Test
+	public void shouldParseRecordsInParallel() {
+		final String text = "{\"a\":1}\n[1, 2]\n\n[[3]]\n";
+		final JSONLinesGrammar grammar = new JSONLinesGrammar();
+		assertThat(grammar.parseParallel(text).get()).isEqualTo(grammar.parse(text).get());
+	}
+
+	@Test
+	public void shouldParseRecordsInParallelAtCallerProvidedBoundaries() {
+		final String text = "[1] [2] [3] [4]";
+		final JSONLinesGrammar grammar = new JSONLinesGrammar();
+		assertThat(grammar.parseParallel(text, new int[] { 4, 8, 12 }).get()).isEqualTo(grammar.parse(text).get());
+	}
+
+	@Test
+	public void shouldReportSameFailureWhenParsingInParallel() {
+		final String text = "[1]\n[2,\n[3]\n";
+		final JSONLinesGrammar grammar = new JSONLinesGrammar();
+		assertThat(grammar.parseParallel(text).failed().get().getMessage()).isEqualTo(
+				grammar.parse(text).failed().get().getMessage());
+	}
+
+	@Test
+	public void shouldParseSequentiallyWithoutRecordDelimiter() {
+		assertThat(new JSONGrammar().parseParallel("[1, 2]").get()).isEqualTo(new JSONGrammar().parse("[1, 2]").get());
+	}
+
+	@Test
+	public void shouldThrowWhenBoundariesAreNotAscending() {
+		AssertionsExtensions.assertThat(() -> new JSONLinesGrammar().parseParallel("[1] [2]", new int[] { 4, 0 }))
+				.isThrowing(UnsatisfiedRequirementException.class, "boundaries are not ascending");
+	}
+
+	private static void assertReparse(Grammar grammar, String text, int offset, int removedLength, String inserted) {
+		final String editedText = text.substring(0, offset) + inserted + text.substring(offset + removedLength);
+		final Node<Token> tree = grammar.parse(text).get().asNode();
+		final Node<Token> reparsed = grammar.reparse(tree, offset, removedLength, inserted).get();
+		final Node<Token> parsed = grammar.parse(editedText).get().asNode();
+		assertThat(reparsed).isEqualTo(parsed);
+		assertThat(reparsed.toLispString()).isEqualTo(parsed.toLispString());
+	}
+
+	// -- memoization
+
+	@Test
+	public void shouldParseJSONEquallyWithAndWithoutMemoization() {
+		final String json = "{ \"a\" : [ 1, 2, 3 ], \"b\" : { \"c\" : true } }";
+		final Grammar packratGrammar = new JSONGrammar() {
+			@Override
+			protected Memoization getMemoization() {
+				return Memoization.ALL_RULES;
+			}
+		};
+		final String expected = new JSONGrammar().parse(json).get().toString();
+		assertThat(packratGrammar.parse(json).get().toString()).isEqualTo(expected);
+	}
+
+	@Test
+	public void shouldParseBacktrackingGrammarEquallyWithAndWithoutMemoization() {
+		final String input = BacktrackingGrammar.nested(3);
+		final String expected = new BacktrackingGrammar(Memoization.NONE).parse(input).get().toString();
+		assertThat(new BacktrackingGrammar(Memoization.ALL_RULES).parse(input).get().toString()).isEqualTo(expected);
+		assertThat(new BacktrackingGrammar(Memoization.MARKED_RULES).parse(input).get().toString()).isEqualTo(
+				expected);
+	}
+
+	@Test
+	public void shouldParseDeeplyNestedBacktrackingInputInLinearTimeWhenMemoizingAllRules() {
+		final String input = BacktrackingGrammar.nested(40);
+		assertThat(new BacktrackingGrammar(Memoization.ALL_RULES).parse(input).isSuccess()).isTrue();
+	}
+
+	@Test
+	public void shouldParseDeeplyNestedBacktrackingInputInLinearTimeWhenMemoizingMarkedRules() {
+		final String input = BacktrackingGrammar.nested(40);
+		assertThat(new BacktrackingGrammar(Memoization.MARKED_RULES).parse(input).isSuccess()).isTrue();
+	}
+
+	@Test
+	public void shouldCreateMemoizedRule() {
+		final Rule rule = Grammar.memoized("rule", Grammar.EOF);
+		assertThat(rule.memoized).isTrue();
+		assertThat(rule.toString()).isEqualTo("rule : EOF ;");
+	}
+
+	// -- cut
+
+	@Test
+	public void shouldNotTryRemainingAlternativesAfterCut() {
+		final Grammar grammar = Grammar.of("Cut", CutGrammar.record());
+		assertThat(grammar.parse("let;").failed().get().getMessage()).isEqualTo("cannot parse input at (1, 4)");
+		assertThat(grammar.parse("set;").isSuccess()).isTrue();
+	}
+
+	@Test
+	public void shouldCommitInnermostSubruleOnly() {
+		final Rule rule = Grammar.rule("root", Grammar.seq(Grammar.subrule(Grammar.seq(Grammar.str("a"), Grammar.CUT,
+				Grammar.str("b")), Grammar.str("a")), Grammar.str("c")),
+				Grammar.seq(Grammar.str("a"), Grammar.str("c")));
+		assertThat(rule.toString()).isEqualTo("root : ( 'a' ^ 'b' | 'a' ) 'c'\n     | 'a' 'c'\n     ;");
+		assertThat(Grammar.of("Cut", rule).parse("ac").get().toString()).isEqualTo("Tree(root 'a' 'c')");
+	}
+
+	@Test
+	public void shouldFailQuantifierWhenIterationFailsAfterCut() {
+		final Rule rule = Grammar.rule("root", Grammar.seq(Grammar._0_n(Grammar.str("a"), Grammar.CUT,
+				Grammar.str("b")), Grammar.str("a"), Grammar.EOF));
+		assertThat(Grammar.of("Cut", rule).parse("aba").failed().get().getMessage()).isEqualTo(
+				"cannot parse input at (1, 4)");
+	}
+
+	@Test
+	public void shouldParseRecordsWithCuts() {
+		final String expected = "Tree(records (record 'let' 'a' '=' '1' ';') (record 'b' ';') "
+				+ "(record 'let' 'c' '=' '2' ';') <EOF>)";
+		assertThat(new CutGrammar().parse("let a = 1; b; let c = 2;").get().toString()).isEqualTo(expected);
+	}
+
+	@Test
+	public void shouldEvictMemoizedResultsBeforeCut() {
+		final StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			text.append("let a = ").append(i).append("; b; ");
+		}
+		final Grammar grammar = new CutGrammar();
+		final ParseContext context = new ParseContext(grammar, Source.of(text), null);
+		assertThat(grammar.getStartRule().parse(context, 0, false)).isEqualTo(text.length());
+		assertThat(context.memoSize()).isLessThan(3);
+	}
+
+	// -- error recovery
+
+	@Test
+	public void shouldParseValidTextLikeWithoutRecovery() {
+		final List<SyntaxError> errors = new ArrayList<>();
+		final Grammar grammar = new CutGrammar();
+		final String text = "let a = 1; b; let c = 2;";
+		assertThat(grammar.parseWithRecovery(text, 10, errors::add)).isEqualTo(grammar.parse(text));
+		assertThat(errors).isEmpty();
+	}
+
+	@Test
+	public void shouldRecoverErrorsOfRecords() {
+		final List<SyntaxError> errors = new ArrayList<>();
+		final Tree<Token> tree = new CutGrammar().parseWithRecovery("let a = 1; let b = ; c; let d = x; e;", 10,
+				errors::add).get();
+		assertThat(tree.toString()).isEqualTo("Tree(records (record 'let' 'a' '=' '1' ';') (record <error>) "
+				+ "(record 'c' ';') (record <error>) (record 'x' ';') (record 'e' ';') <EOF>)");
+		assertThat(errors.toString()).isEqualTo("[cannot parse input at (1, 20) within rule 'record', "
+				+ "cannot parse input at (1, 33) within rule 'record']");
+	}
+
+	@Test
+	public void shouldSpanTextUpToSynchronizationTokenByErrorNode() {
+		final List<SyntaxError> errors = new ArrayList<>();
+		final Tree<Token> tree = new CutGrammar().parseWithRecovery("let a = 1; let b = ; c;", 10, errors::add)
+				.get();
+		final Token error = tree.getChildren().get(1).getChildren().get(0).getValue();
+		assertThat(error.getId()).isEqualTo(Token.ERROR);
+		assertThat(error.getValue()).isEqualTo("let b = ; ");
+		assertThat(errors.get(0).getIndex()).isEqualTo(19);
+		assertThat(errors.get(0).getResumeIndex()).isEqualTo(21);
+	}
+
+	@Test
+	public void shouldRecoverAtDeclaredSynchronizationTokens() {
+		final List<SyntaxError> errors = new ArrayList<>();
+		final Tree<Token> tree = new StatementGrammar().parseWithRecovery("set x = 1 d; drop x; set y = 2;", 10,
+				errors::add).get();
+		assertThat(tree.toString()).isEqualTo("Tree(statements (statement <error>) (statement 'drop' 'x' ';') "
+				+ "(statement 'set' 'y' '=' '2' ';') <EOF>)");
+		assertThat(errors.toString()).isEqualTo("[cannot parse input at (1, 11) within rule 'statement']");
+	}
+
+	@Test
+	public void shouldNotRecoverWithinOneOfSeveralViableAlternatives() {
+		final List<SyntaxError> errors = new ArrayList<>();
+		final Tree<Token> tree = new StatementGrammar().parseWithRecovery("drop x; f(); x = ;", 10, errors::add)
+				.get();
+		assertThat(tree.toString()).isEqualTo("Tree(statements (statement 'drop' 'x' ';') "
+				+ "(statement (call 'f' '(' ')' ';')) (statement <error>) <EOF>)");
+		assertThat(errors.toString()).isEqualTo("[cannot parse input at (1, 18) within rule 'statement']");
+	}
+
+	@Test
+	public void shouldFailWhenTextContainsMoreThanMaxErrors() {
+		final List<SyntaxError> errors = new ArrayList<>();
+		final Try<Tree<Token>> tree = new CutGrammar().parseWithRecovery("let a = 1; let b = ; c; let d = ;", 1,
+				errors::add);
+		assertThat(tree.failed().get().getMessage()).isEqualTo("cannot parse input at (1, 25)");
+		assertThat(errors).hasSize(1);
+	}
+
+	@Test
+	public void shouldThrowWhenMaxErrorsIsNegative() {
+		AssertionsExtensions.assertThat(() -> new CutGrammar().parseWithRecovery("", -1, error -> {})).isThrowing(
+				UnsatisfiedRequirementException.class, "maxErrors < 0");
+	}
+
 	// -- direct recursion
 
 	@Test
@@ -281,6 +795,174 @@ public class GrammarTest {
 		}
 	}
 
+	static class RecordingListener implements ParseListener {
+
+		final List<String> events = new ArrayList<>();
+
+		@Override
+		public void enterRule(String rule, int index) {
+			events.add("enter " + rule + " " + index);
+		}
+
+		@Override
+		public void exitRule(String rule, boolean matched, int index) {
+			events.add("exit " + rule + " " + matched + " " + index);
+		}
+
+		@Override
+		public void token(CharSequence text, int index, int length) {
+			events.add("token " + text.subSequence(index, index + length));
+		}
+
+		@Override
+		public void failure(int index) {
+			events.add("failure " + index);
+		}
+	}
+
+	// startRule : 'a' 'b' 'c' with whitespace ' ' | '\n' | line comment | block comment
+	static class CommentedSequenceGrammar extends SimpleSequenceGrammar {
+
+		@Override
+		protected Whitespace getWhitespace() {
+			return Whitespace.of(" \n").withLineComment("//").withBlockComment("/*", "*/");
+		}
+	}
+
+	// -- Example grammar: Exponential backtracking without memoization
+
+	/**
+	 * <pre>
+	 * <code>
+	 * s : p '!' | p '?'
+	 * 
+	 * p : '(' s ')' | 'x'
+	 * </code>
+	 * </pre>
+	 */
+	static class BacktrackingGrammar extends Grammar {
+
+		final Memoization memoization;
+
+		BacktrackingGrammar(Memoization memoization) {
+			super("Backtracking");
+			this.memoization = memoization;
+		}
+
+		// ( ... ( x? ) ? ... )?
+		static String nested(int depth) {
+			final StringBuilder builder = new StringBuilder();
+			for (int i = 0; i < depth; i++) {
+				builder.append('(');
+			}
+			builder.append("x?");
+			for (int i = 0; i < depth; i++) {
+				builder.append(")?");
+			}
+			return builder.toString();
+		}
+
+		@Override
+		protected Rule getStartRule() {
+			return s();
+		}
+
+		@Override
+		protected Memoization getMemoization() {
+			return memoization;
+		}
+
+		// s : p '!' | p '?'
+		Rule s() {
+			return rule("s", seq(ref(this::p), str("!")), seq(ref(this::p), str("?")));
+		}
+
+		// p : '(' s ')' | 'x'
+		Rule p() {
+			return memoized("p", seq(str("("), ref(this::s), str(")")), str("x"));
+		}
+	}
+
+	// -- Example grammar: Records with cuts
+
+	/**
+	 * <pre>
+	 * <code>
+	 * records : ( record ^ )* EOF
+	 * 
+	 * record : 'let' ^ ID '=' NUMBER ';' | ID ';'
+	 * </code>
+	 * </pre>
+	 */
+	static class CutGrammar extends Grammar {
+
+		CutGrammar() {
+			super("Cut");
+		}
+
+		@Override
+		protected Rule getStartRule() {
+			return rule("records", seq(_0_n(ref(CutGrammar::record), CUT), EOF));
+		}
+
+		@Override
+		protected Memoization getMemoization() {
+			return Memoization.ALL_RULES;
+		}
+
+		// record : 'let' ^ ID '=' NUMBER ';' | ID ';'
+		static Rule record() {
+			return rule("record", seq(str("let"), CUT, ref(CutGrammar::ID), str("="), ref(CutGrammar::NUMBER),
+					str(";")), seq(ref(CutGrammar::ID), str(";")));
+		}
+
+		// ID : [a-z]+
+		static Rule ID() {
+			return rule("ID", _1_n(charset("a-z")));
+		}
+
+		// NUMBER : [0-9]+
+		static Rule NUMBER() {
+			return rule("NUMBER", _1_n(charset("0-9")));
+		}
+	}
+
+	// -- Example grammar: statements, which synchronize at keywords after a syntax error
+
+	static class StatementGrammar extends Grammar {
+
+		StatementGrammar() {
+			super("Statement");
+		}
+
+		@Override
+		protected Rule getStartRule() {
+			return rule("statements", seq(_0_n(ref(StatementGrammar::statement)), EOF));
+		}
+
+		@Override
+		protected String[] getSynchronizationTokens(String rule) {
+			return "statement".equals(rule) ? new String[] { "set", "drop" } : null;
+		}
+
+		// statement : 'set' ID '=' NUMBER ';' | 'drop' ID ';' | assignment | call
+		static Rule statement() {
+			return rule("statement", seq(str("set"), ref(CutGrammar::ID), str("="), ref(CutGrammar::NUMBER),
+					str(";")), seq(str("drop"), ref(CutGrammar::ID), str(";")), ref(StatementGrammar::assignment),
+					ref(StatementGrammar::call));
+		}
+
+		// assignment : ID '=' NUMBER ';'
+		static Rule assignment() {
+			return rule("assignment", seq(ref(CutGrammar::ID), str("="), ref(CutGrammar::NUMBER), str(";")));
+		}
+
+		// call : ID '(' ')' ';'
+		static Rule call() {
+			return rule("call", seq(ref(CutGrammar::ID), str("("), str(")"), str(";")));
+		}
+	}
+
 	// -- Example grammar: JSON
 
 	static class JSONGrammar extends Grammar {
@@ -340,6 +1022,25 @@ public class GrammarTest {
 		}
 	}
 
+	// -- Example grammar: JSON lines, i.e. one JSON value per line
+
+	static class JSONLinesGrammar extends Grammar {
+
+		JSONLinesGrammar() {
+			super("JSONLines");
+		}
+
+		@Override
+		protected Rule getStartRule() {
+			return rule("jsonLines", seq(_0_n(ref(new JSONGrammar()::json)), EOF));
+		}
+
+		@Override
+		protected String getRecordDelimiter() {
+			return "\n";
+		}
+	}
+
 	/**
 	 * Grammar for groups of words.
 	 * 
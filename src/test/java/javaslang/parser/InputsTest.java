@@ -0,0 +1,74 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import javaslang.AssertionsExtensions;
+import javaslang.Requirements.UnsatisfiedRequirementException;
+import javaslang.parser.GrammarTest.JSONGrammar;
+
+import org.junit.Test;
+
+public class InputsTest {
+
+	@Test
+	public void shouldThrowWhenFileIsNull() {
+		AssertionsExtensions.assertThat(() -> Inputs.map(null)).isThrowing(UnsatisfiedRequirementException.class,
+				"file is null");
+	}
+
+	@Test
+	public void shouldFailWhenFileDoesNotExist() {
+		assertThat(Inputs.map(Paths.get("does-not-exist.json")).failed().get()).isInstanceOf(
+				NoSuchFileException.class);
+	}
+
+	@Test
+	public void shouldFailWhenFileIsTooLarge() throws IOException {
+		final Path file = Files.createTempFile("javaslang", ".txt");
+		file.toFile().deleteOnExit();
+		// DEV-NOTE: the file is sparse, i.e. no blocks are written
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+			randomAccessFile.setLength(Integer.MAX_VALUE + 1L);
+		}
+		try {
+			assertThat(Inputs.map(file).failed().get()).isInstanceOf(IOException.class).hasMessage(
+					"file too large: " + file);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void shouldViewMappedFileAsCharSequence() throws IOException {
+		final CharSequence text = Inputs.map(tempFile("lorem ipsum")).get();
+		assertThat(text.length()).isEqualTo(11);
+		assertThat(text.charAt(6)).isEqualTo('i');
+		assertThat(text.subSequence(6, 11).toString()).isEqualTo("ipsum");
+		assertThat(text.toString()).isEqualTo("lorem ipsum");
+	}
+
+	@Test
+	public void shouldParseMappedFile() throws IOException {
+		final CharSequence text = Inputs.map(tempFile("{\"a\":[1, 2]}")).get();
+		assertThat(new JSONGrammar().parse(text).get().getValue().getValue()).isEqualTo("{\"a\":[1, 2]}");
+	}
+
+	private static Path tempFile(String content) throws IOException {
+		final Path file = Files.createTempFile("javaslang", ".txt");
+		file.toFile().deleteOnExit();
+		return Files.write(file, content.getBytes(StandardCharsets.ISO_8859_1));
+	}
+}
@@ -0,0 +1,267 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.parser.Grammar._0_1;
+import static javaslang.parser.Grammar._0_n;
+import static javaslang.parser.Grammar._1_n;
+import static javaslang.parser.Grammar.charset;
+import static javaslang.parser.Grammar.list;
+import static javaslang.parser.Grammar.mul;
+import static javaslang.parser.Grammar.not;
+import static javaslang.parser.Grammar.ref;
+import static javaslang.parser.Grammar.rule;
+import static javaslang.parser.Grammar.seq;
+import static javaslang.parser.Grammar.str;
+import static javaslang.parser.Grammar.subrule;
+
+import java.util.concurrent.TimeUnit;
+
+import javaslang.collection.Tree;
+import javaslang.monad.Try;
+import javaslang.parser.Grammar.Memoization;
+import javaslang.parser.Parser.Rule;
+import javaslang.parser.Parser.RulePart;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing JSON with the grammar of the {@link Grammar} Javadoc, on deeply nested and on wide inputs of 1 KB up
+ * to 100 MB.
+ * <p>
+ * The benchmarks are compiled with the tests, where the JMH annotation processor {@code jmh-generator-annprocess}
+ * generates the benchmark classes, and run with the test classpath.
+ * <p>
+ * Besides ops/s the {@link Chars} counter reports the parsed chars per second. Allocation is measured by the GC
+ * profiler, where {@code gc.alloc.rate.norm} divided by {@code size} is the number of bytes allocated per parsed char:
+ *
+ * <pre>
+ * <code>java -cp &lt;test classpath&gt; org.openjdk.jmh.Main JSONBenchmark -prof gc
+ * java -cp &lt;test classpath&gt; org.openjdk.jmh.Main JSONBenchmark -p size=104857600 -jvmArgs -Xmx16g</code>
+ * </pre>
+ *
+ * Per-rule hot spots are reported by {@link ParseProfiler}, see {@link #main(String[])}:
+ *
+ * <pre>
+ * <code>java -cp &lt;test classpath&gt; javaslang.parser.JSONBenchmark nested 1048576 NONE</code>
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JSONBenchmark {
+
+	@Param({ "1024", "1048576", "104857600" })
+	public int size;
+
+	@Param({ "nested", "wide" })
+	public String shape;
+
+	@Param({ "NONE", "ALL_RULES" })
+	public Memoization memoization;
+
+	private String input;
+	private Grammar grammar;
+	private GrammarRecognizer recognizer;
+	private TokenStream tokens;
+
+	@Setup
+	public void setup() {
+		input = generate(shape, size);
+		grammar = new JSONGrammar(memoization);
+		recognizer = grammar.recognizer();
+		tokens = grammar.tokenize(input);
+		// DEV-NOTE: fail fast instead of measuring the failure path
+		grammar.parse(input).get();
+	}
+
+	@Benchmark
+	public Try<Tree<Token>> parse(Chars chars) {
+		chars.chars += input.length();
+		return grammar.parse(input);
+	}
+
+	/**
+	 * Measures parsing to a compact tree, i.e. without allocating a node per token.
+	 */
+	@Benchmark
+	public Try<CompactTree> parseCompact(Chars chars) {
+		chars.chars += input.length();
+		return grammar.parseCompact(input);
+	}
+
+	/**
+	 * Measures parsing a cached token stream, i.e. without applying lexical rules again.
+	 */
+	@Benchmark
+	public Try<Tree<Token>> parseTokens(Chars chars) {
+		chars.chars += input.length();
+		return grammar.parse(tokens);
+	}
+
+	@Benchmark
+	public TokenStream tokenize(Chars chars) {
+		chars.chars += input.length();
+		return grammar.tokenize(input);
+	}
+
+	@Benchmark
+	public boolean recognize(Chars chars) {
+		chars.chars += input.length();
+		return recognizer.matches(input);
+	}
+
+	/**
+	 * Profiles the rules of the JSON grammar with a {@link ParseProfiler}. The listener overhead distorts absolute
+	 * times, compare the rules relative to each other.
+	 *
+	 * @param args The shape ({@code nested} or {@code wide}), the size and the memoization mode of the input, by
+	 *            default {@code nested 1048576 NONE}.
+	 */
+	public static void main(String[] args) {
+		final String shape = (args.length > 0) ? args[0] : "nested";
+		final int size = (args.length > 1) ? Integer.parseInt(args[1]) : 1 << 20;
+		final Memoization memoization = (args.length > 2) ? Memoization.valueOf(args[2]) : Memoization.NONE;
+		final ParseProfiler profiler = new ParseProfiler();
+		new JSONGrammar(memoization).parse(generate(shape, size), profiler).get();
+		System.out.print(profiler);
+	}
+
+	/**
+	 * Generates a JSON text of at least the given length.
+	 *
+	 * @param shape {@code nested} for a top-level array of 100 levels deep values, {@code wide} for a top-level array
+	 *            of flat objects.
+	 * @param size The minimum length of the text.
+	 * @return A JSON text.
+	 */
+	static String generate(String shape, int size) {
+		final StringBuilder builder = new StringBuilder(size + 1024).append('[');
+		for (int i = 0; builder.length() < size; i++) {
+			if (i > 0) {
+				builder.append(",\n");
+			}
+			if ("nested".equals(shape)) {
+				nested(builder, i, 100);
+			} else if ("wide".equals(shape)) {
+				wide(builder, i);
+			} else {
+				throw new IllegalArgumentException("unknown shape: " + shape);
+			}
+		}
+		return builder.append(']').toString();
+	}
+
+	// alternately nests objects and arrays
+	private static void nested(StringBuilder builder, int i, int depth) {
+		for (int level = 0; level < depth; level++) {
+			builder.append((level % 2 == 0) ? "{\"level" + level + "\": " : "[");
+		}
+		builder.append(i);
+		for (int level = depth - 1; level >= 0; level--) {
+			builder.append((level % 2 == 0) ? '}' : ']');
+		}
+	}
+
+	private static void wide(StringBuilder builder, int i) {
+		builder.append("{\"id\": ").append(i)
+				.append(", \"name\": \"item \\\"").append(i).append("\\\"\"")
+				.append(", \"price\": -").append(i % 100).append(".5e2")
+				.append(", \"tags\": [\"a\", \"b\", \"c\"]")
+				.append(", \"active\": ").append(i % 2 == 0)
+				.append(", \"parent\": null}");
+	}
+
+	/**
+	 * Counts the parsed chars, reported as chars per second.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Chars {
+
+		public long chars;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			chars = 0;
+		}
+	}
+
+	/**
+	 * A complete JSON grammar, see <a href="http://json.org">json.org</a>.
+	 */
+	static class JSONGrammar extends Grammar {
+
+		private final Memoization memoization;
+
+		JSONGrammar(Memoization memoization) {
+			super("JSON");
+			this.memoization = memoization;
+		}
+
+		@Override
+		protected Rule getStartRule() {
+			return json();
+		}
+
+		@Override
+		protected Memoization getMemoization() {
+			return memoization;
+		}
+
+		// json : object | array | STRING | NUMBER | 'true' | 'false' | 'null' ;
+		Rule json() {
+			return rule("json", ref(this::object), ref(this::array), ref(this::STRING), ref(this::NUMBER), str("true"),
+					str("false"), str("null"));
+		}
+
+		// object : '{' ( pair ( ',' pair )* )? '}' ;
+		Rule object() {
+			return rule("object", list(ref(this::pair), ",", "{", "}"));
+		}
+
+		// pair : STRING ':' json ;
+		Rule pair() {
+			return rule("pair", seq(ref(this::STRING), str(":"), ref(this::json)));
+		}
+
+		// array : '[' ( json ( ',' json )* )? ']' ;
+		Rule array() {
+			return rule("array", list(ref(this::json), ",", "[", "]"));
+		}
+
+		// STRING : '"' ( ESC | ~["\\] )* '"' ;
+		Rule STRING() {
+			return rule("STRING", seq(str("\""), _0_n(subrule(ESC(), not(charset("\"\\")))), str("\"")));
+		}
+
+		// fragment ESC : '\\' ( ["\\/bfnrt] | 'u' HEX HEX HEX HEX ) ;
+		RulePart ESC() {
+			return seq(str("\\"), subrule(charset("\"\\/bfnrt"), seq(str("u"), mul(4, charset("0-9a-fA-F")))));
+		}
+
+		// NUMBER : '-'? INT ( '.' [0-9]+ )? ( [eE] [+-]? [0-9]+ )? ;
+		Rule NUMBER() {
+			return rule("NUMBER", seq(_0_1(str("-")), _1_n(charset("0-9")), _0_1(str("."), _1_n(charset("0-9"))),
+					_0_1(charset("eE"), _0_1(charset("+-")), _1_n(charset("0-9")))));
+		}
+	}
+}
@@ -0,0 +1,235 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.parser.Grammar._0_1;
+import static javaslang.parser.Grammar._1_n;
+import static javaslang.parser.Grammar.charset;
+import static javaslang.parser.Grammar.ref;
+import static javaslang.parser.Grammar.rule;
+import static javaslang.parser.Grammar.seq;
+import static javaslang.parser.Grammar.str;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javaslang.AssertionsExtensions;
+import javaslang.Requirements.UnsatisfiedRequirementException;
+import javaslang.collection.Node;
+import javaslang.collection.Tree;
+import javaslang.monad.Try;
+import javaslang.parser.Grammar.Memoization;
+import javaslang.parser.LeftRecursion.Role;
+import javaslang.parser.Parser.Rule;
+
+import org.junit.Test;
+
+public class LeftRecursionTest {
+
+	// -- analysis
+
+	@Test
+	public void shouldLeadDirectLeftRecursion() {
+		final ExpressionGrammar grammar = new ExpressionGrammar(Memoization.NONE);
+		final LeftRecursion leftRecursion = grammar.getLeftRecursion();
+		assertThat(leftRecursion.role(grammar.expr())).isEqualTo(Role.LEADER);
+		assertThat(leftRecursion.role(grammar.term())).isEqualTo(Role.LEADER);
+		assertThat(leftRecursion.role(grammar.NUMBER())).isEqualTo(Role.NONE);
+	}
+
+	@Test
+	public void shouldLeadIndirectLeftRecursionByFirstRule() {
+		final IndirectGrammar grammar = new IndirectGrammar();
+		final LeftRecursion leftRecursion = grammar.getLeftRecursion();
+		assertThat(leftRecursion.role(grammar.a())).isEqualTo(Role.LEADER);
+		assertThat(leftRecursion.role(grammar.b())).isEqualTo(Role.INVOLVED);
+	}
+
+	@Test
+	public void shouldDetectLeftRecursionAfterNullablePrefix() {
+		final Rule rule = nullablePrefix();
+		assertThat(Grammar.of("test", rule).getLeftRecursion().role(rule)).isEqualTo(Role.LEADER);
+	}
+
+	@Test
+	public void shouldNotDetectLeftRecursionAfterConsumingPrefix() {
+		final Rule rule = consumingPrefix();
+		assertThat(Grammar.of("test", rule).getLeftRecursion().role(rule)).isEqualTo(Role.NONE);
+	}
+
+	@Test
+	public void shouldThrowWhenCyclesHaveNoCommonRule() {
+		final Grammar grammar = new Grammar("test") {
+
+			@Override
+			protected Rule getStartRule() {
+				return a();
+			}
+
+			// a : b | c | 'x' ; b : a | c ; c : a | b ;
+			Rule a() {
+				return rule("a", ref(this::b), ref(this::c), str("x"));
+			}
+
+			Rule b() {
+				return rule("b", ref(this::a), ref(this::c));
+			}
+
+			Rule c() {
+				return rule("c", ref(this::a), ref(this::b));
+			}
+		};
+		AssertionsExtensions.assertThat(() -> grammar.parse("x")).isThrowing(UnsatisfiedRequirementException.class,
+				"left-recursive rules [a, b, c] have no rule which is part of all cycles");
+	}
+
+	// -- parsing
+
+	@Test
+	public void shouldParseDirectLeftRecursionLeftAssociative() {
+		final String actual = new ExpressionGrammar(Memoization.NONE).parse("1-2+3").get().toLispString();
+		assertThat(actual).isEqualTo(
+				"Tree(root (expr (expr (expr (term '1')) '-' (term '2')) '+' (term '3')) <EOF>)");
+	}
+
+	@Test
+	public void shouldParseNestedLeftRecursion() {
+		final String actual = new ExpressionGrammar(Memoization.NONE).parse("1+2*3*4").get().toLispString();
+		assertThat(actual).isEqualTo(
+				"Tree(root (expr (expr (term '1')) '+' (term (term (term '2') '*' '3') '*' '4')) <EOF>)");
+	}
+
+	@Test
+	public void shouldParseSeedWithoutRecursion() {
+		final String actual = new ExpressionGrammar(Memoization.NONE).parse("42").get().toLispString();
+		assertThat(actual).isEqualTo("Tree(root (expr (term '42')) <EOF>)");
+	}
+
+	@Test
+	public void shouldParseLeftRecursionEquallyWithAndWithoutMemoization() {
+		final String input = "1 * 2 + 3 - 4 * 5 * 6 + 7";
+		final String expected = new ExpressionGrammar(Memoization.NONE).parse(input).get().toString();
+		assertThat(new ExpressionGrammar(Memoization.ALL_RULES).parse(input).get().toString()).isEqualTo(expected);
+	}
+
+	@Test
+	public void shouldParseIndirectLeftRecursion() {
+		final String actual = new IndirectGrammar().parse("yxzx").get().toLispString();
+		assertThat(actual).isEqualTo("Tree(a (b (a (b (a 'y')) 'x') 'z') 'x')");
+	}
+
+	@Test
+	public void shouldParseLexicalLeftRecursion() {
+		assertThat(Grammar.of("test", lexical()).parse("a12").get().toLispString()).isEqualTo("Tree('a12')");
+	}
+
+	@Test
+	public void shouldFailWhenSeedDoesNotMatch() {
+		final Try<?> actual = new ExpressionGrammar(Memoization.NONE).parse("+1");
+		assertThat(actual.failed().get().getMessage()).isEqualTo("cannot parse input at (1, 1)");
+	}
+
+	@Test
+	public void shouldFailAfterLongestMatch() {
+		final Try<?> actual = new ExpressionGrammar(Memoization.NONE).parse("1+2+");
+		assertThat(actual.failed().get().getMessage()).isEqualTo("cannot parse input at (1, 4)");
+	}
+
+	@Test
+	public void shouldRecognizeLeftRecursion() {
+		final ExpressionGrammar grammar = new ExpressionGrammar(Memoization.NONE);
+		final GrammarRecognizer recognizer = grammar.recognizer();
+		for (String input : new String[] { "1", "1+2*3-4", "1+", "*1", "1 + 2 * 3" }) {
+			assertThat(recognizer.matches(input)).isEqualTo(grammar.parse(input).isSuccess());
+		}
+		assertThat(new IndirectGrammar().recognizer().matches("yxzx")).isTrue();
+	}
+
+	@Test
+	public void shouldReparseLeftRecursion() {
+		final ExpressionGrammar grammar = new ExpressionGrammar(Memoization.NONE);
+		final Node<Token> tree = grammar.parse("1+2*3").get().asNode();
+		final String expected = grammar.parse("1+2*3+4").get().asNode().toString();
+		assertThat(grammar.reparse(tree, 5, 0, "+4").get().toString()).isEqualTo(expected);
+	}
+
+	// -- rule definitions
+
+	// rule : '-'? rule '+' | 'x' ;
+	static Rule nullablePrefix() {
+		return rule("rule", seq(_0_1(str("-")), ref(LeftRecursionTest::nullablePrefix), str("+")), str("x"));
+	}
+
+	// rule : '-' rule | 'x' ;
+	static Rule consumingPrefix() {
+		return rule("rule", seq(str("-"), ref(LeftRecursionTest::consumingPrefix)), str("x"));
+	}
+
+	// ID : ID [0-9] | [a-z] ;
+	static Rule lexical() {
+		return rule("ID", seq(ref(LeftRecursionTest::lexical), charset("0-9")), charset("a-z"));
+	}
+
+	// -- Example grammar: arithmetic expressions
+
+	static class ExpressionGrammar extends Grammar {
+
+		final Memoization memoization;
+
+		ExpressionGrammar(Memoization memoization) {
+			super("Expression");
+			this.memoization = memoization;
+		}
+
+		@Override
+		protected Rule getStartRule() {
+			return rule("root", seq(ref(this::expr), EOF));
+		}
+
+		@Override
+		protected Memoization getMemoization() {
+			return memoization;
+		}
+
+		// expr : expr '+' term | expr '-' term | term ;
+		Rule expr() {
+			return rule("expr", seq(ref(this::expr), str("+"), ref(this::term)),
+					seq(ref(this::expr), str("-"), ref(this::term)), ref(this::term));
+		}
+
+		// term : term '*' NUMBER | NUMBER ;
+		Rule term() {
+			return rule("term", seq(ref(this::term), str("*"), ref(this::NUMBER)), ref(this::NUMBER));
+		}
+
+		// NUMBER : [0-9]+ ;
+		Rule NUMBER() {
+			return rule("NUMBER", _1_n(charset("0-9")));
+		}
+	}
+
+	// -- Example grammar: indirect left recursion
+
+	static class IndirectGrammar extends Grammar {
+
+		IndirectGrammar() {
+			super("Indirect");
+		}
+
+		@Override
+		protected Rule getStartRule() {
+			return a();
+		}
+
+		// a : b 'x' | 'y' ;
+		Rule a() {
+			return rule("a", seq(ref(this::b), str("x")), str("y"));
+		}
+
+		// b : a 'z' | a ;
+		Rule b() {
+			return rule("b", seq(ref(this::a), str("z")), ref(this::a));
+		}
+	}
+}
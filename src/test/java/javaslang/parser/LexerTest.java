@@ -0,0 +1,90 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javaslang.AssertionsExtensions;
+import javaslang.Requirements.UnsatisfiedRequirementException;
+import javaslang.parser.GrammarTest.JSONGrammar;
+import javaslang.parser.LiteralTrieTest.KeywordGrammar;
+
+import org.junit.Test;
+
+public class LexerTest {
+
+	// -- tokenize
+
+	@Test
+	public void shouldTokenizeLiteralsAndLexicalRules() {
+		final TokenStream tokens = new KeywordGrammar().tokenize("select 12;\ndrop");
+		assertThat(tokens.toString()).isEqualTo("['select' 'select', NUMBER '12', ';' ';', 'drop' 'drop']");
+	}
+
+	@Test
+	public void shouldTokenizeByLongestMatch() {
+		final TokenStream tokens = new KeywordGrammar().tokenize("selection; set");
+		assertThat(tokens.toString()).isEqualTo("[ID 'selection', ';' ';', 'set' 'set']");
+	}
+
+	@Test
+	public void shouldSkipCharsWhichDoNotStartAToken() {
+		final TokenStream tokens = new KeywordGrammar().tokenize("drop #1");
+		assertThat(tokens.toString()).isEqualTo("['drop' 'drop', NUMBER '1']");
+	}
+
+	@Test
+	public void shouldTokenizeLexicalStartRule() {
+		final TokenStream tokens = Grammar.of("test", LeftRecursionTest.lexical()).tokenize("a12 b");
+		assertThat(tokens.toString()).isEqualTo("[ID 'a12', ID 'b']");
+	}
+
+	@Test
+	public void shouldReturnTokensWithExtent() {
+		final Token token = new KeywordGrammar().tokenize("drop 12").get(1);
+		assertThat(token.getId()).isEqualTo("NUMBER");
+		assertThat(token.getStartIndex()).isEqualTo(5);
+		assertThat(token.getLength()).isEqualTo(2);
+		// DEV-NOTE: [0-9]+ examines the end of the input
+		assertThat(token.extent()).isEqualTo(7);
+	}
+
+	// -- parse
+
+	@Test
+	public void shouldParseTokensLikeText() {
+		final JSONGrammar grammar = new JSONGrammar();
+		for (String text : new String[] { "{ \"a\" : [ 1, 22, true ], \"b\" : { \"c\" : null } }", "[ 1, 2 }", "" }) {
+			assertThat(grammar.parse(grammar.tokenize(text)).toString()).isEqualTo(grammar.parse(text).toString());
+		}
+	}
+
+	@Test
+	public void shouldParseTokensRepeatedly() {
+		final KeywordGrammar grammar = new KeywordGrammar();
+		final TokenStream tokens = grammar.tokenize("set 1; selection");
+		final String expected = grammar.parse("set 1; selection").get().toString();
+		assertThat(grammar.parse(tokens).get().toString()).isEqualTo(expected);
+		assertThat(grammar.parse(tokens).get().toString()).isEqualTo(expected);
+	}
+
+	@Test
+	public void shouldTakeLexicalRuleResultsFromTokens() {
+		final KeywordGrammar grammar = new KeywordGrammar();
+		final TokenStream.Builder builder = new TokenStream.Builder();
+		// DEV-NOTE: a token which the lexer would not produce proves that NUMBER is not applied again
+		builder.add(1, 4, 1, 4);
+		final TokenStream tokens = builder.build(grammar, "set 12", new String[] { "';'", "NUMBER" });
+		assertThat(grammar.parse(tokens).failed().get().getMessage()).isEqualTo("cannot parse input at (1, 6)");
+	}
+
+	@Test
+	public void shouldNotParseTokensOfAnotherGrammar() {
+		final TokenStream tokens = new KeywordGrammar().tokenize("drop");
+		AssertionsExtensions.assertThat(() -> new KeywordGrammar().parse(tokens)).isThrowing(
+				UnsatisfiedRequirementException.class, "tokens of another grammar");
+	}
+}
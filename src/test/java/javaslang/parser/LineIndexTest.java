@@ -0,0 +1,74 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import javaslang.AssertionsExtensions;
+import javaslang.Requirements.UnsatisfiedRequirementException;
+import javaslang.Strings;
+import javaslang.collection.Tuple.Tuple2;
+
+import org.junit.Test;
+
+public class LineIndexTest {
+
+	@Test
+	public void shouldComputeLineAndColumnOfEmptyText() {
+		assertThat(new LineIndex("").lineAndColumn(0).toString()).isEqualTo("(1, 1)");
+	}
+
+	@Test
+	public void shouldComputeLineAndColumnLikeStrings() {
+		final String text = "ab\ncd\r\nef\r\rg\n\nh\r\n";
+		final LineIndex lines = new LineIndex(text);
+		for (int i = 0; i <= text.length(); i++) {
+			assertThat(lines.lineAndColumn(i)).isEqualTo(Strings.lineAndColumn(text, i));
+		}
+	}
+
+	@Test
+	public void shouldComputeLineAndColumnOfDescendingIndices() {
+		final String text = "a\nb\r\nc\rd\r";
+		final LineIndex lines = new LineIndex(text);
+		for (int i = text.length(); i >= 0; i--) {
+			assertThat(lines.lineAndColumn(i)).isEqualTo(Strings.lineAndColumn(text, i));
+		}
+	}
+
+	@Test
+	public void shouldComputeLineAndColumnOfTextStartingAtIndex() {
+		final String text = "ab\r\ncd\ne\r\rf";
+		for (int start = 0; start <= text.length(); start++) {
+			final Tuple2<Integer, Integer> position = Strings.lineAndColumn(text, start);
+			final boolean afterCarriageReturn = start > 0 && text.charAt(start - 1) == '\r';
+			final LineIndex lines = new LineIndex(text, start, position._1, position._2, afterCarriageReturn);
+			for (int i = start; i <= text.length(); i++) {
+				assertThat(lines.lineAndColumn(i)).isEqualTo(Strings.lineAndColumn(text, i));
+			}
+		}
+	}
+
+	@Test
+	public void shouldGrowIndexOfManyLines() {
+		final StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			text.append("line\n");
+		}
+		assertThat(new LineIndex(text).lineAndColumn(text.length() - 2).toString()).isEqualTo("(100, 4)");
+	}
+
+	@Test
+	public void shouldThrowWhenIndexIsOutOfBounds() {
+		AssertionsExtensions.assertThat(() -> new LineIndex("ab").lineAndColumn(3)).isThrowing(
+				UnsatisfiedRequirementException.class, "index out of bounds");
+	}
+
+	@Test
+	public void shouldThrowWhenIndexIsBeforeStart() {
+		AssertionsExtensions.assertThat(() -> new LineIndex("abc", 2, 1, 3, false).lineAndColumn(1)).isThrowing(
+				UnsatisfiedRequirementException.class, "index out of bounds");
+	}
+}
@@ -0,0 +1,168 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.parser.Grammar.EOF;
+import static javaslang.parser.Grammar._0_n;
+import static javaslang.parser.Grammar._1_n;
+import static javaslang.parser.Grammar.charset;
+import static javaslang.parser.Grammar.ref;
+import static javaslang.parser.Grammar.rule;
+import static javaslang.parser.Grammar.seq;
+import static javaslang.parser.Grammar.str;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+
+import javaslang.collection.Node;
+import javaslang.collection.Tree;
+import javaslang.monad.Try;
+import javaslang.parser.Parser.Rule;
+
+import org.junit.Test;
+
+public class LiteralTrieTest {
+
+	// -- matching
+
+	@Test
+	public void shouldFindFirstMatchInOrderOfLiterals() {
+		final LiteralTrie trie = new LiteralTrie("in", "int", "i");
+		assertThat(trie.firstMatch(Source.of("int"), 0)).isEqualTo(0);
+		assertThat(trie.firstMatch(Source.of("ix"), 0)).isEqualTo(2);
+		assertThat(trie.firstMatch(Source.of("x"), 0)).isEqualTo(-1);
+	}
+
+	@Test
+	public void shouldFindLongestMatch() {
+		final LiteralTrie trie = new LiteralTrie("in", "int", "i");
+		assertThat(trie.longestMatch(Source.of("integer"), 0)).isEqualTo(1);
+		assertThat(trie.longestMatch(Source.of("if"), 0)).isEqualTo(2);
+		assertThat(trie.longestMatch(Source.of(" in"), 1)).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldPreferLowestIndexOfEqualLiterals() {
+		final LiteralTrie trie = new LiteralTrie("a", null, "a");
+		assertThat(trie.firstMatch(Source.of("a"), 0)).isEqualTo(0);
+		assertThat(trie.longestMatch(Source.of("a"), 0)).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldNotMatchPrefixOfLiteralAtEndOfInput() {
+		final LiteralTrie trie = new LiteralTrie("true");
+		assertThat(trie.firstMatch(Source.of("tru"), 0)).isEqualTo(-1);
+	}
+
+	// -- dispatching
+
+	@Test
+	public void shouldNotBuildTrieWhenDispatchTableIsSufficient() {
+		final Rule rule = rule("rule", str("true"), str("false"), str("null"));
+		final FirstSets firstSets = new FirstSets(Collections.singleton(rule), Whitespace.DEFAULT);
+		final int[][] dispatchTable = firstSets.dispatchTable(rule.alternatives, false);
+		assertThat(firstSets.literalTrie(rule.alternatives, false, dispatchTable)).isNull();
+	}
+
+	@Test
+	public void shouldDispatchAlternativesByLiteralPrefix() {
+		final KeywordGrammar grammar = new KeywordGrammar();
+		final Rule statement = grammar.statement();
+		final FirstSets firstSets = grammar.getFirstSets();
+		final LiteralTrie trie = firstSets.literalTrie(statement.alternatives, false,
+				firstSets.dispatchTable(statement.alternatives, false));
+		assertThat(viableAlternatives(trie, "select 1")).containsExactly(0, 5);
+		assertThat(viableAlternatives(trie, "set 1")).containsExactly(1, 5);
+		assertThat(viableAlternatives(trie, "setting")).containsExactly(1, 5);
+		assertThat(viableAlternatives(trie, "sex")).containsExactly(5);
+		assertThat(viableAlternatives(trie, "1")).isNull();
+	}
+
+	@Test
+	public void shouldDispatchLiteralAlternativesWithCommonPrefix() {
+		final Rule rule = rule("rule", str("in"), str("int"), str("if"));
+		final FirstSets firstSets = new FirstSets(Collections.singleton(rule), Whitespace.DEFAULT);
+		final LiteralTrie trie = firstSets.literalTrie(rule.alternatives, false,
+				firstSets.dispatchTable(rule.alternatives, false));
+		assertThat(viableAlternatives(trie, "int")).containsExactly(0, 1);
+		assertThat(viableAlternatives(trie, "if")).containsExactly(2);
+		assertThat(viableAlternatives(trie, "i")).isEmpty();
+	}
+
+	@Test
+	public void shouldNotDecideSequencesByLiteralStartingWithWhitespace() {
+		final Rule rule = rule("rule", seq(str(" x"), str("y")), seq(str(" z"), str("y")), seq(str("z"), str("y")));
+		final FirstSets firstSets = new FirstSets(Collections.singleton(rule), Whitespace.DEFAULT);
+		final LiteralTrie trie = firstSets.literalTrie(rule.alternatives, false,
+				firstSets.dispatchTable(rule.alternatives, false));
+		// DEV-NOTE: after skipping whitespace the third alternative matches " zy"
+		assertThat(viableAlternatives(trie, " x")).containsExactly(0, 1, 2);
+	}
+
+	// -- parsing
+
+	@Test
+	public void shouldParseKeywordsLikeOrderedChoice() {
+		final KeywordGrammar grammar = new KeywordGrammar();
+		assertThat(grammar.parse("set 1; select 2; settle; sel").get().toLispString()).isEqualTo(
+				"Tree(statements (statement 'set' '1') ';' (statement 'select' '2') ';' (statement 'settle') ';'"
+						+ " (statement 'sel') <EOF>)");
+	}
+
+	@Test
+	public void shouldReportSameFailureIndexWhenDispatchingByTrie() {
+		final Try<Tree<Token>> actual = new KeywordGrammar().parse("select x");
+		assertThat(actual.failed().get().getMessage()).isEqualTo("cannot parse input at (1, 8)");
+	}
+
+	@Test
+	public void shouldReparseWhenEditCompletesKeyword() {
+		final KeywordGrammar grammar = new KeywordGrammar();
+		final Node<Token> tree = grammar.parse("sel; sel").get().asNode();
+		final String expected = grammar.parse("sel; select 1").get().asNode().toString();
+		assertThat(grammar.reparse(tree, 8, 0, "ect 1").get().toString()).isEqualTo(expected);
+	}
+
+	private static int[] viableAlternatives(LiteralTrie trie, String text) {
+		final ParseContext context = new ParseContext(text);
+		return trie.viableAlternatives(context, 0);
+	}
+
+	// -- Example grammar: keyword-led statements
+
+	static class KeywordGrammar extends Grammar {
+
+		KeywordGrammar() {
+			super("Keyword");
+		}
+
+		@Override
+		protected Rule getStartRule() {
+			return statements();
+		}
+
+		// statements : statement ( ';' statement )* EOF ;
+		Rule statements() {
+			return rule("statements", seq(ref(this::statement), _0_n(str(";"), ref(this::statement)), EOF));
+		}
+
+		// statement : 'select' NUMBER | 'set' NUMBER | 'settle' | 'delete' NUMBER | 'drop' | ID ;
+		Rule statement() {
+			return rule("statement", seq(str("select"), ref(this::NUMBER)), seq(str("set"), ref(this::NUMBER)),
+					str("settle"), seq(str("delete"), ref(this::NUMBER)), str("drop"), ref(this::ID));
+		}
+
+		// NUMBER : [0-9]+ ;
+		Rule NUMBER() {
+			return rule("NUMBER", _1_n(charset("0-9")));
+		}
+
+		// ID : [a-z]+ ;
+		Rule ID() {
+			return rule("ID", _1_n(charset("a-z")));
+		}
+	}
+}
@@ -0,0 +1,210 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.parser.Grammar._0_n;
+import static javaslang.parser.Grammar.charset;
+import static javaslang.parser.Grammar.mul;
+import static javaslang.parser.Grammar.ref;
+import static javaslang.parser.Grammar.rule;
+import static javaslang.parser.Grammar.seq;
+import static javaslang.parser.Grammar.str;
+import static javaslang.parser.Grammar.subrule;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javaslang.AssertionsExtensions;
+import javaslang.Requirements.UnsatisfiedRequirementException;
+import javaslang.Serializables;
+import javaslang.parser.Grammar.Memoization;
+import javaslang.parser.GrammarTest.JSONGrammar;
+import javaslang.parser.GrammarTest.StatementGrammar;
+import javaslang.parser.LeftRecursionTest.ExpressionGrammar;
+import javaslang.parser.LiteralTrieTest.KeywordGrammar;
+import javaslang.parser.Parser.Reference;
+import javaslang.parser.Parser.Rule;
+import javaslang.parser.Parser.Sequence;
+
+import org.junit.Test;
+
+public class OptimizedGrammarTest {
+
+	// -- optimize
+
+	@Test
+	public void shouldFlattenNestedSequences() {
+		final Rule rule = optimize(rule("root", seq(str("a"), seq(str("b"), seq(str("c"), str("d"))))));
+		assertThat(rule.toString()).isEqualTo("root : 'a' 'b' 'c' 'd' ;");
+	}
+
+	@Test
+	public void shouldFlattenSubrules() {
+		final Rule rule = optimize(rule("root", subrule(str("a"), subrule(str("b"), str("c"))), str("d")));
+		assertThat(rule.alternatives).hasSize(4);
+	}
+
+	@Test
+	public void shouldMergeAdjacentLiteralsOfLexicalRules() {
+		final Rule rule = optimize(rule("HEX", seq(str("0"), str("x"), charset("0-9a-f"), str("h"))));
+		assertThat(rule.toString()).isEqualTo("HEX : '0x' [0-9a-f] 'h' ;");
+	}
+
+	@Test
+	public void shouldNotMergeAdjacentLiteralsOfParserRules() {
+		final Rule rule = optimize(rule("root", seq(str("a"), str("b"))));
+		assertThat(rule.toString()).isEqualTo("root : 'a' 'b' ;");
+	}
+
+	@Test
+	public void shouldRemoveQuantifierOnce() {
+		final Rule rule = optimize(rule("root", seq(mul(1, str("a")), mul(1, str("b"), str("c")))));
+		assertThat(rule.toString()).isEqualTo("root : 'a' 'b' 'c' ;");
+	}
+
+	@Test
+	public void shouldKeepPureQuantifierOnceInParserScope() {
+		final Rule rule = optimize(rule("root", seq(mul(1, charset("a-z")), str("c"))));
+		assertThat(rule.toString()).isEqualTo("root : [a-z]{1} 'c' ;");
+	}
+
+	@Test
+	public void shouldNotFlattenSubrulesWithCut() {
+		final Rule rule = optimize(rule("root", subrule(seq(str("a"), Grammar.CUT, str("b")), str("c")), str("d")));
+		assertThat(rule.toString()).isEqualTo("root : ( 'a' ^ 'b' | 'c' )\n     | 'd'\n     ;");
+	}
+
+	@Test
+	public void shouldShareEqualParts() {
+		final Rule rule = optimize(rule("root", seq(str("a"), ref(OptimizedGrammarTest::digits)), seq(str("b"),
+				ref(OptimizedGrammarTest::digits))));
+		final Sequence sequence1 = (Sequence) rule.alternatives[0];
+		final Sequence sequence2 = (Sequence) rule.alternatives[1];
+		assertThat(sequence1.parsers[1]).isSameAs(sequence2.parsers[1]);
+	}
+
+	@Test
+	public void shouldResolveReferences() {
+		final Rule rule = optimize(rule("root", ref(OptimizedGrammarTest::digits)));
+		assertThat(((Reference) rule.alternatives[0]).rule).isNotNull();
+	}
+
+	// -- check
+
+	@Test
+	public void shouldThrowWhenRuleNeverMatches() {
+		AssertionsExtensions.assertThat(() -> optimize(rule("root", str("x"), ref(OptimizedGrammarTest::endless))))
+				.isThrowing(UnsatisfiedRequirementException.class, "rule 'endless' never matches");
+	}
+
+	@Test
+	public void shouldThrowWhenAlternativeIsNeverTried() {
+		AssertionsExtensions.assertThat(() -> optimize(rule("root", _0_n(str("a")), str("b")))).isThrowing(
+				UnsatisfiedRequirementException.class, "alternatives of rule 'root' after 'a'* are never tried");
+	}
+
+	// -- parse
+
+	@Test
+	public void shouldParseJSONLikeOriginal() {
+		assertParsesLikeOriginal(new JSONGrammar(), "{ \"a\" : [ 1, 2, true ], \"b\" : { \"c\" : null } }",
+				"[ 1, 2 }");
+	}
+
+	@Test
+	public void shouldParseKeywordsLikeOriginal() {
+		assertParsesLikeOriginal(new KeywordGrammar(), "set 1; select 2; settle; sel", "select x");
+	}
+
+	@Test
+	public void shouldParseLeftRecursionLikeOriginal() {
+		assertParsesLikeOriginal(new ExpressionGrammar(Memoization.ALL_RULES), "1 * 2 + 3 - 4 * 5", "1+");
+	}
+
+	@Test
+	public void shouldParseOperatorsLikeOriginal() {
+		assertParsesLikeOriginal(Grammar.of("Operators", ParserTest.arithmetic()), "1 + 2 * 3 ^ 4 ^ 5 - 6", "1 +");
+	}
+
+	// -- concurrency
+
+	@Test
+	public void shouldCreateStartRuleOnce() {
+		final OptimizedGrammar grammar = new JSONGrammar().optimize();
+		assertThat(grammar.getStartRule()).isSameAs(grammar.getStartRule());
+	}
+
+	@Test
+	public void shouldParseConcurrently() throws Exception {
+		final JSONGrammar original = new JSONGrammar();
+		final OptimizedGrammar grammar = original.optimize();
+		final List<String> texts = IntStream.range(0, 64).mapToObj(i -> (i % 8 == 7) ? "[ " + i + ", }"
+				: "{ \"a\" : [ " + i + ", true ], \"b\" : { \"c\" : null } }").collect(Collectors.toList());
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			final List<Future<String>> results = new ArrayList<>();
+			for (String text : texts) {
+				results.add(executor.submit(() -> grammar.parse(text).toString()));
+			}
+			for (int i = 0; i < texts.size(); i++) {
+				assertThat(results.get(i).get()).isEqualTo(original.parse(texts.get(i)).toString());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	// -- serialization
+
+	@Test
+	public void shouldParseLikeOriginalAfterDeserialization() {
+		final OptimizedGrammar grammar = new ExpressionGrammar(Memoization.ALL_RULES).optimize();
+		final OptimizedGrammar deserialized = Serializables.deserialize(Serializables.serialize(grammar));
+		assertThat(deserialized.getMemoization()).isEqualTo(Memoization.ALL_RULES);
+		assertThat(deserialized.toString()).isEqualTo(grammar.toString());
+		assertThat(deserialized.parse("1 * 2 + 3 - 4 * 5").toString()).isEqualTo(
+				grammar.parse("1 * 2 + 3 - 4 * 5").toString());
+	}
+
+	@Test
+	public void shouldRecoverLikeOriginalAfterDeserialization() {
+		final OptimizedGrammar grammar = new StatementGrammar().optimize();
+		final OptimizedGrammar deserialized = Serializables.deserialize(Serializables.serialize(grammar));
+		assertThat(deserialized.getSynchronizationTokens("statement")).containsExactly("set", "drop");
+		final String text = "set x = 1 d; drop x; set y = ;";
+		assertThat(deserialized.parseWithRecovery(text, 10, error -> {}).toString()).isEqualTo(
+				new StatementGrammar().parseWithRecovery(text, 10, error -> {}).toString());
+	}
+
+	// -- helpers
+
+	private static Rule optimize(Rule rule) {
+		return Grammar.of("test", rule).optimize().getStartRule();
+	}
+
+	private static void assertParsesLikeOriginal(Grammar grammar, String... texts) {
+		final OptimizedGrammar optimizedGrammar = grammar.optimize();
+		for (String text : texts) {
+			assertThat(optimizedGrammar.parse(text).toString()).isEqualTo(grammar.parse(text).toString());
+		}
+	}
+
+	// DIGITS : [0-9]+ ;
+	static Rule digits() {
+		return rule("DIGITS", Grammar._1_n(charset("0-9")));
+	}
+
+	// endless : 'x' endless ;
+	static Rule endless() {
+		return rule("endless", seq(str("x"), ref(OptimizedGrammarTest::endless)));
+	}
+}
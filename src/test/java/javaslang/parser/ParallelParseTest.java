@@ -0,0 +1,59 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javaslang.collection.Tree;
+import javaslang.parser.GrammarTest.JSONGrammar;
+import javaslang.parser.GrammarTest.JSONLinesGrammar;
+
+import org.junit.Test;
+
+public class ParallelParseTest {
+
+	private static final String JSON_LINES = Stream.iterate(0, i -> i + 1).limit(100)
+			.map(i -> "[" + i + ", {\"a\":" + i + "}]")
+			.collect(Collectors.joining("\n"));
+
+	@Test
+	public void shouldNotParseGrammarInParallelWhoseStartRuleIsNoRepetition() {
+		assertThat(ParallelParse.of(new JSONGrammar())).isNull();
+	}
+
+	@Test
+	public void shouldStitchChunksToSameTreeAsSequentialParse() {
+		final JSONLinesGrammar grammar = new JSONLinesGrammar();
+		final int[] boundaries = ParallelParse.split(Source.of(JSON_LINES), JSON_LINES.length(), "\n", 8);
+		assertThat(boundaries).hasSize(7);
+		final Tree<Token> tree = ParallelParse.of(grammar).parse(JSON_LINES, boundaries);
+		assertThat(tree).isEqualTo(grammar.parse(JSON_LINES).get());
+	}
+
+	@Test
+	public void shouldNotStitchChunksWhenBoundaryIsNoRecordStart() {
+		final JSONLinesGrammar grammar = new JSONLinesGrammar();
+		assertThat(ParallelParse.of(grammar).parse(JSON_LINES, new int[] { 1 })).isNull();
+	}
+
+	@Test
+	public void shouldSplitAfterDelimiter() {
+		assertThat(ParallelParse.split(Source.of("a\nbb\nccc\nd"), 10, "\n", 3)).containsExactly(5, 9);
+	}
+
+	@Test
+	public void shouldNotSplitBeyondLastDelimiter() {
+		assertThat(ParallelParse.split(Source.of("aaaaaaaa\nb"), 10, "\n", 4)).containsExactly(9);
+	}
+
+	@Test
+	public void shouldSelectBoundariesOfEvenlySizedChunks() {
+		assertThat(ParallelParse.select(new int[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 }, 10, 2)).containsExactly(5);
+	}
+}
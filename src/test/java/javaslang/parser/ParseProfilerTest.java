@@ -0,0 +1,127 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.parser.Grammar.ref;
+import static javaslang.parser.Grammar.rule;
+import static javaslang.parser.Grammar.seq;
+import static javaslang.parser.Grammar.str;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javaslang.parser.Grammar.Memoization;
+import javaslang.parser.GrammarTest.JSONGrammar;
+import javaslang.parser.ParseProfiler.RuleProfile;
+import javaslang.parser.Parser.Rule;
+
+import org.junit.Test;
+
+public class ParseProfilerTest {
+
+	@Test
+	public void shouldCountInvocationsMatchesAndFailures() {
+		final RuleProfile aa = profile(profile("aa y"), "aa");
+		assertThat(aa.getInvocations()).isEqualTo(2);
+		assertThat(aa.getMatches()).isEqualTo(2);
+		assertThat(aa.getFailures()).isEqualTo(0);
+		final RuleProfile root = profile(profile("aa z"), "root");
+		assertThat(root.getInvocations()).isEqualTo(1);
+		assertThat(root.getMatches()).isEqualTo(0);
+		assertThat(root.getFailures()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldCountConsumedChars() {
+		final ParseProfiler profiler = profile("aa y");
+		assertThat(profile(profiler, "root").getConsumed()).isEqualTo(4);
+		assertThat(profile(profiler, "aa").getConsumed()).isEqualTo(4);
+	}
+
+	@Test
+	public void shouldCountRescannedCharsOfBacktracking() {
+		final ParseProfiler profiler = profile("aa y");
+		assertThat(profile(profiler, "root").getRescanned()).isEqualTo(0);
+		assertThat(profile(profiler, "aa").getRescanned()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldNotCountRescannedCharsOfMemoizedRule() {
+		final ParseProfiler profiler = new ParseProfiler();
+		new Grammar("memoized") {
+
+			@Override
+			protected Rule getStartRule() {
+				return backtracking().getStartRule();
+			}
+
+			@Override
+			protected Memoization getMemoization() {
+				return Memoization.ALL_RULES;
+			}
+		}.parse("aa y", profiler).get();
+		final RuleProfile aa = profile(profiler, "aa");
+		assertThat(aa.getInvocations()).isEqualTo(2);
+		assertThat(aa.getRescanned()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldNotCountRescannedCharsOfSeparateParseRuns() {
+		final ParseProfiler profiler = new ParseProfiler();
+		backtracking().parse("aa x", profiler);
+		backtracking().parse("aa x", profiler);
+		final RuleProfile aa = profile(profiler, "aa");
+		assertThat(aa.getInvocations()).isEqualTo(2);
+		assertThat(aa.getRescanned()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldOrderProfilesByTime() {
+		final ParseProfiler profiler = new ParseProfiler();
+		new JSONGrammar().parse("{ \"a\" : [ 1, 2, true ], \"b\" : { \"c\" : null } }", profiler);
+		final List<Long> nanos = profiler.getProfiles().stream().map(RuleProfile::getNanos)
+				.collect(Collectors.toList());
+		assertThat(nanos).isSortedAccordingTo((n1, n2) -> Long.compare(n2, n1));
+		assertThat(profiler.getProfiles()).extracting("name").contains("json", "object", "array");
+	}
+
+	@Test
+	public void shouldResetProfiles() {
+		final ParseProfiler profiler = profile("aa y");
+		profiler.reset();
+		assertThat(profiler.getProfiles()).isEmpty();
+	}
+
+	@Test
+	public void shouldReportProfiles() {
+		final String report = profile("aa y").toString();
+		assertThat(report).startsWith("rule").contains("invocations", "rescanned", "root", "aa");
+	}
+
+	// -- helpers
+
+	private static ParseProfiler profile(String text) {
+		final ParseProfiler profiler = new ParseProfiler();
+		backtracking().parse(text, profiler);
+		return profiler;
+	}
+
+	private static RuleProfile profile(ParseProfiler profiler, String rule) {
+		return profiler.getProfiles().stream().filter(profile -> profile.getName().equals(rule)).findFirst().get();
+	}
+
+	// root : aa 'x' | aa 'y' ;
+	private static Grammar backtracking() {
+		return Grammar.of("backtracking", rule("root", seq(ref(ParseProfilerTest::aa), str("x")), seq(
+				ref(ParseProfilerTest::aa), str("y"))));
+	}
+
+	// aa : 'aa' ;
+	static Rule aa() {
+		return rule("aa", str("aa"));
+	}
+}
@@ -7,6 +7,8 @@ package javaslang.parser;
 
 import static java.util.Collections.emptyList;
 import static javaslang.collection.Node.node;
+import static javaslang.parser.Grammar.Associativity.LEFT;
+import static javaslang.parser.Grammar.Associativity.RIGHT;
 import static javaslang.parser.Parser.Quantifier.UNBOUNDED;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -18,6 +20,7 @@ import java.util.stream.Collectors;
 
 import javaslang.AssertionsExtensions;
 import javaslang.AssertionsExtensions.CheckedRunnable;
+import javaslang.Requirements.UnsatisfiedRequirementException;
 import javaslang.Serializables;
 import javaslang.collection.Node;
 import javaslang.monad.Either;
@@ -25,10 +28,13 @@ import javaslang.monad.Left;
 import javaslang.monad.Right;
 import javaslang.parser.Parser.Any;
 import javaslang.parser.Parser.Charset;
+import javaslang.parser.Parser.Cut;
 import javaslang.parser.Parser.EOF;
 import javaslang.parser.Parser.Empty;
 import javaslang.parser.Parser.Literal;
 import javaslang.parser.Parser.Negation;
+import javaslang.parser.Parser.Operators;
+import javaslang.parser.Parser.Operators.Level;
 import javaslang.parser.Parser.ParseResult;
 import javaslang.parser.Parser.Quantifier;
 import javaslang.parser.Parser.Range;
@@ -109,6 +115,18 @@ public class ParserTest {
 		AssertionsExtensions.assertThat(actual).isThrowing(AssertionError.class, "no match at index 0");
 	}
 
+	@Test
+	public void shouldParseCharWithinCharsetWithUnicodeRange() {
+		final String actual = parse(new Charset("a-zА-я"), "Ж", false);
+		assertThat(actual).isEqualTo("Ж");
+	}
+
+	@Test
+	public void shouldParseDashAfterRangeWithinCharset() {
+		final String actual = parse(new Charset("a-c-e"), "-", false);
+		assertThat(actual).isEqualTo("-");
+	}
+
 	@Test
 	public void shouldParseCharWithinFullFledgedCharsetTestingSingleChar() {
 		final String actual = parse(new Charset("a-z$_A-Z"), "$", false);
@@ -144,6 +162,31 @@ public class ParserTest {
 		assertThat(new Charset("a").isPure()).isTrue();
 	}
 
+	// -- Cut parser
+
+	@Test
+	public void shouldConvertCutToString() {
+		assertThat(Cut.INSTANCE.toString()).isEqualTo("^");
+	}
+
+	@Test
+	public void shouldRecognizeCutWithoutToken() {
+		assertThat(Cut.INSTANCE.parse("abc", 1, false).toString()).isEqualTo("Right([])");
+	}
+
+	@Test
+	public void shouldNotBePureCut() {
+		assertThat(Cut.INSTANCE.isPure()).isFalse();
+	}
+
+	// serialization
+
+	@Test
+	public void shouldPreserveSingletonWhenDeserializingCut() {
+		final Object cut = Serializables.deserialize(Serializables.serialize(Cut.INSTANCE));
+		assertThat(cut == Cut.INSTANCE).isTrue();
+	}
+
 	// -- Empty parser
 
 	@Test
@@ -279,6 +322,79 @@ public class ParserTest {
 		assertThat(new Negation(Any.INSTANCE).isPure()).isTrue();
 	}
 
+	// -- Operators parser
+
+	@Test
+	public void shouldConvertOperatorsToString() {
+		assertThat(arithmetic().toString()).isEqualTo(
+				"arithmetic : <assoc=right> arithmetic '^' arithmetic | arithmetic ( '*' | '/' ) arithmetic"
+						+ " | arithmetic ( '+' | '-' ) arithmetic | INT ;");
+	}
+
+	@Test
+	public void shouldParseOperand() {
+		final String actual = arithmetic().parse("42", 0, false).toString();
+		assertThat(actual).isEqualTo("Right([Node(arithmetic '42')])");
+	}
+
+	@Test
+	public void shouldParseLeftAssociativeOperators() {
+		final String actual = arithmetic().parse("1-2+3", 0, false).toString();
+		assertThat(actual).isEqualTo("Right([Node(arithmetic (arithmetic '1' '-' '2') '+' '3')])");
+	}
+
+	@Test
+	public void shouldParseRightAssociativeOperators() {
+		final String actual = arithmetic().parse("2^3^4", 0, false).toString();
+		assertThat(actual).isEqualTo("Right([Node(arithmetic '2' '^' (arithmetic '3' '^' '4'))])");
+	}
+
+	@Test
+	public void shouldParseOperatorsByPrecedence() {
+		final String actual = arithmetic().parse("1 + 2 * 3 ^ 4 - 5", 0, false).toString();
+		assertThat(actual).isEqualTo(
+				"Right([Node(arithmetic (arithmetic '1' '+' (arithmetic '2' '*' (arithmetic '3' '^' '4'))) '-' '5')])");
+	}
+
+	@Test
+	public void shouldParseLongestOperator() {
+		final Rule rule = new Rule("rule", new Operators("rule", new Charset("0-9"), new Level(LEFT, "*"), new Level(
+				RIGHT, "**")));
+		final String actual = rule.parse("2**3*4", 0, false).toString();
+		assertThat(actual).isEqualTo("Right([Node(rule (rule '2' '**' '3') '*' '4')])");
+	}
+
+	@Test
+	public void shouldNotParseOperatorWithoutRightOperand() {
+		final Either<Integer, ParseResult> actual = arithmetic().parse("1+2*", 0, false);
+		assertThat(actual.get().endIndex).isEqualTo(3);
+		assertThat(actual.toString()).isEqualTo("Right([Node(arithmetic '1' '+' '2')])");
+	}
+
+	@Test
+	public void shouldNotParseOperatorsWithoutOperand() {
+		assertThat(arithmetic().parse("+1", 0, false).toString()).isEqualTo("Left(0)");
+	}
+
+	@Test
+	public void shouldThrowWhenLevelHasNoOperators() {
+		AssertionsExtensions.assertThat(() -> new Level(LEFT)).isThrowing(UnsatisfiedRequirementException.class,
+				"operators is null or empty");
+	}
+
+	@Test
+	public void shouldGetChildrenOfOperators() {
+		final Operators operators = new Operators("rule", Any.INSTANCE, new Level(LEFT, "+"));
+		assertThat(operators.getChildren()).isEqualTo(new Parser[] { Any.INSTANCE });
+	}
+
+	// arithmetic : <assoc=right> arithmetic '^' arithmetic | arithmetic ( '*' | '/' ) arithmetic | ... | INT ;
+	static Rule arithmetic() {
+		return new Rule("arithmetic", new Operators("arithmetic", new Reference(() -> new Rule("INT", new Quantifier(
+				new Range('0', '9'), 1, UNBOUNDED))), new Level(LEFT, "+", "-"), new Level(LEFT, "*", "/"), new Level(
+				RIGHT, "^")));
+	}
+
 	// -- Quantifier parser
 
 	@Test
@@ -0,0 +1,67 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import javaslang.AssertionsExtensions;
+import javaslang.Requirements.UnsatisfiedRequirementException;
+
+import org.junit.Test;
+
+public class RevisionTest {
+
+	@Test
+	public void shouldNotMapIndicesOfLatestRevision() {
+		final Revision revision = new Revision("abc", null);
+		assertThat(revision.isLatest()).isTrue();
+		assertThat(revision.latest()).isSameAs(revision);
+		assertThat(revision.map(2)).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldMapIndicesAfterEditedRegion() {
+		final Revision revision = new Revision("abcdef", null);
+		final Revision edited = new Revision("abXYZdef", null);
+		revision.edit(3, 2, edited);
+		assertThat(revision.isLatest()).isFalse();
+		assertThat(revision.latest()).isSameAs(edited);
+		assertThat(revision.map(1)).isEqualTo(1);
+		assertThat(revision.map(3)).isEqualTo(5);
+		assertThat(revision.map(5)).isEqualTo(7);
+	}
+
+	@Test
+	public void shouldMapIndicesByAllEdits() {
+		final Revision revision = new Revision("abcdefghij", null);
+		final Revision removed = new Revision("abghij", null);
+		final Revision inserted = new Revision("abgXYhij", null);
+		revision.edit(6, -4, removed);
+		assertThat(revision.map(6)).isEqualTo(2);
+		removed.edit(3, 2, inserted);
+		assertThat(revision.latest()).isSameAs(inserted);
+		assertThat(revision.map(1)).isEqualTo(1);
+		assertThat(revision.map(6)).isEqualTo(2);
+		assertThat(revision.map(7)).isEqualTo(5);
+		assertThat(revision.map(9)).isEqualTo(7);
+		assertThat(removed.map(3)).isEqualTo(5);
+	}
+
+	@Test
+	public void shouldShareLineIndexOfLatestRevision() {
+		final Revision revision = new Revision("a\nb", null);
+		final Revision edited = new Revision("a\nb\nc", null);
+		revision.edit(3, 2, edited);
+		assertThat(revision.lines()).isSameAs(edited.lines());
+	}
+
+	@Test
+	public void shouldThrowWhenEditingRevisionTwice() {
+		final Revision revision = new Revision("abc", null);
+		revision.edit(0, 1, new Revision("xabc", null));
+		AssertionsExtensions.assertThat(() -> revision.edit(0, 1, new Revision("yabc", null))).isThrowing(
+				UnsatisfiedRequirementException.class, "revision was already edited");
+	}
+}
@@ -0,0 +1,107 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static javaslang.parser.Grammar._0_n;
+import static javaslang.parser.Grammar.level;
+import static javaslang.parser.Grammar.operators;
+import static javaslang.parser.Grammar.ref;
+import static javaslang.parser.Grammar.rule;
+import static javaslang.parser.Grammar.seq;
+import static javaslang.parser.Grammar.str;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.stream.IntStream;
+
+import javaslang.AssertionsExtensions;
+import javaslang.Requirements.UnsatisfiedRequirementException;
+import javaslang.parser.Grammar.Associativity;
+import javaslang.parser.GrammarTest.JSONGrammar;
+import javaslang.parser.GrammarTest.StatementGrammar;
+import javaslang.parser.Parser.Rule;
+
+import org.junit.Test;
+
+public class SyncSetsTest {
+
+	@Test
+	public void shouldComputeFollowSetsOfJSON() {
+		final SyncSets syncSets = new JSONGrammar().getSyncSets();
+		assertThat(follow(syncSets, "json")).isEqualTo(",]}");
+		assertThat(follow(syncSets, "object")).isEqualTo(",]}");
+		assertThat(follow(syncSets, "array")).isEqualTo(",]}");
+	}
+
+	@Test
+	public void shouldAddNextIterationToFollowSet() {
+		final Rule item = rule("item", str("a"), str("b"));
+		final SyncSets syncSets = Grammar.of("test", rule("root", seq(_0_n(ref(() -> item)), str(";")))).getSyncSets();
+		assertThat(follow(syncSets, "item")).isEqualTo(";ab");
+		assertThat(follow(syncSets, "root")).isEmpty();
+	}
+
+	@Test
+	public void shouldAddOperatorsToFollowSetOfOperand() {
+		final Rule operand = rule("operand", str("x"));
+		final Rule expr = operators("expr", ref(() -> operand), level(Associativity.LEFT, "+", "-"),
+				level(Associativity.LEFT, "*"));
+		final SyncSets syncSets = Grammar.of("test", rule("root", seq(ref(() -> expr), str(";")))).getSyncSets();
+		assertThat(follow(syncSets, "operand")).isEqualTo("*+-;");
+	}
+
+	@Test
+	public void shouldMayFollowAtEndOfInputAndOutsideOfLatin1() {
+		final SyncSets syncSets = new JSONGrammar().getSyncSets();
+		assertThat(syncSets.mayFollow("json", Source.of(""), 0)).isTrue();
+		assertThat(syncSets.mayFollow("json", Source.of("€"), 0)).isTrue();
+	}
+
+	@Test
+	public void shouldResyncAfterWhitespace() {
+		final SyncSets syncSets = new JSONGrammar().getSyncSets();
+		assertThat(syncSets.resync("json", Source.of("x y  , z"), 0)).isEqualTo(5);
+	}
+
+	@Test
+	public void shouldResyncAtEndOfInput() {
+		final SyncSets syncSets = new JSONGrammar().getSyncSets();
+		assertThat(syncSets.resync("json", Source.of("x y "), 0)).isEqualTo(4);
+	}
+
+	@Test
+	public void shouldResyncAtDeclaredTokens() {
+		final SyncSets syncSets = new StatementGrammar().getSyncSets();
+		assertThat(syncSets.tokens("statement")).containsExactly("set", "drop");
+		assertThat(syncSets.tokens("statements")).isNull();
+		assertThat(syncSets.resync("statement", Source.of("x = 1 d; drop x;"), 0)).isEqualTo(9);
+	}
+
+	@Test
+	public void shouldThrowWhenSynchronizationTokenIsEmpty() {
+		final Grammar grammar = new Grammar("test") {
+
+			@Override
+			protected Rule getStartRule() {
+				return rule("root", str("a"));
+			}
+
+			@Override
+			protected String[] getSynchronizationTokens(String rule) {
+				return new String[] { "" };
+			}
+		};
+		AssertionsExtensions.assertThat(() -> grammar.getSyncSets()).isThrowing(UnsatisfiedRequirementException.class,
+				"synchronization token of rule 'root' is null or empty");
+	}
+
+	// the Latin-1 chars which may follow the given rule, in order
+	private static String follow(SyncSets syncSets, String rule) {
+		return IntStream.range(0, FirstSets.SIZE)
+				.filter(c -> syncSets.mayFollow(rule, Source.of(String.valueOf((char) c)), 0))
+				.collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
+				.toString();
+	}
+}
@@ -7,10 +7,14 @@ package javaslang.parser;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.List;
 import java.util.Objects;
 
 import javaslang.AssertionsExtensions;
 import javaslang.Requirements.UnsatisfiedRequirementException;
+import javaslang.collection.Node;
+import javaslang.collection.Tree;
+import javaslang.monad.Try;
 
 import org.junit.Test;
 
@@ -63,6 +67,12 @@ public class TokenTest {
 		assertThat(token.getText()).isEqualTo("text");
 	}
 
+	@Test
+	public void shouldGetTextOfCharSequenceAsString() {
+		final Token token = new Token(null, new StringBuilder("text"), 0, 0);
+		assertThat(token.getText()).isEqualTo("text");
+	}
+
 	@Test
 	public void shouldGetStartIndex() {
 		final Token token = new Token(null, "abc", 1, 2);
@@ -93,6 +103,119 @@ public class TokenTest {
 		assertThat(token.getValue()).isEqualTo("");
 	}
 
+	@Test
+	public void shouldGetStartLineAndColumn() {
+		final Token token = new Token(null, "a\r\nbc\nd", 4, 3);
+		assertThat(token.getStartLineAndColumn().toString()).isEqualTo("(2, 2)");
+	}
+
+	@Test
+	public void shouldGetEndLineAndColumn() {
+		final Token token = new Token(null, "a\r\nbc\nd", 4, 3);
+		assertThat(token.getEndLineAndColumn().toString()).isEqualTo("(3, 2)");
+	}
+
+	@Test
+	public void shouldGetLineAndColumnOfTokensOfParseTree() {
+		final Tree<Token> tree = new GrammarTest.CutGrammar().parse("let a = 1;\nb;\r\nlet c = 2;").get();
+		final Token record = tree.getChildren().get(2).getValue();
+		assertThat(record.getStartLineAndColumn().toString()).isEqualTo("(3, 1)");
+		assertThat(record.getEndLineAndColumn().toString()).isEqualTo("(3, 11)");
+	}
+
+	@Test
+	public void shouldShareLineIndexOfCombinedTokens() {
+		final TreeBuffer tree = new TreeBuffer();
+		tree.token(0, 1);
+		tree.token(1, 1);
+		final List<Node<Token>> tokens = tree.toNodes("ab", 0);
+		final Token combined = new Parser.ParseResult(tokens, 0, 2, true).tokens.get(0).getValue();
+		assertThat(combined.getValue()).isEqualTo("ab");
+		assertThat(combined.lines()).isSameAs(tokens.get(0).getValue().lines());
+	}
+
+	// -- zero-copy value
+
+	@Test
+	public void shouldViewValueAsCharSequence() {
+		final CharSequence value = new Token(null, "javaslang", 4, 5).asCharSequence();
+		assertThat(value.length()).isEqualTo(5);
+		assertThat(value.charAt(0)).isEqualTo('s');
+		assertThat(value.subSequence(1, 3).toString()).isEqualTo("la");
+		assertThat(value.toString()).isEqualTo("slang");
+	}
+
+	@Test
+	public void shouldThrowWhenCharOfViewIsOutOfBounds() {
+		final CharSequence value = new Token(null, "javaslang", 4, 5).asCharSequence();
+		AssertionsExtensions.assertThat(() -> value.charAt(5)).isThrowing(IndexOutOfBoundsException.class,
+				"index: 5, length: 5");
+	}
+
+	@Test
+	public void shouldCompareContentOfStringAndOtherText() {
+		for (CharSequence text : new CharSequence[] { "let x", new StringBuilder("let x") }) {
+			final Token token = new Token(null, text, 0, 3);
+			assertThat(token.contentEquals("let")).isTrue();
+			assertThat(token.contentEquals("lex")).isFalse();
+			assertThat(token.contentEquals("let x")).isFalse();
+			assertThat(token.contentEquals(null)).isFalse();
+		}
+	}
+
+	@Test
+	public void shouldHashValueLikeString() {
+		final Token token = new Token(null, "a javaslang", 2, 9);
+		assertThat(token.valueHashCode()).isEqualTo("javaslang".hashCode());
+	}
+
+	@Test
+	public void shouldParseIntLikeInteger() {
+		for (String value : new String[] { "0", "42", "-42", "+7", "007", "2147483647", "-2147483648" }) {
+			assertThat(new Token(null, value, 0, value.length()).parseInt()).isEqualTo(Integer.parseInt(value));
+		}
+	}
+
+	@Test
+	public void shouldParseLongLikeLong() {
+		for (String value : new String[] { "0", "-1", "9223372036854775807", "-9223372036854775808" }) {
+			assertThat(new Token(null, value, 0, value.length()).parseLong()).isEqualTo(Long.parseLong(value));
+		}
+	}
+
+	@Test
+	public void shouldThrowWhenValueIsNotAnInt() {
+		for (String value : new String[] { "", "-", "+", "1a", "2147483648", "99999999999999999999", "1.0" }) {
+			AssertionsExtensions.assertThat(() -> new Token(null, value, 0, value.length()).parseInt()).isThrowing(
+					NumberFormatException.class, "For input string: \"" + value + "\"");
+		}
+	}
+
+	@Test
+	public void shouldParseDoubleLikeDouble() {
+		for (String value : new String[] { "0", "-0", "1.5", "-2.25", ".5", "1.", "3.14159", "1e10", "1E-5", "2.5e+3",
+				"0.1", "123456789012345678", "9007199254740993", "1e23", "1e-400", "4.9e-324", "NaN", "-Infinity",
+				"1d", "0x1p3", " 1 " }) {
+			final double actual = new Token(null, "[" + value + "]", 1, value.length()).parseDouble();
+			assertThat(Double.doubleToRawLongBits(actual)).isEqualTo(Double.doubleToRawLongBits(Double.parseDouble(
+					value)));
+		}
+	}
+
+	@Test
+	public void shouldThrowWhenValueIsNotADouble() {
+		for (String value : new String[] { "", ".", "-", "1e", ".9e", "4.2e", "2.9e-", "1.5e+", "1..2", "a" }) {
+			final String message = Try.of(() -> Double.parseDouble(value)).failed().get().getMessage();
+			AssertionsExtensions.assertThat(() -> new Token(null, value, 0, value.length()).parseDouble())
+					.isThrowing(NumberFormatException.class, message);
+		}
+	}
+
+	@Test
+	public void shouldConvertValueToStringWithoutSubstring() {
+		assertThat(new Token(null, new StringBuilder("a bc d"), 2, 2).toString()).isEqualTo("'bc'");
+	}
+
 	// -- Object.*
 
 	// equals
@@ -0,0 +1,169 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javaslang.collection.Node;
+
+import org.junit.Test;
+
+public class TreeBufferTest {
+
+	@Test
+	public void shouldBuildNoNodesOfEmptyBuffer() {
+		assertThat(new TreeBuffer().toNodes("", 0)).isEmpty();
+	}
+
+	@Test
+	public void shouldBuildNestedSymbols() {
+		final TreeBuffer tree = new TreeBuffer();
+		final int outer = tree.mark();
+		tree.token(0, 1);
+		final int inner = tree.mark();
+		tree.token(2, 1);
+		tree.token(4, 1);
+		tree.symbol("inner", 2, 3, 4, inner);
+		tree.symbol("outer", 0, 5, 4, outer);
+		assertThat(tree.toNodes("a b c", 0).toString()).isEqualTo("[Node(outer 'a' (inner 'b' 'c'))]");
+	}
+
+	@Test
+	public void shouldBuildTopLevelNodesAfterMark() {
+		final TreeBuffer tree = new TreeBuffer();
+		tree.token(0, 1);
+		final int mark = tree.mark();
+		tree.token(1, 1);
+		tree.token(2, 1);
+		assertThat(tree.toNodes("abc", mark).toString()).isEqualTo("[Node('b'), Node('c')]");
+	}
+
+	@Test
+	public void shouldDiscardNodesOnReset() {
+		final TreeBuffer tree = new TreeBuffer();
+		tree.token(0, 1);
+		final int mark = tree.mark();
+		tree.token(1, 1);
+		tree.reset(mark);
+		assertThat(tree.toNodes("ab", 0).toString()).isEqualTo("[Node('a')]");
+	}
+
+	@Test
+	public void shouldBuildReusedSubtreeAsItIs() {
+		final Node<Token> subtree = new Node<>(new Token("inner", "b", 0, 1));
+		final TreeBuffer tree = new TreeBuffer();
+		final int mark = tree.mark();
+		tree.token(0, 1);
+		tree.reuse(subtree, 2, 1, 2);
+		tree.symbol("outer", 0, 3, 2, mark);
+		final Node<Token> outer = tree.toNodes("a b", 0).get(0);
+		assertThat(outer.getChildren().get(1)).isSameAs(subtree);
+	}
+
+	@Test
+	public void shouldNotBuildReusedSubtreeAfterReset() {
+		final TreeBuffer tree = new TreeBuffer();
+		final int mark = tree.mark();
+		tree.reuse(new Node<>(new Token("inner", "b", 0, 1)), 0, 1, 0);
+		tree.reset(mark);
+		tree.token(0, 1);
+		assertThat(tree.toNodes("a", 0).toString()).isEqualTo("[Node('a')]");
+	}
+
+	@Test
+	public void shouldCombineMultipleNodesToOneToken() {
+		final TreeBuffer tree = new TreeBuffer();
+		final int mark = tree.mark();
+		tree.token(0, 1);
+		tree.token(1, 1);
+		tree.combine(mark, 0, 2);
+		assertThat(tree.toNodes("ab", 0).toString()).isEqualTo("[Node('ab')]");
+	}
+
+	@Test
+	public void shouldCountTopLevelNodes() {
+		final TreeBuffer tree = new TreeBuffer();
+		final int mark = tree.mark();
+		tree.token(0, 1);
+		final int inner = tree.mark();
+		tree.token(1, 1);
+		tree.symbol("inner", 1, 1, 1, inner);
+		assertThat(tree.count(mark)).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldAppendCopy() {
+		final TreeBuffer tree = new TreeBuffer();
+		final int mark = tree.mark();
+		tree.token(0, 1);
+		tree.symbol("rule", 0, 1, 0, mark);
+		final TreeBuffer copy = tree.copy(mark);
+		tree.append(copy);
+		assertThat(tree.toNodes("a", 0).toString()).isEqualTo("[Node(rule 'a'), Node(rule 'a')]");
+	}
+
+	@Test
+	public void shouldAppendRetainedRecords() {
+		final TreeBuffer tree = new TreeBuffer();
+		final int mark = tree.mark();
+		tree.token(0, 1);
+		tree.symbol("rule", 0, 1, 0, mark);
+		final TreeBuffer.Records records = tree.retain(mark);
+		tree.append(records);
+		assertThat(tree.toNodes("a", 0).toString()).isEqualTo("[Node(rule 'a'), Node(rule 'a')]");
+	}
+
+	@Test
+	public void shouldKeepRetainedRecordsWhenDiscardedOnReset() {
+		final TreeBuffer tree = new TreeBuffer();
+		final int mark = tree.mark();
+		tree.token(0, 1);
+		tree.symbol("rule", 0, 1, 0, mark);
+		final TreeBuffer.Records records = tree.retain(mark);
+		tree.reset(mark);
+		tree.token(1, 1);
+		tree.append(records);
+		assertThat(tree.toNodes("ab", 0).toString()).isEqualTo("[Node('b'), Node(rule 'a')]");
+	}
+
+	@Test
+	public void shouldKeepRetainedRecordsWhenDiscardedOnCombine() {
+		final TreeBuffer tree = new TreeBuffer();
+		final int mark = tree.mark();
+		tree.token(0, 1);
+		final TreeBuffer.Records records = tree.retain(mark);
+		tree.token(1, 1);
+		tree.combine(mark, 0, 2);
+		tree.append(records);
+		assertThat(tree.toNodes("ab", 0).toString()).isEqualTo("[Node('ab'), Node('a')]");
+	}
+
+	@Test
+	public void shouldKeepNestedRetainedRecordsWhenDiscarded() {
+		final TreeBuffer tree = new TreeBuffer();
+		final int outer = tree.mark();
+		tree.token(0, 1);
+		final int inner = tree.mark();
+		tree.token(1, 1);
+		final TreeBuffer.Records innerRecords = tree.retain(inner);
+		tree.symbol("outer", 0, 2, 1, outer);
+		final TreeBuffer.Records outerRecords = tree.retain(outer);
+		tree.reset(outer);
+		tree.append(innerRecords);
+		tree.append(outerRecords);
+		assertThat(tree.toNodes("ab", 0).toString()).isEqualTo("[Node('b'), Node(outer 'a' 'b')]");
+	}
+
+	@Test
+	public void shouldGrowBeyondInitialCapacity() {
+		final TreeBuffer tree = new TreeBuffer();
+		final int count = 1000;
+		for (int i = 0; i < count; i++) {
+			tree.token(i, 1);
+		}
+		assertThat(tree.toNodes(new String(new char[count]), 0).size()).isEqualTo(count);
+	}
+}
@@ -0,0 +1,95 @@
+/**    / \____  _    ______   _____ / \____   ____  _____
+ *    /  \__  \/ \  / \__  \ /  __//  \__  \ /    \/ __  \   Javaslang
+ *  _/  // _\  \  \/  / _\  \\_  \/  // _\  \  /\  \__/  /   Copyright 2014 Daniel Dietrich
+ * /___/ \_____/\____/\_____/____/\___\_____/_/  \_/____/    Licensed under the Apache License, Version 2.0
+ */
+package javaslang.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javaslang.AssertionsExtensions;
+import javaslang.Requirements.UnsatisfiedRequirementException;
+
+import org.junit.Test;
+
+public class WhitespaceTest {
+
+	static final Whitespace JAVA_WS = Whitespace.of(" \t\r\n").withLineComment("//").withBlockComment("/*", "*/");
+
+	// -- requirements
+
+	@Test
+	public void shouldThrowWhenCharsAreEmpty() {
+		AssertionsExtensions.assertThat(() -> Whitespace.of("")).isThrowing(UnsatisfiedRequirementException.class,
+				"chars is null or empty");
+	}
+
+	@Test
+	public void shouldThrowWhenLineCommentIsNull() {
+		AssertionsExtensions.assertThat(() -> Whitespace.DEFAULT.withLineComment(null)).isThrowing(
+				UnsatisfiedRequirementException.class, "start is null or empty");
+	}
+
+	@Test
+	public void shouldThrowWhenBlockCommentEndIsEmpty() {
+		AssertionsExtensions.assertThat(() -> Whitespace.DEFAULT.withBlockComment("/*", "")).isThrowing(
+				UnsatisfiedRequirementException.class, "end is null or empty");
+	}
+
+	// -- skip
+
+	@Test
+	public void shouldNotSkipNonWhitespace() {
+		assertThat(Whitespace.DEFAULT.skip("x ", 0)).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldSkipWhitespaceChars() {
+		assertThat(Whitespace.DEFAULT.skip("x \t\r\n x", 1)).isEqualTo(6);
+	}
+
+	@Test
+	public void shouldSkipWhitespaceUpToEndOfInput() {
+		assertThat(Whitespace.DEFAULT.skip("x  ", 1)).isEqualTo(3);
+	}
+
+	@Test
+	public void shouldNotSkipCommentsByDefault() {
+		assertThat(Whitespace.DEFAULT.skip(" // comment", 0)).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldSkipLineCommentIncludingLineFeed() {
+		assertThat(JAVA_WS.skip("// comment\nx", 0)).isEqualTo(11);
+	}
+
+	@Test
+	public void shouldSkipLineCommentAtEndOfInput() {
+		assertThat(JAVA_WS.skip("x // comment", 1)).isEqualTo(12);
+	}
+
+	@Test
+	public void shouldSkipBlockComment() {
+		assertThat(JAVA_WS.skip("/* a\nb */x", 0)).isEqualTo(9);
+	}
+
+	@Test
+	public void shouldNotSkipUnterminatedBlockComment() {
+		assertThat(JAVA_WS.skip(" /* a", 0)).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldSkipMixedWhitespaceAndComments() {
+		assertThat(JAVA_WS.skip(" /**/ // a\n\t/* b */ x", 0)).isEqualTo(20);
+	}
+
+	// -- mayStartWith
+
+	@Test
+	public void shouldStartWithWhitespaceCharOrCommentStart() {
+		assertThat(JAVA_WS.mayStartWith(' ')).isTrue();
+		assertThat(JAVA_WS.mayStartWith('/')).isTrue();
+		assertThat(JAVA_WS.mayStartWith('*')).isFalse();
+		assertThat(Whitespace.DEFAULT.mayStartWith('/')).isFalse();
+	}
+}